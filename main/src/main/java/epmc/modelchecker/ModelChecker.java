@@ -26,6 +26,8 @@ import java.io.Closeable;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -53,8 +55,6 @@ import epmc.value.Value;
 
 // TODO complete documentation
 
-// TODO could optionally construct graph for all properties together
-
 /**
  * Class to check the properties of a model.
  * The model checker will check all properties obtained by
@@ -75,6 +75,12 @@ public final class ModelChecker implements Closeable {
     private LowLevel lowLevel;
     /** Whether the model checker has already been closed. */
     private boolean closed;
+    /** Whether one low-level model is shared by all properties checked. */
+    private final boolean shareLowLevel;
+    /** Whether {@link #lowLevel} is the low-level model shared by all properties. */
+    private boolean lowLevelShared;
+    /** Properties checked using the shared low-level model. */
+    private List<Expression> sharedProperties = Collections.emptyList();
 
     /**
      * Prepare model checker for the given model.
@@ -89,6 +95,7 @@ public final class ModelChecker implements Closeable {
         engine = UtilOptions.getSingletonInstance(options,
                 OptionsModelChecker.ENGINE);
         solvers = preparePropertySolvers(options);
+        shareLowLevel = options.getBoolean(OptionsModelChecker.SHARE_LOW_LEVEL);
     }
 
     /**
@@ -167,42 +174,102 @@ public final class ModelChecker implements Closeable {
 
     /**
      * Check all properties of the model.
+     * If {@link OptionsModelChecker#SHARE_LOW_LEVEL} is set, a single
+     * low-level model providing the graph, node, and edge properties required
+     * by all selected properties is built before checking the first property
+     * and is then used for all of them. If building this shared model fails,
+     * the low-level model is built separately for each property instead, such
+     * that errors are reported per property as without sharing.
      */
     public void check() {
         long time = System.nanoTime();
         getLog().send(MessagesModelChecker.MODEL_CHECKING);
-        boolean hasProperties = false;
+        List<RawProperty> properties = new ArrayList<>();
+        List<Expression> expressions = new ArrayList<>();
         if (model.getPropertyList() != null) {
+            List<String> propertyNames = Options.get().getStringList(OptionsEPMC.PROPERTY_INPUT_NAMES);
             for (RawProperty property : model.getPropertyList().getRawProperties()) {
-                String propString;
-                propString = property.getName();
-                List<String> propertyNames = Options.get().getStringList(OptionsEPMC.PROPERTY_INPUT_NAMES);
+                String propString = property.getName();
                 // only check specified properties
                 if(propertyNames != null && propertyNames.size() > 0 && !propertyNames.contains(propString)) {
                 	continue;
                 }
-                hasProperties = true;
-                if (propString == null) {
-                    propString = property.getDefinition();
-                }
-                getLog().send(MessagesModelChecker.ANALYSING_PROPERTY, propString);
-                Expression expression = model.getPropertyList().getParsedProperty(property);
-                ModelCheckerResult propRes = null;
-                try {
-                    propRes = checkProperty(property, expression);
-                } catch (EPMCException e) {
-                    propRes = new ModelCheckerResult(property, e);
+                properties.add(property);
+                expressions.add(model.getPropertyList().getParsedProperty(property));
+            }
+        }
+        if (shareLowLevel && !properties.isEmpty()) {
+            try {
+                prepareSharedLowLevel(expressions);
+            } catch (EPMCException e) {
+                if (lowLevel != null) {
+                    lowLevel.close();
+                    lowLevel = null;
                 }
-                getLog().send(propRes);
+                lowLevelShared = false;
+            }
+        }
+        for (int propNr = 0; propNr < properties.size(); propNr++) {
+            RawProperty property = properties.get(propNr);
+            Expression expression = expressions.get(propNr);
+            String propString = property.getName();
+            if (propString == null) {
+                propString = property.getDefinition();
+            }
+            getLog().send(MessagesModelChecker.ANALYSING_PROPERTY, propString);
+            ModelCheckerResult propRes = null;
+            try {
+                propRes = checkProperty(property, expression);
+            } catch (EPMCException e) {
+                propRes = new ModelCheckerResult(property, e);
             }
+            getLog().send(propRes);
         }
         time = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - time);
-        if(! hasProperties) {
+        if(properties.isEmpty()) {
         	System.out.println("No property has been specified");
         }
         getLog().send(MessagesModelChecker.MODEL_CHECKING_DONE, time);
     }
 
+    /**
+     * Prepare a low-level model usable to check all given properties.
+     * The graph, node, and edge properties required by the solvers of all
+     * properties are collected and a single low-level model providing all of
+     * them is built.
+     * Properties for which no solver is available are ignored here; checking
+     * them later on will report the according error.
+     * The properties parameter must not be {@code null}.
+     * 
+     * @param properties properties to construct low-level model for
+     */
+    private void prepareSharedLowLevel(List<Expression> properties) {
+        assert properties != null;
+        if (lowLevel != null) {
+            lowLevel.close();
+            lowLevel = null;
+        }
+        lowLevelShared = false;
+        sharedProperties = Collections.emptyList();
+        Set<Object> graphProperties = new LinkedHashSet<>();
+        Set<Object> nodeProperties = new LinkedHashSet<>();
+        Set<Object> edgeProperties = new LinkedHashSet<>();
+        for (Expression property : properties) {
+            PropertySolver solver;
+            try {
+                solver = getSolverFor(property, null);
+            } catch (EPMCException e) {
+                continue;
+            }
+            graphProperties.addAll(solver.getRequiredGraphProperties());
+            nodeProperties.addAll(solver.getRequiredNodeProperties());
+            edgeProperties.addAll(solver.getRequiredEdgeProperties());
+        }
+        lowLevel = UtilModelChecker.buildLowLevel(model, graphProperties, nodeProperties, edgeProperties);
+        lowLevelShared = true;
+        sharedProperties = new ArrayList<>(properties);
+    }
+
     /**
      * Prepare low-level model usable to check the given property.
      * Low-level models are property-dependent, because for efficiency, certain
@@ -231,7 +298,7 @@ public final class ModelChecker implements Closeable {
      * This method already returns a single value, rather than a map from states
      * to values.
      * The method also prepares the low-level model to be used for the given
-     * property.
+     * property, unless a low-level model shared by all properties is used.
      * The property parameter must not be {@code null}.
      * 
      * @param expression property to be checked
@@ -240,11 +307,13 @@ public final class ModelChecker implements Closeable {
     private ModelCheckerResult checkProperty(RawProperty property, Expression expression) {
         assert property != null;
         assert expression != null;
-        if (lowLevel != null) {
-            lowLevel.close();
-            lowLevel = null;
+        if (!lowLevelShared) {
+            if (lowLevel != null) {
+                lowLevel.close();
+                lowLevel = null;
+            }
+            lowLevel = prepareLowLevel(expression);
         }
-        lowLevel = prepareLowLevel(expression);
 
         StateMap stateMap = check(expression, lowLevel.newInitialStateSet());
         Value value = stateMap.subsumeResult(lowLevel.newInitialStateSet());
@@ -388,6 +457,21 @@ public final class ModelChecker implements Closeable {
         return (T) lowLevel;
     }
 
+    /**
+     * Get the properties checked using the shared low-level model.
+     * Property solvers may use this list to compute results needed by later
+     * properties together with the ones of the property currently checked.
+     * If the low-level model is not shared, the list is empty.
+     * 
+     * @return properties checked using the shared low-level model
+     */
+    public List<Expression> getSharedProperties() {
+        if (!lowLevelShared) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(sharedProperties);
+    }
+
     @Override
     public void close() {
         if (closed) {
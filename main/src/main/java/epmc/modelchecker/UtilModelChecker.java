@@ -130,6 +130,11 @@ public final class UtilModelChecker {
         .setBundleName(OptionsModelChecker.OPTIONS_MODEL_CHECKER)
         .setType(OptionTypeBoolean.getInstance())
         .setCommandLine().setGui().setWeb().build();
+
+        options.addOption().setIdentifier(OptionsModelChecker.SHARE_LOW_LEVEL)
+        .setBundleName(OptionsModelChecker.OPTIONS_MODEL_CHECKER)
+        .setType(OptionTypeBoolean.getInstance()).setDefault(false)
+        .setCommandLine().setGui().setWeb().build();
     }
 
     public static LowLevel buildLowLevel(
@@ -51,4 +51,7 @@ public enum OptionsModelChecker {
     MODEL_INPUT_TYPE,
 
     COMPUTE_SCHEDULER,
+    /** Whether to build one low-level model used for all properties
+     * ({@link Boolean}). */
+    SHARE_LOW_LEVEL,
 }
@@ -325,6 +325,105 @@ public final class ComponentsExplicit {
         return endComponents(graph, existingNodes, false);        
     }
 
+    /**
+     * Compute the strongly connected components of a graph in reverse
+     * topological order.
+     * The nodes of the components are written to the nodes parameter, such
+     * that the nodes of the i-th component are stored from {@code bounds[i]}
+     * (inclusive) to {@code bounds[i+1]} (exclusive). Components are ordered
+     * such that each component only has edges to itself and to components of
+     * lower index. In contrast to
+     * {@link #stronglyConnectedComponents(GraphExplicit)}, no bit set is
+     * constructed per component, so that this method is also suitable for
+     * graphs with a large number of trivial components. The nodes array must
+     * have at least as many entries as the graph has nodes, the bounds array
+     * one more entry than this.
+     * 
+     * @param graph graph to decompose
+     * @param nodes array to write nodes of components to
+     * @param bounds array to write bounds of components to
+     * @return number of components
+     */
+    public int stronglyConnectedComponents(GraphExplicit graph, int[] nodes, int[] bounds) {
+        assert graph != null;
+        int numNodes = graph.getNumNodes();
+        assert nodes != null;
+        assert nodes.length >= numNodes;
+        assert bounds != null;
+        assert bounds.length >= numNodes + 1;
+        int[] dfs = new int[numNodes];
+        int[] lowlink = new int[numNodes];
+        int[] stack = new int[numNodes];
+        int[] callNodeStack = new int[numNodes];
+        int[] callSuccStack = new int[numNodes];
+        BitSet visited = UtilBitSet.newBitSetUnbounded(numNodes);
+        BitSet inStack = UtilBitSet.newBitSetUnbounded(numNodes);
+        int maxDfs = 0;
+        int numComponents = 0;
+        int numWritten = 0;
+        bounds[0] = 0;
+        for (int root = 0; root < numNodes; root++) {
+            if (visited.get(root)) {
+                continue;
+            }
+            int stackIndex = 0;
+            int callStackIndex = 0;
+            int node = root;
+            int succIter = 0;
+            dfs[node] = maxDfs;
+            lowlink[node] = maxDfs;
+            maxDfs++;
+            stack[stackIndex] = node;
+            stackIndex++;
+            inStack.set(node);
+            visited.set(node);
+            while (true) {
+                if (succIter < graph.getNumSuccessors(node)) {
+                    int succNode = graph.getSuccessorNode(node, succIter);
+                    succIter++;
+                    if (!visited.get(succNode)) {
+                        callNodeStack[callStackIndex] = node;
+                        callSuccStack[callStackIndex] = succIter;
+                        callStackIndex++;
+                        node = succNode;
+                        succIter = 0;
+                        dfs[node] = maxDfs;
+                        lowlink[node] = maxDfs;
+                        maxDfs++;
+                        stack[stackIndex] = node;
+                        stackIndex++;
+                        inStack.set(node);
+                        visited.set(node);
+                    } else if (inStack.get(succNode)) {
+                        lowlink[node] = Math.min(lowlink[node], dfs[succNode]);
+                    }
+                } else {
+                    if (lowlink[node] == dfs[node]) {
+                        int sccNode;
+                        do {
+                            stackIndex--;
+                            sccNode = stack[stackIndex];
+                            inStack.set(sccNode, false);
+                            nodes[numWritten] = sccNode;
+                            numWritten++;
+                        } while (sccNode != node);
+                        numComponents++;
+                        bounds[numComponents] = numWritten;
+                    }
+                    if (callStackIndex == 0) {
+                        break;
+                    }
+                    callStackIndex--;
+                    int child = node;
+                    node = callNodeStack[callStackIndex];
+                    succIter = callSuccStack[callStackIndex];
+                    lowlink[node] = Math.min(lowlink[node], lowlink[child]);
+                }
+            }
+        }
+        return numComponents;
+    }
+
     public EndComponents endComponents(GraphExplicit graph, boolean mecsOnly) {
         BitSet existingStates = UtilBitSet.newBitSetUnbounded(graph.getNumNodes());
         existingStates.flip(0, graph.getNumNodes());
@@ -24,11 +24,15 @@ import java.util.Map;
 
 import epmc.main.options.OptionsEPMC;
 import epmc.modelchecker.CommandTask;
+import epmc.options.OptionTypeEnum;
+import epmc.options.OptionTypeIntegerNonNegative;
 import epmc.options.Options;
 import epmc.plugin.AfterOptionsCreation;
 
 public class AfterOptionsCreationCommandExplore implements AfterOptionsCreation {
     private final static String IDENTIFIER = "after-object-creation-command-explore";
+    /** Default table size for approximate exploration, 2^30 bits = 128 MB. */
+    private final static int DEFAULT_APPROXIMATION_TABLE_BITS = 30;
 
     @Override
     public String getIdentifier() {
@@ -48,5 +52,15 @@ public class AfterOptionsCreationCommandExplore implements AfterOptionsCreation
         .setWeb()
         .build();
         commandTaskClasses.put(OptionsCommandExplore.EXPLORE.name().toLowerCase(), CommandTaskExplore.class);
+        options.addOption().setBundleName(OptionsCommandExplore.OPTIONS_COMMAND_EXPLORE)
+        .setIdentifier(OptionsCommandExplore.EXPLORE_APPROXIMATION)
+        .setType(new OptionTypeEnum(OptionsTypesCommandExplore.Approximation.class))
+        .setDefault(OptionsTypesCommandExplore.Approximation.NONE)
+        .setCommandLine().setGui().setWeb().build();
+        options.addOption().setBundleName(OptionsCommandExplore.OPTIONS_COMMAND_EXPLORE)
+        .setIdentifier(OptionsCommandExplore.EXPLORE_APPROXIMATION_TABLE_BITS)
+        .setType(OptionTypeIntegerNonNegative.getInstance())
+        .setDefault(DEFAULT_APPROXIMATION_TABLE_BITS)
+        .setCommandLine().setGui().setWeb().build();
     }
 }
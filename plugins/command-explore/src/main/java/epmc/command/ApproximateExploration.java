@@ -0,0 +1,387 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+package epmc.command;
+
+import java.util.Arrays;
+
+import epmc.graph.CommonProperties;
+import epmc.graph.explorer.Explorer;
+import epmc.graph.explorer.ExplorerNode;
+import epmc.graph.explorer.ExplorerNodeProperty;
+import epmc.util.BitStream;
+
+/**
+ * Approximate breadth-first exploration of the state space of an explorer.
+ * Instead of storing explored nodes explicitly, only a compact
+ * representation of them is stored, so that the size of large state spaces
+ * can be estimated quickly. Using hash compaction, a 64-bit fingerprint of
+ * each explored node is stored in an open-addressing hash table. Using
+ * bitstate hashing, each explored node sets a few bits of a Bloom filter. In
+ * both cases, distinct nodes might be mistaken for each other, so that some
+ * nodes and their successors are omitted. The numbers computed are thus lower
+ * bounds. The probability of omissions and the expected number of omitted
+ * nodes are estimated as well.
+ * The table has a fixed size, but the frontier of nodes found but not yet
+ * explored has to be stored in full, as nodes cannot be reconstructed from
+ * the table. The frontier is stored as a packed array of words, and its
+ * maximal size is recorded, so that the memory used for it can be reported.
+ * For models with very wide breadth-first layers, it may thus still exceed
+ * the memory of the table.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+final class ApproximateExploration {
+    /** Number of hash functions used for bitstate hashing. */
+    private final static int NUM_BITSTATE_HASHES = 3;
+    /** Maximal load factor of the hash compaction table. */
+    private final static double MAX_LOAD = 0.9;
+    /** Binary logarithm of number of bits of a long. */
+    private final static int LOG2LONGSIZE = 6;
+    /** Number of bits of a fingerprint. */
+    private final static int FINGERPRINT_BITS = Long.SIZE;
+
+    /** Explorer to explore state space of. */
+    private final Explorer explorer;
+    /** Approximation method used. */
+    private final OptionsTypesCommandExplore.Approximation approximation;
+    /** Fingerprints stored, or bits of Bloom filter. */
+    private final long[] table;
+    /** Number of bits of the table. */
+    private final long tableBits;
+    /** Number of words to store a node. */
+    private final int nodeWords;
+    /** Bit stream used to encode nodes to words. */
+    private final WordBitStream stream;
+    /** Number of entries of the table used. */
+    private long tableUsed;
+    private long numNodes;
+    private long numStates;
+    private long numTransitions;
+    private long numDeadlocks;
+    /** Expected number of nodes omitted due to bitstate collisions. */
+    private double expectedOmitted;
+    /** Whether the table was full so that exploration stopped early. */
+    private boolean tableFull;
+    /** Maximal number of nodes found but not yet explored. */
+    private long maxFrontierSize;
+
+    /**
+     * Construct a new approximate exploration.
+     * The explorer must provide the {@link CommonProperties#STATE} node
+     * property. The table will consist of 2 to the power of the given number
+     * of bits, with at least 64 bits being used.
+     * 
+     * @param explorer explorer to explore state space of
+     * @param approximation approximation method to use
+     * @param log2TableBits binary logarithm of number of table bits
+     */
+    ApproximateExploration(Explorer explorer,
+            OptionsTypesCommandExplore.Approximation approximation, int log2TableBits) {
+        assert explorer != null;
+        assert approximation != null;
+        assert approximation != OptionsTypesCommandExplore.Approximation.NONE;
+        assert log2TableBits >= 0;
+        assert log2TableBits - LOG2LONGSIZE < Integer.SIZE - 1;
+        this.explorer = explorer;
+        this.approximation = approximation;
+        int log2TableWords = Math.max(0, log2TableBits - LOG2LONGSIZE);
+        table = new long[1 << log2TableWords];
+        tableBits = ((long) table.length) << LOG2LONGSIZE;
+        nodeWords = (explorer.getNumNodeBits() + Long.SIZE - 1) / Long.SIZE;
+        stream = new WordBitStream(nodeWords);
+    }
+
+    /**
+     * Explore the state space.
+     * Exploration stops early if the hash compaction table becomes full.
+     */
+    void explore() {
+        ExplorerNodeProperty isState = explorer.getNodeProperty(CommonProperties.STATE);
+        ExplorerNode node = explorer.newNode();
+        Frontier todo = new Frontier(nodeWords);
+        for (ExplorerNode initial : explorer.getInitialNodes()) {
+            long[] encoded = encode(initial);
+            if (insert(encoded)) {
+                todo.add(encoded);
+            }
+        }
+        maxFrontierSize = todo.size();
+        long[] encoded = new long[nodeWords];
+        while (!todo.isEmpty() && !tableFull) {
+            todo.poll(encoded);
+            decode(encoded, node);
+            explorer.queryNode(node);
+            numNodes++;
+            if (isState == null || isState.getBoolean()) {
+                numStates++;
+            }
+            int numSuccessors = explorer.getNumSuccessors();
+            numTransitions += numSuccessors;
+            if (numSuccessors == 0) {
+                numDeadlocks++;
+            }
+            for (int succNr = 0; succNr < numSuccessors; succNr++) {
+                long[] succEncoded = encode(explorer.getSuccessorNode(succNr));
+                if (insert(succEncoded)) {
+                    todo.add(succEncoded);
+                }
+            }
+            maxFrontierSize = Math.max(maxFrontierSize, todo.size());
+        }
+    }
+
+    long getNumNodes() {
+        return numNodes;
+    }
+
+    long getNumStates() {
+        return numStates;
+    }
+
+    long getNumTransitions() {
+        return numTransitions;
+    }
+
+    long getNumDeadlocks() {
+        return numDeadlocks;
+    }
+
+    boolean isTableFull() {
+        return tableFull;
+    }
+
+    /**
+     * Get the maximal number of nodes found but not yet explored.
+     * 
+     * @return maximal size of the exploration frontier
+     */
+    long getMaxFrontierSize() {
+        return maxFrontierSize;
+    }
+
+    /**
+     * Get the maximal number of bytes used to store the exploration frontier.
+     * 
+     * @return maximal number of bytes used for the frontier
+     */
+    long getMaxFrontierBytes() {
+        return maxFrontierSize * nodeWords * Long.BYTES;
+    }
+
+    /**
+     * Estimate the expected number of nodes omitted due to collisions.
+     * 
+     * @return expected number of nodes omitted
+     */
+    double getExpectedOmitted() {
+        if (approximation == OptionsTypesCommandExplore.Approximation.BITSTATE) {
+            return expectedOmitted;
+        } else {
+            return getOmissionProbability() * numNodes;
+        }
+    }
+
+    /**
+     * Estimate the probability that at least one node was omitted.
+     * For hash compaction, this is the probability that two of the nodes
+     * found share a fingerprint. For bitstate hashing, it is derived from the
+     * expected number of omitted nodes.
+     * 
+     * @return probability that at least one node was omitted
+     */
+    double getOmissionProbability() {
+        if (approximation == OptionsTypesCommandExplore.Approximation.BITSTATE) {
+            return 1.0 - Math.exp(-expectedOmitted);
+        } else {
+            double pairs = (double) numNodes * (numNodes - 1) / 2.0;
+            return 1.0 - Math.exp(-pairs / Math.pow(2.0, FINGERPRINT_BITS));
+        }
+    }
+
+    private boolean insert(long[] encoded) {
+        long fingerprint = fingerprint(encoded);
+        if (approximation == OptionsTypesCommandExplore.Approximation.BITSTATE) {
+            return insertBitstate(fingerprint);
+        } else {
+            return insertHashCompaction(fingerprint);
+        }
+    }
+
+    private boolean insertHashCompaction(long fingerprint) {
+        if (fingerprint == 0L) {
+            fingerprint = 1L;
+        }
+        int mask = table.length - 1;
+        int index = (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+        while (table[index] != 0L) {
+            if (table[index] == fingerprint) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        if (tableUsed + 1 > MAX_LOAD * table.length) {
+            tableFull = true;
+            return false;
+        }
+        table[index] = fingerprint;
+        tableUsed++;
+        return true;
+    }
+
+    private boolean insertBitstate(long fingerprint) {
+        long hash1 = fingerprint >>> 32;
+        long hash2 = (fingerprint & 0xFFFFFFFFL) | 1L;
+        double fill = (double) tableUsed / tableBits;
+        boolean changed = false;
+        for (int hashNr = 0; hashNr < NUM_BITSTATE_HASHES; hashNr++) {
+            long bit = Long.remainderUnsigned(hash1 + hashNr * hash2, tableBits);
+            int word = (int) (bit >>> LOG2LONGSIZE);
+            long mark = 1L << (bit & (Long.SIZE - 1));
+            if ((table[word] & mark) == 0L) {
+                table[word] |= mark;
+                tableUsed++;
+                changed = true;
+            }
+        }
+        if (changed) {
+            expectedOmitted += Math.pow(fill, NUM_BITSTATE_HASHES);
+        }
+        return changed;
+    }
+
+    private long[] encode(ExplorerNode node) {
+        Arrays.fill(stream.words, 0L);
+        stream.index = 0;
+        node.write(stream);
+        return stream.words.clone();
+    }
+
+    private void decode(long[] encoded, ExplorerNode node) {
+        System.arraycopy(encoded, 0, stream.words, 0, nodeWords);
+        stream.index = 0;
+        node.read(stream);
+    }
+
+    /**
+     * Compute a 64-bit fingerprint of an encoded node.
+     * The words are combined by multiplication and rotation and the result
+     * is finalised using the MurmurHash3 finaliser, so that all bits of the
+     * result depend on all bits of the encoded node.
+     * 
+     * @param encoded encoded node
+     * @return fingerprint of the node
+     */
+    private static long fingerprint(long[] encoded) {
+        long hash = 0x9E3779B97F4A7C15L;
+        for (long word : encoded) {
+            hash = Long.rotateLeft(hash ^ (word * 0xC2B2AE3D27D4EB4FL), 31) * 0x9E3779B97F4A7C15L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * First-in first-out queue of encoded nodes.
+     * The nodes are stored consecutively in a single growing ring buffer of
+     * words, so that no object is allocated per node stored.
+     */
+    private final static class Frontier {
+        /** Initial number of nodes which can be stored. */
+        private final static int INITIAL_CAPACITY = 1024;
+        private final int nodeWords;
+        private long[] words;
+        private int capacity;
+        private int head;
+        private int size;
+
+        Frontier(int nodeWords) {
+            assert nodeWords >= 0;
+            this.nodeWords = nodeWords;
+            capacity = INITIAL_CAPACITY;
+            words = new long[capacity * nodeWords];
+        }
+
+        void add(long[] encoded) {
+            if (size == capacity) {
+                grow();
+            }
+            int slot = (head + size) % capacity;
+            System.arraycopy(encoded, 0, words, slot * nodeWords, nodeWords);
+            size++;
+        }
+
+        void poll(long[] encoded) {
+            assert size > 0;
+            System.arraycopy(words, head * nodeWords, encoded, 0, nodeWords);
+            head = (head + 1) % capacity;
+            size--;
+        }
+
+        private void grow() {
+            assert 2L * capacity * nodeWords <= Integer.MAX_VALUE;
+            long[] newWords = new long[2 * capacity * nodeWords];
+            int first = Math.min(size, capacity - head);
+            System.arraycopy(words, head * nodeWords, newWords, 0, first * nodeWords);
+            System.arraycopy(words, 0, newWords, first * nodeWords, (size - first) * nodeWords);
+            words = newWords;
+            capacity *= 2;
+            head = 0;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Bit stream reading from and writing to a fixed array of words.
+     */
+    private final static class WordBitStream implements BitStream {
+        private final long[] words;
+        private int index;
+
+        WordBitStream(int numWords) {
+            words = new long[numWords];
+        }
+
+        @Override
+        public boolean read() {
+            boolean result = (words[index >>> LOG2LONGSIZE] & (1L << (index & (Long.SIZE - 1)))) != 0L;
+            index++;
+            return result;
+        }
+
+        @Override
+        public void write(boolean value) {
+            if (value) {
+                words[index >>> LOG2LONGSIZE] |= 1L << (index & (Long.SIZE - 1));
+            }
+            index++;
+        }
+    }
+}
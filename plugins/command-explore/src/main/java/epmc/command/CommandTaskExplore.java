@@ -34,11 +34,13 @@ import epmc.graph.SemanticsSMG;
 import epmc.graph.dd.GraphDD;
 import epmc.graph.explicit.GraphExplicit;
 import epmc.graph.explicit.NodeProperty;
+import epmc.graph.explorer.Explorer;
 import epmc.messages.OptionsMessages;
 import epmc.modelchecker.CommandTask;
 import epmc.modelchecker.Engine;
 import epmc.modelchecker.EngineDD;
 import epmc.modelchecker.EngineExplicit;
+import epmc.modelchecker.EngineExplorer;
 import epmc.modelchecker.ExploreStatistics;
 import epmc.modelchecker.Log;
 import epmc.modelchecker.Model;
@@ -79,6 +81,13 @@ public class CommandTaskExplore implements CommandTask {
         Set<Object> graphProperties = Collections.singleton(CommonProperties.SEMANTICS);
         Set<Object> nodeProperties = prepareNodeProperties(model);
         Set<Object> edgeProperties = prepareEdgeProperties(model);
+        OptionsTypesCommandExplore.Approximation approximation =
+                Options.get().getEnum(OptionsCommandExplore.EXPLORE_APPROXIMATION);
+        if (approximation != null
+                && approximation != OptionsTypesCommandExplore.Approximation.NONE) {
+            exploreApproximate(approximation, graphProperties, nodeProperties, edgeProperties);
+            return;
+        }
         long time = System.nanoTime();
         LowLevel lowLevel = UtilModelChecker.buildLowLevel(modelChecker.getModel(), graphProperties, nodeProperties, edgeProperties);
         time = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - time);
@@ -116,6 +125,36 @@ public class CommandTaskExplore implements CommandTask {
         }
     }
 
+    private void exploreApproximate(OptionsTypesCommandExplore.Approximation approximation,
+            Set<Object> graphProperties, Set<Object> nodeProperties,
+            Set<Object> edgeProperties) {
+        Log log = getLog();
+        long time = System.nanoTime();
+        Explorer explorer = (Explorer) UtilModelChecker.buildLowLevel(modelChecker.getModel(),
+                EngineExplorer.ENGINE_EXPLORER, graphProperties, nodeProperties, edgeProperties);
+        int tableBits = Options.get().getInteger(OptionsCommandExplore.EXPLORE_APPROXIMATION_TABLE_BITS);
+        ApproximateExploration exploration = new ApproximateExploration(explorer, approximation, tableBits);
+        exploration.explore();
+        time = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - time);
+        if (exploration.isTableFull()) {
+            log.send(MessagesCommandExplore.EXPLORING_APPROXIMATE_TABLE_FULL);
+        }
+        log.send(MessagesCommandExplore.EXPLORING_APPROXIMATE_DONE,
+                approximation.name().toLowerCase(), time);
+        log.send(MessagesCommandExplore.EXPLORING_APPROXIMATE_STATISTICS,
+                exploration.getNumNodes(), exploration.getNumStates(),
+                exploration.getNumTransitions(), exploration.getNumDeadlocks());
+        log.send(MessagesCommandExplore.EXPLORING_APPROXIMATE_OMISSION,
+                exploration.getOmissionProbability(), exploration.getExpectedOmitted());
+        log.send(MessagesCommandExplore.EXPLORING_APPROXIMATE_FRONTIER,
+                exploration.getMaxFrontierSize(), exploration.getMaxFrontierBytes());
+        ExploreStatistics statistics = new ExploreStatistics(
+                BigInteger.valueOf(exploration.getNumNodes()),
+                BigInteger.valueOf(exploration.getNumStates()),
+                BigInteger.valueOf(exploration.getNumTransitions()));
+        log.send(new ModelCheckerResult(null, statistics));
+    }
+
     private Set<Object> prepareNodeProperties(Model model) {
         assert model != null;
         Set<Object> result = new LinkedHashSet<>();
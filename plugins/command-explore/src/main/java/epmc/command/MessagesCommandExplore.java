@@ -37,6 +37,16 @@ public final class MessagesCommandExplore {
     public final static Message EXPLORING = newMessage().setIdentifier("exploring").build();
     /** Finished exploring the state space of a model. */
     public final static Message EXPLORING_DONE = newMessage().setIdentifier("exploring-done").build();
+    /** Finished approximate exploration of the state space of a model. */
+    public final static Message EXPLORING_APPROXIMATE_DONE = newMessage().setIdentifier("exploring-approximate-done").build();
+    /** Numbers of nodes, states, transitions and deadlocks found. */
+    public final static Message EXPLORING_APPROXIMATE_STATISTICS = newMessage().setIdentifier("exploring-approximate-statistics").build();
+    /** Estimated omission probability and omitted nodes. */
+    public final static Message EXPLORING_APPROXIMATE_OMISSION = newMessage().setIdentifier("exploring-approximate-omission").build();
+    /** Maximal size of frontier of approximate exploration. */
+    public final static Message EXPLORING_APPROXIMATE_FRONTIER = newMessage().setIdentifier("exploring-approximate-frontier").build();
+    /** Table of approximate exploration is full. */
+    public final static Message EXPLORING_APPROXIMATE_TABLE_FULL = newMessage().setIdentifier("exploring-approximate-table-full").build();
 
     /**
      * Creates a new message with given identifier with this resource bundle.
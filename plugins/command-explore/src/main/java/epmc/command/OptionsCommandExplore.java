@@ -23,4 +23,8 @@ package epmc.command;
 public enum OptionsCommandExplore {
     OPTIONS_COMMAND_EXPLORE,
     EXPLORE,
+    /** Approximate exploration method to use, if any. */
+    EXPLORE_APPROXIMATION,
+    /** Binary logarithm of number of bits of approximate exploration table. */
+    EXPLORE_APPROXIMATION_TABLE_BITS,
 }
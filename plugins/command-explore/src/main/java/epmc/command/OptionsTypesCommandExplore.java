@@ -0,0 +1,34 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+package epmc.command;
+
+public final class OptionsTypesCommandExplore {
+    public static enum Approximation {
+        /** Store all explored nodes, exact exploration. */
+        NONE,
+        /** Store 64-bit fingerprints of explored nodes. */
+        HASH_COMPACTION,
+        /** Store explored nodes as bits set in a Bloom filter. */
+        BITSTATE,
+    }
+
+    private OptionsTypesCommandExplore() {
+    }
+}
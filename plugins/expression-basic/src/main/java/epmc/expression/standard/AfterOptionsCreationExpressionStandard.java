@@ -38,6 +38,7 @@ import epmc.expression.standard.evaluatordd.EvaluatorDDOperatorVectorMin;
 import epmc.expression.standard.evaluatordd.EvaluatorDDOperatorVectorNe;
 import epmc.expression.standard.evaluatordd.EvaluatorDDOperatorVectorSub;
 import epmc.expression.standard.evaluatordd.EvaluatorDDVariable;
+import epmc.expression.standard.evaluatorexplicit.EvaluatorExplicitCompiled;
 import epmc.expression.standard.evaluatorexplicit.EvaluatorExplicitLiteralInteger;
 import epmc.expression.standard.evaluatorexplicit.EvaluatorExplicitLiteralReal;
 import epmc.expression.standard.evaluatorexplicit.EvaluatorExplicitIntegerVariable;
@@ -89,10 +90,17 @@ public final class AfterOptionsCreationExpressionStandard implements AfterOption
         .setDefault(true)
         .setCommandLine().setGui().build();
 
+        options.addOption().setBundleName(OptionsExpressionBasic.OPTIONS_EXPRESSION_BASIC)
+        .setIdentifier(OptionsExpressionBasic.EXPRESSION_COMPILE_EXPLICIT)
+        .setType(typeBoolean)
+        .setDefault(false)
+        .setCommandLine().setGui().build();
+
         Map<String,Class<? extends EvaluatorExplicit.Builder>> evaluatorsExplicit = options.get(OptionsExpressionBasic.EXPRESSION_EVALUTOR_EXPLICIT_CLASS);
         if (evaluatorsExplicit == null) {
             evaluatorsExplicit = new OrderedMap<>(true);            
         }
+        evaluatorsExplicit.put(EvaluatorExplicitCompiled.IDENTIFIER, EvaluatorExplicitCompiled.Builder.class);
         evaluatorsExplicit.put(EvaluatorExplicitVariable.IDENTIFIER, EvaluatorExplicitVariable.Builder.class);
         evaluatorsExplicit.put(EvaluatorExplicitOperator.IDENTIFIER, EvaluatorExplicitOperator.Builder.class);
         evaluatorsExplicit.put(EvaluatorExplicitOperatorShortcutNot.IDENTIFIER, EvaluatorExplicitOperatorShortcutNot.Builder.class);
@@ -36,6 +36,11 @@ public enum OptionsExpressionBasic {
      * nodes.
      */
     DD_EXPRESSION_VECTOR,
+    /**
+     * Compile expressions over boolean, integer and real variables to
+     * bytecode for explicit-state evaluation.
+     */
+    EXPRESSION_COMPILE_EXPLICIT,
 
     EXPRESSION_EVALUTOR_EXPLICIT_CLASS,
     EXPRESSION_EXPRESSION_TO_CODE_CLASS,
@@ -0,0 +1,405 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.expression.standard.evaluatorexplicit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal writer for JVM class files as used by {@link ExpressionCompiler}.
+ * Only the parts needed to generate a single class with a default
+ * constructor and straight-line methods with forward jumps are supported.
+ * Class files are written in version 49, so that no stack map frames have to
+ * be computed and the type-inferring verifier is used instead.
+ */
+final class ClassFileBuilder {
+    final static int ICONST_0 = 0x03;
+    final static int ICONST_1 = 0x04;
+    final static int BIPUSH = 0x10;
+    final static int SIPUSH = 0x11;
+    final static int LDC_W = 0x13;
+    final static int LDC2_W = 0x14;
+    final static int ALOAD_0 = 0x2a;
+    final static int ALOAD_1 = 0x2b;
+    final static int AALOAD = 0x32;
+    final static int IADD = 0x60;
+    final static int DADD = 0x63;
+    final static int ISUB = 0x64;
+    final static int DSUB = 0x67;
+    final static int IMUL = 0x68;
+    final static int DMUL = 0x6b;
+    final static int IREM = 0x70;
+    final static int INEG = 0x74;
+    final static int DNEG = 0x77;
+    final static int IXOR = 0x82;
+    final static int I2D = 0x87;
+    final static int DCMPL = 0x97;
+    final static int DCMPG = 0x98;
+    final static int IFEQ = 0x99;
+    final static int IFNE = 0x9a;
+    final static int IFLT = 0x9b;
+    final static int IFGT = 0x9d;
+    final static int IF_ICMPEQ = 0x9f;
+    final static int IF_ICMPNE = 0xa0;
+    final static int IF_ICMPLT = 0xa1;
+    final static int IF_ICMPGE = 0xa2;
+    final static int IF_ICMPGT = 0xa3;
+    final static int IF_ICMPLE = 0xa4;
+    final static int GOTO = 0xa7;
+    final static int IRETURN = 0xac;
+    final static int DRETURN = 0xaf;
+    final static int RETURN = 0xb1;
+    final static int INVOKESPECIAL = 0xb7;
+    final static int INVOKESTATIC = 0xb8;
+    final static int INVOKEINTERFACE = 0xb9;
+    final static int CHECKCAST = 0xc0;
+
+    private final static int MAGIC = 0xCAFEBABE;
+    private final static int VERSION = 49;
+    private final static int ACC_PUBLIC = 0x0001;
+    private final static int ACC_FINAL = 0x0010;
+    private final static int ACC_SUPER = 0x0020;
+    private final static int CONSTANT_UTF8 = 1;
+    private final static int CONSTANT_INTEGER = 3;
+    private final static int CONSTANT_DOUBLE = 6;
+    private final static int CONSTANT_CLASS = 7;
+    private final static int CONSTANT_METHODREF = 10;
+    private final static int CONSTANT_INTERFACE_METHODREF = 11;
+    private final static int CONSTANT_NAME_AND_TYPE = 12;
+    private final static int MAX_UNSIGNED_SHORT = 0xFFFF;
+    private final static String CODE = "Code";
+    private final static String INIT = "<init>";
+    private final static String VOID_DESCRIPTOR = "()V";
+
+    /** Jump target within a {@link Code} block; only forward jumps allowed. */
+    final static class Label {
+        private int position = -1;
+        private final List<Integer> jumps = new ArrayList<>();
+    }
+
+    /** Body of a method under construction. */
+    final static class Code {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final List<Integer> pending = new ArrayList<>();
+        private int stack;
+        private int maxStack;
+
+        void op(int opcode, int stackChange) {
+            bytes.write(opcode);
+            adjustStack(stackChange);
+        }
+
+        void opByte(int opcode, int operand, int stackChange) {
+            bytes.write(opcode);
+            bytes.write(operand);
+            adjustStack(stackChange);
+        }
+
+        void opShort(int opcode, int operand, int stackChange) {
+            bytes.write(opcode);
+            writeShort(operand);
+            adjustStack(stackChange);
+        }
+
+        void invokeInterface(int methodRef, int numArgWords, int stackChange) {
+            bytes.write(INVOKEINTERFACE);
+            writeShort(methodRef);
+            bytes.write(numArgWords + 1);
+            bytes.write(0);
+            adjustStack(stackChange);
+        }
+
+        void jump(int opcode, Label target, int stackChange) {
+            assert target != null;
+            assert target.position < 0;
+            target.jumps.add(bytes.size());
+            bytes.write(opcode);
+            writeShort(0);
+            adjustStack(stackChange);
+        }
+
+        void mark(Label label) {
+            assert label != null;
+            assert label.position < 0;
+            label.position = bytes.size();
+            for (int jump : label.jumps) {
+                pending.add(jump);
+                pending.add(label.position - jump);
+            }
+        }
+
+        int getStack() {
+            return stack;
+        }
+
+        void setStack(int stack) {
+            assert stack >= 0;
+            this.stack = stack;
+        }
+
+        int getLength() {
+            return bytes.size();
+        }
+
+        private byte[] toByteArray() {
+            byte[] result = bytes.toByteArray();
+            for (int i = 0; i < pending.size(); i += 2) {
+                int at = pending.get(i);
+                int offset = pending.get(i + 1);
+                result[at + 1] = (byte) (offset >>> 8);
+                result[at + 2] = (byte) offset;
+            }
+            return result;
+        }
+
+        private void adjustStack(int change) {
+            stack += change;
+            assert stack >= 0;
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        private void writeShort(int value) {
+            bytes.write(value >>> 8);
+            bytes.write(value);
+        }
+    }
+
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final Map<String,Integer> poolEntries = new HashMap<>();
+    private int poolSize = 1;
+    private final ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+    private final DataOutputStream methods = new DataOutputStream(methodBytes);
+    private int numMethods;
+    private final int thisClass;
+    private final int superClass;
+    private final int superInit;
+
+    ClassFileBuilder(String name, String superName) {
+        assert name != null;
+        assert superName != null;
+        thisClass = classRef(name);
+        superClass = classRef(superName);
+        superInit = methodRef(superName, INIT, VOID_DESCRIPTOR);
+        Code init = new Code();
+        init.op(ALOAD_0, 1);
+        init.opShort(INVOKESPECIAL, superInit, -1);
+        init.op(RETURN, 0);
+        addMethod(INIT, VOID_DESCRIPTOR, 1, init);
+    }
+
+    int classRef(String internalName) {
+        assert internalName != null;
+        String key = "C" + internalName;
+        Integer entry = poolEntries.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        int name = utf8(internalName);
+        try {
+            pool.writeByte(CONSTANT_CLASS);
+            pool.writeShort(name);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return newEntry(key, 1);
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+        return memberRef(CONSTANT_METHODREF, owner, name, descriptor);
+    }
+
+    int interfaceMethodRef(String owner, String name, String descriptor) {
+        return memberRef(CONSTANT_INTERFACE_METHODREF, owner, name, descriptor);
+    }
+
+    int integerConstant(int value) {
+        String key = "I" + value;
+        Integer entry = poolEntries.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        try {
+            pool.writeByte(CONSTANT_INTEGER);
+            pool.writeInt(value);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return newEntry(key, 1);
+    }
+
+    int doubleConstant(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        String key = "D" + bits;
+        Integer entry = poolEntries.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        try {
+            pool.writeByte(CONSTANT_DOUBLE);
+            pool.writeLong(bits);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return newEntry(key, 2);
+    }
+
+    /**
+     * Add a public method to the class.
+     * If the method or the constant pool exceeds the limits of the class file
+     * format, {@code false} is returned and the class must not be used.
+     * 
+     * @param name name of the method
+     * @param descriptor descriptor of the method
+     * @param maxLocals number of local variable slots, including {@code this}
+     * @param code body of the method
+     * @return whether the method could be added
+     */
+    boolean addMethod(String name, String descriptor, int maxLocals, Code code) {
+        assert name != null;
+        assert descriptor != null;
+        assert maxLocals >= 1;
+        assert code != null;
+        if (code.getLength() > MAX_UNSIGNED_SHORT || code.maxStack > MAX_UNSIGNED_SHORT) {
+            return false;
+        }
+        for (int i = 1; i < code.pending.size(); i += 2) {
+            if (code.pending.get(i) > Short.MAX_VALUE) {
+                return false;
+            }
+        }
+        byte[] codeBytes = code.toByteArray();
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        int codeIndex = utf8(CODE);
+        try {
+            methods.writeShort(ACC_PUBLIC);
+            methods.writeShort(nameIndex);
+            methods.writeShort(descriptorIndex);
+            methods.writeShort(1);
+            methods.writeShort(codeIndex);
+            methods.writeInt(2 + 2 + 4 + codeBytes.length + 2 + 2);
+            methods.writeShort(code.maxStack);
+            methods.writeShort(maxLocals);
+            methods.writeInt(codeBytes.length);
+            methods.write(codeBytes);
+            methods.writeShort(0);
+            methods.writeShort(0);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        numMethods++;
+        return true;
+    }
+
+    byte[] toByteArray() {
+        if (poolSize > MAX_UNSIGNED_SHORT) {
+            return null;
+        }
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(result);
+        try {
+            out.writeInt(MAGIC);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(poolSize);
+            poolBytes.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0);
+            out.writeShort(0);
+            out.writeShort(numMethods);
+            methodBytes.writeTo(out);
+            out.writeShort(0);
+            out.flush();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return result.toByteArray();
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        assert owner != null;
+        assert name != null;
+        assert descriptor != null;
+        String key = "M" + tag + owner + "." + name + descriptor;
+        Integer entry = poolEntries.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        int ownerIndex = classRef(owner);
+        int nameAndType = nameAndType(name, descriptor);
+        try {
+            pool.writeByte(tag);
+            pool.writeShort(ownerIndex);
+            pool.writeShort(nameAndType);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return newEntry(key, 1);
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        String key = "N" + name + ":" + descriptor;
+        Integer entry = poolEntries.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        try {
+            pool.writeByte(CONSTANT_NAME_AND_TYPE);
+            pool.writeShort(nameIndex);
+            pool.writeShort(descriptorIndex);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return newEntry(key, 1);
+    }
+
+    private int utf8(String string) {
+        String key = "U" + string;
+        Integer entry = poolEntries.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        try {
+            pool.writeByte(CONSTANT_UTF8);
+            pool.writeUTF(string);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return newEntry(key, 1);
+    }
+
+    private int newEntry(String key, int numSlots) {
+        int index = poolSize;
+        poolEntries.put(key, index);
+        poolSize += numSlots;
+        return index;
+    }
+}
@@ -0,0 +1,88 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.expression.standard.evaluatorexplicit;
+
+import epmc.value.Value;
+
+/**
+ * Base class of expressions compiled by {@link ExpressionCompiler}.
+ * The generated subclasses override the method matching the type of the
+ * expression and read the variable values directly from the array of values
+ * given, in the order of the variables the expression was compiled for.
+ * The static methods are called from generated code for operations which do
+ * not map to a single bytecode instruction with the same semantics. They
+ * follow the semantics of the corresponding integer and double operator
+ * evaluators. This class must be public to allow it being extended from
+ * generated classes.
+ */
+public abstract class CompiledExpression {
+    /** Tolerance of the double operator evaluators for comparisons. */
+    private final static double TOLERANCE = 1E-6;
+
+    public boolean evaluateBoolean(Value[] values) {
+        throw new UnsupportedOperationException();
+    }
+
+    public int evaluateInteger(Value[] values) {
+        throw new UnsupportedOperationException();
+    }
+
+    public double evaluateReal(Value[] values) {
+        throw new UnsupportedOperationException();
+    }
+
+    public static boolean eq(double op1, double op2) {
+        return Math.abs(op1 - op2) < TOLERANCE;
+    }
+
+    public static boolean ne(double op1, double op2) {
+        return Math.abs(op1 - op2) > TOLERANCE;
+    }
+
+    public static boolean le(double op1, double op2) {
+        return op1 <= op2 + TOLERANCE;
+    }
+
+    public static boolean ge(double op1, double op2) {
+        return op1 + TOLERANCE >= op2;
+    }
+
+    /**
+     * Compute the modulus as the integer operator evaluator does.
+     * In contrast to the remainder operator, the result is in the range from
+     * zero to the second operand, e.g. {@code mod(-1, 3)} is {@code 2}.
+     * 
+     * @param op1 dividend
+     * @param op2 divisor
+     * @return modulus of the operands
+     */
+    public static int mod(int op1, int op2) {
+        return ((op1 % op2) + op2) % op2;
+    }
+
+    public static double divide(double op1, double op2) {
+        if (op2 == 0.0) {
+            return 0.0;
+        } else {
+            return op1 / op2;
+        }
+    }
+}
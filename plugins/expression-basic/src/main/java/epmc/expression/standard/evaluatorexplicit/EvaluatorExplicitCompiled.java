@@ -0,0 +1,191 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.expression.standard.evaluatorexplicit;
+
+import epmc.expression.Expression;
+import epmc.expression.evaluatorexplicit.EvaluatorExplicit;
+import epmc.expression.standard.ExpressionOperator;
+import epmc.expression.standard.OptionsExpressionBasic;
+import epmc.expressionevaluator.ExpressionToType;
+import epmc.options.Options;
+import epmc.value.Value;
+import epmc.value.ValueBoolean;
+import epmc.value.ValueDouble;
+import epmc.value.ValueInteger;
+
+/**
+ * Evaluator for expressions compiled to bytecode.
+ * Whole operator trees over boolean, integer and real variables are compiled
+ * by {@link ExpressionCompiler} to a single method working on primitive
+ * values. Expressions which cannot be compiled are left to the interpreting
+ * evaluators. The evaluator is only used if enabled by
+ * {@link OptionsExpressionBasic#EXPRESSION_COMPILE_EXPLICIT}.
+ */
+public final class EvaluatorExplicitCompiled implements EvaluatorExplicitBoolean, EvaluatorExplicitInteger {
+    public final static class Builder implements EvaluatorExplicit.Builder {
+        private Expression[] variables;
+        private Expression expression;
+        private ExpressionToType expressionToType;
+        private ExpressionCompiler compiler;
+        private CompiledExpression compiled;
+
+        @Override
+        public String getIdentifier() {
+            return IDENTIFIER;
+        }
+
+        @Override
+        public Builder setVariables(Expression[] variables) {
+            this.variables = variables;
+            return this;
+        }
+
+        private Expression[] getVariables() {
+            return variables;
+        }
+
+        @Override
+        public Builder setExpression(Expression expression) {
+            this.expression = expression;
+            return this;
+        }
+
+        private Expression getExpression() {
+            return expression;
+        }
+
+        @Override
+        public boolean canHandle() {
+            assert expression != null;
+            assert variables != null;
+            assert expressionToType != null;
+            if (!Options.get().getBoolean(OptionsExpressionBasic.EXPRESSION_COMPILE_EXPLICIT)) {
+                return false;
+            }
+            if (!ExpressionOperator.is(expression)) {
+                return false;
+            }
+            for (Expression variable : variables) {
+                if (expression.equals(variable)) {
+                    return false;
+                }
+            }
+            compiler = new ExpressionCompiler(variables, expressionToType);
+            if (!compiler.canCompile(expression)) {
+                return false;
+            }
+            compiled = compiler.compile(expression);
+            return compiled != null;
+        }
+
+        @Override
+        public EvaluatorExplicit build() {
+            return new EvaluatorExplicitCompiled(this);
+        }
+
+        @Override
+        public EvaluatorExplicit.Builder setExpressionToType(
+                ExpressionToType expressionToType) {
+            this.expressionToType = expressionToType;
+            return this;
+        }
+
+        private ExpressionCompiler getCompiler() {
+            return compiler;
+        }
+
+        private CompiledExpression getCompiled() {
+            return compiled;
+        }
+    }
+
+    public final static String IDENTIFIER = "compiled";
+
+    private final Expression[] variables;
+    private final Expression expression;
+    private final CompiledExpression compiled;
+    private final Value result;
+    private final ValueBoolean resultBoolean;
+    private final ValueInteger resultInteger;
+    private final ValueDouble resultReal;
+    private Value[] values;
+
+    private EvaluatorExplicitCompiled(Builder builder) {
+        assert builder != null;
+        assert builder.getExpression() != null;
+        assert builder.getVariables() != null;
+        assert builder.getCompiled() != null;
+        expression = builder.getExpression();
+        variables = builder.getVariables();
+        compiled = builder.getCompiled();
+        result = builder.getCompiler().getResultType(expression).newValue();
+        resultBoolean = ValueBoolean.as(result);
+        resultInteger = ValueInteger.as(result);
+        resultReal = ValueDouble.as(result);
+    }
+
+    @Override
+    public String getIdentifier() {
+        return IDENTIFIER;
+    }
+
+    @Override
+    public Expression getExpression() {
+        return expression;
+    }
+
+    @Override
+    public void setValues(Value... values) {
+        this.values = values;
+    }
+
+    @Override
+    public void evaluate() {
+        assert values != null;
+        assert variables != null;
+        assert UtilEvaluatorExplicit.assertValues(values);
+        if (resultBoolean != null) {
+            resultBoolean.set(compiled.evaluateBoolean(values));
+        } else if (resultInteger != null) {
+            resultInteger.set(compiled.evaluateInteger(values));
+        } else {
+            assert resultReal != null;
+            resultReal.set(compiled.evaluateReal(values));
+        }
+    }
+
+    @Override
+    public boolean evaluateBoolean() {
+        assert values != null;
+        return compiled.evaluateBoolean(values);
+    }
+
+    @Override
+    public int evaluateInteger() {
+        assert values != null;
+        return compiled.evaluateInteger(values);
+    }
+
+    @Override
+    public Value getResultValue() {
+        return result;
+    }
+}
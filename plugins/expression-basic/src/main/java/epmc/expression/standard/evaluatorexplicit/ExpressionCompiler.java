@@ -0,0 +1,574 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.expression.standard.evaluatorexplicit;
+
+import static epmc.expression.standard.evaluatorexplicit.ClassFileBuilder.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import epmc.expression.Expression;
+import epmc.expression.standard.ExpressionLiteral;
+import epmc.expression.standard.ExpressionOperator;
+import epmc.expression.standard.ExpressionType;
+import epmc.expression.standard.ExpressionTypeBoolean;
+import epmc.expression.standard.ExpressionTypeInteger;
+import epmc.expression.standard.ExpressionTypeReal;
+import epmc.expression.standard.evaluatorexplicit.ClassFileBuilder.Code;
+import epmc.expression.standard.evaluatorexplicit.ClassFileBuilder.Label;
+import epmc.expressionevaluator.ExpressionToType;
+import epmc.operator.Operator;
+import epmc.operator.OperatorAdd;
+import epmc.operator.OperatorAddInverse;
+import epmc.operator.OperatorAnd;
+import epmc.operator.OperatorDivide;
+import epmc.operator.OperatorEq;
+import epmc.operator.OperatorGe;
+import epmc.operator.OperatorGt;
+import epmc.operator.OperatorIff;
+import epmc.operator.OperatorImplies;
+import epmc.operator.OperatorIte;
+import epmc.operator.OperatorLe;
+import epmc.operator.OperatorLt;
+import epmc.operator.OperatorMax;
+import epmc.operator.OperatorMin;
+import epmc.operator.OperatorMod;
+import epmc.operator.OperatorMultiply;
+import epmc.operator.OperatorNe;
+import epmc.operator.OperatorNot;
+import epmc.operator.OperatorOr;
+import epmc.operator.OperatorSubtract;
+import epmc.value.Type;
+import epmc.value.TypeBoolean;
+import epmc.value.TypeDouble;
+import epmc.value.TypeInteger;
+import epmc.value.TypeReal;
+import epmc.value.ValueBoolean;
+import epmc.value.ValueInteger;
+import epmc.value.ValueReal;
+
+/**
+ * Compiles expressions over boolean, integer and real variables to JVM
+ * bytecode.
+ * The generated class extends {@link CompiledExpression} and evaluates the
+ * expression on primitive values, reading variables directly from the value
+ * array of the evaluator. Expressions containing subexpressions or types
+ * not supported, as well as real-valued expressions if reals are not
+ * represented as doubles, cannot be compiled and have to be evaluated by the
+ * interpreting evaluators instead.
+ */
+final class ExpressionCompiler {
+    /** Primitive type an expression is compiled to. */
+    private enum Kind {
+        BOOLEAN,
+        INTEGER,
+        REAL
+    }
+
+    private final static String CLASS_PREFIX = CompiledExpression.class.getName() + "$";
+    private final static String SUPER_NAME = internalName(CompiledExpression.class);
+    private final static String VALUE_BOOLEAN = internalName(ValueBoolean.class);
+    private final static String VALUE_INTEGER = internalName(ValueInteger.class);
+    private final static String VALUE_REAL = internalName(ValueReal.class);
+    private final static String MATH = internalName(Math.class);
+    private final static String VALUES_DESCRIPTOR = "([L" + internalName(epmc.value.Value.class) + ";)";
+    private final static String DOUBLE_TO_BOOLEAN = "(DD)Z";
+    private final static AtomicInteger NUMBER_CLASSES = new AtomicInteger();
+
+    /** Class loader to define a single compiled expression class. */
+    private final static class Loader extends ClassLoader {
+        Loader() {
+            super(CompiledExpression.class.getClassLoader());
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    private final Expression[] variables;
+    private final ExpressionToType expressionToType;
+    private final boolean realIsDouble;
+    private final Map<Expression,Kind> kinds = new HashMap<>();
+    private ClassFileBuilder classFile;
+    private Code code;
+
+    ExpressionCompiler(Expression[] variables, ExpressionToType expressionToType) {
+        assert variables != null;
+        assert expressionToType != null;
+        this.variables = variables;
+        this.expressionToType = expressionToType;
+        this.realIsDouble = TypeDouble.is(TypeReal.get());
+    }
+
+    boolean canCompile(Expression expression) {
+        assert expression != null;
+        return kind(expression) != null;
+    }
+
+    /**
+     * Obtain the type of the result of a compilable expression.
+     * 
+     * @param expression expression to obtain result type of
+     * @return result type of the expression
+     */
+    Type getResultType(Expression expression) {
+        assert expression != null;
+        Kind kind = kind(expression);
+        assert kind != null;
+        switch (kind) {
+        case BOOLEAN:
+            return TypeBoolean.get();
+        case INTEGER:
+            return TypeInteger.get();
+        case REAL:
+            return TypeReal.get();
+        default:
+            assert false;
+            return null;
+        }
+    }
+
+    /**
+     * Compile an expression.
+     * If the expression cannot be compiled, e.g. because the generated method
+     * would be too large, {@code null} is returned.
+     * 
+     * @param expression expression to compile
+     * @return compiled expression, or {@code null}
+     */
+    CompiledExpression compile(Expression expression) {
+        assert expression != null;
+        Kind kind = kind(expression);
+        if (kind == null) {
+            return null;
+        }
+        String name = CLASS_PREFIX + NUMBER_CLASSES.incrementAndGet();
+        classFile = new ClassFileBuilder(name.replace('.', '/'), SUPER_NAME);
+        code = new Code();
+        generate(expression);
+        String methodName;
+        String descriptor;
+        switch (kind) {
+        case BOOLEAN:
+            methodName = "evaluateBoolean";
+            descriptor = VALUES_DESCRIPTOR + "Z";
+            code.op(IRETURN, -1);
+            break;
+        case INTEGER:
+            methodName = "evaluateInteger";
+            descriptor = VALUES_DESCRIPTOR + "I";
+            code.op(IRETURN, -1);
+            break;
+        case REAL:
+            methodName = "evaluateReal";
+            descriptor = VALUES_DESCRIPTOR + "D";
+            code.op(DRETURN, -2);
+            break;
+        default:
+            assert false;
+            return null;
+        }
+        if (!classFile.addMethod(methodName, descriptor, 2, code)) {
+            return null;
+        }
+        byte[] bytes = classFile.toByteArray();
+        classFile = null;
+        code = null;
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            Class<?> clazz = new Loader().define(name, bytes);
+            return (CompiledExpression) clazz.getConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private Kind kind(Expression expression) {
+        if (kinds.containsKey(expression)) {
+            return kinds.get(expression);
+        }
+        Kind kind = computeKind(expression);
+        kinds.put(expression, kind);
+        return kind;
+    }
+
+    private Kind computeKind(Expression expression) {
+        int variable = variableIndex(expression);
+        if (variable >= 0) {
+            Type type = expressionToType.getType(variables[variable]);
+            if (TypeBoolean.is(type)) {
+                return Kind.BOOLEAN;
+            } else if (TypeInteger.is(type)) {
+                return Kind.INTEGER;
+            } else if (TypeDouble.is(type) && realIsDouble) {
+                return Kind.REAL;
+            } else {
+                return null;
+            }
+        }
+        if (ExpressionLiteral.is(expression)) {
+            ExpressionType type = ExpressionLiteral.as(expression).getType();
+            if (type.equals(ExpressionTypeBoolean.TYPE_BOOLEAN)) {
+                return Kind.BOOLEAN;
+            } else if (type.equals(ExpressionTypeInteger.TYPE_INTEGER)) {
+                return Kind.INTEGER;
+            } else if (type.equals(ExpressionTypeReal.TYPE_REAL) && realIsDouble) {
+                return Kind.REAL;
+            } else {
+                return null;
+            }
+        }
+        if (!ExpressionOperator.is(expression)) {
+            return null;
+        }
+        ExpressionOperator expressionOperator = ExpressionOperator.as(expression);
+        List<Expression> operands = expressionOperator.getOperands();
+        Kind[] operandKinds = new Kind[operands.size()];
+        for (int i = 0; i < operandKinds.length; i++) {
+            operandKinds[i] = kind(operands.get(i));
+            if (operandKinds[i] == null) {
+                return null;
+            }
+        }
+        Operator operator = expressionOperator.getOperator();
+        if (operator.equals(OperatorAnd.AND)
+                || operator.equals(OperatorOr.OR)) {
+            return operandKinds.length >= 1
+                    && allBoolean(operandKinds) ? Kind.BOOLEAN : null;
+        } else if (operator.equals(OperatorImplies.IMPLIES)
+                || operator.equals(OperatorIff.IFF)) {
+            return operandKinds.length == 2
+                    && allBoolean(operandKinds) ? Kind.BOOLEAN : null;
+        } else if (operator.equals(OperatorNot.NOT)) {
+            return operandKinds.length == 1
+                    && allBoolean(operandKinds) ? Kind.BOOLEAN : null;
+        } else if (operator.equals(OperatorEq.EQ)
+                || operator.equals(OperatorNe.NE)) {
+            if (operandKinds.length != 2) {
+                return null;
+            }
+            if (allBoolean(operandKinds) || allNumeric(operandKinds)) {
+                return Kind.BOOLEAN;
+            }
+            return null;
+        } else if (operator.equals(OperatorLt.LT)
+                || operator.equals(OperatorLe.LE)
+                || operator.equals(OperatorGt.GT)
+                || operator.equals(OperatorGe.GE)) {
+            return operandKinds.length == 2
+                    && allNumeric(operandKinds) ? Kind.BOOLEAN : null;
+        } else if (operator.equals(OperatorAdd.ADD)
+                || operator.equals(OperatorSubtract.SUBTRACT)
+                || operator.equals(OperatorMultiply.MULTIPLY)
+                || operator.equals(OperatorMin.MIN)
+                || operator.equals(OperatorMax.MAX)) {
+            return operandKinds.length == 2
+                    && allNumeric(operandKinds) ? join(operandKinds) : null;
+        } else if (operator.equals(OperatorMod.MOD)) {
+            return operandKinds.length == 2
+                    && operandKinds[0] == Kind.INTEGER
+                    && operandKinds[1] == Kind.INTEGER ? Kind.INTEGER : null;
+        } else if (operator.equals(OperatorDivide.DIVIDE)) {
+            return operandKinds.length == 2
+                    && allNumeric(operandKinds)
+                    && realIsDouble ? Kind.REAL : null;
+        } else if (operator.equals(OperatorAddInverse.ADD_INVERSE)) {
+            return operandKinds.length == 1
+                    && allNumeric(operandKinds) ? operandKinds[0] : null;
+        } else if (operator.equals(OperatorIte.ITE)) {
+            if (operandKinds.length != 3 || operandKinds[0] != Kind.BOOLEAN) {
+                return null;
+            }
+            if (operandKinds[1] == Kind.BOOLEAN && operandKinds[2] == Kind.BOOLEAN) {
+                return Kind.BOOLEAN;
+            }
+            if (operandKinds[1] != Kind.BOOLEAN && operandKinds[2] != Kind.BOOLEAN) {
+                return join(operandKinds[1], operandKinds[2]);
+            }
+            return null;
+        } else {
+            return null;
+        }
+    }
+
+    private void generate(Expression expression) {
+        Kind kind = kind(expression);
+        assert kind != null;
+        int variable = variableIndex(expression);
+        if (variable >= 0) {
+            code.op(ALOAD_1, 1);
+            pushInteger(variable);
+            code.op(AALOAD, -1);
+            switch (kind) {
+            case BOOLEAN:
+                code.opShort(CHECKCAST, classFile.classRef(VALUE_BOOLEAN), 0);
+                code.invokeInterface(classFile.interfaceMethodRef(VALUE_BOOLEAN, "getBoolean", "()Z"), 0, 0);
+                break;
+            case INTEGER:
+                code.opShort(CHECKCAST, classFile.classRef(VALUE_INTEGER), 0);
+                code.invokeInterface(classFile.interfaceMethodRef(VALUE_INTEGER, "getInt", "()I"), 0, 0);
+                break;
+            case REAL:
+                code.opShort(CHECKCAST, classFile.classRef(VALUE_REAL), 0);
+                code.invokeInterface(classFile.interfaceMethodRef(VALUE_REAL, "getDouble", "()D"), 0, 1);
+                break;
+            default:
+                assert false;
+            }
+        } else if (ExpressionLiteral.is(expression)) {
+            generateLiteral(ExpressionLiteral.as(expression), kind);
+        } else {
+            generateOperator(ExpressionOperator.as(expression), kind);
+        }
+    }
+
+    private void generateLiteral(ExpressionLiteral literal, Kind kind) {
+        switch (kind) {
+        case BOOLEAN: {
+            ValueBoolean value = TypeBoolean.get().newValue();
+            value.set(literal.getValue());
+            pushInteger(value.getBoolean() ? 1 : 0);
+            break;
+        }
+        case INTEGER: {
+            ValueInteger value = TypeInteger.get().newValue();
+            value.set(literal.getValue());
+            pushInteger(value.getInt());
+            break;
+        }
+        case REAL: {
+            ValueReal value = TypeReal.get().newValue();
+            value.set(literal.getValue());
+            code.opShort(LDC2_W, classFile.doubleConstant(value.getDouble()), 2);
+            break;
+        }
+        default:
+            assert false;
+        }
+    }
+
+    private void generateOperator(ExpressionOperator expression, Kind kind) {
+        Operator operator = expression.getOperator();
+        List<Expression> operands = expression.getOperands();
+        if (operator.equals(OperatorAnd.AND)) {
+            generateShortcut(operands, IFEQ, 0);
+        } else if (operator.equals(OperatorOr.OR)) {
+            generateShortcut(operands, IFNE, 1);
+        } else if (operator.equals(OperatorImplies.IMPLIES)) {
+            Label done = new Label();
+            Label isTrue = new Label();
+            generate(operands.get(0));
+            code.jump(IFEQ, isTrue, -1);
+            generate(operands.get(1));
+            code.jump(GOTO, done, -1);
+            code.mark(isTrue);
+            code.op(ICONST_1, 1);
+            code.mark(done);
+        } else if (operator.equals(OperatorNot.NOT)) {
+            generate(operands.get(0));
+            code.op(ICONST_1, 1);
+            code.op(IXOR, -1);
+        } else if (operator.equals(OperatorIff.IFF)) {
+            generate(operands.get(0));
+            generate(operands.get(1));
+            code.op(IXOR, -1);
+            code.op(ICONST_1, 1);
+            code.op(IXOR, -1);
+        } else if (operator.equals(OperatorEq.EQ)) {
+            generateComparison(operands, IF_ICMPEQ, -1, -1, "eq");
+        } else if (operator.equals(OperatorNe.NE)) {
+            generateComparison(operands, IF_ICMPNE, -1, -1, "ne");
+        } else if (operator.equals(OperatorLt.LT)) {
+            generateComparison(operands, IF_ICMPLT, DCMPG, IFLT, null);
+        } else if (operator.equals(OperatorLe.LE)) {
+            generateComparison(operands, IF_ICMPLE, -1, -1, "le");
+        } else if (operator.equals(OperatorGt.GT)) {
+            generateComparison(operands, IF_ICMPGT, DCMPL, IFGT, null);
+        } else if (operator.equals(OperatorGe.GE)) {
+            generateComparison(operands, IF_ICMPGE, -1, -1, "ge");
+        } else if (operator.equals(OperatorAdd.ADD)) {
+            generateArithmetic(operands, kind, IADD, DADD);
+        } else if (operator.equals(OperatorSubtract.SUBTRACT)) {
+            generateArithmetic(operands, kind, ISUB, DSUB);
+        } else if (operator.equals(OperatorMultiply.MULTIPLY)) {
+            generateArithmetic(operands, kind, IMUL, DMUL);
+        } else if (operator.equals(OperatorMod.MOD)) {
+            generateOperands(operands, Kind.INTEGER);
+            code.opShort(INVOKESTATIC, classFile.methodRef(SUPER_NAME, "mod", "(II)I"), -1);
+        } else if (operator.equals(OperatorMin.MIN)) {
+            generateOperands(operands, kind);
+            invokeMath("min", kind);
+        } else if (operator.equals(OperatorMax.MAX)) {
+            generateOperands(operands, kind);
+            invokeMath("max", kind);
+        } else if (operator.equals(OperatorDivide.DIVIDE)) {
+            generateOperands(operands, Kind.REAL);
+            code.opShort(INVOKESTATIC, classFile.methodRef(SUPER_NAME, "divide", "(DD)D"), -2);
+        } else if (operator.equals(OperatorAddInverse.ADD_INVERSE)) {
+            generate(operands.get(0));
+            if (kind == Kind.REAL) {
+                code.op(DNEG, 0);
+            } else {
+                code.op(INEG, 0);
+            }
+        } else if (operator.equals(OperatorIte.ITE)) {
+            Label done = new Label();
+            Label isFalse = new Label();
+            generate(operands.get(0));
+            code.jump(IFEQ, isFalse, -1);
+            int stack = code.getStack();
+            generateConverted(operands.get(1), kind);
+            code.jump(GOTO, done, 0);
+            code.mark(isFalse);
+            code.setStack(stack);
+            generateConverted(operands.get(2), kind);
+            code.mark(done);
+        } else {
+            assert false : operator;
+        }
+    }
+
+    private void generateShortcut(List<Expression> operands, int jumpOpcode, int shortcutResult) {
+        Label done = new Label();
+        Label shortcut = new Label();
+        for (Expression operand : operands) {
+            generate(operand);
+            code.jump(jumpOpcode, shortcut, -1);
+        }
+        code.op(shortcutResult == 0 ? ICONST_1 : ICONST_0, 1);
+        code.jump(GOTO, done, -1);
+        code.mark(shortcut);
+        code.op(shortcutResult == 0 ? ICONST_0 : ICONST_1, 1);
+        code.mark(done);
+    }
+
+    private void generateComparison(List<Expression> operands,
+            int integerJump, int doubleCompare, int doubleJump, String helper) {
+        Kind operandKind = join(kind(operands.get(0)), kind(operands.get(1)));
+        generateOperands(operands, operandKind);
+        if (operandKind == Kind.REAL && helper != null) {
+            code.opShort(INVOKESTATIC, classFile.methodRef(SUPER_NAME, helper, DOUBLE_TO_BOOLEAN), -3);
+            return;
+        }
+        Label done = new Label();
+        Label isTrue = new Label();
+        if (operandKind == Kind.REAL) {
+            code.op(doubleCompare, -3);
+            code.jump(doubleJump, isTrue, -1);
+        } else {
+            code.jump(integerJump, isTrue, -2);
+        }
+        code.op(ICONST_0, 1);
+        code.jump(GOTO, done, -1);
+        code.mark(isTrue);
+        code.op(ICONST_1, 1);
+        code.mark(done);
+    }
+
+    private void generateArithmetic(List<Expression> operands, Kind kind,
+            int integerOpcode, int doubleOpcode) {
+        generateOperands(operands, kind);
+        if (kind == Kind.REAL) {
+            assert doubleOpcode >= 0;
+            code.op(doubleOpcode, -2);
+        } else {
+            code.op(integerOpcode, -1);
+        }
+    }
+
+    private void invokeMath(String name, Kind kind) {
+        if (kind == Kind.REAL) {
+            code.opShort(INVOKESTATIC, classFile.methodRef(MATH, name, "(DD)D"), -2);
+        } else {
+            code.opShort(INVOKESTATIC, classFile.methodRef(MATH, name, "(II)I"), -1);
+        }
+    }
+
+    private void generateOperands(List<Expression> operands, Kind kind) {
+        for (Expression operand : operands) {
+            generateConverted(operand, kind);
+        }
+    }
+
+    private void generateConverted(Expression expression, Kind kind) {
+        generate(expression);
+        if (kind == Kind.REAL && kind(expression) != Kind.REAL) {
+            code.op(I2D, 1);
+        }
+    }
+
+    private void pushInteger(int value) {
+        if (value >= -1 && value <= 5) {
+            code.op(ICONST_0 + value, 1);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            code.opByte(BIPUSH, value, 1);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            code.opShort(SIPUSH, value, 1);
+        } else {
+            code.opShort(LDC_W, classFile.integerConstant(value), 1);
+        }
+    }
+
+    private int variableIndex(Expression expression) {
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(expression)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean allBoolean(Kind[] kinds) {
+        for (Kind kind : kinds) {
+            if (kind != Kind.BOOLEAN) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean allNumeric(Kind[] kinds) {
+        for (Kind kind : kinds) {
+            if (kind == Kind.BOOLEAN) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Kind join(Kind... kinds) {
+        for (Kind kind : kinds) {
+            if (kind == Kind.REAL) {
+                return Kind.REAL;
+            }
+        }
+        return kinds[0];
+    }
+
+    private static String internalName(Class<?> clazz) {
+        return clazz.getName().replace('.', '/');
+    }
+}
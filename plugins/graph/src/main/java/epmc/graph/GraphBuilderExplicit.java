@@ -45,6 +45,7 @@ import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 
 public final class GraphBuilderExplicit {
     private GraphExplicit inputGraph;
+    private int numInputNodes;
     private GraphExplicit outputGraph;
     private ValueArrayInteger inputToOutputNodes;
     private ValueArrayInteger outputToInputNodes;
@@ -119,6 +120,7 @@ public final class GraphBuilderExplicit {
         assert !built;
         built = true;
         assert inputGraph != null;
+        numInputNodes = inputGraph.getNumNodes();
         assert assertSinksValid(inputGraph, sinks);
         assert assertGraphProperties(inputGraph, derivedGraphProperties);
         assert assertNodeProperties(inputGraph, derivedNodeProperties);
@@ -668,6 +670,17 @@ public final class GraphBuilderExplicit {
         return inputGraph;
     }
 
+    /**
+     * Drop the reference to the input graph of a built builder.
+     * Afterwards, {@link #getInputGraph()} returns {@code null}, while the
+     * output graph and the node mappings remain available. This allows
+     * keeping the builder without keeping the input graph alive.
+     */
+    public void releaseInputGraph() {
+        assert isBuilt();
+        inputGraph = null;
+    }
+
     public GraphExplicit getOutputGraph() {
         assert isBuilt();
         return outputGraph;
@@ -676,7 +689,7 @@ public final class GraphBuilderExplicit {
     public int inputToOutputNode(int inputNode) {
         assert isBuilt();
         assert inputNode >= 0;
-        assert inputNode < inputGraph.getNumNodes();
+        assert inputNode < numInputNodes;
         return inputToOutputNodes.getInt(inputNode);
     }
 
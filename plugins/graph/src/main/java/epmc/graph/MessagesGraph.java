@@ -31,6 +31,11 @@ public final class MessagesGraph {
     public static final Message BUILD_MODEL_STATES_EXPLORED = newMessage().setIdentifier("build-model-states-explored").build();
     public static final Message BUILD_MODEL_NEXT_PHASE = newMessage().setIdentifier("build-model-next-phase").build();
     public static final Message BUILD_MODEL_DONE = newMessage().setIdentifier("build-model-done").build();
+    public static final Message BUILD_MODEL_CACHE_LOADED = newMessage().setIdentifier("build-model-cache-loaded").build();
+    public static final Message BUILD_MODEL_CACHE_STORED = newMessage().setIdentifier("build-model-cache-stored").build();
+    public static final Message BUILD_MODEL_CHECKPOINT_STORED = newMessage().setIdentifier("build-model-checkpoint-stored").build();
+    public static final Message BUILD_MODEL_CHECKPOINT_RESUMED = newMessage().setIdentifier("build-model-checkpoint-resumed").build();
+    public static final Message BUILD_MODEL_METRICS_STORED = newMessage().setIdentifier("build-model-metrics-stored").build();
 
     private static Message.Builder newMessage() {
         return new Message.Builder().setBundle(MESSAGES_GRAPH);
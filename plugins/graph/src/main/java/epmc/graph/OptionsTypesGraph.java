@@ -26,6 +26,10 @@ public final class OptionsTypesGraph {
         LONG_ARRAY,
         LONG,
         INT,
+        LONG_ARRAY_CONCURRENT,
+        LONG_CONCURRENT,
+        INT_CONCURRENT,
+        LONG_ARRAY_MAPPED,
     }
 
     public static enum WrapperGraphSuccessorsSize {
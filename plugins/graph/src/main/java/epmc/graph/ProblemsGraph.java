@@ -36,6 +36,8 @@ public final class ProblemsGraph {
     public final static Problem STATE_DS_TOO_SMALL = newProblem("state-ds-too-small");
     /** Chosen successor storage type is too small for given model. */
     public final static Problem WRAPPER_GRAPH_SUCCESSORS_SIZE_TOO_SMALL = newProblem("wrapper-graph-successors-size-too-small");
+    /** Exploration metrics could not be written to the file given. */
+    public final static Problem EXPLORATION_METRICS_IO_ERROR = newProblem("exploration-metrics-io-error");
 
     /**
      * Create new problem object using module resource file.
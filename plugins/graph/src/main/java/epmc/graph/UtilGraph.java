@@ -34,26 +34,48 @@ import epmc.graph.options.OptionsGraph;
 import epmc.options.Options;
 import epmc.util.BitSet;
 import epmc.util.BitStoreableToNumber;
+import epmc.util.BitStoreableToNumberConcurrent;
 import epmc.util.UtilBitSet;
 import epmc.value.Value;
 import epmc.value.ValueArray;
 
 public final class UtilGraph {
 
+    /**
+     * Create a node store according to {@link OptionsGraph#STATE_STORAGE}.
+     * Memory-mapped stores are created in a subdirectory of their own, so
+     * that different stores never share their files. The store should be
+     * closed once it is no longer needed.
+     * 
+     * @param numBits maximal number of bits of nodes to store
+     * @return node store
+     */
     public static BitStoreableToNumber newNodeStore(int numBits) {
+        return newNodeStore(numBits, false);
+    }
+
+    private static BitStoreableToNumber newNodeStore(int numBits, boolean concurrent) {
         BitStoreableToNumber nodeStore;
         OptionsTypesGraph.StateStorage stateStorage;
         stateStorage = Options.get().getEnum(OptionsGraph.STATE_STORAGE);
         ensure((stateStorage != OptionsTypesGraph.StateStorage.INT || numBits <= Integer.SIZE)
-                && (stateStorage != OptionsTypesGraph.StateStorage.LONG || numBits <= Long.SIZE),
+                && (stateStorage != OptionsTypesGraph.StateStorage.LONG || numBits <= Long.SIZE)
+                && (stateStorage != OptionsTypesGraph.StateStorage.INT_CONCURRENT || numBits <= Integer.SIZE)
+                && (stateStorage != OptionsTypesGraph.StateStorage.LONG_CONCURRENT || numBits <= Long.SIZE),
                 ProblemsGraph.STATE_DS_TOO_SMALL);
         if (stateStorage == OptionsTypesGraph.StateStorage.SMALLEST) {
             if (numBits <= Integer.SIZE) {
-                stateStorage = OptionsTypesGraph.StateStorage.INT;
+                stateStorage = concurrent
+                        ? OptionsTypesGraph.StateStorage.INT_CONCURRENT
+                        : OptionsTypesGraph.StateStorage.INT;
             } else if (numBits <= Long.SIZE) {
-                stateStorage = OptionsTypesGraph.StateStorage.LONG;
+                stateStorage = concurrent
+                        ? OptionsTypesGraph.StateStorage.LONG_CONCURRENT
+                        : OptionsTypesGraph.StateStorage.LONG;
             } else if (numBits < Integer.MAX_VALUE) {
-                stateStorage = OptionsTypesGraph.StateStorage.LONG_ARRAY;
+                stateStorage = concurrent
+                        ? OptionsTypesGraph.StateStorage.LONG_ARRAY_CONCURRENT
+                        : OptionsTypesGraph.StateStorage.LONG_ARRAY;
             } else {
                 assert false;
             }
@@ -68,6 +90,19 @@ public final class UtilGraph {
         case LONG_ARRAY:
             nodeStore = BitStoreableToNumber.newNodeStoreLongArray(numBits);
             break;
+        case INT_CONCURRENT:
+            nodeStore = BitStoreableToNumber.newNodeStoreIntConcurrent();
+            break;
+        case LONG_CONCURRENT:
+            nodeStore = BitStoreableToNumber.newNodeStoreLongConcurrent();
+            break;
+        case LONG_ARRAY_CONCURRENT:
+            nodeStore = BitStoreableToNumber.newNodeStoreLongArrayConcurrent(numBits);
+            break;
+        case LONG_ARRAY_MAPPED:
+            nodeStore = BitStoreableToNumber.newNodeStoreLongArrayMapped(numBits,
+                    Options.get().getString(OptionsGraph.STATE_STORAGE_DIRECTORY));
+            break;
         default:
             assert false;
             nodeStore = null;
@@ -76,6 +111,35 @@ public final class UtilGraph {
         return nodeStore;
     }
 
+    /**
+     * Create a node store which may be used by several threads in parallel.
+     * The kind of store used is chosen according to
+     * {@link OptionsGraph#STATE_STORAGE}, where the smallest concurrent store
+     * is used by default. Stores which are not concurrent by themselves are
+     * synchronised.
+     * 
+     * @param numBits maximal number of bits of nodes to store
+     * @return node store which may be used by several threads in parallel
+     */
+    public static BitStoreableToNumberConcurrent newConcurrentNodeStore(int numBits) {
+        return BitStoreableToNumberConcurrent.asConcurrent(newNodeStore(numBits, true));
+    }
+
+    /**
+     * Obtain the number of threads to be used for explicit-state exploration.
+     * The number is read from {@link OptionsGraph#EXPLORATION_THREADS}, where
+     * a value of zero denotes the number of available processors.
+     * 
+     * @return number of threads to be used for explicit-state exploration
+     */
+    public static int getNumExplorationThreads() {
+        int numThreads = Options.get().getInteger(OptionsGraph.EXPLORATION_THREADS);
+        if (numThreads == 0) {
+            numThreads = Runtime.getRuntime().availableProcessors();
+        }
+        return numThreads;
+    }
+
     public static StateSetDD computeAllStatesDD(GraphDD graphDD) {
         if (graphDD == null) {
             return null;
@@ -0,0 +1,202 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graph.explicit;
+
+import epmc.value.TypeInteger;
+import epmc.value.UtilValue;
+import epmc.value.ValueArrayInteger;
+
+/**
+ * Compressed representation of the successor lists of a sparse graph.
+ * The successors of each row are stored as differences to the previous
+ * successor of the row, where the first successor is relative to the row
+ * number. Differences are zig-zag encoded, so that small negative
+ * differences are small numbers as well, and then stored as variable-length
+ * integers using seven bits per byte. For models with mostly local
+ * transitions, most successors thus need only one or two bytes instead of
+ * four.
+ * <p>
+ * Successors are decoded by scanning the row from its start. A cursor
+ * remembers the position of the last successor decoded, so that iterating
+ * over the successors of a row in order costs constant time per successor.
+ * Because of this cursor, objects of this class must not be read by several
+ * threads in parallel.
+ * </p>
+ * 
+ * @author Ernst Moritz Hahn
+ */
+final class CompressedSuccessors {
+    private final static int VARINT_PAYLOAD_BITS = 7;
+    private final static int VARINT_PAYLOAD_MASK = (1 << VARINT_PAYLOAD_BITS) - 1;
+    private final static int VARINT_CONTINUE = 1 << VARINT_PAYLOAD_BITS;
+
+    /** Number of rows. */
+    private final int numRows;
+    /** Start position of the encoding of each row in the data array. */
+    private final int[] rowStart;
+    /** Encoded successors. */
+    private final byte[] data;
+    /** Row of the cursor, or -1 if the cursor is not set. */
+    private int cursorRow = -1;
+    /** Number of successors of the cursor row decoded so far. */
+    private int cursorIndex;
+    /** Position of the next successor to decode in the data array. */
+    private int cursorPosition;
+    /** Last successor decoded, or the row number if none decoded yet. */
+    private int cursorValue;
+
+    /**
+     * Compress the successor lists given.
+     * The successors of row {@code r} are the entries of the successors
+     * array from {@code bounds[r]} (inclusive) to {@code bounds[r+1]}
+     * (exclusive). If the encoded successors would not fit into a single
+     * array, {@code null} is returned.
+     * 
+     * @param bounds row bounds
+     * @param successors successor array
+     * @param numRows number of rows
+     * @return compressed successors, or {@code null}
+     */
+    static CompressedSuccessors compress(ValueArrayInteger bounds,
+            ValueArrayInteger successors, int numRows) {
+        assert bounds != null;
+        assert successors != null;
+        assert numRows >= 0;
+        long numBytes = 0;
+        for (int row = 0; row < numRows; row++) {
+            int previous = row;
+            int to = bounds.getInt(row + 1);
+            for (int entry = bounds.getInt(row); entry < to; entry++) {
+                int successor = successors.getInt(entry);
+                numBytes += varIntLength(zigZag(successor - previous));
+                previous = successor;
+            }
+        }
+        if (numBytes >= Integer.MAX_VALUE) {
+            return null;
+        }
+        return new CompressedSuccessors(bounds, successors, numRows, (int) numBytes);
+    }
+
+    private CompressedSuccessors(ValueArrayInteger bounds,
+            ValueArrayInteger successors, int numRows, int numBytes) {
+        this.numRows = numRows;
+        this.rowStart = new int[numRows + 1];
+        this.data = new byte[numBytes];
+        int position = 0;
+        for (int row = 0; row < numRows; row++) {
+            rowStart[row] = position;
+            int previous = row;
+            int to = bounds.getInt(row + 1);
+            for (int entry = bounds.getInt(row); entry < to; entry++) {
+                int successor = successors.getInt(entry);
+                int value = zigZag(successor - previous);
+                while ((value & ~VARINT_PAYLOAD_MASK) != 0) {
+                    data[position] = (byte) ((value & VARINT_PAYLOAD_MASK) | VARINT_CONTINUE);
+                    position++;
+                    value >>>= VARINT_PAYLOAD_BITS;
+                }
+                data[position] = (byte) value;
+                position++;
+                previous = successor;
+            }
+        }
+        rowStart[numRows] = position;
+        assert position == numBytes : position + " " + numBytes;
+    }
+
+    /**
+     * Get successor of a row.
+     * 
+     * @param row row of which to obtain successor
+     * @param index number of the successor within the row
+     * @return successor
+     */
+    int get(int row, int index) {
+        assert row >= 0 : row;
+        assert row < numRows : row + " " + numRows;
+        assert index >= 0 : index;
+        if (row == cursorRow && index == cursorIndex - 1) {
+            return cursorValue;
+        }
+        if (row != cursorRow || index < cursorIndex) {
+            cursorRow = row;
+            cursorIndex = 0;
+            cursorPosition = rowStart[row];
+            cursorValue = row;
+        }
+        while (cursorIndex <= index) {
+            assert cursorPosition < rowStart[row + 1];
+            int value = 0;
+            int shift = 0;
+            int current;
+            do {
+                current = data[cursorPosition];
+                cursorPosition++;
+                value |= (current & VARINT_PAYLOAD_MASK) << shift;
+                shift += VARINT_PAYLOAD_BITS;
+            } while ((current & VARINT_CONTINUE) != 0);
+            cursorValue += unZigZag(value);
+            cursorIndex++;
+        }
+        return cursorValue;
+    }
+
+    /**
+     * Restore the uncompressed successor array.
+     * The row bounds must be the ones used to compress the successors.
+     * 
+     * @param bounds row bounds
+     * @return uncompressed successor array
+     */
+    ValueArrayInteger decompress(ValueArrayInteger bounds) {
+        assert bounds != null;
+        int numEntries = bounds.getInt(numRows);
+        ValueArrayInteger result = UtilValue.newArray(TypeInteger.get().getTypeArray(),
+                Math.max(numEntries, 1));
+        for (int row = 0; row < numRows; row++) {
+            int from = bounds.getInt(row);
+            int to = bounds.getInt(row + 1);
+            for (int entry = from; entry < to; entry++) {
+                result.set(get(row, entry - from), entry);
+            }
+        }
+        cursorRow = -1;
+        return result;
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> (Integer.SIZE - 1));
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int varIntLength(int value) {
+        int length = 1;
+        while ((value & ~VARINT_PAYLOAD_MASK) != 0) {
+            value >>>= VARINT_PAYLOAD_BITS;
+            length++;
+        }
+        return length;
+    }
+}
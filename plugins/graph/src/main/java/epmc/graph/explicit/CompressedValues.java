@@ -0,0 +1,142 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graph.explicit;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import epmc.value.UtilValue;
+import epmc.value.Value;
+import epmc.value.ValueArray;
+
+/**
+ * Compressed representation of an array of edge values.
+ * The distinct values of the array are stored once in a table, and each
+ * entry of the array is represented by its index into this table. Indices
+ * are stored as bytes if there are at most 256 distinct values and as
+ * shorts if there are at most 65536 of them. Many models only use a few
+ * distinct probabilities or rates, so that an entry then needs one byte
+ * rather than a full value.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+final class CompressedValues {
+    private final static int MAX_BYTE_TABLE_SIZE = 1 << Byte.SIZE;
+    private final static int MAX_SHORT_TABLE_SIZE = 1 << Short.SIZE;
+    private final static int BYTE_MASK = 0xFF;
+    private final static int SHORT_MASK = 0xFFFF;
+
+    private final ValueArray table;
+    private final byte[] indicesByte;
+    private final short[] indicesShort;
+    private final int size;
+
+    /**
+     * Compress the first entries of the array given.
+     * If the array has too many distinct values among these entries,
+     * {@code null} is returned.
+     * 
+     * @param content array to compress
+     * @param size number of entries to compress
+     * @return compressed values, or {@code null}
+     */
+    static CompressedValues compress(ValueArray content, int size) {
+        assert content != null;
+        assert size >= 0;
+        assert size <= content.size() : size + " " + content.size();
+        Map<Value,Integer> valueToIndex = new HashMap<>();
+        int[] indices = new int[size];
+        Value entry = content.getType().getEntryType().newValue();
+        for (int entryNr = 0; entryNr < size; entryNr++) {
+            content.get(entry, entryNr);
+            Integer index = valueToIndex.get(entry);
+            if (index == null) {
+                if (valueToIndex.size() == MAX_SHORT_TABLE_SIZE) {
+                    return null;
+                }
+                index = valueToIndex.size();
+                valueToIndex.put(UtilValue.clone(entry), index);
+            }
+            indices[entryNr] = index;
+        }
+        ValueArray table = UtilValue.newArray(content.getType(), Math.max(valueToIndex.size(), 1));
+        for (Map.Entry<Value,Integer> value : valueToIndex.entrySet()) {
+            table.set(value.getKey(), value.getValue());
+        }
+        return new CompressedValues(table, indices, valueToIndex.size());
+    }
+
+    private CompressedValues(ValueArray table, int[] indices, int tableSize) {
+        this.table = table;
+        this.size = indices.length;
+        if (tableSize <= MAX_BYTE_TABLE_SIZE) {
+            indicesByte = new byte[indices.length];
+            indicesShort = null;
+            for (int entryNr = 0; entryNr < indices.length; entryNr++) {
+                indicesByte[entryNr] = (byte) indices[entryNr];
+            }
+        } else {
+            indicesByte = null;
+            indicesShort = new short[indices.length];
+            for (int entryNr = 0; entryNr < indices.length; entryNr++) {
+                indicesShort[entryNr] = (short) indices[entryNr];
+            }
+        }
+    }
+
+    /**
+     * Get an entry of the array.
+     * 
+     * @param result value to store the entry in
+     * @param entryNr number of the entry
+     */
+    void get(Value result, int entryNr) {
+        assert result != null;
+        assert entryNr >= 0 : entryNr;
+        assert entryNr < size : entryNr + " " + size;
+        int index;
+        if (indicesByte != null) {
+            index = indicesByte[entryNr] & BYTE_MASK;
+        } else {
+            index = indicesShort[entryNr] & SHORT_MASK;
+        }
+        table.get(result, index);
+    }
+
+    /**
+     * Restore the uncompressed array.
+     * 
+     * @return uncompressed array
+     */
+    ValueArray decompress() {
+        ValueArray result = UtilValue.newArray(table.getType(), Math.max(size, 1));
+        Value entry = table.getType().getEntryType().newValue();
+        for (int entryNr = 0; entryNr < size; entryNr++) {
+            get(entry, entryNr);
+            result.set(entry, entryNr);
+        }
+        return result;
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -20,23 +20,34 @@
 
 package epmc.graph.explicit;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import epmc.graph.CommonProperties;
 import epmc.graph.MessagesGraph;
+import epmc.graph.ProblemsGraph;
 import epmc.graph.Semantics;
 import epmc.graph.SemanticsNonDet;
 import epmc.graph.UtilGraph;
 import epmc.graph.explicit.GraphExplicitSparseAlternate.EdgePropertySparseNondet;
+import epmc.graph.options.OptionsGraph;
 import epmc.graph.explorer.Explorer;
 import epmc.graph.explorer.ExplorerEdgeProperty;
+import epmc.graph.explorer.ExplorerMetrics;
+import epmc.graph.explorer.ExplorerMetrics.Timer;
 import epmc.graph.explorer.ExplorerNode;
 import epmc.graph.explorer.ExplorerNodeProperty;
 import epmc.messages.OptionsMessages;
 import epmc.modelchecker.Log;
 import epmc.options.Options;
+import epmc.util.BitStoreable;
 import epmc.util.BitStoreableToNumber;
 import epmc.util.RunningInfo;
 import epmc.util.RunningInfo.SendInformation;
@@ -44,10 +55,16 @@ import epmc.util.StopWatch;
 import epmc.value.Type;
 import epmc.value.ValueObject;
 
+import static epmc.error.UtilError.fail;
 import static epmc.util.RunningInfo.startWithInfoVoid;
 
 /**
  * Build a graph representation from an explorer.
+ * If more than one thread shall be used according to
+ * {@link epmc.graph.options.OptionsGraph#EXPLORATION_THREADS} and a supplier
+ * for further explorers of the same model has been set using
+ * {@link #setWorkerExplorerSupplier(Supplier)}, the graph is built using
+ * {@link GraphBuilderExplorerParallel}.
  * 
  * @author Ernst Moritz Hahn
  */
@@ -57,6 +74,10 @@ public final class GraphBuilderExplorer {
         private int currentState;
         private int sleepTime;
         private Log log;
+        private volatile GraphExplicitCheckpoint checkpoint;
+        private volatile ExplorerMetrics metrics;
+        private volatile BitStoreableToNumber nodeStore;
+        private volatile long currentTransitions;
         
         private void setSleepTime(int sleepTime) {
             this.sleepTime = sleepTime;
@@ -69,6 +90,42 @@ public final class GraphBuilderExplorer {
         private void setCurrentState(int currentState) {
             this.currentState = currentState;
         }
+
+        private void setCheckpoint(GraphExplicitCheckpoint checkpoint) {
+            this.checkpoint = checkpoint;
+        }
+
+        private void setMetrics(ExplorerMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        private void setNodeStore(BitStoreableToNumber nodeStore) {
+            this.nodeStore = nodeStore;
+        }
+
+        private void addTransitions(int numTransitions) {
+            if (metrics != null) {
+                currentTransitions += numTransitions;
+            }
+        }
+
+        private void setTransitions(long numTransitions) {
+            currentTransitions = numTransitions;
+        }
+
+        private void sampleMetrics() {
+            ExplorerMetrics metrics = this.metrics;
+            if (metrics == null) {
+                return;
+            }
+            BitStoreableToNumber nodeStore = this.nodeStore;
+            if (nodeStore == null) {
+                metrics.sample(currentState, currentTransitions, -1L, Double.NaN);
+            } else {
+                metrics.sample(currentState, currentTransitions,
+                        nodeStore.getNumBytes(), nodeStore.getLoadFactor());
+            }
+        }
         
         @Override
         public void call() {
@@ -77,11 +134,69 @@ public final class GraphBuilderExplorer {
             lastState = currentState;
             log.send(MessagesGraph.BUILD_MODEL_STATES_EXPLORED,
                     currentState, delta);
+            GraphExplicitCheckpoint checkpoint = this.checkpoint;
+            if (checkpoint != null) {
+                checkpoint.requestIfDue();
+            }
+            sampleMetrics();
         }
         
     }
+
+    /** Node store measuring the time spent encoding and looking up nodes. */
+    private final static class NodeStoreTimed implements BitStoreableToNumber {
+        private final BitStoreableToNumber store;
+        private final Timer timer;
+
+        NodeStoreTimed(BitStoreableToNumber store, Timer timer) {
+            assert store != null;
+            assert timer != null;
+            this.store = store;
+            this.timer = timer;
+        }
+
+        @Override
+        public int toNumber(BitStoreable storeable) {
+            timer.start();
+            int number = store.toNumber(storeable);
+            timer.stop();
+            return number;
+        }
+
+        @Override
+        public void fromNumber(BitStoreable storeable, int number) {
+            timer.start();
+            store.fromNumber(storeable, number);
+            timer.stop();
+        }
+
+        @Override
+        public int size() {
+            return store.size();
+        }
+
+        @Override
+        public long getNumBytes() {
+            return store.getNumBytes();
+        }
+
+        @Override
+        public double getLoadFactor() {
+            return store.getLoadFactor();
+        }
+
+        @Override
+        public void close() {
+            store.close();
+        }
+    }
+
+    /** Name of timer of node encoding and lookup in exploration metrics. */
+    private final static String METRICS_ENCODING = "encoding";
     
     private Explorer explorer;
+    private Supplier<Explorer> workerExplorerSupplier;
+    private String cacheKey;
     private final Set<Object> graphProperties = new LinkedHashSet<>();
     private final Set<Object> nodeProperties = new LinkedHashSet<>();
     private final Set<Object> edgeProperties = new LinkedHashSet<>();
@@ -89,6 +204,7 @@ public final class GraphBuilderExplorer {
     private GraphExplicitSparse graphStoch;
     private GraphExplicitSparseAlternate graphAlter;
     private Log log;
+    private ExplorerMetrics metrics;
 
     public void setExplorer(Explorer explorer) {
         assert explorer != null;
@@ -96,6 +212,34 @@ public final class GraphBuilderExplorer {
         this.log = Options.get().get(OptionsMessages.LOG);
     }
 
+    /**
+     * Set supplier for further explorers used for parallel exploration.
+     * Each explorer obtained must be an explorer of the same model as the one
+     * set by {@link #setExplorer(Explorer)}, providing the same properties.
+     * The explorers are closed after the graph has been built.
+     * 
+     * @param workerExplorerSupplier supplier of explorers of the same model
+     */
+    public void setWorkerExplorerSupplier(Supplier<Explorer> workerExplorerSupplier) {
+        this.workerExplorerSupplier = workerExplorerSupplier;
+    }
+
+    /**
+     * Set key identifying the model and constants the explorer was built from.
+     * If a key is set and {@link OptionsGraph#GRAPH_CACHE_DIRECTORY} is given,
+     * graphs are loaded from and stored in the graph cache in that
+     * directory, as described in {@link GraphExplicitCache}. Likewise, if
+     * {@link OptionsGraph#GRAPH_CHECKPOINT_DIRECTORY} is given, checkpoints
+     * of sequential explorations are written to that directory, as described
+     * in {@link GraphExplicitCheckpoint}. The key must change whenever the
+     * model or the values of its constants change.
+     * 
+     * @param cacheKey key identifying model and constants
+     */
+    public void setCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
     public void addDerivedGraphProperties(Set<Object> graphProperties) {
         assert graphProperties != null;
         this.graphProperties.addAll(graphProperties);
@@ -123,13 +267,127 @@ public final class GraphBuilderExplorer {
         info.setLog(log);
         runningInfo.setSleepTime(1000);
         runningInfo.setInformationSender(info);
-        if (nondet) {
+        Path cacheFile = getCacheFile();
+        if (cacheFile != null && loadFromCache(cacheFile)) {
+            if (Options.get().getBoolean(OptionsGraph.GRAPH_COMPRESSION)) {
+                compressGraph();
+            }
+            return;
+        }
+        int numThreads = UtilGraph.getNumExplorationThreads();
+        boolean parallel = numThreads > 1 && workerExplorerSupplier != null;
+        String metricsFile = Options.get().getString(OptionsGraph.GRAPH_EXPLORATION_METRICS);
+        if (metricsFile != null) {
+            metrics = new ExplorerMetrics();
+            info.setMetrics(metrics);
+            if (!parallel) {
+                explorer.setMetrics(metrics);
+            }
+        }
+        if (parallel) {
+            doBuildParallel(info, nondet, numThreads);
+        } else if (nondet) {
             doBuildAlternate(info);
         } else {
             doBuildNonAlernate(info);
         }
+        if (metrics != null) {
+            info.sampleMetrics();
+            info.setMetrics(null);
+            explorer.setMetrics(null);
+            storeMetrics(Paths.get(metricsFile));
+            metrics = null;
+        }
+        if (cacheFile != null
+                && GraphExplicitCache.store(cacheFile, graph, nodeProperties, edgeProperties)) {
+            log.send(MessagesGraph.BUILD_MODEL_CACHE_STORED, cacheFile);
+        }
+        if (Options.get().getBoolean(OptionsGraph.GRAPH_COMPRESSION)) {
+            compressGraph();
+        }
+    }
+
+    private void storeMetrics(Path file) {
+        try {
+            metrics.write(file);
+        } catch (IOException e) {
+            fail(ProblemsGraph.EXPLORATION_METRICS_IO_ERROR, e, file, e.getMessage());
+        }
+        log.send(MessagesGraph.BUILD_MODEL_METRICS_STORED, file);
+    }
+
+    private Path getCacheFile() {
+        if (cacheKey == null) {
+            return null;
+        }
+        String directory = Options.get().getString(OptionsGraph.GRAPH_CACHE_DIRECTORY);
+        if (directory == null
+                || !GraphExplicitCache.isCacheable(explorer, nodeProperties, edgeProperties)) {
+            return null;
+        }
+        return GraphExplicitCache.getCacheFile(Paths.get(directory), cacheKey,
+                graphProperties, nodeProperties, edgeProperties);
+    }
+
+    private boolean loadFromCache(Path cacheFile) {
+        StopWatch watch = new StopWatch(true);
+        GraphExplicit cached = GraphExplicitCache.load(cacheFile, explorer,
+                graphProperties, nodeProperties, edgeProperties);
+        if (cached == null) {
+            return false;
+        }
+        this.graph = cached;
+        log.send(MessagesGraph.BUILD_MODEL_CACHE_LOADED, graph.computeNumStates(),
+                cacheFile, watch.getTimeSeconds());
+        return true;
+    }
+
+    private void compressGraph() {
+        if (graph instanceof GraphExplicitSparse) {
+            ((GraphExplicitSparse) graph).compress();
+        } else if (graph instanceof GraphExplicitSparseAlternate) {
+            ((GraphExplicitSparseAlternate) graph).compress();
+        }
     }
     
+    private void doBuildParallel(Info info, boolean nondet, int numThreads) {
+        assert this.explorer != null;
+        List<Explorer> explorers = new ArrayList<>();
+        explorers.add(explorer);
+        try {
+            for (int threadNr = 1; threadNr < numThreads; threadNr++) {
+                explorers.add(workerExplorerSupplier.get());
+            }
+            GraphBuilderExplorerParallel builder = new GraphBuilderExplorerParallel(explorers,
+                    graphProperties, nodeProperties, edgeProperties,
+                    nondet, log, info::setCurrentState);
+            this.graph = builder.build();
+            if (metrics != null) {
+                info.setTransitions(countTransitions(graph));
+            }
+        } finally {
+            for (int threadNr = 1; threadNr < explorers.size(); threadNr++) {
+                explorers.get(threadNr).close();
+            }
+        }
+    }
+
+    /**
+     * Count the transitions of a graph built.
+     * This is used for the exploration metrics of parallel builds, in which
+     * the worker threads do not report the transitions they explore.
+     * 
+     * @param graph graph to count transitions of
+     * @return number of transitions of the graph
+     */
+    private static long countTransitions(GraphExplicit graph) {
+        long result = 0;
+        for (int node = 0; node < graph.getNumNodes(); node++) {
+            result += graph.getNumSuccessors(node);
+        }
+        return result;
+    }
+
     private void doBuildNonAlernate(Info info) {
         assert this.explorer != null;
         assert this.graphProperties != null;
@@ -137,11 +395,20 @@ public final class GraphBuilderExplorer {
         assert this.edgeProperties != null;
         StopWatch watch = new StopWatch(true);
         log.send(MessagesGraph.BUILD_MODEL_START);
-        BitStoreableToNumber nodeStore = newNodeStore(explorer);
+        BitStoreableToNumber nodeStore = measureNodeStore(newNodeStore(explorer));
+        info.setNodeStore(nodeStore);
+        GraphExplicitCheckpoint checkpoint = openCheckpoint(false);
+        info.setCheckpoint(checkpoint);
+        if (checkpoint != null && checkpoint.isResumed()) {
+            checkpoint.restoreNodes(nodeStore, explorer.newNode());
+        }
         int lastNumber = 0;
         int numInitStates = 0;
         for (ExplorerNode node : explorer.getInitialNodes()) {            
             int number = nodeStore.toNumber(node);
+            if (checkpoint != null) {
+                checkpoint.recordNode(node, number);
+            }
             lastNumber = number;
             numInitStates++;
         }
@@ -187,26 +454,47 @@ public final class GraphBuilderExplorer {
             edgePropNr++;
         }
         currentState = 0;
+        if (checkpoint != null && checkpoint.isResumed()) {
+            checkpoint.restoreSparse(graphStoch, graphNodeProperties,
+                    graphEdgeProperties, getCheckpointTypes());
+            currentState = checkpoint.getNumExplored();
+            lastNumber = Math.max(checkpoint.getNumNodes() - 1, lastNumber);
+            log.send(MessagesGraph.BUILD_MODEL_CHECKPOINT_RESUMED, currentState,
+                    lastNumber + 1, watch.getTimeSeconds());
+        }
         info.setCurrentState(currentState);
         while (currentState <= lastNumber) {
             nodeStore.fromNumber(currentNode, currentState);
             explorer.queryNode(currentNode);
             int numStateSuccessors = explorer.getNumSuccessors();
+            info.addTransitions(numStateSuccessors);
             graphStoch.prepareNode(currentState, numStateSuccessors);
             for (nodePropNr = 0; nodePropNr < graphNodeProperties.length; nodePropNr++) {
                 graphNodeProperties[nodePropNr].set(currentState, explorerNodeProperties[nodePropNr].get());
             }
+            if (checkpoint != null) {
+                checkpoint.recordNumSuccessors(numStateSuccessors);
+                checkpoint.recordNodeValues(explorerNodeProperties);
+            }
             for (int stateSuccNr = 0; stateSuccNr < numStateSuccessors; stateSuccNr++) {
-                int numberSucc = nodeStore.toNumber(explorer.getSuccessorNode(stateSuccNr));
+                ExplorerNode successor = explorer.getSuccessorNode(stateSuccNr);
+                int numberSucc = nodeStore.toNumber(successor);
                 graph.setSuccessorNode(currentState, stateSuccNr, numberSucc);
                 for (nodePropNr = 0; nodePropNr < graphEdgeProperties.length; nodePropNr++) {
                     graphEdgeProperties[nodePropNr].set(currentState, stateSuccNr, explorerEdgeProperties[nodePropNr].get(stateSuccNr));
                 }
+                if (checkpoint != null) {
+                    checkpoint.recordNode(successor, numberSucc);
+                    checkpoint.recordSuccessor(numberSucc);
+                    checkpoint.recordEdgeValues(explorerEdgeProperties, stateSuccNr);
+                }
                 lastNumber = Math.max(numberSucc, lastNumber);
             }
             currentState++;
             info.setCurrentState(currentState);
+            storeCheckpointIfRequested(checkpoint, currentState, numInitStates);
         }
+        finishCheckpoint(info, checkpoint);
         for (int initState = 0; initState < numInitStates; initState++) {
             this.graph.getInitialNodes().set(initState);
         }
@@ -219,6 +507,8 @@ public final class GraphBuilderExplorer {
         }
         if (explorerNodeProperty != null) {
             explorerNodeProperty.setNumStates(graph.computeNumStates());
+        } else {
+            nodeStore.close();
         }
     }
 
@@ -229,11 +519,20 @@ public final class GraphBuilderExplorer {
         assert this.edgeProperties != null;
         StopWatch watch = new StopWatch(true);
         log.send(MessagesGraph.BUILD_MODEL_START);
-        BitStoreableToNumber nodeStore = newNodeStore(explorer);
+        BitStoreableToNumber nodeStore = measureNodeStore(newNodeStore(explorer));
+        info.setNodeStore(nodeStore);
+        GraphExplicitCheckpoint checkpoint = openCheckpoint(true);
+        info.setCheckpoint(checkpoint);
+        if (checkpoint != null && checkpoint.isResumed()) {
+            checkpoint.restoreNodes(nodeStore, explorer.newNode());
+        }
         int lastNumber = 0;
         int numInitStates = 0;
         for (ExplorerNode node : explorer.getInitialNodes()) {            
             int number = nodeStore.toNumber(node);
+            if (checkpoint != null) {
+                checkpoint.recordNode(node, number);
+            }
             lastNumber = number;
             numInitStates++;
         }
@@ -283,20 +582,36 @@ public final class GraphBuilderExplorer {
         }
         int nondetNr = numStates;
         currentState = 0;
+        if (checkpoint != null && checkpoint.isResumed()) {
+            nondetNr = checkpoint.restoreAlternate(graphAlter, graphNodeProperties,
+                    graphEdgePropertiesAlter, getCheckpointTypes(), numStates);
+            currentState = checkpoint.getNumExplored();
+            lastNumber = Math.max(checkpoint.getNumNodes() - 1, lastNumber);
+            log.send(MessagesGraph.BUILD_MODEL_CHECKPOINT_RESUMED, currentState,
+                    lastNumber + 1, watch.getTimeSeconds());
+        }
         info.setCurrentState(currentState);
         while (currentState <= lastNumber) {
             nodeStore.fromNumber(currentNode, currentState);
             explorer.queryNode(currentNode);
             int numStateSuccessors = explorer.getNumSuccessors();
+            info.addTransitions(numStateSuccessors);
             graphAlter.prepareState(numStateSuccessors);
             for (nodePropNr = 0; nodePropNr < graphNodeProperties.length; nodePropNr++) {
                 graphNodeProperties[nodePropNr].set(currentState, explorerNodeProperties[nodePropNr].get());
             }
+            if (checkpoint != null) {
+                checkpoint.recordNumSuccessors(numStateSuccessors);
+                checkpoint.recordNodeValues(explorerNodeProperties);
+            }
             successorNodes = assignSuccessorNodes(successorNodes);
             for (int stateSuccNr = 0; stateSuccNr < numStateSuccessors; stateSuccNr++) {
                 for (nodePropNr = 0; nodePropNr < graphEdgeProperties.length; nodePropNr++) {
                     graphEdgePropertiesAlter[nodePropNr].setForState(explorerEdgeProperties[nodePropNr].get(stateSuccNr), stateSuccNr);
                 }
+                if (checkpoint != null) {
+                    checkpoint.recordEdgeValues(explorerEdgeProperties, stateSuccNr);
+                }
                 nondetNr++;
             }
             nondetNr -= numStateSuccessors;
@@ -306,13 +621,24 @@ public final class GraphBuilderExplorer {
                     graphNodeProperties[nodePropNr].set(nondetNr, explorerNodeProperties[nodePropNr].get());
                 }
                 int numISuccessors = explorer.getNumSuccessors();
+                info.addTransitions(numISuccessors);
                 graphAlter.prepareNondet(numISuccessors);
+                if (checkpoint != null) {
+                    checkpoint.recordNodeValues(explorerNodeProperties);
+                    checkpoint.recordNumSuccessors(numISuccessors);
+                }
                 for (int interSuccNr = 0; interSuccNr < numISuccessors; interSuccNr++ ){
                     for (nodePropNr = 0; nodePropNr < graphEdgeProperties.length; nodePropNr++) {
                         graphEdgePropertiesAlter[nodePropNr].setForNonDet(explorerEdgeProperties[nodePropNr].get(interSuccNr), interSuccNr);
                     }
-                    int numberSucc = nodeStore.toNumber(explorer.getSuccessorNode(interSuccNr));
+                    ExplorerNode successor = explorer.getSuccessorNode(interSuccNr);
+                    int numberSucc = nodeStore.toNumber(successor);
                     graphAlter.setNondetSuccessor(interSuccNr, numberSucc);
+                    if (checkpoint != null) {
+                        checkpoint.recordEdgeValues(explorerEdgeProperties, interSuccNr);
+                        checkpoint.recordNode(successor, numberSucc);
+                        checkpoint.recordSuccessor(numberSucc);
+                    }
                     //                        graph.setSuccessorNode(interSuccNr, numberSucc);
                     lastNumber = Math.max(numberSucc, lastNumber);
                 }
@@ -320,7 +646,9 @@ public final class GraphBuilderExplorer {
             }
             currentState++;
             info.setCurrentState(currentState);
+            storeCheckpointIfRequested(checkpoint, currentState, numInitStates);
         }
+        finishCheckpoint(info, checkpoint);
         for (int initState = 0; initState < numInitStates; initState++) {
             this.graph.getInitialNodes().set(initState);
         }
@@ -333,6 +661,54 @@ public final class GraphBuilderExplorer {
         }
         if (explorerNodeProperty != null) {
             explorerNodeProperty.setNumStates(graph.computeNumStates());
+        } else {
+            nodeStore.close();
+        }
+    }
+
+    private GraphExplicitCheckpoint openCheckpoint(boolean alternate) {
+        String directory = Options.get().getString(OptionsGraph.GRAPH_CHECKPOINT_DIRECTORY);
+        if (directory == null || cacheKey == null
+                || !GraphExplicitCache.isCacheable(explorer, nodeProperties, edgeProperties)) {
+            return null;
+        }
+        String keyHash = GraphExplicitCache.computeKeyHash(cacheKey,
+                graphProperties, nodeProperties, edgeProperties);
+        return GraphExplicitCheckpoint.open(Paths.get(directory), keyHash,
+                alternate, explorer.getNumNodeBits(),
+                Options.get().getInteger(OptionsGraph.GRAPH_CHECKPOINT_INTERVAL),
+                Options.get().getBoolean(OptionsGraph.GRAPH_CHECKPOINT_RESUME));
+    }
+
+    private Type[] getCheckpointTypes() {
+        Type[] types = new Type[nodeProperties.size() + edgeProperties.size()];
+        int typeNr = 0;
+        for (Object property : nodeProperties) {
+            types[typeNr] = explorer.getNodePropertyType(property);
+            typeNr++;
+        }
+        for (Object property : edgeProperties) {
+            types[typeNr] = explorer.getEdgePropertyType(property);
+            typeNr++;
+        }
+        return types;
+    }
+
+    private void storeCheckpointIfRequested(GraphExplicitCheckpoint checkpoint,
+            int numExplored, int numInitStates) {
+        if (checkpoint == null || !checkpoint.isRequested()) {
+            return;
+        }
+        if (checkpoint.checkpoint(numExplored, numInitStates)) {
+            log.send(MessagesGraph.BUILD_MODEL_CHECKPOINT_STORED, numExplored,
+                    checkpoint.getNumNodes());
+        }
+    }
+
+    private static void finishCheckpoint(Info info, GraphExplicitCheckpoint checkpoint) {
+        info.setCheckpoint(null);
+        if (checkpoint != null) {
+            checkpoint.delete();
         }
     }
 
@@ -355,6 +731,13 @@ public final class GraphBuilderExplorer {
         return successorNodes;
     }
 
+    private BitStoreableToNumber measureNodeStore(BitStoreableToNumber nodeStore) {
+        if (metrics == null) {
+            return nodeStore;
+        }
+        return new NodeStoreTimed(nodeStore, metrics.getTimer(METRICS_ENCODING));
+    }
+
     private static BitStoreableToNumber newNodeStore(Explorer explorer) {
         int numBits = explorer.getNumNodeBits();
         return UtilGraph.newNodeStore(numBits);
@@ -0,0 +1,574 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graph.explicit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import epmc.graph.CommonProperties;
+import epmc.graph.MessagesGraph;
+import epmc.graph.UtilGraph;
+import epmc.graph.explicit.GraphExplicitSparseAlternate.EdgePropertySparseNondet;
+import epmc.graph.explorer.Explorer;
+import epmc.graph.explorer.ExplorerEdgeProperty;
+import epmc.graph.explorer.ExplorerNode;
+import epmc.graph.explorer.ExplorerNodeProperty;
+import epmc.modelchecker.Log;
+import epmc.util.BitStoreableToNumber;
+import epmc.util.BitStoreableToNumberConcurrent;
+import epmc.util.StopWatch;
+import epmc.value.Type;
+import epmc.value.TypeArray;
+import epmc.value.UtilValue;
+import epmc.value.Value;
+import epmc.value.ValueArray;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+/**
+ * Build a graph representation from several explorers in parallel.
+ * <p>
+ * Each thread uses its own explorer of the same model. Newly found states are
+ * explored by tasks of a work-stealing {@link ForkJoinPool}, and are numbered
+ * by a node store shared between all threads. The node and edge property
+ * values computed during exploration are stored by the thread which explored
+ * the state.
+ * </p>
+ * <p>
+ * The order in which states are numbered by the shared node store depends on
+ * the scheduling of the threads. After exploration, the states are thus
+ * renumbered in breadth-first order, starting from the initial nodes and
+ * visiting successors in the order returned by the explorer. This is the
+ * numbering also obtained by the sequential exploration of
+ * {@link GraphBuilderExplorer}, so the graph built does not depend on the
+ * number of threads used.
+ * </p>
+ * 
+ * @author Ernst Moritz Hahn
+ */
+final class GraphBuilderExplorerParallel {
+    /** Maximal number of states explored by a single task. */
+    private final static int BATCH_SIZE = 256;
+
+    /** Information recorded when exploring a single state. */
+    private final static class ExploredState {
+        /** Number of the state in the shared node store. */
+        private final int number;
+        /** Worker which explored the state and stores its property values. */
+        private final Worker worker;
+        /** Offset of the node property values in the arrays of the worker. */
+        private final int nodeOffset;
+        /** Offset of the edge property values in the arrays of the worker. */
+        private final int edgeOffset;
+        /** Successors, as numbers of the shared node store. */
+        private final int[] successors;
+        /** For nondeterministic models, bounds of choices in successors. */
+        private final int[] choiceBounds;
+
+        ExploredState(int number, Worker worker, int nodeOffset,
+                int edgeOffset, int[] successors, int[] choiceBounds) {
+            this.number = number;
+            this.worker = worker;
+            this.nodeOffset = nodeOffset;
+            this.edgeOffset = edgeOffset;
+            this.successors = successors;
+            this.choiceBounds = choiceBounds;
+        }
+    }
+
+    /** Explorer and data used by a single thread. */
+    private final class Worker {
+        private final Explorer explorer;
+        private final ExplorerNode node;
+        private ExplorerNode[] successorNodes;
+        private final ExplorerNodeProperty[] explorerNodeProperties;
+        private final ExplorerEdgeProperty[] explorerEdgeProperties;
+        private final ValueArray[] nodeValues;
+        private final ValueArray[] edgeValues;
+        private int numNodeValues;
+        private int numEdgeValues;
+        private final List<ExploredState> exploredStates = new ArrayList<>();
+        private final IntArrayList successors = new IntArrayList();
+        private final IntArrayList newStates = new IntArrayList();
+
+        Worker(Explorer explorer) {
+            assert explorer != null;
+            this.explorer = explorer;
+            node = explorer.newNode();
+            successorNodes = new ExplorerNode[1];
+            successorNodes[0] = explorer.newNode();
+            explorerNodeProperties = new ExplorerNodeProperty[nodeProperties.length];
+            nodeValues = new ValueArray[nodeProperties.length];
+            for (int propNr = 0; propNr < nodeProperties.length; propNr++) {
+                explorerNodeProperties[propNr] = explorer.getNodeProperty(nodeProperties[propNr]);
+                nodeValues[propNr] = UtilValue.newArray(nodeArrayTypes[propNr], 1);
+            }
+            explorerEdgeProperties = new ExplorerEdgeProperty[edgeProperties.length];
+            edgeValues = new ValueArray[edgeProperties.length];
+            for (int propNr = 0; propNr < edgeProperties.length; propNr++) {
+                explorerEdgeProperties[propNr] = explorer.getEdgeProperty(edgeProperties[propNr]);
+                edgeValues[propNr] = UtilValue.newArray(edgeArrayTypes[propNr], 1);
+            }
+        }
+
+        void explore(int number) {
+            if (nondet) {
+                exploreAlternate(number);
+            } else {
+                exploreNonAlternate(number);
+            }
+        }
+
+        private void exploreNonAlternate(int number) {
+            nodeStore.fromNumber(node, number);
+            explorer.queryNode(node);
+            int numSuccessors = explorer.getNumSuccessors();
+            int nodeOffset = addNodeValues();
+            int edgeOffset = numEdgeValues;
+            ensureEdgeValues(edgeOffset + numSuccessors);
+            int[] successors = new int[numSuccessors];
+            for (int succNr = 0; succNr < numSuccessors; succNr++) {
+                for (int propNr = 0; propNr < edgeValues.length; propNr++) {
+                    edgeValues[propNr].set(explorerEdgeProperties[propNr].get(succNr), edgeOffset + succNr);
+                }
+                successors[succNr] = insert(explorer.getSuccessorNode(succNr));
+            }
+            numEdgeValues += numSuccessors;
+            exploredStates.add(new ExploredState(number, this, nodeOffset, edgeOffset, successors, null));
+        }
+
+        private void exploreAlternate(int number) {
+            nodeStore.fromNumber(node, number);
+            explorer.queryNode(node);
+            int numChoices = explorer.getNumSuccessors();
+            int nodeOffset = addNodeValues();
+            int edgeOffset = numEdgeValues;
+            ensureEdgeValues(edgeOffset + numChoices);
+            for (int choiceNr = 0; choiceNr < numChoices; choiceNr++) {
+                for (int propNr = 0; propNr < edgeValues.length; propNr++) {
+                    edgeValues[propNr].set(explorerEdgeProperties[propNr].get(choiceNr), edgeOffset + choiceNr);
+                }
+            }
+            numEdgeValues += numChoices;
+            assignSuccessorNodes();
+            int[] choiceBounds = new int[numChoices + 1];
+            successors.clear();
+            for (int choiceNr = 0; choiceNr < numChoices; choiceNr++) {
+                explorer.queryNode(successorNodes[choiceNr]);
+                addNodeValues();
+                int numSuccessors = explorer.getNumSuccessors();
+                ensureEdgeValues(numEdgeValues + numSuccessors);
+                for (int succNr = 0; succNr < numSuccessors; succNr++) {
+                    for (int propNr = 0; propNr < edgeValues.length; propNr++) {
+                        edgeValues[propNr].set(explorerEdgeProperties[propNr].get(succNr), numEdgeValues + succNr);
+                    }
+                    successors.add(insert(explorer.getSuccessorNode(succNr)));
+                }
+                numEdgeValues += numSuccessors;
+                choiceBounds[choiceNr + 1] = successors.size();
+            }
+            exploredStates.add(new ExploredState(number, this, nodeOffset, edgeOffset, successors.toIntArray(), choiceBounds));
+        }
+
+        private int insert(ExplorerNode successor) {
+            int number = nodeStore.insert(successor);
+            if (number < 0) {
+                number = -number - 1;
+                newStates.add(number);
+            }
+            return number;
+        }
+
+        private int addNodeValues() {
+            int offset = numNodeValues;
+            for (int propNr = 0; propNr < nodeValues.length; propNr++) {
+                nodeValues[propNr] = UtilValue.ensureSize(nodeValues[propNr], offset + 1);
+                nodeValues[propNr].set(explorerNodeProperties[propNr].get(), offset);
+            }
+            numNodeValues++;
+            return offset;
+        }
+
+        private void ensureEdgeValues(int size) {
+            for (int propNr = 0; propNr < edgeValues.length; propNr++) {
+                edgeValues[propNr] = UtilValue.ensureSize(edgeValues[propNr], size);
+            }
+        }
+
+        private void assignSuccessorNodes() {
+            int numSuccessors = explorer.getNumSuccessors();
+            if (numSuccessors > successorNodes.length) {
+                int oldLength = successorNodes.length;
+                int newLength = oldLength;
+                while (newLength < numSuccessors) {
+                    newLength *= 2;
+                }
+                successorNodes = Arrays.copyOf(successorNodes, newLength);
+                for (int succ = oldLength; succ < newLength; succ++) {
+                    successorNodes[succ] = explorer.newNode();
+                }
+            }
+            for (int succ = 0; succ < numSuccessors; succ++) {
+                successorNodes[succ].set(explorer.getSuccessorNode(succ));
+            }
+        }
+    }
+
+    /**
+     * Task exploring a batch of states.
+     * Newly found states are explored by new tasks forked by this one.
+     */
+    private final class ExploreTask extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 1L;
+        private final int[] states;
+        private int numStates;
+
+        ExploreTask(CountedCompleter<?> completer, int[] states, int numStates) {
+            super(completer);
+            this.states = states;
+            this.numStates = numStates;
+        }
+
+        @Override
+        public void compute() {
+            while (numStates > BATCH_SIZE) {
+                int half = numStates / 2;
+                addToPendingCount(1);
+                new ExploreTask(this, Arrays.copyOfRange(states, half, numStates), numStates - half).fork();
+                numStates = half;
+            }
+            Worker worker = acquireWorker();
+            try {
+                int[] found = new int[BATCH_SIZE];
+                int numFound = 0;
+                for (int stateNr = 0; stateNr < numStates; stateNr++) {
+                    worker.newStates.clear();
+                    worker.explore(states[stateNr]);
+                    progress.accept(numExplored.incrementAndGet());
+                    for (int newNr = 0; newNr < worker.newStates.size(); newNr++) {
+                        found[numFound] = worker.newStates.getInt(newNr);
+                        numFound++;
+                        if (numFound == BATCH_SIZE) {
+                            addToPendingCount(1);
+                            new ExploreTask(this, found, numFound).fork();
+                            found = new int[BATCH_SIZE];
+                            numFound = 0;
+                        }
+                    }
+                }
+                if (numFound > 0) {
+                    addToPendingCount(1);
+                    new ExploreTask(this, found, numFound).fork();
+                }
+            } finally {
+                idleWorkers.add(worker);
+            }
+            tryComplete();
+        }
+    }
+
+    private final List<Explorer> explorers;
+    private final Explorer explorer;
+    private final Set<Object> graphProperties;
+    private final Object[] nodeProperties;
+    private final Object[] edgeProperties;
+    private final boolean withExplorerNode;
+    private final boolean nondet;
+    private final Log log;
+    private final IntConsumer progress;
+    private final TypeArray[] nodeArrayTypes;
+    private final TypeArray[] edgeArrayTypes;
+    private final BlockingQueue<Worker> idleWorkers = new LinkedBlockingQueue<>();
+    private final List<Worker> workers = new ArrayList<>();
+    private final AtomicInteger numExplored = new AtomicInteger();
+    private BitStoreableToNumberConcurrent nodeStore;
+
+    /**
+     * Create a new parallel graph builder.
+     * The first explorer of the list is the main explorer, from which graph
+     * properties and property types are read and which is used to obtain
+     * the nodes for {@link CommonProperties#NODE_EXPLORER}. One thread is used
+     * for each explorer. None of the parameters may be {@code null}.
+     * 
+     * @param explorers explorers of the same model, one for each thread
+     * @param graphProperties graph properties to add to graph built
+     * @param nodeProperties node properties to add to graph built
+     * @param edgeProperties edge properties to add to graph built
+     * @param nondet whether to build a nondeterministic graph
+     * @param log log to send progress messages to
+     * @param progress consumer for the number of states explored so far
+     */
+    GraphBuilderExplorerParallel(List<Explorer> explorers,
+            Set<Object> graphProperties, Set<Object> nodeProperties,
+            Set<Object> edgeProperties, boolean nondet, Log log,
+            IntConsumer progress) {
+        assert explorers != null;
+        assert explorers.size() > 0;
+        assert graphProperties != null;
+        assert nodeProperties != null;
+        assert edgeProperties != null;
+        assert log != null;
+        assert progress != null;
+        this.explorers = explorers;
+        this.explorer = explorers.get(0);
+        this.graphProperties = graphProperties;
+        Set<Object> nodePropertiesNoExplorer = new LinkedHashSet<>(nodeProperties);
+        this.withExplorerNode = nodePropertiesNoExplorer.remove(CommonProperties.NODE_EXPLORER);
+        this.nodeProperties = nodePropertiesNoExplorer.toArray();
+        this.edgeProperties = edgeProperties.toArray();
+        this.nondet = nondet;
+        this.log = log;
+        this.progress = progress;
+        nodeArrayTypes = new TypeArray[this.nodeProperties.length];
+        for (int propNr = 0; propNr < this.nodeProperties.length; propNr++) {
+            Type type = explorer.getNodePropertyType(this.nodeProperties[propNr]);
+            assert type != null : this.nodeProperties[propNr];
+            nodeArrayTypes[propNr] = type.getTypeArray();
+        }
+        edgeArrayTypes = new TypeArray[this.edgeProperties.length];
+        for (int propNr = 0; propNr < this.edgeProperties.length; propNr++) {
+            Type type = explorer.getEdgePropertyType(this.edgeProperties[propNr]);
+            assert type != null : this.edgeProperties[propNr];
+            edgeArrayTypes[propNr] = type.getTypeArray();
+        }
+    }
+
+    GraphExplicit build() {
+        StopWatch watch = new StopWatch(true);
+        log.send(MessagesGraph.BUILD_MODEL_START);
+        nodeStore = UtilGraph.newConcurrentNodeStore(explorer.getNumNodeBits());
+        int lastInitNumber = 0;
+        for (ExplorerNode node : explorer.getInitialNodes()) {
+            lastInitNumber = nodeStore.toNumber(node);
+        }
+        for (Explorer workerExplorer : explorers) {
+            Worker worker = new Worker(workerExplorer);
+            workers.add(worker);
+            idleWorkers.add(worker);
+        }
+        int[] initStates = new int[lastInitNumber + 1];
+        for (int state = 0; state <= lastInitNumber; state++) {
+            initStates[state] = state;
+        }
+        ForkJoinPool pool = new ForkJoinPool(explorers.size());
+        try {
+            pool.invoke(new ExploreTask(null, initStates, initStates.length));
+        } finally {
+            pool.shutdownNow();
+        }
+        int numStates = nodeStore.size();
+        log.send(MessagesGraph.BUILD_MODEL_NEXT_PHASE, numStates, watch.getTimeSeconds());
+        ExploredState[] exploredStates = new ExploredState[numStates];
+        for (Worker worker : workers) {
+            for (ExploredState state : worker.exploredStates) {
+                exploredStates[state.number] = state;
+            }
+            worker.exploredStates.clear();
+        }
+        int[] newToOld = computeOrder(exploredStates, lastInitNumber);
+        int[] oldToNew = new int[numStates];
+        for (int state = 0; state < numStates; state++) {
+            oldToNew[newToOld[state]] = state;
+        }
+        GraphExplicit graph;
+        if (nondet) {
+            graph = fillAlternate(exploredStates, newToOld, oldToNew, lastInitNumber);
+        } else {
+            graph = fillNonAlternate(exploredStates, newToOld, oldToNew);
+        }
+        for (int initState = 0; initState <= lastInitNumber; initState++) {
+            graph.getInitialNodes().set(initState);
+        }
+        if (withExplorerNode) {
+            BitStoreableToNumber orderedStore = UtilGraph.newNodeStore(explorer.getNumNodeBits());
+            ExplorerNode node = explorer.newNode();
+            for (int state = 0; state < numStates; state++) {
+                nodeStore.fromNumber(node, newToOld[state]);
+                orderedStore.toNumber(node);
+            }
+            NodePropertyExplorerNode explorerNodeProperty = new NodePropertyExplorerNode(graph, explorer, orderedStore);
+            graph.registerNodeProperty(CommonProperties.NODE_EXPLORER,
+                    explorerNodeProperty);
+            explorerNodeProperty.setNumStates(graph.computeNumStates());
+        }
+        nodeStore.close();
+        nodeStore = null;
+        log.send(MessagesGraph.BUILD_MODEL_DONE, numStates, watch.getTimeSeconds());
+        return graph;
+    }
+
+    /**
+     * Compute the order in which states are numbered in the graph built.
+     * States are ordered in breadth-first order, starting with the initial
+     * states and visiting successors in the order they were returned by the
+     * explorer. The result maps numbers in the graph to numbers in the node
+     * store.
+     * 
+     * @param exploredStates explored states, indexed by node store number
+     * @param lastInitNumber largest node store number of initial states
+     * @return map from graph numbers to node store numbers
+     */
+    private static int[] computeOrder(ExploredState[] exploredStates, int lastInitNumber) {
+        int numStates = exploredStates.length;
+        boolean[] seen = new boolean[numStates];
+        int[] newToOld = new int[numStates];
+        int numOrdered = 0;
+        for (int state = 0; state <= lastInitNumber; state++) {
+            seen[state] = true;
+            newToOld[numOrdered] = state;
+            numOrdered++;
+        }
+        for (int next = 0; next < numOrdered; next++) {
+            for (int succ : exploredStates[newToOld[next]].successors) {
+                if (!seen[succ]) {
+                    seen[succ] = true;
+                    newToOld[numOrdered] = succ;
+                    numOrdered++;
+                }
+            }
+        }
+        assert numOrdered == numStates;
+        return newToOld;
+    }
+
+    private GraphExplicit fillNonAlternate(ExploredState[] exploredStates,
+            int[] newToOld, int[] oldToNew) {
+        GraphExplicitSparse graph = new GraphExplicitSparse();
+        addGraphProperties(graph);
+        NodeProperty[] graphNodeProperties = new NodeProperty[nodeProperties.length];
+        Value[] nodeEntries = new Value[nodeProperties.length];
+        for (int propNr = 0; propNr < nodeProperties.length; propNr++) {
+            graphNodeProperties[propNr] = graph.addSettableNodeProperty(nodeProperties[propNr], nodeArrayTypes[propNr].getEntryType());
+            nodeEntries[propNr] = nodeArrayTypes[propNr].getEntryType().newValue();
+        }
+        EdgeProperty[] graphEdgeProperties = new EdgeProperty[edgeProperties.length];
+        Value[] edgeEntries = new Value[edgeProperties.length];
+        for (int propNr = 0; propNr < edgeProperties.length; propNr++) {
+            graphEdgeProperties[propNr] = graph.addSettableEdgeProperty(edgeProperties[propNr], edgeArrayTypes[propNr].getEntryType());
+            edgeEntries[propNr] = edgeArrayTypes[propNr].getEntryType().newValue();
+        }
+        for (int state = 0; state < newToOld.length; state++) {
+            ExploredState explored = exploredStates[newToOld[state]];
+            exploredStates[newToOld[state]] = null;
+            Worker worker = explored.worker;
+            int numSuccessors = explored.successors.length;
+            graph.prepareNode(state, numSuccessors);
+            for (int propNr = 0; propNr < graphNodeProperties.length; propNr++) {
+                worker.nodeValues[propNr].get(nodeEntries[propNr], explored.nodeOffset);
+                graphNodeProperties[propNr].set(state, nodeEntries[propNr]);
+            }
+            for (int succNr = 0; succNr < numSuccessors; succNr++) {
+                graph.setSuccessorNode(state, succNr, oldToNew[explored.successors[succNr]]);
+                for (int propNr = 0; propNr < graphEdgeProperties.length; propNr++) {
+                    worker.edgeValues[propNr].get(edgeEntries[propNr], explored.edgeOffset + succNr);
+                    graphEdgeProperties[propNr].set(state, succNr, edgeEntries[propNr]);
+                }
+            }
+        }
+        return graph;
+    }
+
+    private GraphExplicit fillAlternate(ExploredState[] exploredStates,
+            int[] newToOld, int[] oldToNew, int lastInitNumber) {
+        GraphExplicitSparseAlternate graph = new GraphExplicitSparseAlternate();
+        addGraphProperties(graph);
+        NodeProperty[] graphNodeProperties = new NodeProperty[nodeProperties.length];
+        Value[] nodeEntries = new Value[nodeProperties.length];
+        for (int propNr = 0; propNr < nodeProperties.length; propNr++) {
+            graphNodeProperties[propNr] = graph.addSettableNodeProperty(nodeProperties[propNr], nodeArrayTypes[propNr].getEntryType());
+            nodeEntries[propNr] = nodeArrayTypes[propNr].getEntryType().newValue();
+        }
+        EdgePropertySparseNondet[] graphEdgeProperties = new EdgePropertySparseNondet[edgeProperties.length];
+        Value[] edgeEntries = new Value[edgeProperties.length];
+        for (int propNr = 0; propNr < edgeProperties.length; propNr++) {
+            graphEdgeProperties[propNr] = graph.addSettableEdgeProperty(edgeProperties[propNr], edgeArrayTypes[propNr].getEntryType());
+            edgeEntries[propNr] = edgeArrayTypes[propNr].getEntryType().newValue();
+        }
+        int nondetNr = lastInitNumber + 1;
+        for (int state = 0; state < newToOld.length; state++) {
+            ExploredState explored = exploredStates[newToOld[state]];
+            exploredStates[newToOld[state]] = null;
+            Worker worker = explored.worker;
+            int numChoices = explored.choiceBounds.length - 1;
+            graph.prepareState(numChoices);
+            for (int propNr = 0; propNr < graphNodeProperties.length; propNr++) {
+                worker.nodeValues[propNr].get(nodeEntries[propNr], explored.nodeOffset);
+                graphNodeProperties[propNr].set(state, nodeEntries[propNr]);
+            }
+            for (int choiceNr = 0; choiceNr < numChoices; choiceNr++) {
+                for (int propNr = 0; propNr < graphEdgeProperties.length; propNr++) {
+                    worker.edgeValues[propNr].get(edgeEntries[propNr], explored.edgeOffset + choiceNr);
+                    graphEdgeProperties[propNr].setForState(edgeEntries[propNr], choiceNr);
+                }
+            }
+            int edgeNr = explored.edgeOffset + numChoices;
+            for (int choiceNr = 0; choiceNr < numChoices; choiceNr++) {
+                for (int propNr = 0; propNr < graphNodeProperties.length; propNr++) {
+                    worker.nodeValues[propNr].get(nodeEntries[propNr], explored.nodeOffset + 1 + choiceNr);
+                    graphNodeProperties[propNr].set(nondetNr, nodeEntries[propNr]);
+                }
+                int from = explored.choiceBounds[choiceNr];
+                int numSuccessors = explored.choiceBounds[choiceNr + 1] - from;
+                graph.prepareNondet(numSuccessors);
+                for (int succNr = 0; succNr < numSuccessors; succNr++) {
+                    for (int propNr = 0; propNr < graphEdgeProperties.length; propNr++) {
+                        worker.edgeValues[propNr].get(edgeEntries[propNr], edgeNr + succNr);
+                        graphEdgeProperties[propNr].setForNonDet(edgeEntries[propNr], succNr);
+                    }
+                    graph.setNondetSuccessor(succNr, oldToNew[explored.successors[from + succNr]]);
+                }
+                edgeNr += numSuccessors;
+                nondetNr++;
+            }
+        }
+        return graph;
+    }
+
+    private void addGraphProperties(GraphExplicit graph) {
+        for (Object property : graphProperties) {
+            Type type = explorer.getGraphPropertyType(property);
+            assert type != null : property;
+            graph.addSettableGraphProperty(property, type);
+            graph.setGraphProperty(property, explorer.getGraphProperty(property));
+        }
+    }
+
+    private Worker acquireWorker() {
+        Worker worker = idleWorkers.poll();
+        while (worker == null) {
+            try {
+                worker = idleWorkers.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+        return worker;
+    }
+}
@@ -0,0 +1,530 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graph.explicit;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+
+import epmc.graph.CommonProperties;
+import epmc.graph.explicit.GraphExplicitSparseAlternate.EdgePropertySparseNondet;
+import epmc.graph.explorer.Explorer;
+import epmc.util.BitStream;
+import epmc.value.Type;
+import epmc.value.Value;
+import epmc.value.ValueBitStoreable;
+
+/**
+ * Persistent cache of explicit-state graphs built from explorers.
+ * <p>
+ * A graph is stored in a single binary file, named after a hash of a
+ * description of the model, the constants used, and the graph, node, and
+ * edge properties built. The file consists of a sequence of {@code long}
+ * words forming a bit stream, into which the graph structure, the initial
+ * nodes, and the values of all node and edge properties are written using
+ * their {@link ValueBitStoreable} encoding. To load the graph, the file is
+ * memory-mapped and the graph is rebuilt from the bit stream using the same
+ * functions as used when building it from the explorer, so that the loaded
+ * graph is identical to the stored one. Graph properties are not stored but
+ * obtained from the explorer, which is cheap to construct compared to the
+ * exploration of the model.
+ * </p>
+ * <p>
+ * Graphs can only be cached if the values of all their node and edge
+ * properties can be bit-encoded and if they do not contain
+ * {@link CommonProperties#NODE_EXPLORER}, as the latter refers to the
+ * explorer nodes of the run in which the graph was built.
+ * </p>
+ * 
+ * @author Ernst Moritz Hahn
+ */
+final class GraphExplicitCache {
+    /** Writes a bit stream to an output stream, one long word at a time. */
+    private final static class OutputBitStream implements BitStream {
+        private final DataOutputStream out;
+        private long word;
+        private int numBits;
+
+        OutputBitStream(OutputStream out) {
+            this.out = new DataOutputStream(new BufferedOutputStream(out));
+        }
+
+        @Override
+        public boolean read() {
+            assert false;
+            return false;
+        }
+
+        @Override
+        public void write(boolean value) {
+            writeBits(value ? 1L : 0L, 1);
+        }
+
+        @Override
+        public void writeBits(long value, int numBits) {
+            assert numBits >= 0 : numBits;
+            assert numBits <= Long.SIZE : numBits;
+            if (numBits == 0) {
+                return;
+            }
+            value &= ~0L >>> (Long.SIZE - numBits);
+            word |= value << this.numBits;
+            int free = Long.SIZE - this.numBits;
+            if (numBits < free) {
+                this.numBits += numBits;
+                return;
+            }
+            writeWord(word);
+            word = free == Long.SIZE ? 0L : value >>> free;
+            this.numBits = numBits - free;
+        }
+
+        private void writeWord(long value) {
+            try {
+                out.writeLong(value);
+            } catch (IOException e) {
+                throw new CacheException(e);
+            }
+        }
+
+        void close() throws IOException {
+            if (numBits > 0) {
+                out.writeLong(word);
+            }
+            out.close();
+        }
+    }
+
+    /** Reads a bit stream from a memory-mapped file. */
+    final static class InputBitStream implements BitStream {
+        /** Number of words mapped at once. */
+        private final static long CHUNK_WORDS = 1L << 24;
+        private final FileChannel channel;
+        private final long numWords;
+        private long chunkStart;
+        private LongBuffer chunk;
+        private long word;
+        private int numBits;
+
+        InputBitStream(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.numWords = channel.size() / Long.BYTES;
+            this.chunkStart = -CHUNK_WORDS;
+        }
+
+        @Override
+        public boolean read() {
+            return readBits(1) != 0L;
+        }
+
+        @Override
+        public void write(boolean value) {
+            assert false;
+        }
+
+        @Override
+        public long readBits(int numBits) {
+            assert numBits >= 0 : numBits;
+            assert numBits <= Long.SIZE : numBits;
+            if (numBits == 0) {
+                return 0L;
+            }
+            long result = word;
+            int available = this.numBits;
+            if (numBits <= available) {
+                word = numBits == Long.SIZE ? 0L : word >>> numBits;
+                this.numBits -= numBits;
+            } else {
+                long next = readWord();
+                result |= next << available;
+                int used = numBits - available;
+                word = used == Long.SIZE ? 0L : next >>> used;
+                this.numBits = Long.SIZE - used;
+            }
+            return result & (~0L >>> (Long.SIZE - numBits));
+        }
+
+        private long readWord() {
+            if (chunk == null || !chunk.hasRemaining()) {
+                chunkStart += CHUNK_WORDS;
+                if (chunkStart >= numWords) {
+                    throw new CacheException(null);
+                }
+                long length = Math.min(CHUNK_WORDS, numWords - chunkStart);
+                try {
+                    chunk = channel.map(FileChannel.MapMode.READ_ONLY,
+                            chunkStart * Long.BYTES, length * Long.BYTES).asLongBuffer();
+                } catch (IOException e) {
+                    throw new CacheException(e);
+                }
+            }
+            return chunk.get();
+        }
+    }
+
+    /** Signals that a cache file could not be read or written. */
+    final static class CacheException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        CacheException(Throwable cause) {
+            super(cause);
+        }
+    }
+
+    private final static String HASH_ALGORITHM = "SHA-256";
+    private final static String FILE_SUFFIX = ".graph";
+    private final static String TEMP_SUFFIX = ".tmp";
+    private final static String NEWLINE = "\n";
+    private final static String HEX_FORMAT = "%02x";
+    private final static long MAGIC = 0x45504D4347524150L;
+    private final static long VERSION = 1L;
+    private final static long KIND_SPARSE = 0L;
+    private final static long KIND_ALTERNATE = 1L;
+
+    /**
+     * Compute the file used to cache a graph.
+     * 
+     * @param directory cache directory
+     * @param modelKey description of model and constants
+     * @param graphProperties graph properties of graph
+     * @param nodeProperties node properties of graph
+     * @param edgeProperties edge properties of graph
+     * @return file used to cache the graph
+     */
+    static Path getCacheFile(Path directory, String modelKey,
+            Set<Object> graphProperties, Set<Object> nodeProperties,
+            Set<Object> edgeProperties) {
+        assert directory != null;
+        assert modelKey != null;
+        return directory.resolve(computeKeyHash(modelKey, graphProperties,
+                nodeProperties, edgeProperties) + FILE_SUFFIX);
+    }
+
+    /**
+     * Compute a hash identifying a model, its constants, and a graph built.
+     * The hash is given as a string of hexadecimal digits.
+     * 
+     * @param modelKey description of model and constants
+     * @param graphProperties graph properties of graph
+     * @param nodeProperties node properties of graph
+     * @param edgeProperties edge properties of graph
+     * @return hash identifying model and graph
+     */
+    static String computeKeyHash(String modelKey,
+            Set<Object> graphProperties, Set<Object> nodeProperties,
+            Set<Object> edgeProperties) {
+        assert modelKey != null;
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+        StringBuilder key = new StringBuilder();
+        key.append(modelKey).append(NEWLINE);
+        key.append(graphProperties).append(NEWLINE);
+        key.append(nodeProperties).append(NEWLINE);
+        key.append(edgeProperties).append(NEWLINE);
+        byte[] hash = digest.digest(key.toString().getBytes(StandardCharsets.UTF_8));
+        StringBuilder name = new StringBuilder();
+        for (byte b : hash) {
+            name.append(String.format(HEX_FORMAT, b));
+        }
+        return name.toString();
+    }
+
+    /**
+     * Check whether graphs with the given properties can be cached.
+     * 
+     * @param explorer explorer from which graph is built
+     * @param nodeProperties node properties of graph
+     * @param edgeProperties edge properties of graph
+     * @return whether graphs with the given properties can be cached
+     */
+    static boolean isCacheable(Explorer explorer, Set<Object> nodeProperties,
+            Set<Object> edgeProperties) {
+        assert explorer != null;
+        if (nodeProperties.contains(CommonProperties.NODE_EXPLORER)) {
+            return false;
+        }
+        for (Object property : nodeProperties) {
+            if (!ValueBitStoreable.is(explorer.getNodePropertyType(property).newValue())) {
+                return false;
+            }
+        }
+        for (Object property : edgeProperties) {
+            if (!ValueBitStoreable.is(explorer.getEdgePropertyType(property).newValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Store a graph in a cache file.
+     * The file is first written under a temporary name and then renamed, so
+     * that other runs never read incomplete files. Failures to write the file
+     * are ignored, as the cache is only an optimisation.
+     * 
+     * @param file cache file
+     * @param graph graph to store
+     * @param nodeProperties node properties to store
+     * @param edgeProperties edge properties to store
+     * @return whether the graph was stored successfully
+     */
+    static boolean store(Path file, GraphExplicit graph,
+            Set<Object> nodeProperties, Set<Object> edgeProperties) {
+        assert file != null;
+        assert graph != null;
+        Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+        try {
+            Files.createDirectories(file.getParent());
+            OutputBitStream out = new OutputBitStream(Files.newOutputStream(temp));
+            try {
+                write(out, graph, nodeProperties, edgeProperties);
+            } finally {
+                out.close();
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (IOException | CacheException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e2) {
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Load a graph from a cache file.
+     * If the file does not exist or cannot be read, {@code null} is returned.
+     * 
+     * @param file cache file
+     * @param explorer explorer to obtain property types and graph properties from
+     * @param graphProperties graph properties to add to the graph
+     * @param nodeProperties node properties stored in the file
+     * @param edgeProperties edge properties stored in the file
+     * @return graph loaded, or {@code null}
+     */
+    static GraphExplicit load(Path file, Explorer explorer, Set<Object> graphProperties,
+            Set<Object> nodeProperties, Set<Object> edgeProperties) {
+        assert file != null;
+        assert explorer != null;
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            InputBitStream in = new InputBitStream(channel);
+            GraphExplicit graph = read(in, explorer, nodeProperties, edgeProperties);
+            if (graph == null) {
+                return null;
+            }
+            for (Object property : graphProperties) {
+                Type type = explorer.getGraphPropertyType(property);
+                graph.addSettableGraphProperty(property, type);
+                graph.setGraphProperty(property, explorer.getGraphProperty(property));
+            }
+            return graph;
+        } catch (IOException | CacheException e) {
+            return null;
+        }
+    }
+
+    private static void write(BitStream out, GraphExplicit graph,
+            Set<Object> nodeProperties, Set<Object> edgeProperties) {
+        boolean alternate = graph instanceof GraphExplicitSparseAlternate;
+        int numNodes = graph.getNumNodes();
+        int numStates = graph.computeNumStates();
+        out.writeLong(MAGIC);
+        out.writeLong(VERSION);
+        out.writeLong(alternate ? KIND_ALTERNATE : KIND_SPARSE);
+        out.writeInt(numNodes);
+        out.writeInt(numStates);
+        EdgeProperty[] edges = new EdgeProperty[edgeProperties.size()];
+        int propNr = 0;
+        for (Object property : edgeProperties) {
+            edges[propNr] = graph.getEdgeProperty(property);
+            propNr++;
+        }
+        if (alternate) {
+            for (int state = 0; state < numStates; state++) {
+                int numSuccessors = graph.getNumSuccessors(state);
+                out.writeInt(numSuccessors);
+                writeEdgeValues(out, edges, state, numSuccessors);
+                for (int succNr = 0; succNr < numSuccessors; succNr++) {
+                    int nondet = graph.getSuccessorNode(state, succNr);
+                    writeNode(out, graph, edges, nondet);
+                }
+            }
+        } else {
+            for (int node = 0; node < numNodes; node++) {
+                writeNode(out, graph, edges, node);
+            }
+        }
+        out.writeInt(graph.getInitialNodes().cardinality());
+        for (int node = graph.getInitialNodes().nextSetBit(0); node >= 0;
+                node = graph.getInitialNodes().nextSetBit(node + 1)) {
+            out.writeInt(node);
+        }
+        for (Object property : nodeProperties) {
+            NodeProperty nodeProperty = graph.getNodeProperty(property);
+            for (int node = 0; node < numNodes; node++) {
+                ValueBitStoreable.as(nodeProperty.get(node)).write(out);
+            }
+        }
+    }
+
+    private static void writeNode(BitStream out, GraphExplicit graph,
+            EdgeProperty[] edges, int node) {
+        int numSuccessors = graph.getNumSuccessors(node);
+        out.writeInt(numSuccessors);
+        for (int succNr = 0; succNr < numSuccessors; succNr++) {
+            out.writeInt(graph.getSuccessorNode(node, succNr));
+        }
+        writeEdgeValues(out, edges, node, numSuccessors);
+    }
+
+    private static void writeEdgeValues(BitStream out, EdgeProperty[] edges,
+            int node, int numSuccessors) {
+        for (EdgeProperty edge : edges) {
+            for (int succNr = 0; succNr < numSuccessors; succNr++) {
+                ValueBitStoreable.as(edge.get(node, succNr)).write(out);
+            }
+        }
+    }
+
+    private static GraphExplicit read(BitStream in, Explorer explorer,
+            Set<Object> nodeProperties, Set<Object> edgeProperties) {
+        if (in.readLong() != MAGIC || in.readLong() != VERSION) {
+            return null;
+        }
+        long kind = in.readLong();
+        int numNodes = in.readInt();
+        int numStates = in.readInt();
+        GraphExplicit graph;
+        if (kind == KIND_ALTERNATE) {
+            graph = readAlternate(in, explorer, edgeProperties, numStates);
+        } else if (kind == KIND_SPARSE) {
+            graph = readSparse(in, explorer, edgeProperties, numNodes);
+        } else {
+            return null;
+        }
+        int numInit = in.readInt();
+        for (int initNr = 0; initNr < numInit; initNr++) {
+            graph.getInitialNodes().set(in.readInt());
+        }
+        for (Object property : nodeProperties) {
+            Type type = explorer.getNodePropertyType(property);
+            NodeProperty nodeProperty = graph.addSettableNodeProperty(property, type);
+            ValueBitStoreable value = ValueBitStoreable.as(type.newValue());
+            for (int node = 0; node < numNodes; node++) {
+                value.read(in);
+                nodeProperty.set(node, value);
+            }
+        }
+        return graph;
+    }
+
+    private static GraphExplicit readSparse(BitStream in, Explorer explorer,
+            Set<Object> edgeProperties, int numNodes) {
+        GraphExplicitSparse graph = new GraphExplicitSparse();
+        EdgeProperty[] edges = new EdgeProperty[edgeProperties.size()];
+        ValueBitStoreable[] values = new ValueBitStoreable[edgeProperties.size()];
+        int propNr = 0;
+        for (Object property : edgeProperties) {
+            Type type = explorer.getEdgePropertyType(property);
+            edges[propNr] = graph.addSettableEdgeProperty(property, type);
+            values[propNr] = ValueBitStoreable.as(type.newValue());
+            propNr++;
+        }
+        for (int node = 0; node < numNodes; node++) {
+            int numSuccessors = in.readInt();
+            graph.prepareNode(node, numSuccessors);
+            for (int succNr = 0; succNr < numSuccessors; succNr++) {
+                graph.setSuccessorNode(node, succNr, in.readInt());
+            }
+            for (propNr = 0; propNr < edges.length; propNr++) {
+                for (int succNr = 0; succNr < numSuccessors; succNr++) {
+                    values[propNr].read(in);
+                    edges[propNr].set(node, succNr, values[propNr]);
+                }
+            }
+        }
+        return graph;
+    }
+
+    private static GraphExplicit readAlternate(BitStream in, Explorer explorer,
+            Set<Object> edgeProperties, int numStates) {
+        GraphExplicitSparseAlternate graph = new GraphExplicitSparseAlternate();
+        EdgePropertySparseNondet[] edges = new EdgePropertySparseNondet[edgeProperties.size()];
+        ValueBitStoreable[] values = new ValueBitStoreable[edgeProperties.size()];
+        int propNr = 0;
+        for (Object property : edgeProperties) {
+            Type type = explorer.getEdgePropertyType(property);
+            edges[propNr] = graph.addSettableEdgeProperty(property, type);
+            values[propNr] = ValueBitStoreable.as(type.newValue());
+            propNr++;
+        }
+        for (int state = 0; state < numStates; state++) {
+            int numSuccessors = in.readInt();
+            graph.prepareState(numSuccessors);
+            for (propNr = 0; propNr < edges.length; propNr++) {
+                for (int succNr = 0; succNr < numSuccessors; succNr++) {
+                    values[propNr].read(in);
+                    edges[propNr].setForState(values[propNr], succNr);
+                }
+            }
+            for (int succNr = 0; succNr < numSuccessors; succNr++) {
+                int numNondetSuccessors = in.readInt();
+                graph.prepareNondet(numNondetSuccessors);
+                int[] successors = new int[numNondetSuccessors];
+                for (int interSuccNr = 0; interSuccNr < numNondetSuccessors; interSuccNr++) {
+                    successors[interSuccNr] = in.readInt();
+                }
+                for (propNr = 0; propNr < edges.length; propNr++) {
+                    for (int interSuccNr = 0; interSuccNr < numNondetSuccessors; interSuccNr++) {
+                        values[propNr].read(in);
+                        edges[propNr].setForNonDet(values[propNr], interSuccNr);
+                    }
+                }
+                for (int interSuccNr = 0; interSuccNr < numNondetSuccessors; interSuccNr++) {
+                    graph.setNondetSuccessor(interSuccNr, successors[interSuccNr]);
+                }
+            }
+        }
+        return graph;
+    }
+
+    private GraphExplicitCache() {
+    }
+}
@@ -0,0 +1,566 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+package epmc.graph.explicit;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import epmc.graph.explicit.GraphExplicitCache.CacheException;
+import epmc.graph.explicit.GraphExplicitCache.InputBitStream;
+import epmc.graph.explicit.GraphExplicitSparseAlternate.EdgePropertySparseNondet;
+import epmc.graph.explorer.ExplorerEdgeProperty;
+import epmc.graph.explorer.ExplorerNode;
+import epmc.graph.explorer.ExplorerNodeProperty;
+import epmc.util.BitStoreableToNumber;
+import epmc.util.BitStream;
+import epmc.value.Type;
+import epmc.value.ValueBitStoreable;
+
+/**
+ * Checkpoints of explicit-state graphs while they are built from explorers.
+ * <p>
+ * A checkpoint consists of three files in the checkpoint directory, named
+ * after a hash identifying the model and the graph built. The node file
+ * contains the encodings of all explorer nodes in the order in which they
+ * were numbered. The journal file contains, for each node explored so far,
+ * its successors and the values of its node and edge properties, in the
+ * order in which they were added to the graph. Both files are only ever
+ * appended to. The state file is rewritten atomically at each checkpoint
+ * and records how many nodes have been explored and which prefixes of the
+ * node and journal files are valid. Thus, the cost of a checkpoint is
+ * proportional to the work done since the previous one rather than to the
+ * size of the graph.
+ * </p>
+ * <p>
+ * To resume, the node store is refilled from the node file, which yields
+ * the same node numbers as before, and the partial graph is rebuilt by
+ * replaying the journal using the same functions as used when building it
+ * from the explorer. Exploration then continues with the first unexplored
+ * node. The checkpoint files are deleted once the graph has been built
+ * completely.
+ * </p>
+ * 
+ * @author Ernst Moritz Hahn
+ */
+final class GraphExplicitCheckpoint {
+    /**
+     * Writes a bit stream to a file channel, one long word at a time.
+     * At each synchronisation, all complete words and the incomplete last
+     * word are written to the file. The incomplete word is written again
+     * once it has been completed.
+     */
+    private final static class OutputChannelBitStream implements BitStream {
+        private final static int BUFFER_WORDS = 1 << 12;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_WORDS * Long.BYTES);
+        /** Number of complete words written to the channel. */
+        private long position;
+        private long word;
+        private int numBits;
+
+        OutputChannelBitStream(FileChannel channel, long position, long word, int numBits) {
+            this.channel = channel;
+            this.position = position;
+            this.word = word;
+            this.numBits = numBits;
+        }
+
+        @Override
+        public boolean read() {
+            assert false;
+            return false;
+        }
+
+        @Override
+        public void write(boolean value) {
+            writeBits(value ? 1L : 0L, 1);
+        }
+
+        @Override
+        public void writeBits(long value, int numBits) {
+            assert numBits >= 0 : numBits;
+            assert numBits <= Long.SIZE : numBits;
+            if (numBits == 0) {
+                return;
+            }
+            value &= ~0L >>> (Long.SIZE - numBits);
+            word |= value << this.numBits;
+            int free = Long.SIZE - this.numBits;
+            if (numBits < free) {
+                this.numBits += numBits;
+                return;
+            }
+            writeWord(word);
+            word = free == Long.SIZE ? 0L : value >>> free;
+            this.numBits = numBits - free;
+        }
+
+        private void writeWord(long value) {
+            buffer.putLong(value);
+            if (!buffer.hasRemaining()) {
+                flushBuffer();
+            }
+        }
+
+        private void flushBuffer() {
+            buffer.flip();
+            long offset = position * Long.BYTES;
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer, offset + buffer.position());
+                }
+            } catch (IOException e) {
+                throw new CacheException(e);
+            }
+            position += buffer.limit() / Long.BYTES;
+            buffer.clear();
+        }
+
+        void sync() {
+            flushBuffer();
+            try {
+                channel.write((ByteBuffer) ByteBuffer.allocate(Long.BYTES).putLong(word).flip(),
+                        position * Long.BYTES);
+                channel.force(false);
+            } catch (IOException e) {
+                throw new CacheException(e);
+            }
+        }
+
+        long getPosition() {
+            return position;
+        }
+
+        long getWord() {
+            return word;
+        }
+
+        int getNumBits() {
+            return numBits;
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private final static String STATE_SUFFIX = ".checkpoint";
+    private final static String NODES_SUFFIX = ".nodes";
+    private final static String JOURNAL_SUFFIX = ".journal";
+    private final static String TEMP_SUFFIX = ".tmp";
+    private final static long MAGIC = 0x45504D43434B5054L;
+    private final static long VERSION = 1L;
+
+    private final Path stateFile;
+    private final Path nodesFile;
+    private final Path journalFile;
+    private final boolean alternate;
+    private final int numNodeBits;
+    private final long intervalNanos;
+    private final OutputChannelBitStream nodes;
+    private final OutputChannelBitStream journal;
+    /** Number of nodes written to the node file. */
+    private int numNodes;
+    /** Number of initial nodes, as stored in the checkpoint resumed from. */
+    private int numInitStates;
+    /** Number of explored nodes, as stored in the checkpoint resumed from. */
+    private int numExplored;
+    private final boolean resumed;
+    private long lastCheckpoint;
+    private volatile boolean requested;
+
+    /**
+     * Open checkpoint files in a directory.
+     * If resuming is requested and a valid checkpoint for the same key
+     * exists, it is used to resume from. Otherwise, a new checkpoint is
+     * started. If the files cannot be opened, {@code null} is returned.
+     * 
+     * @param directory checkpoint directory
+     * @param keyHash hash identifying model and graph, see
+     *                {@link GraphExplicitCache#computeKeyHash}
+     * @param alternate whether a {@link GraphExplicitSparseAlternate} is built
+     * @param numNodeBits number of bits of explorer nodes
+     * @param intervalSeconds minimal number of seconds between checkpoints
+     * @param resume whether to resume from an existing checkpoint
+     * @return checkpoint, or {@code null}
+     */
+    static GraphExplicitCheckpoint open(Path directory, String keyHash,
+            boolean alternate, int numNodeBits, int intervalSeconds, boolean resume) {
+        assert directory != null;
+        assert keyHash != null;
+        assert numNodeBits >= 0;
+        assert intervalSeconds >= 0;
+        try {
+            Files.createDirectories(directory);
+            return new GraphExplicitCheckpoint(directory, keyHash, alternate,
+                    numNodeBits, intervalSeconds, resume);
+        } catch (IOException | CacheException e) {
+            return null;
+        }
+    }
+
+    private GraphExplicitCheckpoint(Path directory, String keyHash,
+            boolean alternate, int numNodeBits, int intervalSeconds,
+            boolean resume) throws IOException {
+        stateFile = directory.resolve(keyHash + STATE_SUFFIX);
+        nodesFile = directory.resolve(keyHash + NODES_SUFFIX);
+        journalFile = directory.resolve(keyHash + JOURNAL_SUFFIX);
+        this.alternate = alternate;
+        this.numNodeBits = numNodeBits;
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(intervalSeconds);
+        long[] nodesPosition = new long[3];
+        long[] journalPosition = new long[3];
+        resumed = resume && readState(nodesPosition, journalPosition);
+        if (!resumed) {
+            Files.deleteIfExists(stateFile);
+            Files.deleteIfExists(nodesFile);
+            Files.deleteIfExists(journalFile);
+        }
+        nodes = new OutputChannelBitStream(FileChannel.open(nodesFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE),
+                nodesPosition[0], nodesPosition[1], (int) nodesPosition[2]);
+        journal = new OutputChannelBitStream(FileChannel.open(journalFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE),
+                journalPosition[0], journalPosition[1], (int) journalPosition[2]);
+        lastCheckpoint = System.nanoTime();
+    }
+
+    /**
+     * Check whether exploration is resumed from an existing checkpoint.
+     * 
+     * @return whether exploration is resumed from an existing checkpoint
+     */
+    boolean isResumed() {
+        return resumed;
+    }
+
+    int getNumInitStates() {
+        return numInitStates;
+    }
+
+    int getNumExplored() {
+        return numExplored;
+    }
+
+    int getNumNodes() {
+        return numNodes;
+    }
+
+    /**
+     * Refill a node store with the nodes of the checkpoint resumed from.
+     * 
+     * @param nodeStore empty node store to refill
+     * @param node node used to read nodes
+     */
+    void restoreNodes(BitStoreableToNumber nodeStore, ExplorerNode node) {
+        assert resumed;
+        assert nodeStore != null;
+        assert node != null;
+        try (FileChannel channel = FileChannel.open(nodesFile, StandardOpenOption.READ)) {
+            InputBitStream in = new InputBitStream(channel);
+            for (int nodeNr = 0; nodeNr < numNodes; nodeNr++) {
+                node.read(in);
+                int number = nodeStore.toNumber(node);
+                assert number == nodeNr;
+            }
+        } catch (IOException e) {
+            throw new CacheException(e);
+        }
+    }
+
+    /**
+     * Rebuild the explored part of a graph from the journal.
+     * 
+     * @param graph empty graph to rebuild
+     * @param nodeProperties node properties of the graph
+     * @param edgeProperties edge properties of the graph
+     * @param types types of node properties followed by types of edge properties
+     */
+    void restoreSparse(GraphExplicitSparse graph, NodeProperty[] nodeProperties,
+            EdgeProperty[] edgeProperties, Type[] types) {
+        assert resumed;
+        assert !alternate;
+        ValueBitStoreable[] values = newValues(types);
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.READ)) {
+            InputBitStream in = new InputBitStream(channel);
+            for (int node = 0; node < numExplored; node++) {
+                int numSuccessors = in.readInt();
+                graph.prepareNode(node, numSuccessors);
+                readNodeValues(in, nodeProperties, values, node);
+                for (int succNr = 0; succNr < numSuccessors; succNr++) {
+                    graph.setSuccessorNode(node, succNr, in.readInt());
+                    for (int propNr = 0; propNr < edgeProperties.length; propNr++) {
+                        ValueBitStoreable value = values[nodeProperties.length + propNr];
+                        value.read(in);
+                        edgeProperties[propNr].set(node, succNr, value);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new CacheException(e);
+        }
+    }
+
+    /**
+     * Rebuild the explored part of an alternating graph from the journal.
+     * The numbering of nondeterministic nodes follows the one used by
+     * {@link GraphBuilderExplorer}.
+     * 
+     * @param graph empty graph to rebuild
+     * @param nodeProperties node properties of the graph
+     * @param edgeProperties edge properties of the graph
+     * @param types types of node properties followed by types of edge properties
+     * @param firstNondet number of first nondeterministic node
+     * @return number of next nondeterministic node
+     */
+    int restoreAlternate(GraphExplicitSparseAlternate graph, NodeProperty[] nodeProperties,
+            EdgePropertySparseNondet[] edgeProperties, Type[] types, int firstNondet) {
+        assert resumed;
+        assert alternate;
+        ValueBitStoreable[] values = newValues(types);
+        int nondetNr = firstNondet;
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.READ)) {
+            InputBitStream in = new InputBitStream(channel);
+            for (int state = 0; state < numExplored; state++) {
+                int numSuccessors = in.readInt();
+                graph.prepareState(numSuccessors);
+                readNodeValues(in, nodeProperties, values, state);
+                for (int succNr = 0; succNr < numSuccessors; succNr++) {
+                    for (int propNr = 0; propNr < edgeProperties.length; propNr++) {
+                        ValueBitStoreable value = values[nodeProperties.length + propNr];
+                        value.read(in);
+                        edgeProperties[propNr].setForState(value, succNr);
+                    }
+                }
+                for (int succNr = 0; succNr < numSuccessors; succNr++) {
+                    readNodeValues(in, nodeProperties, values, nondetNr);
+                    int numNondetSuccessors = in.readInt();
+                    graph.prepareNondet(numNondetSuccessors);
+                    for (int interSuccNr = 0; interSuccNr < numNondetSuccessors; interSuccNr++) {
+                        for (int propNr = 0; propNr < edgeProperties.length; propNr++) {
+                            ValueBitStoreable value = values[nodeProperties.length + propNr];
+                            value.read(in);
+                            edgeProperties[propNr].setForNonDet(value, interSuccNr);
+                        }
+                        graph.setNondetSuccessor(interSuccNr, in.readInt());
+                    }
+                    nondetNr++;
+                }
+            }
+        } catch (IOException e) {
+            throw new CacheException(e);
+        }
+        return nondetNr;
+    }
+
+    /**
+     * Record a node if it has not been recorded yet.
+     * Nodes must be recorded in the order in which they are numbered.
+     * 
+     * @param node node to record
+     * @param number number of node in the node store
+     */
+    void recordNode(ExplorerNode node, int number) {
+        assert node != null;
+        assert number <= numNodes;
+        if (number == numNodes) {
+            node.write(nodes);
+            numNodes++;
+        }
+    }
+
+    /**
+     * Record values of node properties of the node explored last.
+     * 
+     * @param nodeProperties explorer node properties
+     */
+    void recordNodeValues(ExplorerNodeProperty[] nodeProperties) {
+        for (ExplorerNodeProperty property : nodeProperties) {
+            ValueBitStoreable.as(property.get()).write(journal);
+        }
+    }
+
+    /**
+     * Record the number of successors of the node explored last.
+     * 
+     * @param numSuccessors number of successors
+     */
+    void recordNumSuccessors(int numSuccessors) {
+        journal.writeInt(numSuccessors);
+    }
+
+    /**
+     * Record the number of a successor of the node explored last.
+     * 
+     * @param successor number of successor node
+     */
+    void recordSuccessor(int successor) {
+        journal.writeInt(successor);
+    }
+
+    /**
+     * Record values of edge properties of a successor of the node explored
+     * last.
+     * 
+     * @param edgeProperties explorer edge properties
+     * @param succNr number of successor
+     */
+    void recordEdgeValues(ExplorerEdgeProperty[] edgeProperties, int succNr) {
+        for (ExplorerEdgeProperty property : edgeProperties) {
+            ValueBitStoreable.as(property.get(succNr)).write(journal);
+        }
+    }
+
+    /**
+     * Request a checkpoint if the checkpoint interval has elapsed.
+     * This method is intended to be called periodically from the thread
+     * reporting progress of the exploration.
+     */
+    void requestIfDue() {
+        if (System.nanoTime() - lastCheckpoint >= intervalNanos) {
+            requested = true;
+        }
+    }
+
+    /**
+     * Check whether a checkpoint has been requested.
+     * If the checkpoint interval is zero, a checkpoint is requested after
+     * each explored node.
+     * 
+     * @return whether a checkpoint has been requested
+     */
+    boolean isRequested() {
+        return requested || intervalNanos == 0;
+    }
+
+    /**
+     * Write a checkpoint.
+     * All nodes numbered so far must have been recorded, and the journal must
+     * contain the records of exactly the given number of explored nodes.
+     * 
+     * @param numExplored number of nodes explored completely
+     * @param numInitStates number of initial nodes
+     * @return whether the checkpoint was written successfully
+     */
+    boolean checkpoint(int numExplored, int numInitStates) {
+        assert numExplored >= 0;
+        assert numInitStates >= 0;
+        requested = false;
+        lastCheckpoint = System.nanoTime();
+        Path temp = stateFile.resolveSibling(stateFile.getFileName() + TEMP_SUFFIX);
+        try {
+            nodes.sync();
+            journal.sync();
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temp))) {
+                out.writeLong(MAGIC);
+                out.writeLong(VERSION);
+                out.writeBoolean(alternate);
+                out.writeInt(numNodeBits);
+                out.writeInt(numExplored);
+                out.writeInt(numInitStates);
+                out.writeInt(numNodes);
+                writePosition(out, nodes);
+                writePosition(out, journal);
+            }
+            Files.move(temp, stateFile, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException | CacheException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Close and delete the checkpoint files.
+     * This method is to be called after the graph has been built completely.
+     */
+    void delete() {
+        try {
+            nodes.close();
+            journal.close();
+            Files.deleteIfExists(stateFile);
+            Files.deleteIfExists(nodesFile);
+            Files.deleteIfExists(journalFile);
+        } catch (IOException e) {
+        }
+    }
+
+    private boolean readState(long[] nodesPosition, long[] journalPosition) {
+        if (!Files.isRegularFile(stateFile)) {
+            return false;
+        }
+        try (InputStream stream = Files.newInputStream(stateFile);
+                DataInputStream in = new DataInputStream(stream)) {
+            if (in.readLong() != MAGIC || in.readLong() != VERSION
+                    || in.readBoolean() != alternate
+                    || in.readInt() != numNodeBits) {
+                return false;
+            }
+            numExplored = in.readInt();
+            numInitStates = in.readInt();
+            numNodes = in.readInt();
+            readPosition(in, nodesPosition);
+            readPosition(in, journalPosition);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void writePosition(DataOutputStream out,
+            OutputChannelBitStream stream) throws IOException {
+        out.writeLong(stream.getPosition());
+        out.writeLong(stream.getWord());
+        out.writeInt(stream.getNumBits());
+    }
+
+    private static void readPosition(DataInputStream in, long[] position)
+            throws IOException {
+        position[0] = in.readLong();
+        position[1] = in.readLong();
+        position[2] = in.readInt();
+    }
+
+    private static void readNodeValues(BitStream in, NodeProperty[] nodeProperties,
+            ValueBitStoreable[] values, int node) {
+        for (int propNr = 0; propNr < nodeProperties.length; propNr++) {
+            values[propNr].read(in);
+            nodeProperties[propNr].set(node, values[propNr]);
+        }
+    }
+
+    private static ValueBitStoreable[] newValues(Type[] types) {
+        ValueBitStoreable[] values = new ValueBitStoreable[types.length];
+        for (int index = 0; index < types.length; index++) {
+            values[index] = ValueBitStoreable.as(types[index].newValue());
+        }
+        return values;
+    }
+}
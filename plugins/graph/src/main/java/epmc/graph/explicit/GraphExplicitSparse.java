@@ -45,6 +45,7 @@ public final class GraphExplicitSparse implements GraphExplicit {
         private final GraphExplicit graph;
         private Value value;
         private ValueArray content;
+        private CompressedValues compressed;
 
         EdgePropertySparse(GraphExplicitSparse graph, Type type) {
             assert graph != null;
@@ -58,21 +59,45 @@ public final class GraphExplicitSparse implements GraphExplicit {
         @Override
         public Value get(int currentNode, int successor) {
             int entry = bounds.getInt(currentNode) + successor;
-            content.get(value, entry);
+            if (compressed != null) {
+                compressed.get(value, entry);
+            } else {
+                content.get(value, entry);
+            }
             return value;
         }
 
         @Override
         public void set(int currentNode, int successor, Value value) {
+            decompress();
             int entry = bounds.getInt(currentNode) + successor;
             content = ensureSize(content, entry + 1);
             content.set(value, entry);
         }
 
         public Value getContent() {
+            decompress();
             return content;
         }
 
+        private void compress() {
+            if (compressed != null) {
+                return;
+            }
+            compressed = CompressedValues.compress(content, bounds.getInt(numNodes));
+            if (compressed != null) {
+                content = null;
+            }
+        }
+
+        private void decompress() {
+            if (compressed == null) {
+                return;
+            }
+            content = ensureSize(compressed.decompress(), numTotalOut > 0 ? numTotalOut : 1);
+            compressed = null;
+        }
+
         @Override
         public Type getType() {
             return value.getType();
@@ -92,6 +117,8 @@ public final class GraphExplicitSparse implements GraphExplicit {
     private ValueArrayInteger bounds;
     /** Array of successor nodes. */
     private ValueArrayInteger successors;
+    /** Compressed successors, or {@code null} if not compressed. */
+    private CompressedSuccessors compressedSuccessors;
     /** Initial nodes of the graph. */
     private final BitSet initNodes;
     /** Graph, node, and edge properties of the graph. */
@@ -172,6 +199,9 @@ public final class GraphExplicitSparse implements GraphExplicit {
 
     @Override
     public int getSuccessorNode(int currentNode, int successor) {
+        if (compressedSuccessors != null) {
+            return compressedSuccessors.get(currentNode, successor);
+        }
         int entry = bounds.getInt(currentNode) + successor;
         return successors.getInt(entry);
     }
@@ -191,6 +221,7 @@ public final class GraphExplicitSparse implements GraphExplicit {
     }
 
     public Value getTargets() {
+        decompressSuccessors();
         return successors;
     }
 
@@ -199,9 +230,45 @@ public final class GraphExplicitSparse implements GraphExplicit {
     }
 
     public int[] getTargetsJava() {
+        decompressSuccessors();
         return ValueContentIntArray.getContent(successors);
     }
 
+    /**
+     * Store successors and edge properties of this graph in compressed form.
+     * Successor lists are delta-encoded as described in
+     * {@link CompressedSuccessors}, and the values of settable edge
+     * properties are replaced by indices into a table of their distinct
+     * values. The graph remains fully usable, but successor lookups then
+     * decode the successor list of the node and must not be performed by
+     * several threads in parallel. Functions accessing the raw arrays of the
+     * graph, as well as modifications, restore the uncompressed form first.
+     * The graph must not be extended after it has been compressed.
+     */
+    public void compress() {
+        if (compressedSuccessors == null) {
+            compressedSuccessors = CompressedSuccessors.compress(bounds, successors, numNodes);
+            if (compressedSuccessors != null) {
+                successors = null;
+            }
+        }
+        for (Object name : getEdgeProperties()) {
+            EdgeProperty property = properties.getEdgeProperty(name);
+            if (property instanceof EdgePropertySparse) {
+                ((EdgePropertySparse) property).compress();
+            }
+        }
+    }
+
+    private void decompressSuccessors() {
+        if (compressedSuccessors == null) {
+            return;
+        }
+        successors = ensureSize(compressedSuccessors.decompress(bounds),
+                numTotalOut > 0 ? numTotalOut : 1);
+        compressedSuccessors = null;
+    }
+
     @Override
     public void setSuccessorNode(int currentNode, int succNr, int succNode) {
         assert succNr >= 0;
@@ -209,6 +276,7 @@ public final class GraphExplicitSparse implements GraphExplicit {
             currentNode + " " + succNr + " " + bounds.getInt(currentNode + 1);
         assert succNode >= 0 : succNode;
         assert !fixedMode | succNode < numNodes : succNode + " " + numNodes;
+        decompressSuccessors();
         int entry = bounds.getInt(currentNode) + succNr;
         successors = ensureSize(successors, entry + 1);
         successors.set(succNode, entry);
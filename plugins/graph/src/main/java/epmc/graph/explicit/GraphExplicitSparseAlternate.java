@@ -147,6 +147,8 @@ public class GraphExplicitSparseAlternate implements GraphExplicit {
         private final Value value;
         private ValueArray content;
         private ValueArray contentND;
+        private CompressedValues compressed;
+        private CompressedValues compressedND;
         private int nextND;
         private int nextS;
 
@@ -164,18 +166,27 @@ public class GraphExplicitSparseAlternate implements GraphExplicit {
         public Value get(int currentNode, int successor) {
             if (currentNode < numStates) {
                 int entryNr = stateBounds.getInt(currentNode) + successor;
-                content = ensureSize(content, entryNr + 1);
-                content.get(value, entryNr);
+                if (compressed != null) {
+                    compressed.get(value, entryNr);
+                } else {
+                    content = ensureSize(content, entryNr + 1);
+                    content.get(value, entryNr);
+                }
             } else {
                 int entryNr = nondetBounds.getInt(currentNode - numStates) + successor;
-                contentND = ensureSize(contentND, entryNr + 1);
-                contentND.get(value, entryNr);
+                if (compressedND != null) {
+                    compressedND.get(value, entryNr);
+                } else {
+                    contentND = ensureSize(contentND, entryNr + 1);
+                    contentND.get(value, entryNr);
+                }
             }
             return value;
         }
 
         @Override
         public void set(int currentNode, int successor, Value value) {
+            decompress();
             if (currentNode < numStates) {
                 int entryNr = stateBounds.getInt(currentNode) + successor;
                 content = ensureSize(content, entryNr + 1);
@@ -193,6 +204,7 @@ public class GraphExplicitSparseAlternate implements GraphExplicit {
         }
 
         public Value getContent() {
+            decompress();
             return content;
         }
 
@@ -201,8 +213,37 @@ public class GraphExplicitSparseAlternate implements GraphExplicit {
             return graph;
         }
 
+        private void compress() {
+            if (compressed == null) {
+                compressed = CompressedValues.compress(content,
+                        Math.min(stateBounds.getInt(numStates), content.size()));
+                if (compressed != null) {
+                    content = null;
+                }
+            }
+            if (compressedND == null) {
+                compressedND = CompressedValues.compress(contentND,
+                        Math.min(nondetBounds.getInt(numNondet), contentND.size()));
+                if (compressedND != null) {
+                    contentND = null;
+                }
+            }
+        }
+
+        private void decompress() {
+            if (compressed != null) {
+                content = compressed.decompress();
+                compressed = null;
+            }
+            if (compressedND != null) {
+                contentND = compressedND.decompress();
+                compressedND = null;
+            }
+        }
+
         @Override
         public void setForState(Value value, int succNr) {
+            decompress();
             content = ensureSize(content, nextS + 1);
             content.set(value, nextS);
             nextS++;
@@ -211,6 +252,7 @@ public class GraphExplicitSparseAlternate implements GraphExplicit {
         @Override
         public void setForNonDet(Value value, int interSuccNr) {
             //            System.out.println("SN  " + currentNode + " " + interSuccNr + " " + entryNr + " " + value);
+            decompress();
             contentND = ensureSize(contentND, nextND + 1);
             contentND.set(value, nextND);
             nextND++;
@@ -222,6 +264,7 @@ public class GraphExplicitSparseAlternate implements GraphExplicit {
         private final GraphExplicitSparseAlternate graph;
         private final Value value;
         private ValueArray content;
+        private CompressedValues compressed;
 
         public EdgePropertySparseNondetOnlyNondet(GraphExplicitSparseAlternate graph, ValueArray content) {
             assert graph != null;
@@ -257,14 +300,19 @@ public class GraphExplicitSparseAlternate implements GraphExplicit {
                 ValueAlgebra.as(value).set(-1);
             } else {
                 int entryNr = getEntryNumber(currentNode, successor);
-                content = graph.ensureSize(content, entryNr + 1);
-                content.get(value, entryNr);
+                if (compressed != null) {
+                    compressed.get(value, entryNr);
+                } else {
+                    content = graph.ensureSize(content, entryNr + 1);
+                    content.get(value, entryNr);
+                }
             }
             return value;
         }
 
         @Override
         public void set(int currentNode, int successor, Value value) {
+            decompress();
             if (currentNode < graph.numStates) {
 
             } else {
@@ -280,6 +328,7 @@ public class GraphExplicitSparseAlternate implements GraphExplicit {
         }
 
         public Value getContent() {
+            decompress();
             return content;
         }
 
@@ -288,12 +337,32 @@ public class GraphExplicitSparseAlternate implements GraphExplicit {
             return graph;
         }
 
+        private void compress() {
+            if (compressed != null) {
+                return;
+            }
+            compressed = CompressedValues.compress(content,
+                    Math.min(graph.nondetBounds.getInt(graph.numNondet), content.size()));
+            if (compressed != null) {
+                content = null;
+            }
+        }
+
+        private void decompress() {
+            if (compressed == null) {
+                return;
+            }
+            content = compressed.decompress();
+            compressed = null;
+        }
+
         @Override
         public void setForState(Value value, int succNr) {
         }
 
         @Override
         public void setForNonDet(Value value, int successor) {
+            decompress();
             //            int entryNr = getEntryNumber(successor);
             int entryNr = graph.nondetBounds.getInt(graph.numNondet - 1) + successor;
             content = graph.ensureSize(content, entryNr + 1);
@@ -307,6 +376,8 @@ public class GraphExplicitSparseAlternate implements GraphExplicit {
     private ValueArrayInteger stateBounds;
     private ValueArrayInteger nondetBounds;
     private ValueArrayInteger successors;
+    /** Compressed successors of nondeterministic nodes, or {@code null}. */
+    private CompressedSuccessors compressedSuccessors;
     private int maxNumSuccessors;
     private int lastStatePrepared = -1;
     private int lastNondetPrepared = -1;
@@ -378,6 +449,9 @@ public class GraphExplicitSparseAlternate implements GraphExplicit {
         if (currentNode < numStates) {
             return stateBounds.getInt(currentNode) + successor + numStates;
         } else {
+            if (compressedSuccessors != null) {
+                return compressedSuccessors.get(currentNode - numStates, successor);
+            }
             int succNr = nondetBounds.getInt(currentNode - numStates) + successor;
             return successors.getInt(succNr);
         }
@@ -420,6 +494,7 @@ public class GraphExplicitSparseAlternate implements GraphExplicit {
             assert succNr >= 0;
         } else {
             assert !fixedMode || succNode < numStates : currentNode + " " + succNode + " " + numStates;
+            decompressSuccessors();
             int entryNr = nondetBounds.getInt(currentNode - numStates) + succNr;
             successors = ensureSize(successors, entryNr + 1);
             successors.set(succNode, entryNr);
@@ -491,13 +566,52 @@ public class GraphExplicitSparseAlternate implements GraphExplicit {
     }
 
     public ValueArrayInteger getTargets() {
+        decompressSuccessors();
         return successors;
     }
 
     public int[] getTargetsJava() {
+        decompressSuccessors();
         return ValueContentIntArray.getContent(successors);
     }
 
+    /**
+     * Store successors and edge properties of this graph in compressed form.
+     * The successors of nondeterministic nodes are delta-encoded as
+     * described in {@link CompressedSuccessors}, while successors of states
+     * are implicit anyway. The values of settable edge properties are
+     * replaced by indices into a table of their distinct values. The graph
+     * remains fully usable, but successor lookups then decode the successor
+     * list of the node and must not be performed by several threads in
+     * parallel. Functions accessing the raw arrays of the graph, as well as
+     * modifications, restore the uncompressed form first.
+     * The graph must not be extended after it has been compressed.
+     */
+    public void compress() {
+        if (compressedSuccessors == null) {
+            compressedSuccessors = CompressedSuccessors.compress(nondetBounds, successors, numNondet);
+            if (compressedSuccessors != null) {
+                successors = null;
+            }
+        }
+        for (Object name : getEdgeProperties()) {
+            EdgeProperty property = properties.getEdgeProperty(name);
+            if (property instanceof EdgePropertySparseNondetGeneral) {
+                ((EdgePropertySparseNondetGeneral) property).compress();
+            } else if (property instanceof EdgePropertySparseNondetOnlyNondet) {
+                ((EdgePropertySparseNondetOnlyNondet) property).compress();
+            }
+        }
+    }
+
+    private void decompressSuccessors() {
+        if (compressedSuccessors == null) {
+            return;
+        }
+        successors = compressedSuccessors.decompress(nondetBounds);
+        compressedSuccessors = null;
+    }
+
     @Override
     public BitSet getInitialNodes() {
         return initNodes;
@@ -559,6 +673,7 @@ public class GraphExplicitSparseAlternate implements GraphExplicit {
     }
 
     public void setNondetSuccessor(int succNr, int state) {
+        decompressSuccessors();
         int offset = nondetBounds.getInt(numNondet - 1) + succNr;
         successors = ensureSize(successors, offset + 1);
         successors.set(state, offset);
@@ -232,6 +232,18 @@ public interface Explorer extends LowLevel {
         return getEdgeProperty(property).getType();
     }
 
+    /**
+     * Set metrics to record statistics about the exploration in.
+     * Explorers may record the time spent in the different phases of
+     * computing successors and the number of successors computed by their
+     * components. If the parameter is {@code null}, no statistics shall be
+     * recorded. The default implementation ignores the metrics.
+     * 
+     * @param metrics metrics to record statistics in, or {@code null}
+     */
+    default void setMetrics(ExplorerMetrics metrics) {
+    }
+
     @Override
     default StateSet newInitialStateSet() {
         return new StateSetExplorer<>(this, getInitialNodes());
@@ -23,5 +23,13 @@ package epmc.graph.options;
 public enum OptionsGraph {
     OPTIONS_GRAPH,
     STATE_STORAGE,
+    STATE_STORAGE_DIRECTORY,
     WRAPPER_GRAPH_SUCCESSORS_SIZE,
+    EXPLORATION_THREADS,
+    GRAPH_COMPRESSION,
+    GRAPH_CACHE_DIRECTORY,
+    GRAPH_CHECKPOINT_DIRECTORY,
+    GRAPH_CHECKPOINT_INTERVAL,
+    GRAPH_CHECKPOINT_RESUME,
+    GRAPH_EXPLORATION_METRICS,
 }
@@ -26,8 +26,11 @@ import epmc.modelchecker.EngineDD;
 import epmc.modelchecker.EngineExplicit;
 import epmc.modelchecker.EngineExplorer;
 import epmc.modelchecker.options.OptionsModelChecker;
+import epmc.options.OptionTypeBoolean;
 import epmc.options.OptionTypeEnum;
+import epmc.options.OptionTypeIntegerNonNegative;
 import epmc.options.OptionTypeMap;
+import epmc.options.OptionTypeString;
 import epmc.options.Options;
 import epmc.plugin.AfterOptionsCreation;
 
@@ -49,10 +52,46 @@ public final class AfterOptionsCreationGraph implements AfterOptionsCreation {
         .setDefault(OptionsTypesGraph.StateStorage.SMALLEST)
         .setCommandLine().setGui().setWeb().build();
         options.addOption().setBundleName(OptionsGraph.OPTIONS_GRAPH)
+        .setIdentifier(OptionsGraph.STATE_STORAGE_DIRECTORY)
+        .setType(OptionTypeString.getInstance())
+        .setCommandLine().setGui().build();
+        options.addOption().setBundleName(OptionsGraph.OPTIONS_GRAPH)
         .setIdentifier(OptionsGraph.WRAPPER_GRAPH_SUCCESSORS_SIZE)
         .setType(new OptionTypeEnum(OptionsTypesGraph.WrapperGraphSuccessorsSize.class))
         .setDefault(OptionsTypesGraph.WrapperGraphSuccessorsSize.SMALLEST)
         .setCommandLine().setGui().setWeb().build();
+        options.addOption().setBundleName(OptionsGraph.OPTIONS_GRAPH)
+        .setIdentifier(OptionsGraph.EXPLORATION_THREADS)
+        .setType(OptionTypeIntegerNonNegative.getInstance())
+        .setDefault(1)
+        .setCommandLine().setGui().setWeb().build();
+        options.addOption().setBundleName(OptionsGraph.OPTIONS_GRAPH)
+        .setIdentifier(OptionsGraph.GRAPH_COMPRESSION)
+        .setType(OptionTypeBoolean.getInstance())
+        .setDefault(false)
+        .setCommandLine().setGui().setWeb().build();
+        options.addOption().setBundleName(OptionsGraph.OPTIONS_GRAPH)
+        .setIdentifier(OptionsGraph.GRAPH_CACHE_DIRECTORY)
+        .setType(OptionTypeString.getInstance())
+        .setCommandLine().setGui().build();
+        options.addOption().setBundleName(OptionsGraph.OPTIONS_GRAPH)
+        .setIdentifier(OptionsGraph.GRAPH_CHECKPOINT_DIRECTORY)
+        .setType(OptionTypeString.getInstance())
+        .setCommandLine().setGui().build();
+        options.addOption().setBundleName(OptionsGraph.OPTIONS_GRAPH)
+        .setIdentifier(OptionsGraph.GRAPH_CHECKPOINT_INTERVAL)
+        .setType(OptionTypeIntegerNonNegative.getInstance())
+        .setDefault(600)
+        .setCommandLine().setGui().build();
+        options.addOption().setBundleName(OptionsGraph.OPTIONS_GRAPH)
+        .setIdentifier(OptionsGraph.GRAPH_CHECKPOINT_RESUME)
+        .setType(OptionTypeBoolean.getInstance())
+        .setDefault(false)
+        .setCommandLine().setGui().build();
+        options.addOption().setBundleName(OptionsGraph.OPTIONS_GRAPH)
+        .setIdentifier(OptionsGraph.GRAPH_EXPLORATION_METRICS)
+        .setType(OptionTypeString.getInstance())
+        .setCommandLine().setGui().build();
 
         OptionTypeMap<Class<?>> engineType = options.getOption(OptionsModelChecker.ENGINE).getType();
         engineType.put(EngineDD.IDENTIFIER, EngineDD.class);
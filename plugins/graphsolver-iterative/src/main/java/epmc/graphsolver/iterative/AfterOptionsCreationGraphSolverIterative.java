@@ -25,10 +25,17 @@ import java.util.Map;
 import epmc.graphsolver.OptionsGraphsolver;
 import epmc.graphsolver.iterative.java.BoundedCumulativeDiscountedJava;
 import epmc.graphsolver.iterative.java.BoundedCumulativeJava;
+import epmc.graphsolver.iterative.java.BoundedCumulativeJavaDouble;
 import epmc.graphsolver.iterative.java.BoundedJava;
+import epmc.graphsolver.iterative.java.BoundedReachabilityBatchJava;
 import epmc.graphsolver.iterative.java.BoundedReachabilityJava;
+import epmc.graphsolver.iterative.java.BoundedReachabilityJavaDouble;
+import epmc.graphsolver.iterative.java.PolicyIterationJavaDouble;
+import epmc.graphsolver.iterative.java.SteadyStateJavaDouble;
 import epmc.graphsolver.iterative.java.UnboundedCumulativeJava;
+import epmc.graphsolver.iterative.java.UnboundedCumulativeJavaDouble;
 import epmc.graphsolver.iterative.java.UnboundedReachabilityJava;
+import epmc.graphsolver.iterative.java.UnboundedReachabilityJavaDouble;
 import epmc.graphsolver.iterative.natives.BoundedCumulativeDiscountedNative;
 import epmc.graphsolver.iterative.natives.BoundedCumulativeNative;
 import epmc.graphsolver.iterative.natives.BoundedNative;
@@ -37,7 +44,10 @@ import epmc.graphsolver.iterative.natives.UnboundedCumulativeNative;
 import epmc.graphsolver.iterative.natives.UnboundedLRANative;
 import epmc.graphsolver.iterative.natives.UnboundedReachabilityNative;
 import epmc.options.Category;
+import epmc.options.OptionTypeBoolean;
 import epmc.options.OptionTypeEnum;
+import epmc.options.OptionTypeIntegerInterval;
+import epmc.options.OptionTypeIntegerNonNegative;
 import epmc.options.OptionTypeRealNonnegative;
 import epmc.options.Options;
 import epmc.plugin.AfterOptionsCreation;
@@ -79,14 +89,52 @@ public class AfterOptionsCreationGraphSolverIterative implements AfterOptionsCre
         .setDefault("1.0E-10")
         .setCommandLine().setGui().setWeb()
         .setCategory(category).build();
+        options.addOption().setBundleName(OptionsGraphSolverIterative.OPTIONS_GRAPH_SOLVER_ITERATIVE)
+        .setIdentifier(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_TOPOLOGICAL)
+        .setType(OptionTypeBoolean.getInstance())
+        .setDefault(false)
+        .setCommandLine().setGui().setWeb()
+        .setCategory(category).build();
+        options.addOption().setBundleName(OptionsGraphSolverIterative.OPTIONS_GRAPH_SOLVER_ITERATIVE)
+        .setIdentifier(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_THREADS)
+        .setType(OptionTypeIntegerNonNegative.getInstance())
+        .setDefault(1)
+        .setCommandLine().setGui().setWeb()
+        .setCategory(category).build();
+        options.addOption().setBundleName(OptionsGraphSolverIterative.OPTIONS_GRAPH_SOLVER_ITERATIVE)
+        .setIdentifier(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_PRECONDITIONER)
+        .setType(new OptionTypeEnum(IterationPreconditioner.class))
+        .setDefault(IterationPreconditioner.ILU0)
+        .setCommandLine().setGui().setWeb()
+        .setCategory(category).build();
+        options.addOption().setBundleName(OptionsGraphSolverIterative.OPTIONS_GRAPH_SOLVER_ITERATIVE)
+        .setIdentifier(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_GMRES_RESTART)
+        .setType(new OptionTypeIntegerInterval(1, Integer.MAX_VALUE))
+        .setDefault(30)
+        .setCommandLine().setGui().setWeb()
+        .setCategory(category).build();
+        options.addOption().setBundleName(OptionsGraphSolverIterative.OPTIONS_GRAPH_SOLVER_ITERATIVE)
+        .setIdentifier(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_GRAPH_CACHE_SIZE)
+        .setType(OptionTypeIntegerNonNegative.getInstance())
+        .setDefault(1024)
+        .setCommandLine().setGui().setWeb()
+        .setCategory(category).build();
+        options.set(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_GRAPH_CACHE, new IterationGraphCache());
         Map<String, Class<?>> graphSolverMap = options.get(OptionsGraphsolver.GRAPHSOLVER_SOLVER_CLASS);
         assert graphSolverMap != null;
+        graphSolverMap.put(PolicyIterationJavaDouble.IDENTIFIER, PolicyIterationJavaDouble.class);
         graphSolverMap.put(BoundedCumulativeJava.IDENTIFIER, BoundedCumulativeJava.class);
         graphSolverMap.put(BoundedCumulativeDiscountedJava.IDENTIFIER, BoundedCumulativeDiscountedJava.class);
         graphSolverMap.put(UnboundedCumulativeJava.IDENTIFIER, UnboundedCumulativeJava.class);
         graphSolverMap.put(UnboundedReachabilityJava.IDENTIFIER, UnboundedReachabilityJava.class);
         graphSolverMap.put(BoundedReachabilityJava.IDENTIFIER, BoundedReachabilityJava.class);
+        graphSolverMap.put(BoundedReachabilityBatchJava.IDENTIFIER, BoundedReachabilityBatchJava.class);
         graphSolverMap.put(BoundedJava.IDENTIFIER, BoundedJava.class);
+        graphSolverMap.put(UnboundedReachabilityJavaDouble.IDENTIFIER, UnboundedReachabilityJavaDouble.class);
+        graphSolverMap.put(SteadyStateJavaDouble.IDENTIFIER, SteadyStateJavaDouble.class);
+        graphSolverMap.put(BoundedReachabilityJavaDouble.IDENTIFIER, BoundedReachabilityJavaDouble.class);
+        graphSolverMap.put(BoundedCumulativeJavaDouble.IDENTIFIER, BoundedCumulativeJavaDouble.class);
+        graphSolverMap.put(UnboundedCumulativeJavaDouble.IDENTIFIER, UnboundedCumulativeJavaDouble.class);
         graphSolverMap.put(BoundedCumulativeNative.IDENTIFIER, BoundedCumulativeNative.class);
         graphSolverMap.put(BoundedCumulativeDiscountedNative.IDENTIFIER, BoundedCumulativeDiscountedNative.class);
         graphSolverMap.put(UnboundedCumulativeNative.IDENTIFIER, UnboundedCumulativeNative.class);
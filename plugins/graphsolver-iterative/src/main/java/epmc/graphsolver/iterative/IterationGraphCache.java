@@ -0,0 +1,268 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graphsolver.iterative;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import epmc.graph.GraphBuilderExplicit;
+import epmc.graph.explicit.GraphExplicit;
+import epmc.graph.explicit.GraphExplicitModifier;
+import epmc.util.BitSet;
+
+/**
+ * Cache of iteration graphs derived from the graphs to be solved.
+ * Before solving unbounded objectives, graph solvers derive an iteration
+ * graph from the original graph, in which sinks have been made absorbing,
+ * nodes have been reordered, and which has possibly been embedded. For
+ * large models, this is as costly as the iteration itself. Iteration graphs
+ * are therefore stored together with the builder used to construct them,
+ * indexed by the original graph, the sinks, the properties of the original
+ * graph, and whether the graph has been uniformised or embedded. Original
+ * graphs are compared by identity and referenced weakly, such that cached
+ * iteration graphs are freed together with the graph they were derived
+ * from. Cached builders therefore do not provide the original graph by
+ * {@link GraphBuilderExplicit#getInputGraph()}. Solvers must not modify
+ * iteration graphs obtained from the cache.
+ * The estimated size of all cached iteration graphs, node mappings of
+ * their builders, and sinks is bounded by a given number of bytes; if
+ * adding a graph exceeds this bound, least recently used graphs are removed
+ * from the cache. The cache is stored in the options, but its content is
+ * not serialised with them.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class IterationGraphCache implements Serializable {
+    private static final long serialVersionUID = 1L;
+    /** Estimated number of bytes per node of the iteration graph. */
+    private final static int BYTES_PER_NODE = 12;
+    /** Estimated number of bytes per edge of the iteration graph. */
+    private final static int BYTES_PER_EDGE = 4;
+    /** Estimated number of bytes per node or edge property entry. */
+    private final static int BYTES_PER_PROPERTY_ENTRY = 8;
+    /** Estimated number of bytes per entry of the node mappings. */
+    private final static int BYTES_PER_MAPPING_ENTRY = 4;
+    /** Number of bits per byte, used to estimate the size of sinks. */
+    private final static int BITS_PER_BYTE = 8;
+
+    private final static class Key {
+        private final List<BitSet> sinks;
+        private final Set<Object> graphProperties;
+        private final Set<Object> nodeProperties;
+        private final Set<Object> edgeProperties;
+        private final boolean uniformise;
+        private final boolean embed;
+
+        Key(GraphExplicit graph, List<BitSet> sinks, boolean uniformise, boolean embed) {
+            this.sinks = new ArrayList<>();
+            for (BitSet sink : sinks == null ? Collections.<BitSet>emptyList() : sinks) {
+                if (!sink.isEmpty()) {
+                    this.sinks.add(sink.clone());
+                }
+            }
+            this.graphProperties = new HashSet<>(graph.getGraphProperties());
+            this.nodeProperties = new HashSet<>(graph.getNodeProperties());
+            this.edgeProperties = new HashSet<>(graph.getEdgeProperties());
+            this.uniformise = uniformise;
+            this.embed = embed;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return uniformise == other.uniformise
+                    && embed == other.embed
+                    && sinks.equals(other.sinks)
+                    && graphProperties.equals(other.graphProperties)
+                    && nodeProperties.equals(other.nodeProperties)
+                    && edgeProperties.equals(other.edgeProperties);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 0;
+            hash = sinks.hashCode() + (hash << 6) + (hash << 16) - hash;
+            hash = Boolean.hashCode(uniformise) + (hash << 6) + (hash << 16) - hash;
+            hash = Boolean.hashCode(embed) + (hash << 6) + (hash << 16) - hash;
+            return hash;
+        }
+    }
+
+    private final static class Entry {
+        private final GraphBuilderExplicit builder;
+        private final long size;
+        private long lastUse;
+
+        Entry(GraphBuilderExplicit builder, long size) {
+            this.builder = builder;
+            this.size = size;
+        }
+    }
+
+    private transient Map<GraphExplicit,Map<Key,Entry>> entries;
+    private transient long useCounter;
+
+    /**
+     * Obtain the iteration graph for the given parameters.
+     * If the graph is not yet contained in the cache, it is constructed and
+     * stored in the cache, unless its estimated size exceeds the maximal
+     * size of the cache. The builder returned has already been built. The
+     * iteration graph is obtained using
+     * {@link GraphBuilderExplicit#getOutputGraph()}.
+     * 
+     * @param graph original graph
+     * @param sinks sets of nodes to be made absorbing, or {@code null}
+     * @param uniformise whether to uniformise the graph while building it
+     * @param embed whether to embed the graph after building it
+     * @param maxSize maximal estimated size of cached graphs in bytes
+     * @return builder used to construct the iteration graph
+     */
+    public synchronized GraphBuilderExplicit get(GraphExplicit graph, List<BitSet> sinks,
+            boolean uniformise, boolean embed, long maxSize) {
+        assert graph != null;
+        assert maxSize >= 0;
+        Key key = new Key(graph, sinks, uniformise, embed);
+        Map<Key,Entry> graphEntries = getEntries().get(graph);
+        Entry entry = graphEntries == null ? null : graphEntries.get(key);
+        if (entry != null) {
+            entry.lastUse = ++useCounter;
+            return entry.builder;
+        }
+        GraphBuilderExplicit builder = build(graph, sinks, uniformise, embed);
+        long size = estimateSize(graph, key, builder.getOutputGraph());
+        if (size > maxSize) {
+            return builder;
+        }
+        while (getSize() + size > maxSize) {
+            removeLeastRecentlyUsed();
+        }
+        builder.releaseInputGraph();
+        entry = new Entry(builder, size);
+        entry.lastUse = ++useCounter;
+        getEntries().computeIfAbsent(graph, g -> new HashMap<>()).put(key, entry);
+        return builder;
+    }
+
+    /**
+     * Get the estimated size of the cached iteration graphs in bytes.
+     * Iteration graphs derived from original graphs which have already
+     * been freed are not taken into account.
+     * 
+     * @return estimated size of the cached iteration graphs in bytes
+     */
+    public synchronized long getSize() {
+        long size = 0;
+        for (Map<Key,Entry> graphEntries : getEntries().values()) {
+            for (Entry entry : graphEntries.values()) {
+                size += entry.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Remove all iteration graphs from the cache.
+     */
+    public synchronized void clear() {
+        getEntries().clear();
+    }
+
+    /**
+     * Construct the iteration graph for the given parameters.
+     * The method does not store the graph in the cache.
+     * 
+     * @param graph original graph
+     * @param sinks sets of nodes to be made absorbing, or {@code null}
+     * @param uniformise whether to uniformise the graph while building it
+     * @param embed whether to embed the graph after building it
+     * @return builder used to construct the iteration graph
+     */
+    public static GraphBuilderExplicit build(GraphExplicit graph, List<BitSet> sinks,
+            boolean uniformise, boolean embed) {
+        assert graph != null;
+        GraphBuilderExplicit builder = new GraphBuilderExplicit();
+        builder.setInputGraph(graph);
+        builder.addDerivedGraphProperties(graph.getGraphProperties());
+        builder.addDerivedNodeProperties(graph.getNodeProperties());
+        builder.addDerivedEdgeProperties(graph.getEdgeProperties());
+        if (sinks != null) {
+            builder.addSinks(sinks);
+        }
+        builder.setUniformise(uniformise);
+        builder.setReorder();
+        builder.build();
+        if (embed) {
+            GraphExplicitModifier.embed(builder.getOutputGraph());
+        }
+        return builder;
+    }
+
+    private Map<GraphExplicit,Map<Key,Entry>> getEntries() {
+        if (entries == null) {
+            entries = new WeakHashMap<>();
+        }
+        return entries;
+    }
+
+    private void removeLeastRecentlyUsed() {
+        Map<Key,Entry> oldestGraphEntries = null;
+        Key oldestKey = null;
+        long oldestUse = Long.MAX_VALUE;
+        for (Map<Key,Entry> graphEntries : getEntries().values()) {
+            for (Map.Entry<Key,Entry> entry : graphEntries.entrySet()) {
+                if (entry.getValue().lastUse < oldestUse) {
+                    oldestGraphEntries = graphEntries;
+                    oldestKey = entry.getKey();
+                    oldestUse = entry.getValue().lastUse;
+                }
+            }
+        }
+        assert oldestGraphEntries != null;
+        oldestGraphEntries.remove(oldestKey);
+        getEntries().values().removeIf(Map::isEmpty);
+    }
+
+    private static long estimateSize(GraphExplicit inputGraph, Key key,
+            GraphExplicit outputGraph) {
+        long numInputNodes = inputGraph.getNumNodes();
+        long numNodes = outputGraph.getNumNodes();
+        long numEdges = 0;
+        for (int node = 0; node < numNodes; node++) {
+            numEdges += outputGraph.getNumSuccessors(node);
+        }
+        long numNodeProperties = outputGraph.getNodeProperties().size();
+        long numEdgeProperties = outputGraph.getEdgeProperties().size();
+        return numNodes * (BYTES_PER_NODE + numNodeProperties * BYTES_PER_PROPERTY_ENTRY)
+                + numEdges * (BYTES_PER_EDGE + numEdgeProperties * BYTES_PER_PROPERTY_ENTRY)
+                + (numInputNodes + numNodes) * BYTES_PER_MAPPING_ENTRY
+                + key.sinks.size() * numInputNodes / BITS_PER_BYTE;
+    }
+}
@@ -22,5 +22,18 @@ package epmc.graphsolver.iterative;
 
 public enum IterationMethod {
     JACOBI,
-    GAUSS_SEIDEL
+    GAUSS_SEIDEL,
+    BICGSTAB,
+    GMRES;
+
+    /**
+     * Check whether this is a Krylov subspace method.
+     * Krylov subspace methods only apply to linear equation systems, that
+     * is, to models without nondeterminism.
+     * 
+     * @return whether this is a Krylov subspace method
+     */
+    public boolean isKrylov() {
+        return this == BICGSTAB || this == GMRES;
+    }
 }
@@ -20,7 +20,21 @@
 
 package epmc.graphsolver.iterative;
 
+/**
+ * Criteria to decide when to stop unbounded value iteration.
+ * {@link #ABSOLUTE} and {@link #RELATIVE} stop as soon as the difference
+ * between two iterations is small enough, which does not guarantee that
+ * the result is precise enough. {@link #INTERVAL} and {@link #OPTIMISTIC}
+ * stop as soon as lower and upper bounds on the values prove that the
+ * requested precision has been obtained. Solvers which do not support the
+ * latter two criteria send a warning and use {@link #ABSOLUTE} instead, see
+ * {@link UtilGraphSolverIterative#getDifferenceStopCriterion(String)}.
+ * 
+ * @author Ernst Moritz Hahn
+ */
 public enum IterationStopCriterion {
     ABSOLUTE,
-    RELATIVE
+    RELATIVE,
+    INTERVAL,
+    OPTIMISTIC
 }
@@ -36,6 +36,10 @@ public final class MessagesGraphSolverIterative {
     public final static Message ITERATING_DONE = newMessage().setIdentifier("iterating-done").build();
     public final static Message ITERATING_PROGRESS_UNBOUNDED = newMessage().setIdentifier("iterating-progress-unbounded").build();
     public final static Message ITERATING_PROGRESS_BOUNDED = newMessage().setIdentifier("iterating-progress-bounded").build();
+    public final static Message ITERATING_COMPONENTS = newMessage().setIdentifier("iterating-components").build();
+    public final static Message POLICY_ITERATION_DONE = newMessage().setIdentifier("policy-iteration-done").build();
+    public final static Message KRYLOV_FALLBACK = newMessage().setIdentifier("krylov-fallback").setWarning().build();
+    public final static Message STOP_CRITERION_UNSUPPORTED = newMessage().setIdentifier("stop-criterion-unsupported").setWarning().build();
 
     private static Message.Builder newMessage() {
         return new Message.Builder().setBundle(MESSAGES_GRAPHSOLVER_ITERATIVE);
@@ -28,4 +28,12 @@ public enum OptionsGraphSolverIterative {
     GRAPHSOLVER_ITERATIVE_METHOD,
     GRAPHSOLVER_ITERATIVE_TOLERANCE,
     GRAPHSOLVER_ITERATIVE_STOP_CRITERION,
+    GRAPHSOLVER_ITERATIVE_TOPOLOGICAL,
+    GRAPHSOLVER_ITERATIVE_THREADS,
+    GRAPHSOLVER_ITERATIVE_PRECONDITIONER,
+    GRAPHSOLVER_ITERATIVE_GMRES_RESTART,
+    /** maximal estimated size of cached iteration graphs in megabytes */
+    GRAPHSOLVER_ITERATIVE_GRAPH_CACHE_SIZE,
+    /** {@link IterationGraphCache} storing iteration graphs */
+    GRAPHSOLVER_ITERATIVE_GRAPH_CACHE,
 }
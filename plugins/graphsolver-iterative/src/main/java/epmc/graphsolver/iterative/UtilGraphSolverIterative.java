@@ -1,8 +1,18 @@
 package epmc.graphsolver.iterative;
 
+import java.util.List;
+
+import epmc.graph.GraphBuilderExplicit;
+import epmc.graph.explicit.GraphExplicit;
 import epmc.graphsolver.OptionsGraphsolver;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicit;
+import epmc.messages.OptionsMessages;
+import epmc.modelchecker.Log;
 import epmc.options.Options;
+import epmc.util.BitSet;
 import epmc.util.RunningInfo;
+import epmc.value.Value;
+import epmc.value.ValueArray;
 
 public final class UtilGraphSolverIterative {
     @FunctionalInterface
@@ -53,6 +63,138 @@ public final class UtilGraphSolverIterative {
         });
     }
 
+    /**
+     * Get the number of threads to be used for value iteration.
+     * The number is read from
+     * {@link OptionsGraphSolverIterative#GRAPHSOLVER_ITERATIVE_THREADS}, where
+     * a value of zero denotes the number of available processors.
+     * 
+     * @return number of threads to be used for value iteration
+     */
+    public static int getNumThreads() {
+        int numThreads = Options.get().getInteger(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_THREADS);
+        if (numThreads == 0) {
+            numThreads = Runtime.getRuntime().availableProcessors();
+        }
+        return numThreads;
+    }
+
+    /**
+     * Get the iteration method to be used by value iteration.
+     * The method is read from
+     * {@link OptionsGraphSolverIterative#GRAPHSOLVER_ITERATIVE_METHOD}.
+     * Krylov subspace methods do not apply to value iteration, so that
+     * Gauss-Seidel is used instead if one of them is selected.
+     * 
+     * @return iteration method to be used by value iteration
+     */
+    public static IterationMethod getStationaryIterationMethod() {
+        IterationMethod method = Options.get().getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD);
+        if (method.isKrylov()) {
+            method = IterationMethod.GAUSS_SEIDEL;
+        }
+        return method;
+    }
+
+    /**
+     * Get the stop criterion for solvers which only compare two iterations.
+     * The criterion is read from
+     * {@link OptionsGraphSolverIterative#GRAPHSOLVER_ITERATIVE_STOP_CRITERION}.
+     * If {@link IterationStopCriterion#INTERVAL} or
+     * {@link IterationStopCriterion#OPTIMISTIC} is selected, a warning is
+     * sent to the log and {@link IterationStopCriterion#ABSOLUTE} is used
+     * instead.
+     * 
+     * @param solver identifier of the solver asking for the criterion
+     * @return stop criterion to be used by the solver
+     */
+    public static IterationStopCriterion getDifferenceStopCriterion(String solver) {
+        assert solver != null;
+        IterationStopCriterion stopCriterion = Options.get().getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_STOP_CRITERION);
+        if (stopCriterion == IterationStopCriterion.INTERVAL
+                || stopCriterion == IterationStopCriterion.OPTIMISTIC) {
+            Log log = Options.get().get(OptionsMessages.LOG);
+            log.send(MessagesGraphSolverIterative.STOP_CRITERION_UNSUPPORTED,
+                    solver, stopCriterion, IterationStopCriterion.ABSOLUTE);
+            stopCriterion = IterationStopCriterion.ABSOLUTE;
+        }
+        return stopCriterion;
+    }
+
+    /**
+     * Use the initial values of an objective as start of an iteration.
+     * The initial values are given in the order of the states of the
+     * original graph, that is, in the same order as the result of the
+     * objective. They are transferred to the according nodes of the
+     * iteration graph constructed by the given builder. Nodes of the original
+     * graph contained in one of the given sets, for instance target states
+     * or sinks, retain their value. If the objective does not provide
+     * initial values, the method does not have any effect.
+     * 
+     * @param objective objective to obtain initial values from
+     * @param builder builder used to construct the iteration graph
+     * @param values values of the nodes of the iteration graph
+     * @param fixed sets of original nodes the value of which is not changed
+     */
+    public static void applyInitialValues(GraphSolverObjectiveExplicit objective,
+            GraphBuilderExplicit builder, ValueArray values, List<BitSet> fixed) {
+        assert objective != null;
+        assert builder != null;
+        assert values != null;
+        ValueArray initialValues = objective.getInitialValues();
+        if (initialValues == null) {
+            return;
+        }
+        Value value = values.getType().getEntryType().newValue();
+        int numOrigNodes = objective.getGraph().getNumNodes();
+        int origStateNr = 0;
+        for (int origNode = 0; origNode < numOrigNodes; origNode++) {
+            int iterNode = builder.inputToOutputNode(origNode);
+            if (iterNode < 0) {
+                continue;
+            }
+            boolean isFixed = false;
+            if (fixed != null) {
+                for (BitSet set : fixed) {
+                    isFixed |= set != null && set.get(origNode);
+                }
+            }
+            if (!isFixed && origStateNr < initialValues.size()) {
+                initialValues.get(value, origStateNr);
+                values.set(value, iterNode);
+            }
+            origStateNr++;
+        }
+    }
+
+    /**
+     * Obtain the iteration graph for an unbounded objective.
+     * The iteration graph is derived from the original graph by making the
+     * given sinks absorbing, reordering nodes, and optionally uniformising
+     * or embedding it. If an iteration graph for the same parameters has
+     * been constructed before and is still contained in the
+     * {@link IterationGraphCache} stored in
+     * {@link OptionsGraphSolverIterative#GRAPHSOLVER_ITERATIVE_GRAPH_CACHE},
+     * it is reused. Thus, the iteration graph must not be modified.
+     * 
+     * @param graph original graph
+     * @param sinks sets of nodes to be made absorbing, or {@code null}
+     * @param uniformise whether to uniformise the graph
+     * @param embed whether to embed the graph
+     * @return builder used to construct the iteration graph
+     */
+    public static GraphBuilderExplicit buildIterationGraph(GraphExplicit graph,
+            List<BitSet> sinks, boolean uniformise, boolean embed) {
+        assert graph != null;
+        Options options = Options.get();
+        long maxSize = options.getInteger(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_GRAPH_CACHE_SIZE) * 1024L * 1024L;
+        IterationGraphCache cache = options.get(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_GRAPH_CACHE);
+        if (maxSize == 0 || cache == null) {
+            return IterationGraphCache.build(graph, sinks, uniformise, embed);
+        }
+        return cache.get(graph, sinks, uniformise, embed, maxSize);
+    }
+
     private static long getSleepTime() {
         return Options.get()
                 .getLong(OptionsGraphsolver.GRAPHSOLVER_UPDATE_DELAY);
@@ -0,0 +1,431 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graphsolver.iterative.java;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import epmc.algorithms.FoxGlynn;
+import epmc.graph.CommonProperties;
+import epmc.graph.GraphBuilderExplicit;
+import epmc.graph.Semantics;
+import epmc.graph.SemanticsCTMC;
+import epmc.graph.SemanticsContinuousTime;
+import epmc.graph.SemanticsDTMC;
+import epmc.graph.SemanticsMDP;
+import epmc.graph.explicit.GraphExplicit;
+import epmc.graph.explicit.GraphExplicitModifier;
+import epmc.graph.explicit.GraphExplicitSparse;
+import epmc.graph.explicit.GraphExplicitSparseAlternate;
+import epmc.graphsolver.GraphSolverExplicit;
+import epmc.graphsolver.iterative.Info;
+import epmc.graphsolver.iterative.OptionsGraphSolverIterative;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicit;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicitBoundedReachabilityBatch;
+import epmc.operator.OperatorAdd;
+import epmc.operator.OperatorIsZero;
+import epmc.operator.OperatorMax;
+import epmc.operator.OperatorMin;
+import epmc.operator.OperatorMultiply;
+import epmc.operator.OperatorSet;
+import epmc.options.Options;
+import epmc.util.BitSet;
+import epmc.value.ContextValue;
+import epmc.value.OperatorEvaluator;
+import epmc.value.TypeAlgebra;
+import epmc.value.TypeArrayAlgebra;
+import epmc.value.TypeBoolean;
+import epmc.value.TypeReal;
+import epmc.value.TypeWeight;
+import epmc.value.UtilValue;
+import epmc.value.Value;
+import epmc.value.ValueAlgebra;
+import epmc.value.ValueArrayAlgebra;
+import epmc.value.ValueBoolean;
+import epmc.value.ValueInteger;
+import epmc.value.ValueObject;
+import epmc.value.ValueReal;
+
+import static epmc.graphsolver.iterative.UtilGraphSolverIterative.startWithInfoBoundedVoid;
+
+/**
+ * Bounded reachability for several time or step bounds at once.
+ * For discrete-time models, a single value iteration up to the largest step
+ * bound is performed, and the intermediate values are recorded at each of
+ * the requested bounds. For CTMCs, the Fox-Glynn weights are computed for
+ * each time bound, and the uniformised chain is iterated once up to the
+ * largest right truncation point, while the values of each step are added
+ * to the results of all time bounds the Poisson window of which contains
+ * this step. Thus, the number of matrix-vector multiplications depends only
+ * on the largest bound rather than on the number of bounds. Like
+ * {@link BoundedReachabilityJava}, this solver works with any representation
+ * of reals.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class BoundedReachabilityBatchJava implements GraphSolverExplicit {
+    public static String IDENTIFIER = "graph-solver-iterative-bounded-reachability-batch-java";
+
+    private GraphExplicit origGraph;
+    private GraphExplicit iterGraph;
+    private ValueArrayAlgebra inputValues;
+    private ValueReal unifRate;
+    private GraphSolverObjectiveExplicitBoundedReachabilityBatch objective;
+    private GraphBuilderExplicit builder;
+    private ValueArrayAlgebra[] iterResults;
+
+    @Override
+    public String getIdentifier() {
+        return IDENTIFIER;
+    }
+
+    @Override
+    public void setGraphSolverObjective(GraphSolverObjectiveExplicit objective) {
+        if (objective instanceof GraphSolverObjectiveExplicitBoundedReachabilityBatch) {
+            this.objective = (GraphSolverObjectiveExplicitBoundedReachabilityBatch) objective;
+        }
+        origGraph = objective.getGraph();
+    }
+
+    @Override
+    public boolean canHandle() {
+        assert origGraph != null;
+        Semantics semantics = ValueObject.as(origGraph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
+        if (!SemanticsCTMC.isCTMC(semantics)
+                && !SemanticsDTMC.isDTMC(semantics)
+                && !SemanticsMDP.isMDP(semantics)) {
+            return false;
+        }
+        if (objective == null) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void solve() {
+        assert objective.getTimes() != null;
+        prepareIterGraph();
+        Semantics semantics = ValueObject.as(origGraph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
+        iterResults = new ValueArrayAlgebra[objective.getTimes().size()];
+        if (SemanticsContinuousTime.isContinuousTime(semantics)) {
+            ctBoundedReachability();
+        } else {
+            dtBoundedReachability();
+        }
+        prepareResultValues();
+    }
+
+    private void prepareIterGraph() {
+        assert origGraph != null;
+        Semantics semanticsType = ValueObject.as(origGraph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
+        boolean uniformise = SemanticsContinuousTime.isContinuousTime(semanticsType);
+        this.builder = new GraphBuilderExplicit();
+        builder.setInputGraph(origGraph);
+        builder.addDerivedGraphProperties(origGraph.getGraphProperties());
+        builder.addDerivedNodeProperties(origGraph.getNodeProperties());
+        builder.addDerivedEdgeProperties(origGraph.getEdgeProperties());
+        List<BitSet> sinks = new ArrayList<>();
+        if (objective.getZeroSet() != null) {
+            sinks.add(objective.getZeroSet());
+        }
+        sinks.add(objective.getTarget());
+        builder.addSinks(sinks);
+        builder.setUniformise(uniformise);
+        builder.setReorder();
+        builder.build();
+        this.iterGraph = builder.getOutputGraph();
+        assert iterGraph != null;
+        this.unifRate = TypeReal.get().newValue();
+        if (uniformise) {
+            GraphExplicitModifier.uniformise(iterGraph, unifRate);
+        }
+        BitSet targets = objective.getTarget();
+        int numStates = iterGraph.computeNumStates();
+        this.inputValues = UtilValue.newArray(TypeWeight.get().getTypeArray(), numStates);
+        for (int origNode = 0; origNode < origGraph.getNumNodes(); origNode++) {
+            int iterNode = builder.inputToOutputNode(origNode);
+            if (iterNode < 0) {
+                continue;
+            }
+            this.inputValues.set(targets.get(origNode) ? 1 : 0, iterNode);
+        }
+    }
+
+    private void prepareResultValues() {
+        TypeAlgebra typeWeight = TypeWeight.get();
+        TypeArrayAlgebra typeArrayWeight = typeWeight.getTypeArray();
+        Value val = typeWeight.newValue();
+        List<ValueArrayAlgebra> results = new ArrayList<>();
+        for (ValueArrayAlgebra iterResult : iterResults) {
+            ValueArrayAlgebra outputValues = UtilValue.newArray(typeArrayWeight, origGraph.computeNumStates());
+            int origStateNr = 0;
+            for (int i = 0; i < origGraph.getNumNodes(); i++) {
+                int iterState = builder.inputToOutputNode(i);
+                if (iterState == -1) {
+                    continue;
+                }
+                iterResult.get(val, iterState);
+                outputValues.set(val, origStateNr);
+                origStateNr++;
+            }
+            results.add(outputValues);
+        }
+        objective.setResults(results);
+    }
+
+    private void dtBoundedReachability() {
+        assert iterGraph != null;
+        List<Value> times = objective.getTimes();
+        int[] bounds = new int[times.size()];
+        int maxBound = 0;
+        for (int index = 0; index < bounds.length; index++) {
+            bounds[index] = ValueInteger.as(times.get(index)).getInt();
+            assert bounds[index] >= 0;
+            maxBound = Math.max(maxBound, bounds[index]);
+        }
+        boolean min = objective.isMin();
+        int maxBoundFinal = maxBound;
+        startWithInfoBoundedVoid(maxBound, info -> {
+            if (isSparseMarkov(iterGraph) || isSparseMDP(iterGraph)) {
+                dtBoundedJava(info, bounds, maxBoundFinal, min);
+            } else {
+                assert false : isSparseMarkov(iterGraph) + " " + isSparseNondet(iterGraph);
+            }
+        });
+    }
+
+    private void ctBoundedReachability() {
+        assert iterGraph != null : "iterGraph == null";
+        assert unifRate != null : "unifRate == null";
+        Options options = Options.get();
+        ValueReal precision = UtilValue.newValue(TypeReal.get(), options.getString(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_TOLERANCE));
+        OperatorEvaluator multiply = ContextValue.get().getEvaluator(OperatorMultiply.MULTIPLY, TypeReal.get(), TypeReal.get());
+        OperatorEvaluator isZero = ContextValue.get().getEvaluator(OperatorIsZero.IS_ZERO, TypeReal.get());
+        ValueBoolean cmp = TypeBoolean.get().newValue();
+        List<Value> times = objective.getTimes();
+        FoxGlynn[] foxGlynns = new FoxGlynn[times.size()];
+        int maxRight = 0;
+        for (int index = 0; index < foxGlynns.length; index++) {
+            ValueReal lambda = TypeReal.get().newValue();
+            multiply.apply(lambda, times.get(index), unifRate);
+            isZero.apply(cmp, lambda);
+            if (cmp.getBoolean()) {
+                /* no time passes, so only target states are accepting */
+                continue;
+            }
+            foxGlynns[index] = new FoxGlynn(lambda, precision);
+            maxRight = Math.max(maxRight, foxGlynns[index].getRight());
+        }
+        int maxRightFinal = maxRight;
+        startWithInfoBoundedVoid(maxRight, info -> {
+            if (isSparseMarkov(iterGraph)) {
+                ctmcBoundedJava(info, asSparseMarkov(iterGraph), foxGlynns, maxRightFinal);
+            } else {
+                assert false;
+            }
+        });
+    }
+
+    /* auxiliary methods */
+
+    private static boolean isSparseNondet(GraphExplicit graph) {
+        return graph instanceof GraphExplicitSparseAlternate;
+    }
+
+    private static boolean isSparseMarkov(GraphExplicit graph) {
+        return graph instanceof GraphExplicitSparse;
+    }
+
+    private static boolean isSparseMDP(GraphExplicit graph) {
+        if (!isSparseNondet(graph)) {
+            return false;
+        }
+        Semantics semantics = graph.getGraphPropertyObject(CommonProperties.SEMANTICS);
+        if (!SemanticsMDP.isMDP(semantics)) {
+            return false;
+        }
+        return true;
+    }
+
+    private static GraphExplicitSparseAlternate asSparseNondet(GraphExplicit graph) {
+        return (GraphExplicitSparseAlternate) graph;
+    }
+
+    private static GraphExplicitSparse asSparseMarkov(GraphExplicit graph) {
+        return (GraphExplicitSparse) graph;
+    }
+
+    /* implementation of iteration algorithms */    
+
+    private void ctmcBoundedJava(Info info, GraphExplicitSparse graph,
+            FoxGlynn[] foxGlynns, int maxRight) {
+        int numStates = graph.computeNumStates();
+        ValueArrayAlgebra presValues = UtilValue.newArray(inputValues.getType(), numStates);
+        ValueArrayAlgebra nextValues = UtilValue.newArray(inputValues.getType(), numStates);
+        ValueAlgebra value = newValueWeight();
+        ValueAlgebra resultValue = newValueWeight();
+        ValueAlgebra fgWeight = newValueWeight();
+        OperatorEvaluator add = ContextValue.get().getEvaluator(OperatorAdd.ADD, TypeWeight.get(), TypeWeight.get());
+        OperatorEvaluator multiply = ContextValue.get().getEvaluator(OperatorMultiply.MULTIPLY, TypeWeight.get(), TypeWeight.get());
+        OperatorEvaluator setArray = ContextValue.get().getEvaluator(OperatorSet.SET, TypeWeight.get().getTypeArray(), TypeWeight.get().getTypeArray());
+        setArray.apply(presValues, inputValues);
+        for (int index = 0; index < foxGlynns.length; index++) {
+            iterResults[index] = UtilValue.newArray(inputValues.getType(), numStates);
+            if (foxGlynns[index] == null) {
+                setArray.apply(iterResults[index], inputValues);
+            }
+        }
+        for (int step = 0; step <= maxRight; step++) {
+            info.setNumIterations(step);
+            for (int index = 0; index < foxGlynns.length; index++) {
+                FoxGlynn foxGlynn = foxGlynns[index];
+                if (foxGlynn == null
+                        || step < foxGlynn.getLeft()
+                        || step > foxGlynn.getRight()) {
+                    continue;
+                }
+                foxGlynn.getArray().get(fgWeight, step - foxGlynn.getLeft());
+                ValueArrayAlgebra result = iterResults[index];
+                for (int state = 0; state < numStates; state++) {
+                    presValues.get(value, state);
+                    multiply.apply(value, value, fgWeight);
+                    result.get(resultValue, state);
+                    add.apply(resultValue, resultValue, value);
+                    result.set(resultValue, state);
+                }
+            }
+            if (step < maxRight) {
+                dtmcStepJava(graph, presValues, nextValues);
+                ValueArrayAlgebra swap = presValues;
+                presValues = nextValues;
+                nextValues = swap;
+            }
+        }
+    }
+
+    private void dtBoundedJava(Info info, int[] bounds, int maxBound, boolean min) {
+        int numStates = iterGraph.computeNumStates();
+        ValueArrayAlgebra presValues = UtilValue.newArray(inputValues.getType(), numStates);
+        ValueArrayAlgebra nextValues = UtilValue.newArray(inputValues.getType(), numStates);
+        OperatorEvaluator setArray = ContextValue.get().getEvaluator(OperatorSet.SET, TypeWeight.get().getTypeArray(), TypeWeight.get().getTypeArray());
+        setArray.apply(presValues, inputValues);
+        for (int step = 0; step <= maxBound; step++) {
+            info.setNumIterations(step);
+            for (int index = 0; index < bounds.length; index++) {
+                if (bounds[index] == step) {
+                    iterResults[index] = UtilValue.newArray(inputValues.getType(), numStates);
+                    setArray.apply(iterResults[index], presValues);
+                }
+            }
+            if (step == maxBound) {
+                break;
+            }
+            if (isSparseMarkov(iterGraph)) {
+                dtmcStepJava(asSparseMarkov(iterGraph), presValues, nextValues);
+            } else {
+                mdpStepJava(asSparseNondet(iterGraph), min, presValues, nextValues);
+            }
+            ValueArrayAlgebra swap = presValues;
+            presValues = nextValues;
+            nextValues = swap;
+        }
+    }
+
+    private static void dtmcStepJava(GraphExplicitSparse graph,
+            ValueArrayAlgebra presValues, ValueArrayAlgebra nextValues) {
+        int numStates = graph.computeNumStates();
+        int[] stateBounds = graph.getBoundsJava();
+        int[] targets = graph.getTargetsJava();
+        ValueArrayAlgebra weights = ValueArrayAlgebra.as(graph.getEdgeProperty(CommonProperties.WEIGHT).getContent());
+        ValueAlgebra weight = newValueWeight();
+        ValueAlgebra weighted = newValueWeight();
+        ValueAlgebra succStateProb = newValueWeight();
+        ValueAlgebra nextStateProb = newValueWeight();
+        ValueAlgebra zero = UtilValue.newValue(TypeWeight.get(), 0);
+        OperatorEvaluator add = ContextValue.get().getEvaluator(OperatorAdd.ADD, TypeWeight.get(), TypeWeight.get());
+        OperatorEvaluator multiply = ContextValue.get().getEvaluator(OperatorMultiply.MULTIPLY, TypeWeight.get(), TypeWeight.get());
+        OperatorEvaluator set = ContextValue.get().getEvaluator(OperatorSet.SET, TypeWeight.get(), TypeWeight.get());
+        for (int state = 0; state < numStates; state++) {
+            int from = stateBounds[state];
+            int to = stateBounds[state + 1];
+            set.apply(nextStateProb, zero);
+            for (int succ = from; succ < to; succ++) {
+                weights.get(weight, succ);
+                int succState = targets[succ];
+                presValues.get(succStateProb, succState);
+                multiply.apply(weighted, succStateProb, weight);
+                add.apply(nextStateProb, nextStateProb, weighted);
+            }
+            nextValues.set(nextStateProb, state);
+        }
+    }
+
+    private static void mdpStepJava(GraphExplicitSparseAlternate graph,
+            boolean min, ValueArrayAlgebra presValues,
+            ValueArrayAlgebra nextValues) {
+        TypeWeight typeWeight = TypeWeight.get();
+        int numStates = graph.computeNumStates();
+        int[] stateBounds = graph.getStateBoundsJava();
+        int[] nondetBounds = graph.getNondetBoundsJava();
+        int[] targets = graph.getTargetsJava();
+        ValueArrayAlgebra weights = ValueArrayAlgebra.as(graph.getEdgePropertySparseNondet(CommonProperties.WEIGHT).asSparseNondetOnlyNondet().getContent());
+        ValueAlgebra weight = newValueWeight();
+        ValueAlgebra weighted = newValueWeight();
+        ValueAlgebra succStateProb = newValueWeight();
+        ValueAlgebra nextStateProb = newValueWeight();
+        ValueAlgebra choiceNextStateProb = newValueWeight();
+        ValueAlgebra zero = UtilValue.newValue(typeWeight, 0);
+        Value optInitValue = min ? UtilValue.newValue(typeWeight, UtilValue.POS_INF) : UtilValue.newValue(typeWeight, UtilValue.NEG_INF);
+        OperatorEvaluator minEv = ContextValue.get().getEvaluator(OperatorMin.MIN, nextStateProb.getType(), choiceNextStateProb.getType());
+        OperatorEvaluator maxEv = ContextValue.get().getEvaluator(OperatorMax.MAX, nextStateProb.getType(), choiceNextStateProb.getType());
+        OperatorEvaluator add = ContextValue.get().getEvaluator(OperatorAdd.ADD, TypeWeight.get(), TypeWeight.get());
+        OperatorEvaluator multiply = ContextValue.get().getEvaluator(OperatorMultiply.MULTIPLY, TypeWeight.get(), TypeWeight.get());
+        OperatorEvaluator set = ContextValue.get().getEvaluator(OperatorSet.SET, TypeWeight.get(), TypeWeight.get());
+        for (int state = 0; state < numStates; state++) {
+            int stateFrom = stateBounds[state];
+            int stateTo = stateBounds[state + 1];
+            set.apply(nextStateProb, optInitValue);
+            for (int nondetNr = stateFrom; nondetNr < stateTo; nondetNr++) {
+                int nondetFrom = nondetBounds[nondetNr];
+                int nondetTo = nondetBounds[nondetNr + 1];
+                set.apply(choiceNextStateProb, zero);
+                for (int stateSucc = nondetFrom; stateSucc < nondetTo; stateSucc++) {
+                    weights.get(weight, stateSucc);
+                    int succState = targets[stateSucc];
+                    presValues.get(succStateProb, succState);
+                    multiply.apply(weighted, weight, succStateProb);
+                    add.apply(choiceNextStateProb, choiceNextStateProb, weighted);
+                }
+                if (min) {
+                    minEv.apply(nextStateProb, nextStateProb, choiceNextStateProb);
+                } else {
+                    maxEv.apply(nextStateProb, nextStateProb, choiceNextStateProb);
+                }
+            }
+            nextValues.set(nextStateProb, state);
+        }
+    }
+
+    private static ValueAlgebra newValueWeight() {
+        return TypeWeight.get().newValue();
+    }
+}
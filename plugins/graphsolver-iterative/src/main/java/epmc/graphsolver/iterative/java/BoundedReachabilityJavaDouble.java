@@ -0,0 +1,252 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graphsolver.iterative.java;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import epmc.algorithms.FoxGlynn;
+import epmc.graph.CommonProperties;
+import epmc.graph.GraphBuilderExplicit;
+import epmc.graph.Semantics;
+import epmc.graph.SemanticsCTMC;
+import epmc.graph.SemanticsContinuousTime;
+import epmc.graph.SemanticsDTMC;
+import epmc.graph.SemanticsMDP;
+import epmc.graph.explicit.GraphExplicit;
+import epmc.graph.explicit.GraphExplicitModifier;
+import epmc.graph.explicit.GraphExplicitSparse;
+import epmc.graph.explicit.GraphExplicitSparseAlternate;
+import epmc.graphsolver.GraphSolverExplicit;
+import epmc.graphsolver.iterative.OptionsGraphSolverIterative;
+import epmc.graphsolver.iterative.UtilGraphSolverIterative;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicit;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicitBoundedReachability;
+import epmc.operator.OperatorMultiply;
+import epmc.options.Options;
+import epmc.util.BitSet;
+import epmc.value.ContextValue;
+import epmc.value.OperatorEvaluator;
+import epmc.value.TypeAlgebra;
+import epmc.value.TypeArrayAlgebra;
+import epmc.value.TypeDouble;
+import epmc.value.TypeReal;
+import epmc.value.TypeWeight;
+import epmc.value.UtilValue;
+import epmc.value.Value;
+import epmc.value.ValueArrayAlgebra;
+import epmc.value.ValueContentDoubleArray;
+import epmc.value.ValueInteger;
+import epmc.value.ValueObject;
+import epmc.value.ValueReal;
+
+import static epmc.graphsolver.iterative.UtilGraphSolverIterative.startWithInfoBoundedVoid;
+
+/**
+ * Bounded reachability using value iteration on primitive double arrays.
+ * This solver is the pure Java counterpart of the native bounded
+ * reachability solver and only works in the case that reals are implemented
+ * using IEEE doubles. Continuous-time Markov chains are uniformised and
+ * analysed using the Fox-Glynn algorithm.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class BoundedReachabilityJavaDouble implements GraphSolverExplicit {
+    public static String IDENTIFIER = "graph-solver-iterative-bounded-reachability-java-double";
+    private GraphExplicit origGraph;
+    private GraphExplicit iterGraph;
+    private ValueArrayAlgebra inputValues;
+    private ValueArrayAlgebra outputValues;
+    private ValueReal lambda;
+    private GraphSolverObjectiveExplicit objective;
+    private GraphBuilderExplicit builder;
+
+    @Override
+    public String getIdentifier() {
+        return IDENTIFIER;
+    }
+
+    @Override
+    public void setGraphSolverObjective(GraphSolverObjectiveExplicit objective) {
+        this.objective = objective;
+        origGraph = objective.getGraph();
+    }
+
+    @Override
+    public boolean canHandle() {
+        assert origGraph != null;
+        Semantics semantics = ValueObject.as(origGraph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
+        if (!SemanticsCTMC.isCTMC(semantics)
+                && !SemanticsDTMC.isDTMC(semantics)
+                && !SemanticsMDP.isMDP(semantics)) {
+            return false;
+        }
+        if (!(objective instanceof GraphSolverObjectiveExplicitBoundedReachability)) {
+            return false;
+        }
+        if (!TypeDouble.is(TypeWeight.get())) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void solve() {
+        prepareIterGraph();
+        Semantics semantics = ValueObject.as(origGraph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
+        if (SemanticsContinuousTime.isContinuousTime(semantics)) {
+            ctBoundedReachability();
+        } else {
+            dtBoundedReachability();
+        }
+        prepareResultValues();
+    }
+
+    private void prepareIterGraph() {
+        assert origGraph != null;
+        Semantics semanticsType = ValueObject.as(origGraph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
+        boolean uniformise = SemanticsContinuousTime.isContinuousTime(semanticsType);
+        GraphSolverObjectiveExplicitBoundedReachability bounded = (GraphSolverObjectiveExplicitBoundedReachability) objective;
+        this.builder = new GraphBuilderExplicit();
+        builder.setInputGraph(origGraph);
+        builder.addDerivedGraphProperties(origGraph.getGraphProperties());
+        builder.addDerivedNodeProperties(origGraph.getNodeProperties());
+        builder.addDerivedEdgeProperties(origGraph.getEdgeProperties());
+        List<BitSet> sinks = new ArrayList<>();
+        if (bounded.getZeroSet() != null) {
+            sinks.add(bounded.getZeroSet());
+        }
+        sinks.add(bounded.getTarget());
+        builder.addSinks(sinks);
+        builder.setUniformise(uniformise);
+        builder.setReorder();
+        builder.build();
+        this.iterGraph = builder.getOutputGraph();
+        assert iterGraph != null;
+        if (uniformise) {
+            Value unifRate = TypeWeight.get().newValue();
+            GraphExplicitModifier.uniformise(iterGraph, unifRate);
+            OperatorEvaluator multiply = ContextValue.get().getEvaluator(OperatorMultiply.MULTIPLY, TypeReal.get(), TypeReal.get());
+            lambda = TypeReal.get().newValue();
+            multiply.apply(lambda, bounded.getTime(), unifRate);
+        }
+        BitSet targets = bounded.getTarget();
+        int numStates = iterGraph.computeNumStates();
+        this.inputValues = UtilValue.newArray(TypeWeight.get().getTypeArray(), numStates);
+        for (int origNode = 0; origNode < origGraph.getNumNodes(); origNode++) {
+            int iterNode = builder.inputToOutputNode(origNode);
+            if (iterNode < 0) {
+                continue;
+            }
+            this.inputValues.set(targets.get(origNode) ? 1 : 0, iterNode);
+        }
+    }
+
+    private void prepareResultValues() {
+        TypeAlgebra typeWeight = TypeWeight.get();
+        TypeArrayAlgebra typeArrayWeight = typeWeight.getTypeArray();
+        this.outputValues = UtilValue.newArray(typeArrayWeight, origGraph.computeNumStates());
+        Value val = typeWeight.newValue();
+        int origStateNr = 0;
+        for (int i = 0; i < origGraph.getNumNodes(); i++) {
+            int iterState = builder.inputToOutputNode(i);
+            if (iterState == -1) {
+                continue;
+            }
+            inputValues.get(val, iterState);
+            outputValues.set(val, origStateNr);
+            origStateNr++;
+        }
+        objective.setResult(outputValues);
+    }
+
+    private void dtBoundedReachability() {
+        assert iterGraph != null;
+        GraphSolverObjectiveExplicitBoundedReachability objectiveBoundedReachability = (GraphSolverObjectiveExplicitBoundedReachability) objective;
+        int bound = ValueInteger.as(objectiveBoundedReachability.getTime()).getInt();
+        assert bound >= 0 : bound;
+        boolean min = objectiveBoundedReachability.isMin();
+        int numThreads = UtilGraphSolverIterative.getNumThreads();
+        double[] values = ValueContentDoubleArray.getContent(inputValues);
+        startWithInfoBoundedVoid(bound, info -> {
+            if (numThreads > 1) {
+                IterationJavaDoubleParallel iteration = new IterationJavaDoubleParallel(iterGraph, numThreads);
+                iteration.setMin(min);
+                iteration.bounded(bound, inputValues, info);
+            } else if (isSparseMarkov(iterGraph)) {
+                GraphExplicitSparse graph = asSparseMarkov(iterGraph);
+                double[] weights = ValueContentDoubleArray.getContent(graph.getEdgeProperty(CommonProperties.WEIGHT).getContent());
+                IterationJavaDouble.dtmcBounded(bound, graph.computeNumStates(),
+                        graph.getBoundsJava(), graph.getTargetsJava(), weights,
+                        values, null, info);
+            } else if (isSparseMDP(iterGraph)) {
+                GraphExplicitSparseAlternate graph = asSparseNondet(iterGraph);
+                double[] weights = ValueContentDoubleArray.getContent(graph.getEdgePropertySparseNondet(CommonProperties.WEIGHT).asSparseNondetOnlyNondet().getContent());
+                IterationJavaDouble.mdpBounded(bound, graph.computeNumStates(),
+                        graph.getStateBoundsJava(), graph.getNondetBoundsJava(),
+                        graph.getTargetsJava(), weights, min, values, null, info);
+            } else {
+                assert false : iterGraph.getClass();
+            }
+        });
+    }
+
+    private void ctBoundedReachability() {
+        assert iterGraph != null;
+        assert lambda != null;
+        Options options = Options.get();
+        ValueReal precision = UtilValue.newValue(TypeReal.get(), options.getString(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_TOLERANCE));
+        FoxGlynn foxGlynn = new FoxGlynn(lambda, precision);
+        GraphExplicitSparse graph = asSparseMarkov(iterGraph);
+        double[] fg = ValueContentDoubleArray.getContent(foxGlynn.getArray());
+        int left = foxGlynn.getLeft();
+        int right = foxGlynn.getRight();
+        double[] weights = ValueContentDoubleArray.getContent(graph.getEdgeProperty(CommonProperties.WEIGHT).getContent());
+        double[] values = ValueContentDoubleArray.getContent(inputValues);
+        startWithInfoBoundedVoid(right, info -> {
+            IterationJavaDouble.ctmcBounded(fg, left, right,
+                    graph.computeNumStates(), graph.getBoundsJava(),
+                    graph.getTargetsJava(), weights, values, info);
+        });
+    }
+
+    /* auxiliary methods */
+
+    private static boolean isSparseMarkov(GraphExplicit graph) {
+        return graph instanceof GraphExplicitSparse;
+    }
+
+    private static boolean isSparseMDP(GraphExplicit graph) {
+        if (!(graph instanceof GraphExplicitSparseAlternate)) {
+            return false;
+        }
+        Semantics semantics = graph.getGraphPropertyObject(CommonProperties.SEMANTICS);
+        return SemanticsMDP.isMDP(semantics);
+    }
+
+    private static GraphExplicitSparseAlternate asSparseNondet(GraphExplicit graph) {
+        return (GraphExplicitSparseAlternate) graph;
+    }
+
+    private static GraphExplicitSparse asSparseMarkov(GraphExplicit graph) {
+        return (GraphExplicitSparse) graph;
+    }
+}
@@ -0,0 +1,508 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graphsolver.iterative.java;
+
+import java.util.Arrays;
+
+import epmc.graphsolver.iterative.Info;
+import epmc.util.BitSet;
+import epmc.util.UtilBitSet;
+
+/**
+ * Value iteration kernels working directly on primitive double arrays.
+ * The methods of this class are Java counterparts of the native value
+ * iteration routines, taking the same compressed sparse row arrays as
+ * arguments. They avoid the boxing and operator lookup of the generic
+ * solvers and can thus be used if reals are implemented using IEEE doubles
+ * but the native library is not available.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+final class IterationJavaDouble {
+    /**
+     * Unbounded reachability or cumulative rewards for Markov chains using
+     * the Jacobi method. If the cumulative reward parameter is
+     * non-{@code null}, the reward of each state is added to its value in
+     * each iteration, otherwise reachability probabilities are computed.
+     */
+    static void dtmcUnboundedJacobi(boolean relative, double precision,
+            int numStates, int[] stateBounds, int[] targets, double[] weights,
+            double[] values, double[] cumul, int[] iterationsResult, Info info) {
+        double[] presValues = values;
+        double[] nextValues = new double[numStates];
+        int iterations = 0;
+        double maxDiff;
+        do {
+            maxDiff = 0.0;
+            for (int state = 0; state < numStates; state++) {
+                int from = stateBounds[state];
+                int to = stateBounds[state + 1];
+                double nextStateProb = cumul == null ? 0.0 : cumul[state];
+                for (int succ = from; succ < to; succ++) {
+                    nextStateProb += weights[succ] * presValues[targets[succ]];
+                }
+                double presStateProb = presValues[state];
+                double diff = diff(relative, presStateProb, nextStateProb);
+                maxDiff = diff > maxDiff ? diff : maxDiff;
+                nextValues[state] = nextStateProb;
+            }
+            double[] swap = presValues;
+            presValues = nextValues;
+            nextValues = swap;
+            info.setNumIterations(iterations);
+            info.setDifference(maxDiff);
+            iterations++;
+        } while (maxDiff > precision / 2);
+        if (presValues != values) {
+            System.arraycopy(presValues, 0, values, 0, numStates);
+        }
+        iterationsResult[0] = iterations;
+    }
+
+    /**
+     * Unbounded reachability or cumulative rewards for Markov chains using
+     * the Gauss-Seidel method. The cumulative reward parameter is treated as
+     * in {@link #dtmcUnboundedJacobi(boolean, double, int, int[], int[], double[], double[], double[], int[], Info)}.
+     */
+    static void dtmcUnboundedGaussseidel(boolean relative, double precision,
+            int numStates, int[] stateBounds, int[] targets, double[] weights,
+            double[] values, double[] cumul, int[] iterationsResult, Info info) {
+        int iterations = 0;
+        double maxDiff;
+        do {
+            maxDiff = 0.0;
+            for (int state = 0; state < numStates; state++) {
+                int from = stateBounds[state];
+                int to = stateBounds[state + 1];
+                double nextStateProb = cumul == null ? 0.0 : cumul[state];
+                for (int succ = from; succ < to; succ++) {
+                    nextStateProb += weights[succ] * values[targets[succ]];
+                }
+                double presStateProb = values[state];
+                double diff = diff(relative, presStateProb, nextStateProb);
+                maxDiff = diff > maxDiff ? diff : maxDiff;
+                values[state] = nextStateProb;
+            }
+            info.setNumIterations(iterations);
+            info.setDifference(maxDiff);
+            iterations++;
+        } while (maxDiff > precision / 2);
+        iterationsResult[0] = iterations;
+    }
+
+    /**
+     * Unbounded reachability or cumulative rewards for MDPs using the Jacobi
+     * method. If the cumulative reward parameter is non-{@code null}, it
+     * contains one reward per nondeterministic choice, which is added to the
+     * value of the choice in each iteration.
+     * If the scheduler parameter is non-{@code null} and maximal values are
+     * computed, decisions are updated each time the value of a state strictly
+     * improves, such that the resulting scheduler does not get stuck in end
+     * components. Decisions are global indices into the nondeterministic
+     * bounds array, or -1 if not yet decided. The decisions for minimal
+     * values are to be computed afterwards using
+     * {@link #mdpScheduler(boolean, int, int[], int[], int[], double[], double[], int[])}.
+     */
+    static void mdpUnboundedJacobi(boolean relative, double precision,
+            int numStates, int[] stateBounds, int[] nondetBounds,
+            int[] targets, double[] weights, boolean min, double[] values,
+            double[] cumul, int[] scheduler, int[] iterationsResult, Info info) {
+        double[] presValues = values;
+        double[] nextValues = new double[numStates];
+        boolean trackDecisions = !min && scheduler != null;
+        double optInitValue = min ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+        int iterations = 0;
+        double maxDiff;
+        do {
+            maxDiff = 0.0;
+            for (int state = 0; state < numStates; state++) {
+                double presStateProb = presValues[state];
+                int stateFrom = stateBounds[state];
+                int stateTo = stateBounds[state + 1];
+                double nextStateProb = optInitValue;
+                for (int nondetNr = stateFrom; nondetNr < stateTo; nondetNr++) {
+                    int nondetFrom = nondetBounds[nondetNr];
+                    int nondetTo = nondetBounds[nondetNr + 1];
+                    double choiceNextStateProb = cumul == null ? 0.0 : cumul[nondetNr];
+                    for (int stateSucc = nondetFrom; stateSucc < nondetTo; stateSucc++) {
+                        choiceNextStateProb += weights[stateSucc] * presValues[targets[stateSucc]];
+                    }
+                    if (min) {
+                        nextStateProb = Math.min(nextStateProb, choiceNextStateProb);
+                    } else if (choiceNextStateProb > nextStateProb) {
+                        nextStateProb = choiceNextStateProb;
+                        if (trackDecisions && nextStateProb > presStateProb) {
+                            scheduler[state] = nondetNr;
+                        }
+                    }
+                }
+                double diff = diff(relative, presStateProb, nextStateProb);
+                maxDiff = diff > maxDiff ? diff : maxDiff;
+                nextValues[state] = nextStateProb;
+            }
+            double[] swap = presValues;
+            presValues = nextValues;
+            nextValues = swap;
+            info.setNumIterations(iterations);
+            info.setDifference(maxDiff);
+            iterations++;
+        } while (maxDiff > precision / 2);
+        if (presValues != values) {
+            System.arraycopy(presValues, 0, values, 0, numStates);
+        }
+        iterationsResult[0] = iterations;
+    }
+
+    /**
+     * Unbounded reachability or cumulative rewards for MDPs using the
+     * Gauss-Seidel method. The cumulative reward and scheduler parameters are
+     * treated as in
+     * {@link #mdpUnboundedJacobi(boolean, double, int, int[], int[], int[], double[], boolean, double[], double[], int[], int[], Info)}.
+     */
+    static void mdpUnboundedGaussseidel(boolean relative, double precision,
+            int numStates, int[] stateBounds, int[] nondetBounds,
+            int[] targets, double[] weights, boolean min, double[] values,
+            double[] cumul, int[] scheduler, int[] iterationsResult, Info info) {
+        boolean trackDecisions = !min && scheduler != null;
+        double optInitValue = min ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+        int iterations = 0;
+        double maxDiff;
+        do {
+            maxDiff = 0.0;
+            for (int state = 0; state < numStates; state++) {
+                double presStateProb = values[state];
+                int stateFrom = stateBounds[state];
+                int stateTo = stateBounds[state + 1];
+                double nextStateProb = optInitValue;
+                for (int nondetNr = stateFrom; nondetNr < stateTo; nondetNr++) {
+                    int nondetFrom = nondetBounds[nondetNr];
+                    int nondetTo = nondetBounds[nondetNr + 1];
+                    double choiceNextStateProb = cumul == null ? 0.0 : cumul[nondetNr];
+                    for (int stateSucc = nondetFrom; stateSucc < nondetTo; stateSucc++) {
+                        choiceNextStateProb += weights[stateSucc] * values[targets[stateSucc]];
+                    }
+                    if (min) {
+                        nextStateProb = Math.min(nextStateProb, choiceNextStateProb);
+                    } else if (choiceNextStateProb > nextStateProb) {
+                        nextStateProb = choiceNextStateProb;
+                        if (trackDecisions && nextStateProb > presStateProb) {
+                            scheduler[state] = nondetNr;
+                        }
+                    }
+                }
+                double diff = diff(relative, presStateProb, nextStateProb);
+                maxDiff = diff > maxDiff ? diff : maxDiff;
+                values[state] = nextStateProb;
+            }
+            info.setNumIterations(iterations);
+            info.setDifference(maxDiff);
+            iterations++;
+        } while (maxDiff > precision / 2);
+        iterationsResult[0] = iterations;
+    }
+
+    /**
+     * Bounded reachability or cumulative rewards for Markov chains.
+     * Performs the given number of Jacobi steps. If the cumulative reward
+     * parameter is non-{@code null}, the reward of each state is added to its
+     * value in each step; the values are then expected to be zero initially.
+     */
+    static void dtmcBounded(int bound, int numStates, int[] stateBounds,
+            int[] targets, double[] weights, double[] values, double[] cumul,
+            Info info) {
+        double[] presValues = values;
+        double[] nextValues = new double[numStates];
+        for (int i = 0; i < bound; i++) {
+            for (int state = 0; state < numStates; state++) {
+                int from = stateBounds[state];
+                int to = stateBounds[state + 1];
+                double nextStateProb = cumul == null ? 0.0 : cumul[state];
+                for (int succ = from; succ < to; succ++) {
+                    nextStateProb += weights[succ] * presValues[targets[succ]];
+                }
+                nextValues[state] = nextStateProb;
+            }
+            double[] swap = presValues;
+            presValues = nextValues;
+            nextValues = swap;
+            info.setNumIterations(i);
+        }
+        if (presValues != values) {
+            System.arraycopy(presValues, 0, values, 0, numStates);
+        }
+    }
+
+    /**
+     * Bounded reachability or cumulative rewards for MDPs.
+     * The cumulative reward parameter contains one reward per
+     * nondeterministic choice and is otherwise treated as in
+     * {@link #dtmcBounded(int, int, int[], int[], double[], double[], double[], Info)}.
+     */
+    static void mdpBounded(int bound, int numStates, int[] stateBounds,
+            int[] nondetBounds, int[] targets, double[] weights, boolean min,
+            double[] values, double[] cumul, Info info) {
+        double[] presValues = values;
+        double[] nextValues = new double[numStates];
+        double optInitValue = min ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < bound; i++) {
+            for (int state = 0; state < numStates; state++) {
+                int stateFrom = stateBounds[state];
+                int stateTo = stateBounds[state + 1];
+                double nextStateProb = optInitValue;
+                for (int nondetNr = stateFrom; nondetNr < stateTo; nondetNr++) {
+                    int nondetFrom = nondetBounds[nondetNr];
+                    int nondetTo = nondetBounds[nondetNr + 1];
+                    double choiceNextStateProb = cumul == null ? 0.0 : cumul[nondetNr];
+                    for (int stateSucc = nondetFrom; stateSucc < nondetTo; stateSucc++) {
+                        choiceNextStateProb += weights[stateSucc] * presValues[targets[stateSucc]];
+                    }
+                    nextStateProb = min
+                            ? Math.min(nextStateProb, choiceNextStateProb)
+                            : Math.max(nextStateProb, choiceNextStateProb);
+                }
+                nextValues[state] = nextStateProb;
+            }
+            double[] swap = presValues;
+            presValues = nextValues;
+            nextValues = swap;
+            info.setNumIterations(i);
+        }
+        if (presValues != values) {
+            System.arraycopy(presValues, 0, values, 0, numStates);
+        }
+    }
+
+    /**
+     * Transient analysis of a uniformised continuous-time Markov chain.
+     * Computes the sum of the weights of the array given multiplied by the
+     * according powers of the uniformised matrix applied to the values,
+     * where the weight array contains the weights of steps {@code left} to
+     * {@code right}, such as the Poisson probabilities computed by the
+     * Fox-Glynn algorithm. The sum is evaluated using the Horner scheme,
+     * starting from the highest power.
+     */
+    static void ctmcBounded(double[] fg, int left, int right, int numStates,
+            int[] stateBounds, int[] targets, double[] weights,
+            double[] values, Info info) {
+        double[] presValues = new double[numStates];
+        double[] nextValues = new double[numStates];
+        int iterations = 0;
+        for (int i = right - left; i >= 0; i--) {
+            double fgWeight = fg[i];
+            for (int state = 0; state < numStates; state++) {
+                int from = stateBounds[state];
+                int to = stateBounds[state + 1];
+                double nextStateProb = fgWeight * values[state];
+                for (int succ = from; succ < to; succ++) {
+                    nextStateProb += weights[succ] * presValues[targets[succ]];
+                }
+                nextValues[state] = nextStateProb;
+            }
+            double[] swap = presValues;
+            presValues = nextValues;
+            nextValues = swap;
+            info.setNumIterations(iterations);
+            iterations++;
+        }
+        for (int i = left - 1; i >= 0; i--) {
+            for (int state = 0; state < numStates; state++) {
+                int from = stateBounds[state];
+                int to = stateBounds[state + 1];
+                double nextStateProb = 0.0;
+                for (int succ = from; succ < to; succ++) {
+                    nextStateProb += weights[succ] * presValues[targets[succ]];
+                }
+                nextValues[state] = nextStateProb;
+            }
+            double[] swap = presValues;
+            presValues = nextValues;
+            nextValues = swap;
+            info.setNumIterations(iterations);
+            iterations++;
+        }
+        System.arraycopy(presValues, 0, values, 0, numStates);
+    }
+
+    /**
+     * Complete the decisions of a scheduler after value iteration.
+     * For minimal values, each state is assigned a choice which is optimal
+     * with respect to the values computed. For maximal values, only states
+     * without a decision yet obtain one, which can only be the case for states
+     * the values of which never improved, such that any choice is optimal.
+     */
+    static void mdpScheduler(boolean min, int numStates,
+            int[] stateBounds, int[] nondetBounds, int[] targets,
+            double[] weights, double[] values, int[] scheduler) {
+        for (int state = 0; state < numStates; state++) {
+            int stateFrom = stateBounds[state];
+            int stateTo = stateBounds[state + 1];
+            if (stateFrom == stateTo) {
+                scheduler[state] = -1;
+                continue;
+            }
+            if (!min) {
+                if (scheduler[state] < 0) {
+                    scheduler[state] = stateFrom;
+                }
+                continue;
+            }
+            double optValue = Double.POSITIVE_INFINITY;
+            for (int nondetNr = stateFrom; nondetNr < stateTo; nondetNr++) {
+                int nondetFrom = nondetBounds[nondetNr];
+                int nondetTo = nondetBounds[nondetNr + 1];
+                double choiceValue = 0.0;
+                for (int stateSucc = nondetFrom; stateSucc < nondetTo; stateSucc++) {
+                    choiceValue += weights[stateSucc] * values[targets[stateSucc]];
+                }
+                if (choiceValue < optValue) {
+                    optValue = choiceValue;
+                    scheduler[state] = nondetNr;
+                }
+            }
+        }
+    }
+
+    /**
+     * Compute states from which target states cannot be reached.
+     * For minimising MDPs, these are the states in which there is a
+     * scheduler avoiding the target states. The computation is a backward
+     * search on the arrays of the graph, counting for minimising MDPs the
+     * number of choices still avoiding the states found so far. For graphs
+     * without nondeterminism, the nondeterministic bounds must be
+     * {@code null}. If a witness array is given and maximising MDPs are
+     * considered, for each state which can reach the target states the
+     * choice by which it was found is stored, which yields a scheduler
+     * reaching the target states with positive probability.
+     * 
+     * @param min whether to consider minimising schedulers
+     * @param numStates number of states
+     * @param stateBounds bounds of states
+     * @param nondetBounds bounds of nondeterministic choices, or {@code null}
+     * @param targets successor states
+     * @param targetStates target states
+     * @param witnesses array to store choices reaching targets in, or {@code null}
+     * @return states from which target states cannot be reached
+     */
+    static BitSet zeroStates(boolean min, int numStates, int[] stateBounds,
+            int[] nondetBounds, int[] targets, BitSet targetStates,
+            int[] witnesses) {
+        boolean nondet = nondetBounds != null;
+        int numEntries = nondet ? nondetBounds[stateBounds[numStates]] : stateBounds[numStates];
+        int[] predBounds = new int[numStates + 1];
+        for (int entry = 0; entry < numEntries; entry++) {
+            predBounds[targets[entry] + 1]++;
+        }
+        for (int state = 0; state < numStates; state++) {
+            predBounds[state + 1] += predBounds[state];
+        }
+        int[] predecessors = new int[numEntries];
+        int[] predWritten = new int[numStates];
+        int[] choiceState = null;
+        int[] remaining = null;
+        if (nondet) {
+            int numChoices = stateBounds[numStates];
+            choiceState = new int[numChoices];
+            remaining = new int[numStates];
+            for (int state = 0; state < numStates; state++) {
+                remaining[state] = stateBounds[state + 1] - stateBounds[state];
+                for (int nondetNr = stateBounds[state]; nondetNr < stateBounds[state + 1]; nondetNr++) {
+                    choiceState[nondetNr] = state;
+                    for (int entry = nondetBounds[nondetNr]; entry < nondetBounds[nondetNr + 1]; entry++) {
+                        int succ = targets[entry];
+                        predecessors[predBounds[succ] + predWritten[succ]] = nondetNr;
+                        predWritten[succ]++;
+                    }
+                }
+            }
+        } else {
+            for (int state = 0; state < numStates; state++) {
+                for (int entry = stateBounds[state]; entry < stateBounds[state + 1]; entry++) {
+                    int succ = targets[entry];
+                    predecessors[predBounds[succ] + predWritten[succ]] = state;
+                    predWritten[succ]++;
+                }
+            }
+        }
+        BitSet positive = UtilBitSet.newBitSetUnbounded(numStates);
+        BitSet positiveChoices = nondet ? UtilBitSet.newBitSetUnbounded(stateBounds[numStates]) : null;
+        int[] todo = new int[numStates];
+        int todoSize = 0;
+        for (int state = targetStates.nextSetBit(0); state >= 0;
+                state = targetStates.nextSetBit(state + 1)) {
+            positive.set(state);
+            todo[todoSize] = state;
+            todoSize++;
+        }
+        while (todoSize > 0) {
+            todoSize--;
+            int succ = todo[todoSize];
+            for (int predNr = predBounds[succ]; predNr < predBounds[succ + 1]; predNr++) {
+                int pred = predecessors[predNr];
+                if (nondet) {
+                    if (positiveChoices.get(pred)) {
+                        continue;
+                    }
+                    positiveChoices.set(pred);
+                    pred = choiceState[pred];
+                    if (positive.get(pred)) {
+                        continue;
+                    }
+                    remaining[pred]--;
+                    if (min && remaining[pred] > 0) {
+                        continue;
+                    }
+                    if (witnesses != null && !min) {
+                        witnesses[pred] = predecessors[predNr];
+                    }
+                } else if (positive.get(pred)) {
+                    continue;
+                }
+                positive.set(pred);
+                todo[todoSize] = pred;
+                todoSize++;
+            }
+        }
+        BitSet zeroStates = UtilBitSet.newBitSetUnbounded(numStates);
+        for (int state = 0; state < numStates; state++) {
+            if (!positive.get(state)) {
+                zeroStates.set(state);
+            }
+        }
+        return zeroStates;
+    }
+
+    static int[] newScheduler(int numStates) {
+        int[] scheduler = new int[numStates];
+        Arrays.fill(scheduler, -1);
+        return scheduler;
+    }
+
+    private static double diff(boolean relative, double previous, double current) {
+        double diff = Math.abs(current - previous);
+        if (relative && previous != 0.0) {
+            diff /= previous;
+        }
+        return diff;
+    }
+
+    private IterationJavaDouble() {
+    }
+}
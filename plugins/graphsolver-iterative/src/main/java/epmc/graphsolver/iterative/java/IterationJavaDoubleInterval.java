@@ -0,0 +1,461 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graphsolver.iterative.java;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import epmc.algorithms.explicit.ComponentsExplicit;
+import epmc.algorithms.explicit.EndComponents;
+import epmc.graph.CommonProperties;
+import epmc.graph.explicit.GraphExplicit;
+import epmc.graph.explicit.GraphExplicitSparse;
+import epmc.graph.explicit.GraphExplicitSparseAlternate;
+import epmc.graphsolver.iterative.Info;
+import epmc.util.BitSet;
+import epmc.util.UtilBitSet;
+import epmc.value.Value;
+import epmc.value.ValueContentDoubleArray;
+
+/**
+ * Value iteration with sound stopping criteria on primitive double arrays.
+ * Two methods are provided. Interval iteration iterates a lower and an
+ * upper bound of the values at the same time until they are close enough.
+ * For reachability, the upper bound is initialised to one, except for
+ * states which cannot reach the target states, which are detected by a
+ * graph analysis beforehand. For maximising reachability in MDPs, upper
+ * bounds are deflated in the maximal end components, as otherwise they
+ * might not converge. Optimistic value iteration performs standard value
+ * iteration on the lower bound until the difference between iterations is
+ * small, then guesses an upper bound from it and verifies the guess by
+ * further iterations. A guessed bound is valid if one iteration does not
+ * increase it for any state. If verification fails, standard value
+ * iteration is resumed with a tighter threshold. Optimistic value iteration
+ * does not require a priori upper bounds and can thus also be used for
+ * cumulative rewards. Both methods use Gauss-Seidel updates, as these
+ * preserve the bound property of the vectors. In both cases, the result is
+ * the midpoint between the bounds, which differs from the exact value by
+ * at most half of the requested precision.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class IterationJavaDoubleInterval {
+    private final GraphExplicit graph;
+    private final int numStates;
+    private final int[] stateBounds;
+    private final int[] nondetBounds;
+    private final int[] targets;
+    private final double[] weights;
+    private boolean min;
+    private double[] cumul;
+    private int[] scheduler;
+    private BitSet targetStates;
+    private BitSet zeroStates;
+    private int[] mecBounds;
+    private int[] mecStates;
+    private int[] exitBounds;
+    private int[] exitChoices;
+    private int decision;
+
+    /**
+     * Construct a new iteration engine with sound stopping criteria.
+     * The graph must be either a {@link GraphExplicitSparse} or a
+     * {@link GraphExplicitSparseAlternate} and its weights must be stored
+     * as doubles.
+     * 
+     * @param graph graph to iterate over
+     */
+    public IterationJavaDoubleInterval(GraphExplicit graph) {
+        assert graph != null;
+        this.graph = graph;
+        this.numStates = graph.computeNumStates();
+        if (graph instanceof GraphExplicitSparseAlternate) {
+            GraphExplicitSparseAlternate alternate = (GraphExplicitSparseAlternate) graph;
+            stateBounds = alternate.getStateBoundsJava();
+            nondetBounds = alternate.getNondetBoundsJava();
+            targets = alternate.getTargetsJava();
+            weights = ValueContentDoubleArray.getContent(alternate.getEdgePropertySparseNondet(CommonProperties.WEIGHT).asSparseNondetOnlyNondet().getContent());
+        } else {
+            assert graph instanceof GraphExplicitSparse : graph.getClass();
+            GraphExplicitSparse sparse = (GraphExplicitSparse) graph;
+            stateBounds = sparse.getBoundsJava();
+            nondetBounds = null;
+            targets = sparse.getTargetsJava();
+            weights = ValueContentDoubleArray.getContent(sparse.getEdgeProperty(CommonProperties.WEIGHT).getContent());
+        }
+    }
+
+    /**
+     * Set whether minimal or maximal values are to be computed.
+     * Only relevant for graphs with nondeterminism.
+     * 
+     * @param min whether to compute minimal values
+     */
+    public void setMin(boolean min) {
+        this.min = min;
+    }
+
+    /**
+     * Set the target states of a reachability problem.
+     * Target states must be sinks of the graph and have value one. Setting
+     * the target states allows bounding all values by one and is
+     * required for interval iteration.
+     * 
+     * @param targetStates target states, or {@code null}
+     */
+    public void setTargetStates(BitSet targetStates) {
+        this.targetStates = targetStates;
+    }
+
+    /**
+     * Set rewards to be added in each step.
+     * For graphs without nondeterminism, there must be one entry per state,
+     * otherwise one entry per nondeterministic choice.
+     * 
+     * @param cumul rewards to add in each step, or {@code null}
+     */
+    public void setCumulative(Value cumul) {
+        this.cumul = cumul == null ? null : ValueContentDoubleArray.getContent(cumul);
+    }
+
+    /**
+     * Set array to store scheduler decisions in when maximising.
+     * The decision of a state is updated whenever the lower bound of its
+     * value strictly improves. Decisions are global indices of
+     * nondeterministic choices.
+     * 
+     * @param scheduler array to store decisions in, or {@code null}
+     */
+    public void setScheduler(int[] scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Perform interval iteration.
+     * Target states must have been set and cumulative rewards must not
+     * have been set.
+     * 
+     * @param precision precision to obtain
+     * @param values initial lower bounds, will be overwritten with result
+     * @param iterationsResult array to store number of iterations in
+     * @param info progress information to update
+     */
+    public void interval(double precision, Value values, int[] iterationsResult, Info info) {
+        assert precision > 0.0 : precision;
+        assert values != null;
+        assert iterationsResult != null;
+        assert info != null;
+        assert targetStates != null;
+        assert cumul == null;
+        prepareZeroStates();
+        if (nondetBounds != null && !min) {
+            prepareEndComponents();
+        }
+        double[] lower = ValueContentDoubleArray.getContent(values);
+        double[] upper = new double[numStates];
+        for (int state = 0; state < numStates; state++) {
+            if (zeroStates.get(state)) {
+                lower[state] = 0.0;
+            } else {
+                upper[state] = 1.0;
+            }
+        }
+        int iterations = 0;
+        double width;
+        do {
+            sweepLower(lower);
+            sweepUpper(upper);
+            if (mecBounds != null) {
+                deflate(upper);
+            }
+            width = width(lower, upper);
+            info.setNumIterations(iterations);
+            info.setDifference(width);
+            iterations++;
+        } while (width > precision);
+        midpoint(lower, upper);
+        iterationsResult[0] = iterations;
+    }
+
+    /**
+     * Perform optimistic value iteration.
+     * If target states have been set, upper bounds are limited to one.
+     * 
+     * @param precision precision to obtain
+     * @param values initial lower bounds, will be overwritten with result
+     * @param iterationsResult array to store number of iterations in
+     * @param info progress information to update
+     */
+    public void optimistic(double precision, Value values, int[] iterationsResult, Info info) {
+        assert precision > 0.0 : precision;
+        assert values != null;
+        assert iterationsResult != null;
+        assert info != null;
+        if (targetStates != null) {
+            prepareZeroStates();
+        }
+        double[] lower = ValueContentDoubleArray.getContent(values);
+        double[] upper = new double[numStates];
+        if (zeroStates != null) {
+            for (int state = zeroStates.nextSetBit(0); state >= 0;
+                    state = zeroStates.nextSetBit(state + 1)) {
+                lower[state] = 0.0;
+            }
+        }
+        double threshold = precision / 2;
+        int iterations = 0;
+        boolean verified = false;
+        while (!verified) {
+            int iterationsBefore = iterations;
+            double maxDiff;
+            do {
+                maxDiff = sweepLower(lower);
+                info.setNumIterations(iterations);
+                info.setDifference(maxDiff);
+                iterations++;
+            } while (maxDiff > threshold);
+            guessUpper(lower, upper, precision);
+            int verificationBound = Math.max(iterations - iterationsBefore, 1);
+            for (int verification = 0; verification < verificationBound; verification++) {
+                sweepLower(lower);
+                verified = sweepVerify(upper);
+                double width = width(lower, upper);
+                info.setNumIterations(iterations);
+                info.setDifference(width);
+                iterations++;
+                if (verified || crossed(lower, upper)) {
+                    break;
+                }
+            }
+            threshold /= 2;
+        }
+        midpoint(lower, upper);
+        iterationsResult[0] = iterations;
+    }
+
+    private void prepareZeroStates() {
+        if (zeroStates != null) {
+            return;
+        }
+        zeroStates = IterationJavaDouble.zeroStates(min, numStates, stateBounds,
+                nondetBounds, targets, targetStates, null);
+    }
+
+    /**
+     * Compute maximal end components for deflating upper bounds.
+     * Target states and states which cannot reach them are not considered.
+     * For each component, its states and the choices leaving it are stored.
+     */
+    private void prepareEndComponents() {
+        BitSet existing = UtilBitSet.newBitSetUnbounded(graph.getNumNodes());
+        for (int state = 0; state < numStates; state++) {
+            if (isFixed(state)) {
+                continue;
+            }
+            existing.set(state);
+            for (int nondetNr = stateBounds[state]; nondetNr < stateBounds[state + 1]; nondetNr++) {
+                existing.set(numStates + nondetNr);
+            }
+        }
+        EndComponents endComponents = new ComponentsExplicit().maximalEndComponents(graph, existing);
+        List<BitSet> mecs = new ArrayList<>();
+        int numMecStates = 0;
+        int numExitChoices = 0;
+        for (BitSet mec = endComponents.next(); mec != null; mec = endComponents.next()) {
+            mecs.add(mec);
+            for (int state = mec.nextSetBit(0); state >= 0 && state < numStates;
+                    state = mec.nextSetBit(state + 1)) {
+                numMecStates++;
+                for (int nondetNr = stateBounds[state]; nondetNr < stateBounds[state + 1]; nondetNr++) {
+                    if (!mec.get(numStates + nondetNr)) {
+                        numExitChoices++;
+                    }
+                }
+            }
+        }
+        if (mecs.isEmpty()) {
+            return;
+        }
+        mecBounds = new int[mecs.size() + 1];
+        mecStates = new int[numMecStates];
+        exitBounds = new int[mecs.size() + 1];
+        exitChoices = new int[numExitChoices];
+        int statesWritten = 0;
+        int exitsWritten = 0;
+        for (int mecNr = 0; mecNr < mecs.size(); mecNr++) {
+            BitSet mec = mecs.get(mecNr);
+            for (int state = mec.nextSetBit(0); state >= 0 && state < numStates;
+                    state = mec.nextSetBit(state + 1)) {
+                mecStates[statesWritten] = state;
+                statesWritten++;
+                for (int nondetNr = stateBounds[state]; nondetNr < stateBounds[state + 1]; nondetNr++) {
+                    if (!mec.get(numStates + nondetNr)) {
+                        exitChoices[exitsWritten] = nondetNr;
+                        exitsWritten++;
+                    }
+                }
+            }
+            mecBounds[mecNr + 1] = statesWritten;
+            exitBounds[mecNr + 1] = exitsWritten;
+        }
+    }
+
+    /**
+     * Limit the upper bounds of the states of each maximal end component by
+     * the best value obtainable by leaving the component.
+     * 
+     * @param upper upper bounds to deflate
+     */
+    private void deflate(double[] upper) {
+        int numMecs = mecBounds.length - 1;
+        for (int mecNr = 0; mecNr < numMecs; mecNr++) {
+            double best = 0.0;
+            for (int exitNr = exitBounds[mecNr]; exitNr < exitBounds[mecNr + 1]; exitNr++) {
+                best = Math.max(best, choiceValue(upper, exitChoices[exitNr]));
+            }
+            for (int stateNr = mecBounds[mecNr]; stateNr < mecBounds[mecNr + 1]; stateNr++) {
+                int state = mecStates[stateNr];
+                upper[state] = Math.min(upper[state], best);
+            }
+        }
+    }
+
+    private double sweepLower(double[] lower) {
+        boolean trackDecisions = nondetBounds != null && !min && scheduler != null;
+        double maxDiff = 0.0;
+        for (int state = 0; state < numStates; state++) {
+            if (isFixed(state)) {
+                continue;
+            }
+            double presStateProb = lower[state];
+            double nextStateProb = value(lower, state);
+            if (nextStateProb > presStateProb) {
+                if (trackDecisions) {
+                    scheduler[state] = decision;
+                }
+                maxDiff = Math.max(maxDiff, nextStateProb - presStateProb);
+                lower[state] = nextStateProb;
+            }
+        }
+        return maxDiff;
+    }
+
+    private void sweepUpper(double[] upper) {
+        for (int state = 0; state < numStates; state++) {
+            if (isFixed(state)) {
+                continue;
+            }
+            upper[state] = Math.min(upper[state], value(upper, state));
+        }
+    }
+
+    /**
+     * Perform one iteration on a guessed upper bound.
+     * Values are only ever decreased. If no value would have been
+     * increased, the bound is inductive and thus a valid upper bound.
+     * 
+     * @param upper guessed upper bound
+     * @return whether the guessed upper bound was shown to be valid
+     */
+    private boolean sweepVerify(double[] upper) {
+        boolean inductive = true;
+        for (int state = 0; state < numStates; state++) {
+            if (isFixed(state)) {
+                continue;
+            }
+            double nextStateProb = value(upper, state);
+            if (nextStateProb <= upper[state]) {
+                upper[state] = nextStateProb;
+            } else {
+                inductive = false;
+            }
+        }
+        return inductive;
+    }
+
+    private void guessUpper(double[] lower, double[] upper, double precision) {
+        for (int state = 0; state < numStates; state++) {
+            double guess = lower[state];
+            if (!isFixed(state)) {
+                guess += precision;
+                if (targetStates != null) {
+                    guess = Math.min(guess, 1.0);
+                }
+            }
+            upper[state] = guess;
+        }
+    }
+
+    private double value(double[] values, int state) {
+        if (nondetBounds == null) {
+            double nextStateProb = cumul == null ? 0.0 : cumul[state];
+            for (int succ = stateBounds[state]; succ < stateBounds[state + 1]; succ++) {
+                nextStateProb += weights[succ] * values[targets[succ]];
+            }
+            return nextStateProb;
+        }
+        double nextStateProb = min ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+        for (int nondetNr = stateBounds[state]; nondetNr < stateBounds[state + 1]; nondetNr++) {
+            double choiceNextStateProb = choiceValue(values, nondetNr);
+            if (min ? choiceNextStateProb < nextStateProb : choiceNextStateProb > nextStateProb) {
+                nextStateProb = choiceNextStateProb;
+                decision = nondetNr;
+            }
+        }
+        return nextStateProb;
+    }
+
+    private double choiceValue(double[] values, int nondetNr) {
+        double choiceNextStateProb = cumul == null ? 0.0 : cumul[nondetNr];
+        for (int succ = nondetBounds[nondetNr]; succ < nondetBounds[nondetNr + 1]; succ++) {
+            choiceNextStateProb += weights[succ] * values[targets[succ]];
+        }
+        return choiceNextStateProb;
+    }
+
+    private boolean isFixed(int state) {
+        return (targetStates != null && targetStates.get(state))
+                || (zeroStates != null && zeroStates.get(state));
+    }
+
+    private double width(double[] lower, double[] upper) {
+        double width = 0.0;
+        for (int state = 0; state < numStates; state++) {
+            width = Math.max(width, upper[state] - lower[state]);
+        }
+        return width;
+    }
+
+    private boolean crossed(double[] lower, double[] upper) {
+        for (int state = 0; state < numStates; state++) {
+            if (upper[state] < lower[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void midpoint(double[] lower, double[] upper) {
+        for (int state = 0; state < numStates; state++) {
+            lower[state] = (lower[state] + upper[state]) / 2;
+        }
+    }
+}
@@ -0,0 +1,299 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graphsolver.iterative.java;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import epmc.graph.CommonProperties;
+import epmc.graph.explicit.GraphExplicit;
+import epmc.graph.explicit.GraphExplicitSparse;
+import epmc.graph.explicit.GraphExplicitSparseAlternate;
+import epmc.graphsolver.iterative.Info;
+import epmc.graphsolver.iterative.IterationStopCriterion;
+import epmc.value.Value;
+import epmc.value.ValueContentDoubleArray;
+
+/**
+ * Multi-threaded Jacobi value iteration on primitive double arrays.
+ * The rows of the iteration graph are partitioned into contiguous blocks of
+ * states, which are processed in parallel on a fork-join pool. Because the
+ * Jacobi method only reads values of the previous iteration, blocks do not
+ * depend on each other. The distance used to decide convergence is obtained
+ * by a maximum reduction over the distances of the blocks. The class works
+ * on {@link GraphExplicitSparse} graphs, as well as on
+ * {@link GraphExplicitSparseAlternate} graphs for MDPs. If cumulative rewards
+ * are set, they are added for each state resp. for each nondeterministic
+ * choice in each step.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class IterationJavaDoubleParallel {
+    /** Number of states processed sequentially by a single task. */
+    private final static int BLOCK_SIZE = 2048;
+
+    private final int numThreads;
+    private final int numStates;
+    private final int[] stateBounds;
+    private final int[] nondetBounds;
+    private final int[] targets;
+    private final double[] weights;
+    private boolean min;
+    private double[] cumul;
+    private int[] scheduler;
+    private boolean relative;
+    private boolean computeDiff;
+    private double[] presValues;
+    private double[] nextValues;
+
+    /**
+     * Construct a new parallel value iteration engine.
+     * The graph must be either a {@link GraphExplicitSparse} or a
+     * {@link GraphExplicitSparseAlternate} and its weights must be stored
+     * as doubles. The number of threads must be positive.
+     * 
+     * @param graph graph to iterate over
+     * @param numThreads number of threads to use
+     */
+    public IterationJavaDoubleParallel(GraphExplicit graph, int numThreads) {
+        assert graph != null;
+        assert numThreads > 0 : numThreads;
+        this.numThreads = numThreads;
+        this.numStates = graph.computeNumStates();
+        if (graph instanceof GraphExplicitSparseAlternate) {
+            GraphExplicitSparseAlternate alternate = (GraphExplicitSparseAlternate) graph;
+            stateBounds = alternate.getStateBoundsJava();
+            nondetBounds = alternate.getNondetBoundsJava();
+            targets = alternate.getTargetsJava();
+            weights = ValueContentDoubleArray.getContent(alternate.getEdgePropertySparseNondet(CommonProperties.WEIGHT).asSparseNondetOnlyNondet().getContent());
+        } else {
+            assert graph instanceof GraphExplicitSparse : graph.getClass();
+            GraphExplicitSparse sparse = (GraphExplicitSparse) graph;
+            stateBounds = sparse.getBoundsJava();
+            nondetBounds = null;
+            targets = sparse.getTargetsJava();
+            weights = ValueContentDoubleArray.getContent(sparse.getEdgeProperty(CommonProperties.WEIGHT).getContent());
+        }
+    }
+
+    /**
+     * Set whether minimal or maximal values are to be computed.
+     * Only relevant for graphs with nondeterminism.
+     * 
+     * @param min whether to compute minimal values
+     */
+    public void setMin(boolean min) {
+        this.min = min;
+    }
+
+    /**
+     * Set rewards to be added in each step.
+     * For graphs without nondeterminism, there must be one entry per state,
+     * otherwise one entry per nondeterministic choice.
+     * 
+     * @param cumul rewards to add in each step, or {@code null}
+     */
+    public void setCumulative(Value cumul) {
+        this.cumul = cumul == null ? null : ValueContentDoubleArray.getContent(cumul);
+    }
+
+    /**
+     * Set array to store scheduler decisions in when maximising.
+     * As for the sequential iteration, the decision of a state is only
+     * updated if its value strictly improves. Decisions are global indices
+     * of nondeterministic choices.
+     * 
+     * @param scheduler array to store decisions in, or {@code null}
+     */
+    public void setScheduler(int[] scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Iterate until the difference between two iterations is small enough.
+     * 
+     * @param stopCriterion whether to use absolute or relative differences
+     * @param precision precision to obtain
+     * @param values initial values, will be overwritten with result
+     * @param iterationsResult array to store number of iterations in
+     * @param info progress information to update
+     */
+    public void unbounded(IterationStopCriterion stopCriterion, double precision,
+            Value values, int[] iterationsResult, Info info) {
+        assert stopCriterion != null;
+        assert values != null;
+        assert iterationsResult != null;
+        assert info != null;
+        relative = stopCriterion == IterationStopCriterion.RELATIVE;
+        computeDiff = true;
+        double[] valuesMem = ValueContentDoubleArray.getContent(values);
+        presValues = valuesMem;
+        nextValues = new double[numStates];
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+        int iterations = 0;
+        try {
+            double maxDiff;
+            do {
+                maxDiff = pool.invoke(new Block(0, numStates));
+                swap();
+                info.setNumIterations(iterations);
+                info.setDifference(maxDiff);
+                iterations++;
+            } while (maxDiff > precision / 2);
+        } finally {
+            pool.shutdown();
+        }
+        finish(valuesMem);
+        iterationsResult[0] = iterations;
+    }
+
+    /**
+     * Perform a fixed number of iterations.
+     * 
+     * @param bound number of iterations to perform
+     * @param values initial values, will be overwritten with result
+     * @param info progress information to update
+     */
+    public void bounded(int bound, Value values, Info info) {
+        assert bound >= 0 : bound;
+        assert values != null;
+        assert info != null;
+        computeDiff = false;
+        double[] valuesMem = ValueContentDoubleArray.getContent(values);
+        presValues = valuesMem;
+        nextValues = new double[numStates];
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+        try {
+            for (int i = 0; i < bound; i++) {
+                pool.invoke(new Block(0, numStates));
+                swap();
+                info.setNumIterations(i);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        finish(valuesMem);
+    }
+
+    private void swap() {
+        double[] swap = presValues;
+        presValues = nextValues;
+        nextValues = swap;
+    }
+
+    private void finish(double[] valuesMem) {
+        if (presValues != valuesMem) {
+            System.arraycopy(presValues, 0, valuesMem, 0, numStates);
+        }
+        presValues = null;
+        nextValues = null;
+    }
+
+    private final class Block extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+
+        Block(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from <= BLOCK_SIZE) {
+                return nondetBounds == null
+                        ? stepMarkov(from, to)
+                        : stepNondet(from, to);
+            }
+            int mid = (from + to) >>> 1;
+            Block left = new Block(from, mid);
+            left.fork();
+            double rightDiff = new Block(mid, to).compute();
+            double leftDiff = left.join();
+            return Math.max(leftDiff, rightDiff);
+        }
+    }
+
+    private double stepMarkov(int stateFrom, int stateTo) {
+        double[] presValues = this.presValues;
+        double[] nextValues = this.nextValues;
+        double maxDiff = 0.0;
+        for (int state = stateFrom; state < stateTo; state++) {
+            int from = stateBounds[state];
+            int to = stateBounds[state + 1];
+            double nextStateProb = cumul == null ? 0.0 : cumul[state];
+            for (int succ = from; succ < to; succ++) {
+                nextStateProb += weights[succ] * presValues[targets[succ]];
+            }
+            if (computeDiff) {
+                double diff = diff(presValues[state], nextStateProb);
+                maxDiff = diff > maxDiff ? diff : maxDiff;
+            }
+            nextValues[state] = nextStateProb;
+        }
+        return maxDiff;
+    }
+
+    private double stepNondet(int stateFrom, int stateTo) {
+        double[] presValues = this.presValues;
+        double[] nextValues = this.nextValues;
+        boolean trackDecisions = !min && scheduler != null;
+        double optInitValue = min ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+        double maxDiff = 0.0;
+        for (int state = stateFrom; state < stateTo; state++) {
+            double presStateProb = presValues[state];
+            int from = stateBounds[state];
+            int to = stateBounds[state + 1];
+            double nextStateProb = optInitValue;
+            for (int nondetNr = from; nondetNr < to; nondetNr++) {
+                int nondetFrom = nondetBounds[nondetNr];
+                int nondetTo = nondetBounds[nondetNr + 1];
+                double choiceNextStateProb = cumul == null ? 0.0 : cumul[nondetNr];
+                for (int stateSucc = nondetFrom; stateSucc < nondetTo; stateSucc++) {
+                    choiceNextStateProb += weights[stateSucc] * presValues[targets[stateSucc]];
+                }
+                if (min) {
+                    nextStateProb = Math.min(nextStateProb, choiceNextStateProb);
+                } else if (choiceNextStateProb > nextStateProb) {
+                    nextStateProb = choiceNextStateProb;
+                    if (trackDecisions && nextStateProb > presStateProb) {
+                        scheduler[state] = nondetNr;
+                    }
+                }
+            }
+            if (computeDiff) {
+                double diff = diff(presStateProb, nextStateProb);
+                maxDiff = diff > maxDiff ? diff : maxDiff;
+            }
+            nextValues[state] = nextStateProb;
+        }
+        return maxDiff;
+    }
+
+    private double diff(double previous, double current) {
+        double diff = Math.abs(current - previous);
+        if (relative && previous != 0.0) {
+            diff /= previous;
+        }
+        return diff;
+    }
+}
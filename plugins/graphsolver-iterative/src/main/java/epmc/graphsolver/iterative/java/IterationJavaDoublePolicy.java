@@ -0,0 +1,244 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graphsolver.iterative.java;
+
+import epmc.graph.CommonProperties;
+import epmc.graph.explicit.GraphExplicitSparseAlternate;
+import epmc.graphsolver.iterative.Info;
+import epmc.util.BitSet;
+import epmc.util.UtilBitSet;
+import epmc.value.Value;
+import epmc.value.ValueContentDoubleArray;
+
+/**
+ * Policy iteration for MDPs on primitive double arrays.
+ * Policy evaluation solves the linear equation system of the Markov chain
+ * induced by the current policy using Gauss-Seidel iterations. Each
+ * evaluation is started from the values of the previous policy. Policy
+ * improvement then switches the decision of each state to a choice which
+ * is better than the current one by more than half of the precision. The
+ * method terminates if no decision has changed.
+ * <p>
+ * Evaluations of maximising policies start from below the values of the
+ * induced chain and thus converge to its least fixed point, so that
+ * policies remaining in end components without reaching the targets are
+ * evaluated correctly. For minimising reachability, states from which the
+ * target states can be avoided are fixed to zero beforehand. For
+ * minimising cumulative rewards, the initial policy is chosen such that it
+ * reaches the absorbing states of the graph, if possible.
+ * </p>
+ * 
+ * @author Ernst Moritz Hahn
+ */
+final class IterationJavaDoublePolicy {
+    private final int numStates;
+    private final int[] stateBounds;
+    private final int[] nondetBounds;
+    private final int[] targets;
+    private final double[] weights;
+    private final int[] policy;
+    private boolean min;
+    private double[] cumul;
+    private BitSet targetStates;
+    private BitSet fixed;
+    private int numImprovements;
+
+    IterationJavaDoublePolicy(GraphExplicitSparseAlternate graph) {
+        assert graph != null;
+        this.numStates = graph.computeNumStates();
+        this.stateBounds = graph.getStateBoundsJava();
+        this.nondetBounds = graph.getNondetBoundsJava();
+        this.targets = graph.getTargetsJava();
+        this.weights = ValueContentDoubleArray.getContent(graph.getEdgePropertySparseNondet(CommonProperties.WEIGHT).asSparseNondetOnlyNondet().getContent());
+        this.policy = new int[numStates];
+    }
+
+    void setMin(boolean min) {
+        this.min = min;
+    }
+
+    /**
+     * Set the target states of a reachability problem.
+     * Target states must be sinks of the graph and have value one.
+     * 
+     * @param targetStates target states, or {@code null}
+     */
+    void setTargetStates(BitSet targetStates) {
+        this.targetStates = targetStates;
+    }
+
+    /**
+     * Set rewards to be added in each step.
+     * There must be one entry per nondeterministic choice.
+     * 
+     * @param cumul rewards to add in each step, or {@code null}
+     */
+    void setCumulative(Value cumul) {
+        this.cumul = cumul == null ? null : ValueContentDoubleArray.getContent(cumul);
+    }
+
+    /**
+     * Get the policy computed.
+     * Decisions are global indices of nondeterministic choices. States with
+     * fixed values keep their first choice.
+     * 
+     * @return policy computed
+     */
+    int[] getPolicy() {
+        return policy;
+    }
+
+    BitSet getFixed() {
+        return fixed;
+    }
+
+    int getNumImprovements() {
+        return numImprovements;
+    }
+
+    /**
+     * Perform policy iteration.
+     * 
+     * @param precision precision to obtain in the policy evaluations
+     * @param values initial values, will be overwritten with result
+     * @param iterationsResult array to store number of evaluation iterations in
+     * @param info progress information to update
+     */
+    void solve(double precision, double[] values, int[] iterationsResult, Info info) {
+        assert precision > 0.0 : precision;
+        assert values != null;
+        assert iterationsResult != null;
+        assert info != null;
+        prepareFixed(values);
+        prepareInitialPolicy();
+        int iterations = 0;
+        numImprovements = 0;
+        boolean changed;
+        do {
+            double maxDiff;
+            do {
+                maxDiff = evaluate(values);
+                info.setNumIterations(iterations);
+                info.setDifference(maxDiff);
+                iterations++;
+            } while (maxDiff > precision / 2);
+            changed = improve(values, precision / 2);
+            if (changed) {
+                numImprovements++;
+            }
+        } while (changed);
+        iterationsResult[0] = iterations;
+    }
+
+    /**
+     * Compute states the values of which are not changed by the iteration.
+     * For reachability, these are the target states and the states from
+     * which the target states cannot be reached, the value of which is set
+     * to zero. Otherwise, these are the absorbing states of the graph.
+     * 
+     * @param values values to set entries of zero states of
+     */
+    private void prepareFixed(double[] values) {
+        if (targetStates != null) {
+            fixed = IterationJavaDouble.zeroStates(min, numStates, stateBounds,
+                    nondetBounds, targets, targetStates, null);
+            for (int state = fixed.nextSetBit(0); state >= 0;
+                    state = fixed.nextSetBit(state + 1)) {
+                values[state] = 0.0;
+            }
+            fixed.or(targetStates);
+        } else {
+            fixed = UtilBitSet.newBitSetUnbounded(numStates);
+            for (int state = 0; state < numStates; state++) {
+                if (isAbsorbing(state)) {
+                    fixed.set(state);
+                }
+            }
+        }
+    }
+
+    private void prepareInitialPolicy() {
+        for (int state = 0; state < numStates; state++) {
+            policy[state] = stateBounds[state];
+        }
+        if (min && targetStates == null) {
+            IterationJavaDouble.zeroStates(false, numStates, stateBounds,
+                    nondetBounds, targets, fixed, policy);
+        }
+    }
+
+    private double evaluate(double[] values) {
+        double maxDiff = 0.0;
+        for (int state = 0; state < numStates; state++) {
+            if (fixed.get(state)) {
+                continue;
+            }
+            double nextStateProb = choiceValue(values, policy[state]);
+            double diff = Math.abs(nextStateProb - values[state]);
+            maxDiff = diff > maxDiff ? diff : maxDiff;
+            values[state] = nextStateProb;
+        }
+        return maxDiff;
+    }
+
+    private boolean improve(double[] values, double threshold) {
+        boolean changed = false;
+        for (int state = 0; state < numStates; state++) {
+            if (fixed.get(state)) {
+                continue;
+            }
+            int presDecision = policy[state];
+            double presStateProb = choiceValue(values, presDecision);
+            double bestStateProb = presStateProb;
+            int bestDecision = presDecision;
+            for (int nondetNr = stateBounds[state]; nondetNr < stateBounds[state + 1]; nondetNr++) {
+                double choiceNextStateProb = choiceValue(values, nondetNr);
+                if (min ? choiceNextStateProb < bestStateProb : choiceNextStateProb > bestStateProb) {
+                    bestStateProb = choiceNextStateProb;
+                    bestDecision = nondetNr;
+                }
+            }
+            if (bestDecision != presDecision
+                    && Math.abs(bestStateProb - presStateProb) > threshold) {
+                policy[state] = bestDecision;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private double choiceValue(double[] values, int nondetNr) {
+        double choiceNextStateProb = cumul == null ? 0.0 : cumul[nondetNr];
+        for (int succ = nondetBounds[nondetNr]; succ < nondetBounds[nondetNr + 1]; succ++) {
+            choiceNextStateProb += weights[succ] * values[targets[succ]];
+        }
+        return choiceNextStateProb;
+    }
+
+    private boolean isAbsorbing(int state) {
+        if (stateBounds[state + 1] - stateBounds[state] != 1) {
+            return false;
+        }
+        int nondetNr = stateBounds[state];
+        return nondetBounds[nondetNr + 1] - nondetBounds[nondetNr] == 1
+                && targets[nondetBounds[nondetNr]] == state;
+    }
+}
@@ -0,0 +1,454 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graphsolver.iterative.java;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+import epmc.algorithms.explicit.ComponentsExplicit;
+import epmc.graph.CommonProperties;
+import epmc.graph.explicit.GraphExplicit;
+import epmc.graph.explicit.GraphExplicitSparse;
+import epmc.graph.explicit.GraphExplicitSparseAlternate;
+import epmc.graphsolver.iterative.Info;
+import epmc.graphsolver.iterative.IterationMethod;
+import epmc.graphsolver.iterative.IterationStopCriterion;
+import epmc.value.ValueContentDoubleArray;
+
+/**
+ * Topological value iteration on primitive double arrays.
+ * The iteration graph is decomposed into its strongly connected components
+ * using {@link ComponentsExplicit}. The components are then solved in reverse
+ * topological order, such that the values of all states a component depends
+ * on are already final when the component is solved. Components consisting
+ * of a single state without self loop are solved by direct substitution,
+ * single states of Markov chains with self loops by solving the according
+ * linear equation. Other components are solved by value iteration restricted
+ * to the states of the component. Components of the same level, that is
+ * with the same length of the longest path to a bottom component, do not
+ * depend on each other and can thus be solved in parallel.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+final class IterationJavaDoubleTopological {
+    /** Minimal number of states of a level to solve it in parallel. */
+    private final static int PARALLEL_THRESHOLD = 1024;
+
+    private final int numThreads;
+    private final int numStates;
+    private final int[] stateBounds;
+    private final int[] nondetBounds;
+    private final int[] targets;
+    private final double[] weights;
+    private final int[] sccStates;
+    private final int[] sccBounds;
+    private final int numSccs;
+    private final int[] sccLevel;
+    private int maxLevel;
+    private boolean min;
+    private int[] scheduler;
+    private boolean relative;
+    private boolean gaussSeidel;
+    private double precision;
+    private double[] values;
+    private final AtomicLong numIterations = new AtomicLong();
+    private volatile double lastDifference;
+
+    IterationJavaDoubleTopological(GraphExplicit graph, int numThreads) {
+        assert graph != null;
+        assert numThreads > 0 : numThreads;
+        this.numThreads = numThreads;
+        this.numStates = graph.computeNumStates();
+        if (graph instanceof GraphExplicitSparseAlternate) {
+            GraphExplicitSparseAlternate alternate = (GraphExplicitSparseAlternate) graph;
+            stateBounds = alternate.getStateBoundsJava();
+            nondetBounds = alternate.getNondetBoundsJava();
+            targets = alternate.getTargetsJava();
+            weights = ValueContentDoubleArray.getContent(alternate.getEdgePropertySparseNondet(CommonProperties.WEIGHT).asSparseNondetOnlyNondet().getContent());
+        } else {
+            assert graph instanceof GraphExplicitSparse : graph.getClass();
+            GraphExplicitSparse sparse = (GraphExplicitSparse) graph;
+            stateBounds = sparse.getBoundsJava();
+            nondetBounds = null;
+            targets = sparse.getTargetsJava();
+            weights = ValueContentDoubleArray.getContent(sparse.getEdgeProperty(CommonProperties.WEIGHT).getContent());
+        }
+        int numNodes = graph.getNumNodes();
+        int[] nodes = new int[numNodes];
+        int[] bounds = new int[numNodes + 1];
+        int numNodeSccs = new ComponentsExplicit().stronglyConnectedComponents(graph, nodes, bounds);
+        /* restrict components to states, dropping nondeterministic nodes */
+        sccStates = new int[numStates];
+        int[] sccBoundsBuilt = new int[numNodeSccs + 1];
+        int numStateSccs = 0;
+        int numWritten = 0;
+        for (int scc = 0; scc < numNodeSccs; scc++) {
+            int sccStart = numWritten;
+            for (int nodeNr = bounds[scc]; nodeNr < bounds[scc + 1]; nodeNr++) {
+                int node = nodes[nodeNr];
+                if (node < numStates) {
+                    sccStates[numWritten] = node;
+                    numWritten++;
+                }
+            }
+            if (numWritten > sccStart) {
+                sccBoundsBuilt[numStateSccs] = sccStart;
+                numStateSccs++;
+            }
+        }
+        sccBoundsBuilt[numStateSccs] = numWritten;
+        assert numWritten == numStates;
+        this.numSccs = numStateSccs;
+        this.sccBounds = sccBoundsBuilt;
+        this.sccLevel = new int[numSccs];
+        computeLevels();
+    }
+
+    void setMin(boolean min) {
+        this.min = min;
+    }
+
+    void setScheduler(int[] scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    int getNumComponents() {
+        return numSccs;
+    }
+
+    /**
+     * Compute unbounded reachability values.
+     * The number of iterations stored is the maximal number of iterations
+     * needed to solve a single component.
+     */
+    void unbounded(IterationMethod method, IterationStopCriterion stopCriterion,
+            double precision, double[] values, int[] iterationsResult, Info info) {
+        assert method != null;
+        assert stopCriterion != null;
+        assert values != null;
+        assert iterationsResult != null;
+        assert info != null;
+        this.gaussSeidel = method == IterationMethod.GAUSS_SEIDEL;
+        this.relative = stopCriterion == IterationStopCriterion.RELATIVE;
+        this.precision = precision;
+        this.values = values;
+        numIterations.set(0);
+        if (numThreads == 1) {
+            for (int scc = 0; scc < numSccs; scc++) {
+                solveScc(scc);
+                info.setNumIterations((int) Math.min(Integer.MAX_VALUE, numIterations.get()));
+                info.setDifference(lastDifference);
+            }
+        } else {
+            solveLevelsParallel(info);
+        }
+        iterationsResult[0] = (int) Math.min(Integer.MAX_VALUE, numIterations.get());
+        this.values = null;
+    }
+
+    private void solveLevelsParallel(Info info) {
+        int[] levelBounds = new int[maxLevel + 2];
+        for (int scc = 0; scc < numSccs; scc++) {
+            levelBounds[sccLevel[scc] + 1]++;
+        }
+        for (int level = 0; level <= maxLevel; level++) {
+            levelBounds[level + 1] += levelBounds[level];
+        }
+        int[] levelSccs = new int[numSccs];
+        int[] levelFill = new int[maxLevel + 1];
+        for (int scc = 0; scc < numSccs; scc++) {
+            int level = sccLevel[scc];
+            levelSccs[levelBounds[level] + levelFill[level]] = scc;
+            levelFill[level]++;
+        }
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+        try {
+            for (int level = 0; level <= maxLevel; level++) {
+                int from = levelBounds[level];
+                int to = levelBounds[level + 1];
+                int levelStates = 0;
+                for (int index = from; index < to; index++) {
+                    int scc = levelSccs[index];
+                    levelStates += sccBounds[scc + 1] - sccBounds[scc];
+                }
+                if (to - from == 1 || levelStates < PARALLEL_THRESHOLD) {
+                    for (int index = from; index < to; index++) {
+                        solveScc(levelSccs[index]);
+                    }
+                } else {
+                    pool.invoke(new Level(levelSccs, from, to));
+                }
+                info.setNumIterations((int) Math.min(Integer.MAX_VALUE, numIterations.get()));
+                info.setDifference(lastDifference);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private final class Level extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int[] levelSccs;
+        private final int from;
+        private final int to;
+
+        Level(int[] levelSccs, int from, int to) {
+            this.levelSccs = levelSccs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            int numStatesLevel = 0;
+            for (int index = from; index < to; index++) {
+                int scc = levelSccs[index];
+                numStatesLevel += sccBounds[scc + 1] - sccBounds[scc];
+            }
+            if (to - from == 1 || numStatesLevel < PARALLEL_THRESHOLD) {
+                for (int index = from; index < to; index++) {
+                    solveScc(levelSccs[index]);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Level(levelSccs, from, mid), new Level(levelSccs, mid, to));
+        }
+    }
+
+    /**
+     * Compute the level of each component.
+     * Bottom components have level zero, other components have a level one
+     * larger than the maximal level of the components they have edges to.
+     * Because components are ordered in reverse topological order, the levels
+     * of all successor components are known when a component is handled.
+     */
+    private void computeLevels() {
+        int[] sccOf = new int[numStates];
+        for (int scc = 0; scc < numSccs; scc++) {
+            for (int stateNr = sccBounds[scc]; stateNr < sccBounds[scc + 1]; stateNr++) {
+                sccOf[sccStates[stateNr]] = scc;
+            }
+        }
+        maxLevel = 0;
+        for (int scc = 0; scc < numSccs; scc++) {
+            int level = 0;
+            for (int stateNr = sccBounds[scc]; stateNr < sccBounds[scc + 1]; stateNr++) {
+                int state = sccStates[stateNr];
+                int from = stateBounds[state];
+                int to = stateBounds[state + 1];
+                if (nondetBounds == null) {
+                    for (int succ = from; succ < to; succ++) {
+                        int succScc = sccOf[targets[succ]];
+                        if (succScc != scc) {
+                            assert succScc < scc;
+                            level = Math.max(level, sccLevel[succScc] + 1);
+                        }
+                    }
+                } else {
+                    for (int nondetNr = from; nondetNr < to; nondetNr++) {
+                        for (int succ = nondetBounds[nondetNr]; succ < nondetBounds[nondetNr + 1]; succ++) {
+                            int succScc = sccOf[targets[succ]];
+                            if (succScc != scc) {
+                                assert succScc < scc;
+                                level = Math.max(level, sccLevel[succScc] + 1);
+                            }
+                        }
+                    }
+                }
+            }
+            sccLevel[scc] = level;
+            maxLevel = Math.max(maxLevel, level);
+        }
+    }
+
+    private void solveScc(int scc) {
+        int from = sccBounds[scc];
+        int to = sccBounds[scc + 1];
+        if (to - from == 1) {
+            int state = sccStates[from];
+            if (!hasSelfLoop(state)) {
+                values[state] = substitute(state);
+                if (scheduler != null) {
+                    scheduler[state] = optimalChoice(state);
+                }
+                numIterations.accumulateAndGet(1, Math::max);
+                return;
+            } else if (nondetBounds == null) {
+                values[state] = solveSelfLoop(state);
+                numIterations.accumulateAndGet(1, Math::max);
+                return;
+            }
+        }
+        iterateScc(from, to);
+    }
+
+    private boolean hasSelfLoop(int state) {
+        int from = stateBounds[state];
+        int to = stateBounds[state + 1];
+        if (nondetBounds == null) {
+            for (int succ = from; succ < to; succ++) {
+                if (targets[succ] == state) {
+                    return true;
+                }
+            }
+        } else {
+            for (int nondetNr = from; nondetNr < to; nondetNr++) {
+                for (int succ = nondetBounds[nondetNr]; succ < nondetBounds[nondetNr + 1]; succ++) {
+                    if (targets[succ] == state) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Solve a single Markov chain state with self loop.
+     * For a self loop probability p &lt; 1, the value is given by
+     * (sum of other weighted successor values) / (1 - p). For p = 1, the
+     * state is absorbing and keeps its initial value.
+     */
+    private double solveSelfLoop(int state) {
+        int from = stateBounds[state];
+        int to = stateBounds[state + 1];
+        double selfLoop = 0.0;
+        double other = 0.0;
+        for (int succ = from; succ < to; succ++) {
+            int succState = targets[succ];
+            if (succState == state) {
+                selfLoop += weights[succ];
+            } else {
+                other += weights[succ] * values[succState];
+            }
+        }
+        if (selfLoop >= 1.0) {
+            return values[state];
+        }
+        return other / (1.0 - selfLoop);
+    }
+
+    private double substitute(int state) {
+        int from = stateBounds[state];
+        int to = stateBounds[state + 1];
+        if (nondetBounds == null) {
+            double result = 0.0;
+            for (int succ = from; succ < to; succ++) {
+                result += weights[succ] * values[targets[succ]];
+            }
+            return result;
+        }
+        double result = min ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+        for (int nondetNr = from; nondetNr < to; nondetNr++) {
+            double choiceValue = choiceValue(nondetNr, values);
+            result = min ? Math.min(result, choiceValue) : Math.max(result, choiceValue);
+        }
+        return result;
+    }
+
+    private int optimalChoice(int state) {
+        int from = stateBounds[state];
+        int to = stateBounds[state + 1];
+        int result = -1;
+        double optValue = min ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+        for (int nondetNr = from; nondetNr < to; nondetNr++) {
+            double choiceValue = choiceValue(nondetNr, values);
+            if (min ? choiceValue < optValue : choiceValue > optValue) {
+                optValue = choiceValue;
+                result = nondetNr;
+            }
+        }
+        return result;
+    }
+
+    private double choiceValue(int nondetNr, double[] readValues) {
+        double result = 0.0;
+        for (int succ = nondetBounds[nondetNr]; succ < nondetBounds[nondetNr + 1]; succ++) {
+            result += weights[succ] * readValues[targets[succ]];
+        }
+        return result;
+    }
+
+    /**
+     * Iterate over the states of a component until convergence.
+     * States outside the component are only read, and their values are
+     * already final. For the Jacobi method, the new values are first
+     * collected in a buffer local to the component.
+     */
+    private void iterateScc(int sccFrom, int sccTo) {
+        double[] values = this.values;
+        int sccSize = sccTo - sccFrom;
+        double[] next = gaussSeidel ? null : new double[sccSize];
+        boolean trackDecisions = !min && scheduler != null && nondetBounds != null;
+        double optInitValue = min ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+        long iterations = 0;
+        double maxDiff;
+        do {
+            maxDiff = 0.0;
+            for (int stateNr = sccFrom; stateNr < sccTo; stateNr++) {
+                int state = sccStates[stateNr];
+                double presStateProb = values[state];
+                int from = stateBounds[state];
+                int to = stateBounds[state + 1];
+                double nextStateProb;
+                if (nondetBounds == null) {
+                    nextStateProb = 0.0;
+                    for (int succ = from; succ < to; succ++) {
+                        nextStateProb += weights[succ] * values[targets[succ]];
+                    }
+                } else {
+                    nextStateProb = optInitValue;
+                    for (int nondetNr = from; nondetNr < to; nondetNr++) {
+                        double choiceNextStateProb = choiceValue(nondetNr, values);
+                        if (min) {
+                            nextStateProb = Math.min(nextStateProb, choiceNextStateProb);
+                        } else if (choiceNextStateProb > nextStateProb) {
+                            nextStateProb = choiceNextStateProb;
+                            if (trackDecisions && nextStateProb > presStateProb) {
+                                scheduler[state] = nondetNr;
+                            }
+                        }
+                    }
+                }
+                double diff = Math.abs(nextStateProb - presStateProb);
+                if (relative && presStateProb != 0.0) {
+                    diff /= presStateProb;
+                }
+                maxDiff = diff > maxDiff ? diff : maxDiff;
+                if (gaussSeidel) {
+                    values[state] = nextStateProb;
+                } else {
+                    next[stateNr - sccFrom] = nextStateProb;
+                }
+            }
+            if (!gaussSeidel) {
+                for (int stateNr = sccFrom; stateNr < sccTo; stateNr++) {
+                    values[sccStates[stateNr]] = next[stateNr - sccFrom];
+                }
+            }
+            iterations++;
+        } while (maxDiff > precision / 2);
+        numIterations.accumulateAndGet(iterations, Math::max);
+        lastDifference = maxDiff;
+    }
+}
@@ -0,0 +1,549 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graphsolver.iterative.java;
+
+import java.util.Arrays;
+
+import epmc.graphsolver.iterative.Info;
+import epmc.graphsolver.iterative.IterationMethod;
+import epmc.graphsolver.iterative.IterationPreconditioner;
+
+/**
+ * Krylov subspace solvers for sparse linear equation systems.
+ * The matrix of the system is stored in compressed sparse row form. The
+ * class provides the stabilised biconjugate gradient method (BiCGSTAB) and
+ * the restarted generalised minimal residual method (GMRES). Both are used
+ * with right preconditioning, so that the residual computed during the
+ * iteration is the one of the original system. As preconditioners, the
+ * inverse of the diagonal (Jacobi) and the incomplete LU factorisation
+ * without fill-in (ILU(0)) are available. The iteration stops as soon as
+ * the Euclidean norm of the residual is below the given tolerance. If the
+ * Krylov subspace method breaks down, stagnates, or does not reach the
+ * tolerance within the maximal number of iterations, the system is solved
+ * by Gauss-Seidel iteration starting from the last finite approximation.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+final class LinearSolverJavaDouble {
+    /** Least default maximal number of Krylov subspace iterations. */
+    private final static int MIN_MAX_ITERATIONS = 1000;
+    private final int size;
+    private final int[] rowBounds;
+    private final int[] columns;
+    private final double[] entries;
+    private final int[] diagonal;
+    private IterationPreconditioner preconditioner = IterationPreconditioner.NONE;
+    private int restart = 30;
+    private double[] inverseDiagonal;
+    private double[] factors;
+    private int maxIterations;
+    private boolean fallback;
+
+    /**
+     * Construct a new linear equation system solver.
+     * Entries of a row may be given in any order, and entries with the same
+     * column are summed up. Diagonal entries are added if they do not
+     * exist. The arrays given are not modified.
+     * 
+     * @param size number of rows and columns of the matrix
+     * @param rowBounds bounds of rows, with {@code size + 1} entries
+     * @param columns columns of entries
+     * @param entries values of entries
+     */
+    LinearSolverJavaDouble(int size, int[] rowBounds, int[] columns, double[] entries) {
+        assert size >= 0 : size;
+        assert rowBounds != null;
+        assert rowBounds.length >= size + 1;
+        assert columns != null;
+        assert entries != null;
+        this.size = size;
+        int[] position = new int[size];
+        Arrays.fill(position, -1);
+        int[] newBounds = new int[size + 1];
+        int[] newColumns = new int[rowBounds[size] + size];
+        double[] newEntries = new double[rowBounds[size] + size];
+        int[] rowColumns = new int[size];
+        double[] rowEntries = new double[size];
+        int numWritten = 0;
+        for (int row = 0; row < size; row++) {
+            int rowSize = 0;
+            position[row] = 0;
+            rowColumns[0] = row;
+            rowEntries[0] = 0.0;
+            rowSize++;
+            for (int entry = rowBounds[row]; entry < rowBounds[row + 1]; entry++) {
+                int column = columns[entry];
+                if (position[column] < 0) {
+                    position[column] = rowSize;
+                    rowColumns[rowSize] = column;
+                    rowEntries[rowSize] = 0.0;
+                    rowSize++;
+                }
+                rowEntries[position[column]] += entries[entry];
+            }
+            System.arraycopy(rowColumns, 0, newColumns, numWritten, rowSize);
+            Arrays.sort(newColumns, numWritten, numWritten + rowSize);
+            for (int entry = numWritten; entry < numWritten + rowSize; entry++) {
+                int column = newColumns[entry];
+                newEntries[entry] = rowEntries[position[column]];
+                position[column] = -1;
+            }
+            numWritten += rowSize;
+            newBounds[row + 1] = numWritten;
+        }
+        this.rowBounds = newBounds;
+        this.columns = newColumns;
+        this.entries = newEntries;
+        this.diagonal = new int[size];
+        for (int row = 0; row < size; row++) {
+            diagonal[row] = Arrays.binarySearch(newColumns, newBounds[row], newBounds[row + 1], row);
+            assert diagonal[row] >= 0;
+        }
+        this.maxIterations = Math.max(MIN_MAX_ITERATIONS, 2 * size);
+    }
+
+    void setPreconditioner(IterationPreconditioner preconditioner) {
+        assert preconditioner != null;
+        this.preconditioner = preconditioner;
+    }
+
+    void setRestart(int restart) {
+        assert restart > 0 : restart;
+        this.restart = restart;
+    }
+
+    /**
+     * Set the maximal number of iterations of the Krylov subspace method.
+     * If the tolerance is not reached after this number of iterations, the
+     * solver falls back to Gauss-Seidel iteration.
+     * 
+     * @param maxIterations maximal number of Krylov subspace iterations
+     */
+    void setMaxIterations(int maxIterations) {
+        assert maxIterations > 0 : maxIterations;
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Check whether the last call of {@link #solve(IterationMethod, double, double[], double[], int[], Info)}
+     * had to fall back to Gauss-Seidel iteration.
+     * 
+     * @return whether the last solve fell back to Gauss-Seidel iteration
+     */
+    boolean isFallback() {
+        return fallback;
+    }
+
+    /**
+     * Solve the linear equation system.
+     * 
+     * @param method Krylov subspace method to use
+     * @param tolerance tolerance for the norm of the residual
+     * @param rhs right-hand side of the system
+     * @param x initial guess, will be overwritten with result
+     * @param iterationsResult array to store total number of iterations in
+     * @param info progress information to update
+     */
+    void solve(IterationMethod method, double tolerance, double[] rhs,
+            double[] x, int[] iterationsResult, Info info) {
+        assert method != null;
+        assert method.isKrylov() : method;
+        assert rhs != null;
+        assert rhs.length >= size;
+        assert x != null;
+        assert x.length >= size;
+        assert iterationsResult != null;
+        assert info != null;
+        preparePreconditioner();
+        boolean converged;
+        if (method == IterationMethod.BICGSTAB) {
+            converged = bicgstab(tolerance, rhs, x, iterationsResult, info);
+        } else {
+            converged = gmres(tolerance, rhs, x, iterationsResult, info);
+        }
+        fallback = !converged;
+        if (fallback) {
+            gaussSeidel(tolerance, rhs, x, iterationsResult, info);
+        }
+    }
+
+    /**
+     * Solve the system using the BiCGSTAB method.
+     * If one of the denominators of the method becomes zero or the
+     * iteration produces values which are not finite, the method is
+     * restarted from the last finite approximation. If this happens directly
+     * after a restart, restarting cannot help and the method gives up.
+     * 
+     * @param tolerance tolerance for the norm of the residual
+     * @param rhs right-hand side of the system
+     * @param x initial guess, will be overwritten with approximation
+     * @param iterationsResult array to store number of iterations in
+     * @param info progress information to update
+     * @return whether the tolerance was reached
+     */
+    private boolean bicgstab(double tolerance, double[] rhs, double[] x,
+            int[] iterationsResult, Info info) {
+        double[] r = new double[size];
+        double[] rHat = new double[size];
+        double[] p = new double[size];
+        double[] v = new double[size];
+        double[] pHat = new double[size];
+        double[] s = new double[size];
+        double[] sHat = new double[size];
+        double[] t = new double[size];
+        double[] xFinite = x.clone();
+        int iterations = 0;
+        residual(rhs, x, r);
+        double resNorm = norm(r);
+        boolean restartRequired = true;
+        boolean restarted = false;
+        double rho = 1.0;
+        double alpha = 1.0;
+        double omega = 1.0;
+        while (!(resNorm <= tolerance)) {
+            if (iterations >= maxIterations) {
+                break;
+            }
+            if (restartRequired) {
+                if (restarted) {
+                    break;
+                }
+                System.arraycopy(xFinite, 0, x, 0, size);
+                residual(rhs, x, r);
+                System.arraycopy(r, 0, rHat, 0, size);
+                Arrays.fill(p, 0.0);
+                Arrays.fill(v, 0.0);
+                rho = 1.0;
+                alpha = 1.0;
+                omega = 1.0;
+                restartRequired = false;
+                restarted = true;
+            }
+            iterations++;
+            double rhoNext = dot(rHat, r);
+            if (rhoNext == 0.0 || !Double.isFinite(rhoNext)) {
+                restartRequired = true;
+                continue;
+            }
+            double beta = (rhoNext / rho) * (alpha / omega);
+            for (int i = 0; i < size; i++) {
+                p[i] = r[i] + beta * (p[i] - omega * v[i]);
+            }
+            precondition(p, pHat);
+            multiply(pHat, v);
+            double rHatV = dot(rHat, v);
+            if (rHatV == 0.0 || !Double.isFinite(rHatV)) {
+                restartRequired = true;
+                continue;
+            }
+            alpha = rhoNext / rHatV;
+            for (int i = 0; i < size; i++) {
+                s[i] = r[i] - alpha * v[i];
+            }
+            double sNorm = norm(s);
+            if (sNorm <= tolerance) {
+                for (int i = 0; i < size; i++) {
+                    x[i] += alpha * pHat[i];
+                }
+                resNorm = sNorm;
+                info.setNumIterations(iterations);
+                info.setDifference(resNorm);
+                break;
+            }
+            precondition(s, sHat);
+            multiply(sHat, t);
+            double tt = dot(t, t);
+            omega = tt == 0.0 ? 0.0 : dot(t, s) / tt;
+            for (int i = 0; i < size; i++) {
+                x[i] += alpha * pHat[i] + omega * sHat[i];
+                r[i] = s[i] - omega * t[i];
+            }
+            rho = rhoNext;
+            resNorm = norm(r);
+            info.setNumIterations(iterations);
+            info.setDifference(resNorm);
+            if (Double.isFinite(resNorm)) {
+                System.arraycopy(x, 0, xFinite, 0, size);
+                restarted = false;
+            }
+            if (omega == 0.0 || !Double.isFinite(resNorm)) {
+                restartRequired = true;
+            }
+        }
+        if (!(resNorm <= tolerance)) {
+            System.arraycopy(xFinite, 0, x, 0, size);
+        }
+        iterationsResult[0] = iterations;
+        return resNorm <= tolerance;
+    }
+
+    /**
+     * Solve the system using the restarted GMRES method.
+     * The method gives up if a restart cycle does not reduce the norm of
+     * the residual, in which case the approximation of the previous cycle is
+     * kept.
+     * 
+     * @param tolerance tolerance for the norm of the residual
+     * @param rhs right-hand side of the system
+     * @param x initial guess, will be overwritten with approximation
+     * @param iterationsResult array to store number of iterations in
+     * @param info progress information to update
+     * @return whether the tolerance was reached
+     */
+    private boolean gmres(double tolerance, double[] rhs, double[] x,
+            int[] iterationsResult, Info info) {
+        int restart = Math.max(1, Math.min(this.restart, size));
+        double[][] basis = new double[restart + 1][size];
+        double[][] preconditioned = new double[restart][size];
+        double[][] hessenberg = new double[restart + 1][restart];
+        double[] cosines = new double[restart];
+        double[] sines = new double[restart];
+        double[] g = new double[restart + 1];
+        double[] y = new double[restart];
+        double[] w = new double[size];
+        double[] xPrevious = new double[size];
+        int iterations = 0;
+        residual(rhs, x, w);
+        double resNorm = norm(w);
+        while (!(resNorm <= tolerance) && iterations < maxIterations) {
+            double beta = resNorm;
+            for (int i = 0; i < size; i++) {
+                basis[0][i] = w[i] / beta;
+            }
+            Arrays.fill(g, 0.0);
+            g[0] = beta;
+            int k = 0;
+            while (k < restart && iterations < maxIterations) {
+                precondition(basis[k], preconditioned[k]);
+                multiply(preconditioned[k], w);
+                for (int i = 0; i <= k; i++) {
+                    double h = dot(w, basis[i]);
+                    hessenberg[i][k] = h;
+                    for (int j = 0; j < size; j++) {
+                        w[j] -= h * basis[i][j];
+                    }
+                }
+                double wNorm = norm(w);
+                hessenberg[k + 1][k] = wNorm;
+                if (wNorm != 0.0) {
+                    for (int j = 0; j < size; j++) {
+                        basis[k + 1][j] = w[j] / wNorm;
+                    }
+                }
+                for (int i = 0; i < k; i++) {
+                    double upper = hessenberg[i][k];
+                    double lower = hessenberg[i + 1][k];
+                    hessenberg[i][k] = cosines[i] * upper + sines[i] * lower;
+                    hessenberg[i + 1][k] = -sines[i] * upper + cosines[i] * lower;
+                }
+                double denominator = Math.hypot(hessenberg[k][k], hessenberg[k + 1][k]);
+                cosines[k] = denominator == 0.0 ? 1.0 : hessenberg[k][k] / denominator;
+                sines[k] = denominator == 0.0 ? 0.0 : hessenberg[k + 1][k] / denominator;
+                hessenberg[k][k] = denominator;
+                hessenberg[k + 1][k] = 0.0;
+                g[k + 1] = -sines[k] * g[k];
+                g[k] = cosines[k] * g[k];
+                k++;
+                iterations++;
+                info.setNumIterations(iterations);
+                info.setDifference(Math.abs(g[k]));
+                if (Math.abs(g[k]) <= tolerance || wNorm == 0.0) {
+                    break;
+                }
+            }
+            for (int i = k - 1; i >= 0; i--) {
+                double sum = g[i];
+                for (int j = i + 1; j < k; j++) {
+                    sum -= hessenberg[i][j] * y[j];
+                }
+                y[i] = hessenberg[i][i] == 0.0 ? 0.0 : sum / hessenberg[i][i];
+            }
+            System.arraycopy(x, 0, xPrevious, 0, size);
+            for (int i = 0; i < k; i++) {
+                for (int j = 0; j < size; j++) {
+                    x[j] += y[i] * preconditioned[i][j];
+                }
+            }
+            residual(rhs, x, w);
+            double resNormNext = norm(w);
+            if (!(resNormNext < resNorm)) {
+                System.arraycopy(xPrevious, 0, x, 0, size);
+                break;
+            }
+            resNorm = resNormNext;
+        }
+        iterationsResult[0] = iterations;
+        return resNorm <= tolerance;
+    }
+
+    /**
+     * Solve the system using the Gauss-Seidel method.
+     * This method is used if the Krylov subspace method did not reach the
+     * tolerance. It converges for the nonsingular M-matrices constructed by
+     * the users of this class, though usually much more slowly than the
+     * Krylov subspace methods.
+     * 
+     * @param tolerance tolerance for the norm of the residual
+     * @param rhs right-hand side of the system
+     * @param x initial guess, will be overwritten with result
+     * @param iterationsResult array to store number of iterations in
+     * @param info progress information to update
+     */
+    private void gaussSeidel(double tolerance, double[] rhs, double[] x,
+            int[] iterationsResult, Info info) {
+        double[] r = new double[size];
+        int iterations = iterationsResult[0];
+        residual(rhs, x, r);
+        double resNorm = norm(r);
+        while (resNorm > tolerance) {
+            for (int row = 0; row < size; row++) {
+                double sum = rhs[row];
+                for (int entry = rowBounds[row]; entry < rowBounds[row + 1]; entry++) {
+                    if (entry != diagonal[row]) {
+                        sum -= entries[entry] * x[columns[entry]];
+                    }
+                }
+                x[row] = sum / entries[diagonal[row]];
+            }
+            iterations++;
+            residual(rhs, x, r);
+            resNorm = norm(r);
+            info.setNumIterations(iterations);
+            info.setDifference(resNorm);
+        }
+        iterationsResult[0] = iterations;
+    }
+
+    private void preparePreconditioner() {
+        switch (preconditioner) {
+        case JACOBI:
+            if (inverseDiagonal == null) {
+                inverseDiagonal = new double[size];
+                for (int row = 0; row < size; row++) {
+                    double entry = entries[diagonal[row]];
+                    inverseDiagonal[row] = entry == 0.0 ? 1.0 : 1.0 / entry;
+                }
+            }
+            break;
+        case ILU0:
+            if (factors == null) {
+                factorise();
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Compute the incomplete LU factorisation without fill-in.
+     * The strictly lower part of the factors contains the entries of the
+     * unit lower triangular matrix, the remaining part those of the upper
+     * triangular matrix.
+     */
+    private void factorise() {
+        factors = entries.clone();
+        int[] position = new int[size];
+        Arrays.fill(position, -1);
+        for (int row = 0; row < size; row++) {
+            for (int entry = rowBounds[row]; entry < rowBounds[row + 1]; entry++) {
+                position[columns[entry]] = entry;
+            }
+            for (int entry = rowBounds[row]; entry < diagonal[row]; entry++) {
+                int pivotRow = columns[entry];
+                double pivot = factors[diagonal[pivotRow]];
+                if (pivot == 0.0) {
+                    continue;
+                }
+                double factor = factors[entry] / pivot;
+                factors[entry] = factor;
+                for (int pivotEntry = diagonal[pivotRow] + 1; pivotEntry < rowBounds[pivotRow + 1]; pivotEntry++) {
+                    int target = position[columns[pivotEntry]];
+                    if (target >= 0) {
+                        factors[target] -= factor * factors[pivotEntry];
+                    }
+                }
+            }
+            for (int entry = rowBounds[row]; entry < rowBounds[row + 1]; entry++) {
+                position[columns[entry]] = -1;
+            }
+        }
+    }
+
+    private void precondition(double[] vector, double[] result) {
+        switch (preconditioner) {
+        case JACOBI:
+            for (int row = 0; row < size; row++) {
+                result[row] = inverseDiagonal[row] * vector[row];
+            }
+            break;
+        case ILU0:
+            for (int row = 0; row < size; row++) {
+                double sum = vector[row];
+                for (int entry = rowBounds[row]; entry < diagonal[row]; entry++) {
+                    sum -= factors[entry] * result[columns[entry]];
+                }
+                result[row] = sum;
+            }
+            for (int row = size - 1; row >= 0; row--) {
+                double sum = result[row];
+                for (int entry = diagonal[row] + 1; entry < rowBounds[row + 1]; entry++) {
+                    sum -= factors[entry] * result[columns[entry]];
+                }
+                double pivot = factors[diagonal[row]];
+                result[row] = pivot == 0.0 ? sum : sum / pivot;
+            }
+            break;
+        default:
+            System.arraycopy(vector, 0, result, 0, size);
+            break;
+        }
+    }
+
+    private void multiply(double[] vector, double[] result) {
+        for (int row = 0; row < size; row++) {
+            double sum = 0.0;
+            for (int entry = rowBounds[row]; entry < rowBounds[row + 1]; entry++) {
+                sum += entries[entry] * vector[columns[entry]];
+            }
+            result[row] = sum;
+        }
+    }
+
+    private void residual(double[] rhs, double[] x, double[] result) {
+        multiply(x, result);
+        for (int row = 0; row < size; row++) {
+            result[row] = rhs[row] - result[row];
+        }
+    }
+
+    private double dot(double[] a, double[] b) {
+        double sum = 0.0;
+        for (int i = 0; i < size; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private double norm(double[] vector) {
+        return Math.sqrt(dot(vector, vector));
+    }
+}
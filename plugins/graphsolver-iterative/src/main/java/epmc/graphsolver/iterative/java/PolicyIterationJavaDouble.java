@@ -0,0 +1,220 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graphsolver.iterative.java;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import epmc.graph.CommonProperties;
+import epmc.graph.GraphBuilderExplicit;
+import epmc.graph.Semantics;
+import epmc.graph.SemanticsMDP;
+import epmc.graph.explicit.GraphExplicit;
+import epmc.graph.explicit.GraphExplicitSparseAlternate;
+import epmc.graph.explicit.SchedulerSimpleArray;
+import epmc.graphsolver.GraphSolverExplicit;
+import epmc.graphsolver.iterative.MessagesGraphSolverIterative;
+import epmc.graphsolver.iterative.OptionsGraphSolverIterative;
+import epmc.graphsolver.iterative.UtilGraphSolverIterative;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicit;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicitUnboundedCumulative;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicitUnboundedReachability;
+import epmc.messages.OptionsMessages;
+import epmc.modelchecker.Log;
+import epmc.options.Options;
+import epmc.util.BitSet;
+import epmc.util.StopWatch;
+import epmc.util.UtilBitSet;
+import epmc.value.TypeAlgebra;
+import epmc.value.TypeArrayAlgebra;
+import epmc.value.TypeDouble;
+import epmc.value.TypeWeight;
+import epmc.value.UtilValue;
+import epmc.value.Value;
+import epmc.value.ValueArrayAlgebra;
+import epmc.value.ValueContentDoubleArray;
+import epmc.value.ValueObject;
+
+import static epmc.graphsolver.iterative.UtilGraphSolverIterative.startWithInfoUnboundedVoid;
+
+/**
+ * Unbounded reachability and cumulative rewards in MDPs using policy
+ * iteration on primitive double arrays.
+ * This solver only works in the case that reals are implemented using IEEE
+ * doubles. For models in which value iteration converges slowly, e.g. due
+ * to probabilities close to one, policy iteration usually requires only
+ * a small number of policy improvements. As a side product, the policy
+ * computed is stored as a scheduler in the objective. The solver is
+ * registered with lowest priority and thus has to be selected explicitly.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class PolicyIterationJavaDouble implements GraphSolverExplicit {
+    public static String IDENTIFIER = "graph-solver-iterative-policy-iteration-java-double";
+    private GraphExplicit origGraph;
+    private GraphExplicitSparseAlternate iterGraph;
+    private ValueArrayAlgebra inputValues;
+    private ValueArrayAlgebra outputValues;
+    private GraphSolverObjectiveExplicit objective;
+    private GraphBuilderExplicit builder;
+    private ValueArrayAlgebra cumulativeStateRewards;
+    private BitSet iterTargets;
+    private IterationJavaDoublePolicy iteration;
+
+    @Override
+    public String getIdentifier() {
+        return IDENTIFIER;
+    }
+
+    @Override
+    public void setGraphSolverObjective(GraphSolverObjectiveExplicit objective) {
+        this.objective = objective;
+        origGraph = objective.getGraph();
+    }
+
+    @Override
+    public boolean canHandle() {
+        assert origGraph != null;
+        Semantics semantics = ValueObject.as(origGraph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
+        if (!SemanticsMDP.isMDP(semantics)) {
+            return false;
+        }
+        if (!(objective instanceof GraphSolverObjectiveExplicitUnboundedReachability)
+                && !(objective instanceof GraphSolverObjectiveExplicitUnboundedCumulative)) {
+            return false;
+        }
+        if (!TypeDouble.is(TypeWeight.get())) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void solve() {
+        prepareIterGraph();
+        policyIteration();
+        prepareResultValues();
+    }
+
+    private void prepareIterGraph() {
+        assert origGraph != null;
+        List<BitSet> sinks = null;
+        if (objective instanceof GraphSolverObjectiveExplicitUnboundedReachability) {
+            GraphSolverObjectiveExplicitUnboundedReachability unbounded = (GraphSolverObjectiveExplicitUnboundedReachability) objective;
+            sinks = new ArrayList<>();
+            if (unbounded.getZeroSet() != null) {
+                sinks.add(unbounded.getZeroSet());
+            }
+            sinks.add(unbounded.getTarget());
+        } else {
+            GraphSolverObjectiveExplicitUnboundedCumulative cumulative = (GraphSolverObjectiveExplicitUnboundedCumulative) objective;
+            sinks = cumulative.getSinks();
+            cumulativeStateRewards = cumulative.getStateRewards();
+        }
+        this.builder = UtilGraphSolverIterative.buildIterationGraph(origGraph, sinks, false, false);
+        this.iterGraph = (GraphExplicitSparseAlternate) builder.getOutputGraph();
+        assert iterGraph != null;
+        int numStates = iterGraph.computeNumStates();
+        this.inputValues = UtilValue.newArray(TypeWeight.get().getTypeArray(), numStates);
+        if (objective instanceof GraphSolverObjectiveExplicitUnboundedReachability) {
+            BitSet targets = ((GraphSolverObjectiveExplicitUnboundedReachability) objective).getTarget();
+            this.iterTargets = UtilBitSet.newBitSetUnbounded(numStates);
+            for (int origNode = 0; origNode < origGraph.getNumNodes(); origNode++) {
+                int iterNode = builder.inputToOutputNode(origNode);
+                if (iterNode < 0) {
+                    continue;
+                }
+                this.inputValues.set(targets.get(origNode) ? 1 : 0, iterNode);
+                iterTargets.set(iterNode, targets.get(origNode));
+            }
+        }
+    }
+
+    private void policyIteration() {
+        Options options = Options.get();
+        Log log = options.get(OptionsMessages.LOG);
+        StopWatch timer = new StopWatch(true);
+        log.send(MessagesGraphSolverIterative.ITERATING);
+        double precision = options.getDouble(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_TOLERANCE);
+        boolean min;
+        if (objective instanceof GraphSolverObjectiveExplicitUnboundedReachability) {
+            min = ((GraphSolverObjectiveExplicitUnboundedReachability) objective).isMin();
+        } else {
+            min = ((GraphSolverObjectiveExplicitUnboundedCumulative) objective).isMin();
+        }
+        int[] numIterations = new int[1];
+        double[] values = ValueContentDoubleArray.getContent(inputValues);
+        iteration = new IterationJavaDoublePolicy(iterGraph);
+        iteration.setMin(min);
+        iteration.setTargetStates(iterTargets);
+        iteration.setCumulative(cumulativeStateRewards);
+        startWithInfoUnboundedVoid(info -> {
+            iteration.solve(precision, values, numIterations, info);
+        });
+        log.send(MessagesGraphSolverIterative.POLICY_ITERATION_DONE,
+                iteration.getNumImprovements(), numIterations[0],
+                timer.getTimeSeconds());
+    }
+
+    private void prepareResultValues() {
+        TypeAlgebra typeWeight = TypeWeight.get();
+        TypeArrayAlgebra typeArrayWeight = typeWeight.getTypeArray();
+        this.outputValues = UtilValue.newArray(typeArrayWeight, origGraph.computeNumStates());
+        Value val = typeWeight.newValue();
+        int origStateNr = 0;
+        for (int i = 0; i < origGraph.getNumNodes(); i++) {
+            int iterState = builder.inputToOutputNode(i);
+            if (iterState == -1) {
+                continue;
+            }
+            inputValues.get(val, iterState);
+            outputValues.set(val, origStateNr);
+            origStateNr++;
+        }
+        objective.setResult(outputValues);
+        prepareScheduler();
+    }
+
+    /**
+     * Transfer the policy computed to a scheduler of the original graph.
+     * Decisions are transformed from global indices of the iteration graph
+     * to the number of the successor of the according original node. Nodes
+     * the values of which were fixed remain undecided.
+     */
+    private void prepareScheduler() {
+        int[] policy = iteration.getPolicy();
+        BitSet fixed = iteration.getFixed();
+        int[] stateBounds = iterGraph.getStateBoundsJava();
+        SchedulerSimpleArray result = new SchedulerSimpleArray(origGraph);
+        for (int origNode = 0; origNode < origGraph.getNumNodes(); origNode++) {
+            int iterState = builder.inputToOutputNode(origNode);
+            if (iterState < 0 || fixed.get(iterState)) {
+                continue;
+            }
+            result.set(origNode, policy[iterState] - stateBounds[iterState]);
+        }
+        if (objective instanceof GraphSolverObjectiveExplicitUnboundedReachability) {
+            ((GraphSolverObjectiveExplicitUnboundedReachability) objective).setScheduler(result);
+        } else {
+            ((GraphSolverObjectiveExplicitUnboundedCumulative) objective).setScheduler(result);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graphsolver.iterative.java;
+
+import epmc.algorithms.explicit.ComponentsExplicit;
+import epmc.algorithms.explicit.EndComponents;
+import epmc.graph.CommonProperties;
+import epmc.graph.GraphBuilderExplicit;
+import epmc.graph.Semantics;
+import epmc.graph.SemanticsCTMC;
+import epmc.graph.SemanticsContinuousTime;
+import epmc.graph.SemanticsDTMC;
+import epmc.graph.explicit.GraphExplicit;
+import epmc.graph.explicit.GraphExplicitModifier;
+import epmc.graph.explicit.GraphExplicitSparse;
+import epmc.graphsolver.GraphSolverExplicit;
+import epmc.graphsolver.iterative.IterationMethod;
+import epmc.graphsolver.iterative.MessagesGraphSolverIterative;
+import epmc.graphsolver.iterative.OptionsGraphSolverIterative;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicit;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicitSteadyState;
+import epmc.messages.OptionsMessages;
+import epmc.modelchecker.Log;
+import epmc.options.Options;
+import epmc.util.BitSet;
+import epmc.util.StopWatch;
+import epmc.value.TypeAlgebra;
+import epmc.value.TypeArrayAlgebra;
+import epmc.value.TypeDouble;
+import epmc.value.TypeWeight;
+import epmc.value.TypeWeightTransition;
+import epmc.value.UtilValue;
+import epmc.value.Value;
+import epmc.value.ValueAlgebra;
+import epmc.value.ValueArrayAlgebra;
+import epmc.value.ValueContentDoubleArray;
+import epmc.value.ValueObject;
+
+import static epmc.graphsolver.iterative.UtilGraphSolverIterative.startWithInfoUnboundedVoid;
+
+/**
+ * Long-run average rewards of Markov chains using Krylov subspace methods.
+ * As {@link epmc.graphsolver.iterative.natives.UnboundedLRANative}, this
+ * solver only handles models consisting of a single bottom strongly
+ * connected component, and only works in the case that reals are
+ * implemented using IEEE doubles. Instead of value iteration, the steady
+ * state distribution of the uniformised chain is obtained by solving its
+ * balance equations using BiCGSTAB or GMRES. To obtain a nonsingular
+ * system, the probability of the last state is fixed to one and its
+ * balance equation is dropped; the solution is normalised afterwards.
+ * Because of this scaling, the tolerance is always applied relative to the
+ * norm of the right-hand side of the system. The solver is only used if
+ * a Krylov subspace method is selected as iteration method.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class SteadyStateJavaDouble implements GraphSolverExplicit {
+    public static String IDENTIFIER = "graph-solver-iterative-steady-state-java-double";
+    private GraphExplicit origGraph;
+    private GraphExplicitSparse iterGraph;
+    private ValueArrayAlgebra inputValues;
+    private ValueArrayAlgebra outputValues;
+    private GraphSolverObjectiveExplicit objective;
+    private GraphBuilderExplicit builder;
+    private ValueArrayAlgebra cumulativeStateRewards;
+
+    @Override
+    public String getIdentifier() {
+        return IDENTIFIER;
+    }
+
+    @Override
+    public void setGraphSolverObjective(GraphSolverObjectiveExplicit objective) {
+        this.objective = objective;
+        origGraph = objective.getGraph();
+    }
+
+    @Override
+    public boolean canHandle() {
+        assert origGraph != null;
+        Semantics semantics = ValueObject.as(origGraph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
+        if (!SemanticsCTMC.isCTMC(semantics)
+                && !SemanticsDTMC.isDTMC(semantics)) {
+            return false;
+        }
+        if (!(objective instanceof GraphSolverObjectiveExplicitSteadyState)) {
+            return false;
+        }
+        IterationMethod iterMethod = Options.get().getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD);
+        if (!iterMethod.isKrylov()) {
+            return false;
+        }
+        if (!TypeDouble.is(TypeWeightTransition.get())) {
+            return false;
+        }
+        if (!TypeDouble.is(TypeWeight.get())) {
+            return false;
+        }
+        ComponentsExplicit components = new ComponentsExplicit();
+        EndComponents cps = components.endComponents(origGraph, false);
+        BitSet cp = cps.next();
+        if (cp == null) {
+            return false;
+        }
+        if (cp.cardinality() != origGraph.getNumNodes()) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void solve() {
+        prepareIterGraph();
+        steadyState();
+        prepareResultValues();
+    }
+
+    private void prepareIterGraph() {
+        assert origGraph != null;
+        Semantics semanticsType = ValueObject.as(origGraph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
+        boolean uniformise = SemanticsContinuousTime.isContinuousTime(semanticsType);
+        this.builder = new GraphBuilderExplicit();
+        builder.setInputGraph(origGraph);
+        builder.addDerivedGraphProperties(origGraph.getGraphProperties());
+        builder.addDerivedNodeProperties(origGraph.getNodeProperties());
+        builder.addDerivedEdgeProperties(origGraph.getEdgeProperties());
+        builder.setUniformise(true);
+        builder.setReorder(true);
+        builder.build();
+        this.iterGraph = (GraphExplicitSparse) builder.getOutputGraph();
+        assert iterGraph != null;
+
+        GraphSolverObjectiveExplicitSteadyState objectiveSteadyState = (GraphSolverObjectiveExplicitSteadyState) objective;
+        ValueArrayAlgebra stateRewards = objectiveSteadyState.getStateRewards();
+        if (stateRewards != null) {
+            cumulativeStateRewards = UtilValue.newArray(stateRewards.getType(), iterGraph.computeNumStates());
+            Value value = stateRewards.getType().getEntryType().newValue();
+            for (int origNode = 0; origNode < origGraph.getNumNodes(); origNode++) {
+                int iterNode = builder.inputToOutputNode(origNode);
+                if (iterNode < 0) {
+                    continue;
+                }
+                stateRewards.get(value, origNode);
+                cumulativeStateRewards.set(value, iterNode);
+            }
+        }
+        if (uniformise) {
+            ValueAlgebra uniFactor = UtilValue.newValue(TypeWeightTransition.get(), "1.02");
+            GraphExplicitModifier.uniformise(iterGraph, null, uniFactor);
+        }
+    }
+
+    private void prepareResultValues() {
+        TypeAlgebra typeWeight = TypeWeight.get();
+        TypeArrayAlgebra typeArrayWeight = typeWeight.getTypeArray();
+        this.outputValues = UtilValue.newArray(typeArrayWeight, origGraph.computeNumStates());
+        Value val = typeWeight.newValue();
+        int origStateNr = 0;
+        for (int i = 0; i < origGraph.getNumNodes(); i++) {
+            int iterState = builder.inputToOutputNode(i);
+            if (iterState == -1) {
+                continue;
+            }
+            inputValues.get(val, iterState);
+            outputValues.set(val, origStateNr);
+            origStateNr++;
+        }
+        objective.setResult(outputValues);
+    }
+
+    private void steadyState() {
+        Options options = Options.get();
+        IterationMethod iterMethod = options.getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD);
+        Log log = options.get(OptionsMessages.LOG);
+        StopWatch timer = new StopWatch(true);
+        log.send(MessagesGraphSolverIterative.ITERATING);
+        double precision = options.getDouble(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_TOLERANCE);
+        int numStates = iterGraph.computeNumStates();
+        int[] stateBounds = iterGraph.getBoundsJava();
+        int[] targets = iterGraph.getTargetsJava();
+        double[] weights = ValueContentDoubleArray.getContent(iterGraph.getEdgeProperty(CommonProperties.WEIGHT).getContent());
+        int numUnknowns = numStates - 1;
+        int[] rowBounds = new int[numUnknowns + 1];
+        for (int state = 0; state < numStates; state++) {
+            for (int succ = stateBounds[state]; succ < stateBounds[state + 1]; succ++) {
+                int row = targets[succ];
+                if (row < numUnknowns && state < numUnknowns) {
+                    rowBounds[row + 1]++;
+                }
+            }
+        }
+        for (int row = 0; row < numUnknowns; row++) {
+            rowBounds[row + 1] += rowBounds[row] + 1;
+        }
+        int[] numEntries = new int[numUnknowns];
+        int[] columns = new int[rowBounds[numUnknowns]];
+        double[] entries = new double[rowBounds[numUnknowns]];
+        double[] rhs = new double[numUnknowns];
+        for (int row = 0; row < numUnknowns; row++) {
+            columns[rowBounds[row]] = row;
+            entries[rowBounds[row]] = 1.0;
+            numEntries[row] = 1;
+        }
+        for (int state = 0; state < numStates; state++) {
+            for (int succ = stateBounds[state]; succ < stateBounds[state + 1]; succ++) {
+                int row = targets[succ];
+                if (row == numUnknowns) {
+                    continue;
+                }
+                if (state == numUnknowns) {
+                    rhs[row] += weights[succ];
+                } else {
+                    int entry = rowBounds[row] + numEntries[row];
+                    columns[entry] = state;
+                    entries[entry] = -weights[succ];
+                    numEntries[row]++;
+                }
+            }
+        }
+        LinearSolverJavaDouble solver = new LinearSolverJavaDouble(numUnknowns, rowBounds, columns, entries);
+        solver.setPreconditioner(options.getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_PRECONDITIONER));
+        solver.setRestart(options.getInteger(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_GMRES_RESTART));
+        double rhsNorm = 0.0;
+        for (int row = 0; row < numUnknowns; row++) {
+            rhsNorm += rhs[row] * rhs[row];
+        }
+        double tolerance = precision / 2 * Math.sqrt(rhsNorm);
+        double[] distribution = new double[numStates];
+        int[] numIterations = new int[1];
+        startWithInfoUnboundedVoid(info -> {
+            solver.solve(iterMethod, tolerance, rhs, distribution, numIterations, info);
+        });
+        if (solver.isFallback()) {
+            log.send(MessagesGraphSolverIterative.KRYLOV_FALLBACK, iterMethod);
+        }
+        distribution[numUnknowns] = 1.0;
+        double sum = 0.0;
+        for (int state = 0; state < numStates; state++) {
+            sum += distribution[state];
+        }
+        double[] rewards = cumulativeStateRewards == null ? null
+                : ValueContentDoubleArray.getContent(cumulativeStateRewards);
+        double gain = 0.0;
+        for (int state = 0; state < numStates; state++) {
+            gain += distribution[state] / sum * (rewards == null ? 0.0 : rewards[state]);
+        }
+        inputValues = UtilValue.newArray(TypeWeight.get().getTypeArray(), numStates);
+        double[] values = ValueContentDoubleArray.getContent(inputValues);
+        for (int state = 0; state < numStates; state++) {
+            values[state] = gain;
+        }
+        log.send(MessagesGraphSolverIterative.ITERATING_DONE, numIterations[0],
+                timer.getTimeSeconds());
+    }
+}
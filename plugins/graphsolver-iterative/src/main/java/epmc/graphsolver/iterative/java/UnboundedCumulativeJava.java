@@ -31,7 +31,6 @@ import epmc.graph.SemanticsDTMC;
 import epmc.graph.SemanticsMDP;
 import epmc.graph.SemanticsNonDet;
 import epmc.graph.explicit.GraphExplicit;
-import epmc.graph.explicit.GraphExplicitModifier;
 import epmc.graph.explicit.GraphExplicitSparse;
 import epmc.graph.explicit.GraphExplicitSparseAlternate;
 import epmc.graphsolver.GraphSolverExplicit;
@@ -40,6 +39,7 @@ import epmc.graphsolver.iterative.IterationMethod;
 import epmc.graphsolver.iterative.IterationStopCriterion;
 import epmc.graphsolver.iterative.MessagesGraphSolverIterative;
 import epmc.graphsolver.iterative.OptionsGraphSolverIterative;
+import epmc.graphsolver.iterative.UtilGraphSolverIterative;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicit;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicitUnboundedCumulative;
 import epmc.messages.OptionsMessages;
@@ -162,28 +162,14 @@ public final class UnboundedCumulativeJava implements GraphSolverExplicit {
         assert origGraph != null;
         Semantics semanticsType = ValueObject.as(origGraph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
         boolean embed = SemanticsContinuousTime.isContinuousTime(semanticsType) && (objective instanceof GraphSolverObjectiveExplicitUnboundedCumulative);
-        this.builder = new GraphBuilderExplicit();
-        builder.setInputGraph(origGraph);
-        builder.addDerivedGraphProperties(origGraph.getGraphProperties());
-        builder.addDerivedNodeProperties(origGraph.getNodeProperties());
-        builder.addDerivedEdgeProperties(origGraph.getEdgeProperties());
         List<BitSet> sinks = null;
         if (objective instanceof GraphSolverObjectiveExplicitUnboundedCumulative) {
             GraphSolverObjectiveExplicitUnboundedCumulative objectiveUnboundedCumulative = (GraphSolverObjectiveExplicitUnboundedCumulative) objective;
             sinks = objectiveUnboundedCumulative.getSinks();
         }
-
-        if (sinks != null) {
-            builder.addSinks(sinks);
-        }
-        builder.setUniformise(false);
-        builder.setReorder();
-        builder.build();
+        this.builder = UtilGraphSolverIterative.buildIterationGraph(origGraph, sinks, false, embed);
         this.iterGraph = builder.getOutputGraph();
         assert iterGraph != null;
-        if (embed) {
-            GraphExplicitModifier.embed(iterGraph);
-        }
 
         cumulativeStateRewards = null;
         if (objective instanceof GraphSolverObjectiveExplicitUnboundedCumulative) {
@@ -237,14 +223,15 @@ public final class UnboundedCumulativeJava implements GraphSolverExplicit {
 
     private void unboundedCumulative() {
         Options options = Options.get();
-        IterationMethod iterMethod = options.getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD);
-        IterationStopCriterion stopCriterion = options.getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_STOP_CRITERION);
+        IterationMethod iterMethod = UtilGraphSolverIterative.getStationaryIterationMethod();
+        IterationStopCriterion stopCriterion = UtilGraphSolverIterative.getDifferenceStopCriterion(IDENTIFIER);
         Log log = options.get(OptionsMessages.LOG);
         StopWatch timer = new StopWatch(true);
         log.send(MessagesGraphSolverIterative.ITERATING);
         int[] numIterations = new int[1];
         GraphSolverObjectiveExplicitUnboundedCumulative graphSolverObjectiveUnbounded = (GraphSolverObjectiveExplicitUnboundedCumulative) objective;
         inputValues = UtilValue.newArray(TypeWeight.get().getTypeArray(), iterGraph.computeNumStates());
+        UtilGraphSolverIterative.applyInitialValues(objective, builder, inputValues, graphSolverObjectiveUnbounded.getSinks());
         boolean min = graphSolverObjectiveUnbounded.isMin();
         double precision = options.getDouble(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_TOLERANCE);
         startWithInfoUnboundedVoid(info -> {
@@ -0,0 +1,291 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graphsolver.iterative.java;
+
+import java.util.List;
+
+import epmc.graph.CommonProperties;
+import epmc.graph.GraphBuilderExplicit;
+import epmc.graph.Semantics;
+import epmc.graph.SemanticsCTMC;
+import epmc.graph.SemanticsContinuousTime;
+import epmc.graph.SemanticsDTMC;
+import epmc.graph.SemanticsMDP;
+import epmc.graph.SemanticsNonDet;
+import epmc.graph.explicit.GraphExplicit;
+import epmc.graph.explicit.GraphExplicitModifier;
+import epmc.graph.explicit.GraphExplicitSparse;
+import epmc.graph.explicit.GraphExplicitSparseAlternate;
+import epmc.graphsolver.GraphSolverExplicit;
+import epmc.graphsolver.iterative.IterationGraphCache;
+import epmc.graphsolver.iterative.IterationMethod;
+import epmc.graphsolver.iterative.IterationStopCriterion;
+import epmc.graphsolver.iterative.MessagesGraphSolverIterative;
+import epmc.graphsolver.iterative.OptionsGraphSolverIterative;
+import epmc.graphsolver.iterative.UtilGraphSolverIterative;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicit;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicitUnboundedCumulative;
+import epmc.messages.OptionsMessages;
+import epmc.modelchecker.Log;
+import epmc.options.Options;
+import epmc.util.BitSet;
+import epmc.util.StopWatch;
+import epmc.value.TypeAlgebra;
+import epmc.value.TypeArrayAlgebra;
+import epmc.value.TypeDouble;
+import epmc.value.TypeWeight;
+import epmc.value.UtilValue;
+import epmc.value.Value;
+import epmc.value.ValueArrayAlgebra;
+import epmc.value.ValueContentDoubleArray;
+import epmc.value.ValueObject;
+
+import static epmc.graphsolver.iterative.UtilGraphSolverIterative.startWithInfoUnboundedVoid;
+
+// TODO reward-based stuff should be moved to rewards plugin
+
+/**
+ * Unbounded cumulative rewards using value iteration on primitive double
+ * arrays. This solver is the pure Java counterpart of the native unbounded
+ * cumulative reward solver and only works in the case that reals are
+ * implemented using IEEE doubles. Continuous-time Markov chains are
+ * analysed on their embedded chain, after dividing the reward of each
+ * state by its exit rate to obtain the reward of a visit.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class UnboundedCumulativeJavaDouble implements GraphSolverExplicit {
+    public static String IDENTIFIER = "graph-solver-iterative-unbounded-cumulative-java-double";
+    private GraphExplicit origGraph;
+    private GraphExplicit iterGraph;
+    private ValueArrayAlgebra inputValues;
+    private ValueArrayAlgebra outputValues;
+    private GraphSolverObjectiveExplicit objective;
+    private GraphBuilderExplicit builder;
+    private ValueArrayAlgebra cumulativeStateRewards;
+
+    @Override
+    public String getIdentifier() {
+        return IDENTIFIER;
+    }
+
+    @Override
+    public void setGraphSolverObjective(GraphSolverObjectiveExplicit objective) {
+        this.objective = objective;
+        origGraph = objective.getGraph();
+    }
+
+    @Override
+    public boolean canHandle() {
+        assert origGraph != null;
+        Semantics semantics = ValueObject.as(origGraph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
+        if (!SemanticsCTMC.isCTMC(semantics)
+                && !SemanticsDTMC.isDTMC(semantics)
+                && !SemanticsMDP.isMDP(semantics)) {
+            return false;
+        }
+        if (!(objective instanceof GraphSolverObjectiveExplicitUnboundedCumulative)) {
+            return false;
+        }
+        if (!TypeDouble.is(TypeWeight.get())) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void solve() {
+        prepareIterGraph();
+        unboundedCumulative();
+        prepareResultValues();
+    }
+
+    private void prepareIterGraph() {
+        assert origGraph != null;
+        Semantics semanticsType = ValueObject.as(origGraph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
+        boolean embed = SemanticsContinuousTime.isContinuousTime(semanticsType);
+        GraphSolverObjectiveExplicitUnboundedCumulative objectiveUnboundedCumulative = (GraphSolverObjectiveExplicitUnboundedCumulative) objective;
+        List<BitSet> sinks = objectiveUnboundedCumulative.getSinks();
+        /* rewards are fixed using the graph before embedding, so the
+         * embedded graph is constructed here rather than taken from the
+         * cache */
+        if (embed) {
+            this.builder = IterationGraphCache.build(origGraph, sinks, false, false);
+        } else {
+            this.builder = UtilGraphSolverIterative.buildIterationGraph(origGraph, sinks, false, false);
+        }
+        this.iterGraph = builder.getOutputGraph();
+        assert iterGraph != null;
+        cumulativeStateRewards = objectiveUnboundedCumulative.getStateRewards();
+        if (cumulativeStateRewards != null && !SemanticsNonDet.isNonDet(semanticsType)) {
+            int size = iterGraph.computeNumStates();
+            ValueArrayAlgebra cumulativeStateRewardsNew = UtilValue.newArray(cumulativeStateRewards.getType(), size);
+            Value value = cumulativeStateRewards.getType().getEntryType().newValue();
+            for (int origNode = 0; origNode < origGraph.getNumNodes(); origNode++) {
+                int iterNode = builder.inputToOutputNode(origNode);
+                if (iterNode < 0) {
+                    continue;
+                }
+                cumulativeStateRewards.get(value, origNode);
+                cumulativeStateRewardsNew.set(value, iterNode);
+            }
+            cumulativeStateRewards = cumulativeStateRewardsNew;
+        }
+        if (embed) {
+            fixRewards();
+            GraphExplicitModifier.embed(iterGraph);
+        }
+    }
+
+    /**
+     * Divide the reward of each state of a continuous-time Markov chain by
+     * its exit rate, so as to obtain the expected reward accumulated during
+     * a visit of the state in the embedded chain. States without outgoing
+     * transitions keep their reward.
+     */
+    private void fixRewards() {
+        GraphExplicitSparse graph = asSparseMarkov(iterGraph);
+        int numStates = graph.computeNumStates();
+        int[] stateBounds = graph.getBoundsJava();
+        double[] weights = ValueContentDoubleArray.getContent(graph.getEdgeProperty(CommonProperties.WEIGHT).getContent());
+        double[] cumul = ValueContentDoubleArray.getContent(cumulativeStateRewards);
+        for (int state = 0; state < numStates; state++) {
+            double sum = 0.0;
+            for (int succ = stateBounds[state]; succ < stateBounds[state + 1]; succ++) {
+                sum += weights[succ];
+            }
+            if (sum != 0.0) {
+                cumul[state] /= sum;
+            }
+        }
+    }
+
+    private void prepareResultValues() {
+        TypeAlgebra typeWeight = TypeWeight.get();
+        TypeArrayAlgebra typeArrayWeight = typeWeight.getTypeArray();
+        this.outputValues = UtilValue.newArray(typeArrayWeight, origGraph.computeNumStates());
+        Value val = typeWeight.newValue();
+        int origStateNr = 0;
+        for (int i = 0; i < origGraph.getNumNodes(); i++) {
+            int iterState = builder.inputToOutputNode(i);
+            if (iterState == -1) {
+                continue;
+            }
+            inputValues.get(val, iterState);
+            outputValues.set(val, origStateNr);
+            origStateNr++;
+        }
+        objective.setResult(outputValues);
+    }
+
+    private void unboundedCumulative() {
+        Options options = Options.get();
+        IterationMethod iterMethod = UtilGraphSolverIterative.getStationaryIterationMethod();
+        IterationStopCriterion stopCriterion = options.getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_STOP_CRITERION);
+        boolean relative = stopCriterion == IterationStopCriterion.RELATIVE;
+        Log log = options.get(OptionsMessages.LOG);
+        StopWatch timer = new StopWatch(true);
+        log.send(MessagesGraphSolverIterative.ITERATING);
+        int[] numIterations = new int[1];
+        GraphSolverObjectiveExplicitUnboundedCumulative graphSolverObjectiveUnbounded = (GraphSolverObjectiveExplicitUnboundedCumulative) objective;
+        inputValues = UtilValue.newArray(TypeWeight.get().getTypeArray(), iterGraph.computeNumStates());
+        boolean min = graphSolverObjectiveUnbounded.isMin();
+        double precision = options.getDouble(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_TOLERANCE);
+        int numThreads = UtilGraphSolverIterative.getNumThreads();
+        if (stopCriterion == IterationStopCriterion.INTERVAL) {
+            log.send(MessagesGraphSolverIterative.STOP_CRITERION_UNSUPPORTED,
+                    IDENTIFIER, stopCriterion, IterationStopCriterion.OPTIMISTIC);
+        }
+        boolean sound = stopCriterion == IterationStopCriterion.INTERVAL
+                || stopCriterion == IterationStopCriterion.OPTIMISTIC;
+        if (!sound) {
+            UtilGraphSolverIterative.applyInitialValues(objective, builder, inputValues, graphSolverObjectiveUnbounded.getSinks());
+        }
+        double[] values = ValueContentDoubleArray.getContent(inputValues);
+        double[] cumul = ValueContentDoubleArray.getContent(cumulativeStateRewards);
+        startWithInfoUnboundedVoid(info -> {
+            if (sound) {
+                IterationJavaDoubleInterval iteration = new IterationJavaDoubleInterval(iterGraph);
+                iteration.setMin(min);
+                iteration.setCumulative(cumulativeStateRewards);
+                iteration.optimistic(precision, inputValues, numIterations, info);
+            } else if (numThreads > 1 && iterMethod == IterationMethod.JACOBI) {
+                IterationJavaDoubleParallel iteration = new IterationJavaDoubleParallel(iterGraph, numThreads);
+                iteration.setMin(min);
+                iteration.setCumulative(cumulativeStateRewards);
+                iteration.unbounded(stopCriterion, precision, inputValues, numIterations, info);
+            } else if (isSparseMarkov(iterGraph)) {
+                GraphExplicitSparse graph = asSparseMarkov(iterGraph);
+                int numStates = graph.computeNumStates();
+                int[] stateBounds = graph.getBoundsJava();
+                int[] targets = graph.getTargetsJava();
+                double[] weights = ValueContentDoubleArray.getContent(graph.getEdgeProperty(CommonProperties.WEIGHT).getContent());
+                if (iterMethod == IterationMethod.JACOBI) {
+                    IterationJavaDouble.dtmcUnboundedJacobi(relative, precision, numStates, stateBounds, targets, weights, values, cumul, numIterations, info);
+                } else if (iterMethod == IterationMethod.GAUSS_SEIDEL) {
+                    IterationJavaDouble.dtmcUnboundedGaussseidel(relative, precision, numStates, stateBounds, targets, weights, values, cumul, numIterations, info);
+                } else {
+                    assert false : iterMethod;
+                }
+            } else if (isSparseMDP(iterGraph)) {
+                GraphExplicitSparseAlternate graph = asSparseNondet(iterGraph);
+                int numStates = graph.computeNumStates();
+                int[] stateBounds = graph.getStateBoundsJava();
+                int[] nondetBounds = graph.getNondetBoundsJava();
+                int[] targets = graph.getTargetsJava();
+                double[] weights = ValueContentDoubleArray.getContent(graph.getEdgePropertySparseNondet(CommonProperties.WEIGHT).asSparseNondetOnlyNondet().getContent());
+                if (iterMethod == IterationMethod.JACOBI) {
+                    IterationJavaDouble.mdpUnboundedJacobi(relative, precision, numStates, stateBounds, nondetBounds, targets, weights, min, values, cumul, null, numIterations, info);
+                } else if (iterMethod == IterationMethod.GAUSS_SEIDEL) {
+                    IterationJavaDouble.mdpUnboundedGaussseidel(relative, precision, numStates, stateBounds, nondetBounds, targets, weights, min, values, cumul, null, numIterations, info);
+                } else {
+                    assert false : iterMethod;
+                }
+            } else {
+                assert false : iterGraph.getClass();
+            }
+        });
+        log.send(MessagesGraphSolverIterative.ITERATING_DONE, numIterations[0],
+                timer.getTimeSeconds());
+    }
+
+    /* auxiliary methods */
+
+    private static boolean isSparseMarkov(GraphExplicit graph) {
+        return graph instanceof GraphExplicitSparse;
+    }
+
+    private static boolean isSparseMDP(GraphExplicit graph) {
+        if (!(graph instanceof GraphExplicitSparseAlternate)) {
+            return false;
+        }
+        Semantics semantics = graph.getGraphPropertyObject(CommonProperties.SEMANTICS);
+        return SemanticsMDP.isMDP(semantics);
+    }
+
+    private static GraphExplicitSparseAlternate asSparseNondet(GraphExplicit graph) {
+        return (GraphExplicitSparseAlternate) graph;
+    }
+
+    private static GraphExplicitSparse asSparseMarkov(GraphExplicit graph) {
+        return (GraphExplicitSparse) graph;
+    }
+}
@@ -31,7 +31,6 @@ import epmc.graph.SemanticsContinuousTime;
 import epmc.graph.SemanticsDTMC;
 import epmc.graph.SemanticsMDP;
 import epmc.graph.explicit.GraphExplicit;
-import epmc.graph.explicit.GraphExplicitModifier;
 import epmc.graph.explicit.GraphExplicitSparse;
 import epmc.graph.explicit.GraphExplicitSparseAlternate;
 import epmc.graphsolver.GraphSolverExplicit;
@@ -40,6 +39,7 @@ import epmc.graphsolver.iterative.IterationMethod;
 import epmc.graphsolver.iterative.IterationStopCriterion;
 import epmc.graphsolver.iterative.MessagesGraphSolverIterative;
 import epmc.graphsolver.iterative.OptionsGraphSolverIterative;
+import epmc.graphsolver.iterative.UtilGraphSolverIterative;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicit;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicitUnboundedReachability;
 import epmc.messages.OptionsMessages;
@@ -157,30 +157,15 @@ public final class UnboundedReachabilityJava implements GraphSolverExplicit {
         assert origGraph != null;
         Semantics semanticsType = ValueObject.as(origGraph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
         boolean embed = SemanticsContinuousTime.isContinuousTime(semanticsType) && (objective instanceof GraphSolverObjectiveExplicitUnboundedReachability);
-        this.builder = new GraphBuilderExplicit();
-        builder.setInputGraph(origGraph);
-        builder.addDerivedGraphProperties(origGraph.getGraphProperties());
-        builder.addDerivedNodeProperties(origGraph.getNodeProperties());
-        builder.addDerivedEdgeProperties(origGraph.getEdgeProperties());
-        List<BitSet> sinks = null;
-        sinks = new ArrayList<>();
+        List<BitSet> sinks = new ArrayList<>();
         GraphSolverObjectiveExplicitUnboundedReachability unbounded = (GraphSolverObjectiveExplicitUnboundedReachability) objective;
         if (unbounded.getZeroSet() != null) {
             sinks.add(unbounded.getZeroSet());
         }
         sinks.add(unbounded.getTarget());
-
-        if (sinks != null) {
-            builder.addSinks(sinks);
-        }
-        builder.setUniformise(false);
-        builder.setReorder();
-        builder.build();
+        this.builder = UtilGraphSolverIterative.buildIterationGraph(origGraph, sinks, false, embed);
         this.iterGraph = builder.getOutputGraph();
         assert iterGraph != null;
-        if (embed) {
-            GraphExplicitModifier.embed(iterGraph);
-        }
         BitSet targets = null;
         if (objective instanceof GraphSolverObjectiveExplicitUnboundedReachability) {
             GraphSolverObjectiveExplicitUnboundedReachability objectiveUnboundedReachability = (GraphSolverObjectiveExplicitUnboundedReachability) objective;
@@ -197,6 +182,7 @@ public final class UnboundedReachabilityJava implements GraphSolverExplicit {
                 }
                 this.inputValues.set(targets.get(origNode) ? 1 : 0, iterNode);
             }
+            UtilGraphSolverIterative.applyInitialValues(objective, builder, inputValues, sinks);
         }
     }
 
@@ -223,8 +209,8 @@ public final class UnboundedReachabilityJava implements GraphSolverExplicit {
         Log log = options.get(OptionsMessages.LOG);
         StopWatch timer = new StopWatch(true);
         log.send(MessagesGraphSolverIterative.ITERATING);
-        IterationMethod iterMethod = options.getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD);
-        IterationStopCriterion stopCriterion = options.getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_STOP_CRITERION);
+        IterationMethod iterMethod = UtilGraphSolverIterative.getStationaryIterationMethod();
+        IterationStopCriterion stopCriterion = UtilGraphSolverIterative.getDifferenceStopCriterion(IDENTIFIER);
         int[] numIterations = new int[1];
         GraphSolverObjectiveExplicitUnboundedReachability graphSolverObjectiveUnbounded = (GraphSolverObjectiveExplicitUnboundedReachability) objective;
         boolean min = graphSolverObjectiveUnbounded.isMin();
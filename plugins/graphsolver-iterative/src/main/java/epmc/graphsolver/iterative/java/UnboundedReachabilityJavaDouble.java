@@ -0,0 +1,416 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graphsolver.iterative.java;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import epmc.graph.CommonProperties;
+import epmc.graph.GraphBuilderExplicit;
+import epmc.graph.Semantics;
+import epmc.graph.SemanticsCTMC;
+import epmc.graph.SemanticsContinuousTime;
+import epmc.graph.SemanticsDTMC;
+import epmc.graph.SemanticsMDP;
+import epmc.graph.explicit.GraphExplicit;
+import epmc.graph.explicit.GraphExplicitSparse;
+import epmc.graph.explicit.GraphExplicitSparseAlternate;
+import epmc.graph.explicit.SchedulerSimpleArray;
+import epmc.graphsolver.GraphSolverExplicit;
+import epmc.graphsolver.iterative.Info;
+import epmc.graphsolver.iterative.IterationMethod;
+import epmc.graphsolver.iterative.IterationStopCriterion;
+import epmc.graphsolver.iterative.MessagesGraphSolverIterative;
+import epmc.graphsolver.iterative.OptionsGraphSolverIterative;
+import epmc.graphsolver.iterative.UtilGraphSolverIterative;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicit;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicitUnboundedReachability;
+import epmc.messages.OptionsMessages;
+import epmc.modelchecker.Log;
+import epmc.options.Options;
+import epmc.util.BitSet;
+import epmc.util.StopWatch;
+import epmc.util.UtilBitSet;
+import epmc.value.TypeAlgebra;
+import epmc.value.TypeArrayAlgebra;
+import epmc.value.TypeDouble;
+import epmc.value.TypeWeight;
+import epmc.value.UtilValue;
+import epmc.value.Value;
+import epmc.value.ValueArrayAlgebra;
+import epmc.value.ValueContentDoubleArray;
+import epmc.value.ValueObject;
+
+import static epmc.graphsolver.iterative.UtilGraphSolverIterative.startWithInfoUnboundedVoid;
+
+/**
+ * Unbounded reachability using value iteration on primitive double arrays.
+ * This solver works on the same sparse representation as the native solver
+ * and only works in the case that reals are implemented using IEEE doubles.
+ * It is implemented in pure Java, and is intended to be used if the native
+ * value iteration library is not available on the running platform. In
+ * contrast to the native solver, it can also compute a scheduler for MDPs,
+ * can solve the strongly connected components of the graph one by one
+ * in topological order, and supports the interval and optimistic stop
+ * criteria, which guarantee the precision of the result. For Markov chains,
+ * the Krylov subspace methods BiCGSTAB and GMRES can be used to solve the
+ * linear equation system of the problem.
+ * Bounded reachability and cumulative rewards are handled by
+ * {@link BoundedReachabilityJavaDouble}, {@link BoundedCumulativeJavaDouble}
+ * and {@link UnboundedCumulativeJavaDouble}, which share the kernels of
+ * {@link IterationJavaDouble} with this class.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class UnboundedReachabilityJavaDouble implements GraphSolverExplicit {
+    public static String IDENTIFIER = "graph-solver-iterative-unbounded-reachability-java-double";
+    private GraphExplicit origGraph;
+    private GraphExplicit iterGraph;
+    private ValueArrayAlgebra inputValues;
+    private ValueArrayAlgebra outputValues;
+    private GraphSolverObjectiveExplicit objective;
+    private GraphBuilderExplicit builder;
+    private int[] scheduler;
+    private BitSet iterTargets;
+
+    @Override
+    public String getIdentifier() {
+        return IDENTIFIER;
+    }
+
+    @Override
+    public void setGraphSolverObjective(GraphSolverObjectiveExplicit objective) {
+        this.objective = objective;
+        origGraph = objective.getGraph();
+    }
+
+    @Override
+    public boolean canHandle() {
+        assert origGraph != null;
+        Semantics semantics = ValueObject.as(origGraph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
+        if (!SemanticsCTMC.isCTMC(semantics)
+                && !SemanticsDTMC.isDTMC(semantics)
+                && !SemanticsMDP.isMDP(semantics)) {
+            return false;
+        }
+        if (!(objective instanceof GraphSolverObjectiveExplicitUnboundedReachability)) {
+            return false;
+        }
+        if (!TypeDouble.is(TypeWeight.get())) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void solve() {
+        prepareIterGraph();
+        unboundedReachability();
+        prepareResultValues();
+    }
+
+    private void prepareIterGraph() {
+        assert origGraph != null;
+        Semantics semanticsType = ValueObject.as(origGraph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
+        boolean embed = SemanticsContinuousTime.isContinuousTime(semanticsType);
+        List<BitSet> sinks = new ArrayList<>();
+        GraphSolverObjectiveExplicitUnboundedReachability unbounded = (GraphSolverObjectiveExplicitUnboundedReachability) objective;
+        if (unbounded.getZeroSet() != null) {
+            sinks.add(unbounded.getZeroSet());
+        }
+        sinks.add(unbounded.getTarget());
+        this.builder = UtilGraphSolverIterative.buildIterationGraph(origGraph, sinks, false, embed);
+        this.iterGraph = builder.getOutputGraph();
+        assert iterGraph != null;
+        BitSet targets = unbounded.getTarget();
+        int numStates = iterGraph.computeNumStates();
+        this.inputValues = UtilValue.newArray(TypeWeight.get().getTypeArray(), numStates);
+        this.iterTargets = UtilBitSet.newBitSetUnbounded(numStates);
+        for (int origNode = 0; origNode < origGraph.getNumNodes(); origNode++) {
+            int iterNode = builder.inputToOutputNode(origNode);
+            if (iterNode < 0) {
+                continue;
+            }
+            this.inputValues.set(targets.get(origNode) ? 1 : 0, iterNode);
+            iterTargets.set(iterNode, targets.get(origNode));
+        }
+    }
+
+    private void prepareResultValues() {
+        TypeAlgebra typeWeight = TypeWeight.get();
+        TypeArrayAlgebra typeArrayWeight = typeWeight.getTypeArray();
+        this.outputValues = UtilValue.newArray(typeArrayWeight, origGraph.computeNumStates());
+        Value val = typeWeight.newValue();
+        int origStateNr = 0;
+        for (int i = 0; i < origGraph.getNumNodes(); i++) {
+            int iterState = builder.inputToOutputNode(i);
+            if (iterState == -1) {
+                continue;
+            }
+            inputValues.get(val, iterState);
+            outputValues.set(val, origStateNr);
+            origStateNr++;
+        }
+        objective.setResult(outputValues);
+        if (scheduler != null) {
+            prepareScheduler();
+        }
+    }
+
+    /**
+     * Transfer the scheduler computed for the iteration graph to the original
+     * graph. Decisions are transformed from global indices of the iteration
+     * graph to the number of the successor of the according original node.
+     * Nodes which have been turned into sinks remain undecided.
+     */
+    private void prepareScheduler() {
+        GraphSolverObjectiveExplicitUnboundedReachability unbounded = (GraphSolverObjectiveExplicitUnboundedReachability) objective;
+        BitSet targets = unbounded.getTarget();
+        BitSet zeroSet = unbounded.getZeroSet();
+        int[] stateBounds = asSparseNondet(iterGraph).getStateBoundsJava();
+        SchedulerSimpleArray result = new SchedulerSimpleArray(origGraph);
+        for (int origNode = 0; origNode < origGraph.getNumNodes(); origNode++) {
+            int iterState = builder.inputToOutputNode(origNode);
+            if (iterState < 0 || targets.get(origNode)
+                    || (zeroSet != null && zeroSet.get(origNode))) {
+                continue;
+            }
+            int decision = scheduler[iterState];
+            if (decision < 0) {
+                continue;
+            }
+            result.set(origNode, decision - stateBounds[iterState]);
+        }
+        unbounded.setScheduler(result);
+    }
+
+    private void unboundedReachability() {
+        Options options = Options.get();
+        Log log = options.get(OptionsMessages.LOG);
+        StopWatch timer = new StopWatch(true);
+        log.send(MessagesGraphSolverIterative.ITERATING);
+        IterationMethod krylovMethod = options.getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD);
+        IterationMethod iterMethod = UtilGraphSolverIterative.getStationaryIterationMethod();
+        IterationStopCriterion stopCriterion = options.getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_STOP_CRITERION);
+        boolean relative = stopCriterion == IterationStopCriterion.RELATIVE;
+        int[] numIterations = new int[1];
+        GraphSolverObjectiveExplicitUnboundedReachability graphSolverObjectiveUnbounded = (GraphSolverObjectiveExplicitUnboundedReachability) objective;
+        boolean min = graphSolverObjectiveUnbounded.isMin();
+        double precision = options.getDouble(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_TOLERANCE);
+        double[] values = ValueContentDoubleArray.getContent(inputValues);
+        if (isSparseMDP(iterGraph) && graphSolverObjectiveUnbounded.isComputeScheduler()) {
+            scheduler = IterationJavaDouble.newScheduler(iterGraph.computeNumStates());
+        }
+        int numThreads = UtilGraphSolverIterative.getNumThreads();
+        boolean sound = stopCriterion == IterationStopCriterion.INTERVAL
+                || stopCriterion == IterationStopCriterion.OPTIMISTIC;
+        if (!sound && scheduler == null) {
+            UtilGraphSolverIterative.applyInitialValues(objective, builder, inputValues,
+                    Arrays.asList(graphSolverObjectiveUnbounded.getTarget(), graphSolverObjectiveUnbounded.getZeroSet()));
+        }
+        boolean krylov = !sound && krylovMethod.isKrylov() && isSparseMarkov(iterGraph);
+        boolean topological = !sound && !krylov && options.getBoolean(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_TOPOLOGICAL);
+        IterationJavaDoubleTopological topologicalIteration = null;
+        if (topological) {
+            StopWatch sccTimer = new StopWatch(true);
+            topologicalIteration = new IterationJavaDoubleTopological(iterGraph, numThreads);
+            topologicalIteration.setMin(min);
+            topologicalIteration.setScheduler(scheduler);
+            log.send(MessagesGraphSolverIterative.ITERATING_COMPONENTS,
+                    topologicalIteration.getNumComponents(), sccTimer.getTimeSeconds());
+        }
+        IterationJavaDoubleTopological topologicalIterationF = topologicalIteration;
+        startWithInfoUnboundedVoid(info -> {
+            if (sound) {
+                IterationJavaDoubleInterval iteration = new IterationJavaDoubleInterval(iterGraph);
+                iteration.setMin(min);
+                iteration.setTargetStates(iterTargets);
+                iteration.setScheduler(scheduler);
+                if (stopCriterion == IterationStopCriterion.INTERVAL) {
+                    iteration.interval(precision, inputValues, numIterations, info);
+                } else {
+                    iteration.optimistic(precision, inputValues, numIterations, info);
+                }
+                completeScheduler(values);
+            } else if (krylov) {
+                unboundedReachabilityKrylov(krylovMethod, stopCriterion, precision, values, numIterations, info);
+            } else if (topological) {
+                topologicalIterationF.unbounded(iterMethod, stopCriterion, precision, values, numIterations, info);
+                completeScheduler(values);
+            } else if (numThreads > 1 && iterMethod == IterationMethod.JACOBI) {
+                IterationJavaDoubleParallel iteration = new IterationJavaDoubleParallel(iterGraph, numThreads);
+                iteration.setMin(min);
+                iteration.setScheduler(scheduler);
+                iteration.unbounded(stopCriterion, precision, inputValues, numIterations, info);
+                completeScheduler(values);
+            } else if (isSparseMarkov(iterGraph)) {
+                GraphExplicitSparse graph = asSparseMarkov(iterGraph);
+                int numStates = graph.computeNumStates();
+                int[] stateBounds = graph.getBoundsJava();
+                int[] targets = graph.getTargetsJava();
+                double[] weights = ValueContentDoubleArray.getContent(graph.getEdgeProperty(CommonProperties.WEIGHT).getContent());
+                if (iterMethod == IterationMethod.JACOBI) {
+                    IterationJavaDouble.dtmcUnboundedJacobi(relative, precision, numStates, stateBounds, targets, weights, values, null, numIterations, info);
+                } else if (iterMethod == IterationMethod.GAUSS_SEIDEL) {
+                    IterationJavaDouble.dtmcUnboundedGaussseidel(relative, precision, numStates, stateBounds, targets, weights, values, null, numIterations, info);
+                } else {
+                    assert false : iterMethod;
+                }
+            } else if (isSparseMDP(iterGraph)) {
+                GraphExplicitSparseAlternate graph = asSparseNondet(iterGraph);
+                int numStates = graph.computeNumStates();
+                int[] stateBounds = graph.getStateBoundsJava();
+                int[] nondetBounds = graph.getNondetBoundsJava();
+                int[] targets = graph.getTargetsJava();
+                double[] weights = ValueContentDoubleArray.getContent(graph.getEdgePropertySparseNondet(CommonProperties.WEIGHT).asSparseNondetOnlyNondet().getContent());
+                if (iterMethod == IterationMethod.JACOBI) {
+                    IterationJavaDouble.mdpUnboundedJacobi(relative, precision, numStates, stateBounds, nondetBounds, targets, weights, min, values, null, scheduler, numIterations, info);
+                } else if (iterMethod == IterationMethod.GAUSS_SEIDEL) {
+                    IterationJavaDouble.mdpUnboundedGaussseidel(relative, precision, numStates, stateBounds, nondetBounds, targets, weights, min, values, null, scheduler, numIterations, info);
+                } else {
+                    assert false : iterMethod;
+                }
+                completeScheduler(values);
+            } else {
+                assert false : iterGraph.getClass();
+            }
+        });
+        log.send(MessagesGraphSolverIterative.ITERATING_DONE, numIterations[0],
+                timer.getTimeSeconds());
+    }
+
+    /**
+     * Compute reachability probabilities of a Markov chain by solving a
+     * linear equation system using a Krylov subspace method.
+     * The unknowns of the system are the probabilities of states which are
+     * not target states and from which the target states can be reached,
+     * which makes the matrix of the system nonsingular. The stop criterion
+     * is applied to the residual of the system.
+     */
+    private void unboundedReachabilityKrylov(IterationMethod iterMethod,
+            IterationStopCriterion stopCriterion, double precision,
+            double[] values, int[] numIterations, Info info) {
+        Options options = Options.get();
+        GraphExplicitSparse graph = asSparseMarkov(iterGraph);
+        int numStates = graph.computeNumStates();
+        int[] stateBounds = graph.getBoundsJava();
+        int[] targets = graph.getTargetsJava();
+        double[] weights = ValueContentDoubleArray.getContent(graph.getEdgeProperty(CommonProperties.WEIGHT).getContent());
+        BitSet zeroStates = IterationJavaDouble.zeroStates(false, numStates,
+                stateBounds, null, targets, iterTargets, null);
+        int[] unknowns = new int[numStates];
+        int numUnknowns = 0;
+        for (int state = 0; state < numStates; state++) {
+            if (iterTargets.get(state) || zeroStates.get(state)) {
+                unknowns[state] = -1;
+            } else {
+                unknowns[state] = numUnknowns;
+                numUnknowns++;
+            }
+        }
+        int[] rowBounds = new int[numUnknowns + 1];
+        int[] columns = new int[stateBounds[numStates] + numUnknowns];
+        double[] entries = new double[stateBounds[numStates] + numUnknowns];
+        double[] rhs = new double[numUnknowns];
+        double[] x = new double[numUnknowns];
+        int numEntries = 0;
+        for (int state = 0; state < numStates; state++) {
+            int row = unknowns[state];
+            if (row < 0) {
+                continue;
+            }
+            columns[numEntries] = row;
+            entries[numEntries] = 1.0;
+            numEntries++;
+            for (int succ = stateBounds[state]; succ < stateBounds[state + 1]; succ++) {
+                int succState = targets[succ];
+                if (unknowns[succState] >= 0) {
+                    columns[numEntries] = unknowns[succState];
+                    entries[numEntries] = -weights[succ];
+                    numEntries++;
+                } else if (iterTargets.get(succState)) {
+                    rhs[row] += weights[succ];
+                }
+            }
+            rowBounds[row + 1] = numEntries;
+            x[row] = values[state];
+        }
+        LinearSolverJavaDouble solver = new LinearSolverJavaDouble(numUnknowns, rowBounds, columns, entries);
+        solver.setPreconditioner(options.getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_PRECONDITIONER));
+        solver.setRestart(options.getInteger(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_GMRES_RESTART));
+        double tolerance = precision / 2;
+        if (stopCriterion == IterationStopCriterion.RELATIVE) {
+            double rhsNorm = 0.0;
+            for (int row = 0; row < numUnknowns; row++) {
+                rhsNorm += rhs[row] * rhs[row];
+            }
+            tolerance *= Math.sqrt(rhsNorm);
+        }
+        solver.solve(iterMethod, tolerance, rhs, x, numIterations, info);
+        if (solver.isFallback()) {
+            Log log = options.get(OptionsMessages.LOG);
+            log.send(MessagesGraphSolverIterative.KRYLOV_FALLBACK, iterMethod);
+        }
+        for (int state = 0; state < numStates; state++) {
+            if (unknowns[state] >= 0) {
+                values[state] = x[unknowns[state]];
+            } else if (zeroStates.get(state)) {
+                values[state] = 0.0;
+            }
+        }
+    }
+
+    /* auxiliary methods */
+
+    private void completeScheduler(double[] values) {
+        if (scheduler == null) {
+            return;
+        }
+        GraphSolverObjectiveExplicitUnboundedReachability graphSolverObjectiveUnbounded = (GraphSolverObjectiveExplicitUnboundedReachability) objective;
+        GraphExplicitSparseAlternate graph = asSparseNondet(iterGraph);
+        double[] weights = ValueContentDoubleArray.getContent(graph.getEdgePropertySparseNondet(CommonProperties.WEIGHT).asSparseNondetOnlyNondet().getContent());
+        IterationJavaDouble.mdpScheduler(graphSolverObjectiveUnbounded.isMin(),
+                graph.computeNumStates(), graph.getStateBoundsJava(),
+                graph.getNondetBoundsJava(), graph.getTargetsJava(), weights,
+                values, scheduler);
+    }
+
+    private static boolean isSparseMarkov(GraphExplicit graph) {
+        return graph instanceof GraphExplicitSparse;
+    }
+
+    private static boolean isSparseMDP(GraphExplicit graph) {
+        if (!(graph instanceof GraphExplicitSparseAlternate)) {
+            return false;
+        }
+        Semantics semantics = graph.getGraphPropertyObject(CommonProperties.SEMANTICS);
+        return SemanticsMDP.isMDP(semantics);
+    }
+
+    private static GraphExplicitSparseAlternate asSparseNondet(GraphExplicit graph) {
+        return (GraphExplicitSparseAlternate) graph;
+    }
+
+    private static GraphExplicitSparse asSparseMarkov(GraphExplicit graph) {
+        return (GraphExplicitSparse) graph;
+    }
+}
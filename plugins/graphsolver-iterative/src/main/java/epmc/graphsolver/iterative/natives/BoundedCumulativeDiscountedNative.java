@@ -89,6 +89,9 @@ public final class BoundedCumulativeDiscountedNative implements GraphSolverExpli
     @Override
     public boolean canHandle() {
         assert origGraph != null;
+        if (!IterationNative.isLoaded()) {
+            return false;
+        }
         Semantics semantics = ValueObject.as(origGraph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
         if (!SemanticsCTMC.isCTMC(semantics)
                 && !SemanticsDTMC.isDTMC(semantics)
@@ -35,6 +35,8 @@ import epmc.graph.explicit.GraphExplicitSparse;
 import epmc.graph.explicit.GraphExplicitSparseAlternate;
 import epmc.graphsolver.GraphSolverExplicit;
 import epmc.graphsolver.iterative.OptionsGraphSolverIterative;
+import epmc.graphsolver.iterative.UtilGraphSolverIterative;
+import epmc.graphsolver.iterative.java.IterationJavaDoubleParallel;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicit;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicitBoundedCumulative;
 import epmc.operator.OperatorMultiply;
@@ -56,6 +58,7 @@ import epmc.value.ValueObject;
 import epmc.value.ValueReal;
 
 import static epmc.graphsolver.iterative.UtilGraphSolverIterative.startWithInfoBounded;
+import static epmc.graphsolver.iterative.UtilGraphSolverIterative.startWithInfoBoundedVoid;
 
 import epmc.algorithms.FoxGlynn;
 
@@ -95,6 +98,9 @@ public final class BoundedCumulativeNative implements GraphSolverExplicit {
     @Override
     public boolean canHandle() {
         assert origGraph != null;
+        if (!IterationNative.isLoaded()) {
+            return false;
+        }
         Semantics semantics = ValueObject.as(origGraph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
         if (!SemanticsCTMC.isCTMC(semantics)
                 && !SemanticsDTMC.isDTMC(semantics)
@@ -198,7 +204,10 @@ public final class BoundedCumulativeNative implements GraphSolverExplicit {
         boolean min = objectiveBoundedCumulative.isMin();
         inputValues = UtilValue.newArray(TypeWeight.get().getTypeArray(), iterGraph.computeNumStates());
         Semantics semantics = ValueObject.as(origGraph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
-        if (SemanticsDTMC.isDTMC(semantics)) {
+        int numThreads = UtilGraphSolverIterative.getNumThreads();
+        if (numThreads > 1 && !SemanticsCTMC.isCTMC(semantics)) {
+            boundedCumulativeParallel(time.getInt(), iterGraph, min, inputValues, cumulativeStateRewards, numThreads);
+        } else if (SemanticsDTMC.isDTMC(semantics)) {
             dtmcBoundedCumulativeNative(time.getInt(), asSparseMarkov(iterGraph), inputValues, cumulativeStateRewards);
         } else if (SemanticsCTMC.isCTMC(semantics)) {
             ValueReal precision = UtilValue.newValue(TypeReal.get(), Options.get().getString(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_TOLERANCE));
@@ -239,6 +248,17 @@ public final class BoundedCumulativeNative implements GraphSolverExplicit {
 
     /* implementation/native call of/to iteration algorithms */    
 
+    private static void boundedCumulativeParallel(int bound,
+            GraphExplicit graph, boolean min, Value values, Value cumul,
+            int numThreads) {
+        IterationJavaDoubleParallel iteration = new IterationJavaDoubleParallel(graph, numThreads);
+        iteration.setMin(min);
+        iteration.setCumulative(cumul);
+        startWithInfoBoundedVoid(bound, info -> {
+            iteration.bounded(bound, values, info);
+        });
+    }
+
     private static void dtmcBoundedCumulativeNative(int bound,
             GraphExplicitSparse graph, Value values, Value cumul) {
         int numStates = graph.computeNumStates();
@@ -92,6 +92,9 @@ public final class BoundedNative implements GraphSolverExplicit {
     @Override
     public boolean canHandle() {
         assert origGraph != null;
+        if (!IterationNative.isLoaded()) {
+            return false;
+        }
         Semantics semantics = ValueObject.as(origGraph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
         if (!SemanticsCTMC.isCTMC(semantics)
                 && !SemanticsDTMC.isDTMC(semantics)
@@ -38,6 +38,8 @@ import epmc.graph.explicit.GraphExplicitSparse;
 import epmc.graph.explicit.GraphExplicitSparseAlternate;
 import epmc.graphsolver.GraphSolverExplicit;
 import epmc.graphsolver.iterative.OptionsGraphSolverIterative;
+import epmc.graphsolver.iterative.UtilGraphSolverIterative;
+import epmc.graphsolver.iterative.java.IterationJavaDoubleParallel;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicit;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicitBoundedReachability;
 import epmc.operator.OperatorMultiply;
@@ -61,6 +63,7 @@ import epmc.value.ValueObject;
 import epmc.value.ValueReal;
 
 import static epmc.graphsolver.iterative.UtilGraphSolverIterative.startWithInfoBounded;
+import static epmc.graphsolver.iterative.UtilGraphSolverIterative.startWithInfoBoundedVoid;
 
 // TODO reward-based stuff should be moved to rewards plugin
 
@@ -96,6 +99,9 @@ public final class BoundedReachabilityNative implements GraphSolverExplicit {
     @Override
     public boolean canHandle() {
         assert origGraph != null;
+        if (!IterationNative.isLoaded()) {
+            return false;
+        }
         Semantics semantics = ValueObject.as(origGraph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
         if (!SemanticsCTMC.isCTMC(semantics)
                 && !SemanticsDTMC.isDTMC(semantics)
@@ -202,7 +208,10 @@ public final class BoundedReachabilityNative implements GraphSolverExplicit {
         ValueInteger time = ValueInteger.as(objectiveBoundedReachability.getTime());
         assert time.getInt() >= 0 : time.getInt();
         boolean min = objectiveBoundedReachability.isMin();
-        if (isSparseMarkovNative(iterGraph)) {
+        int numThreads = UtilGraphSolverIterative.getNumThreads();
+        if (numThreads > 1) {
+            boundedParallel(time.getInt(), iterGraph, min, inputValues, numThreads);
+        } else if (isSparseMarkovNative(iterGraph)) {
             dtmcBoundedNative(time.getInt(), asSparseMarkov(iterGraph), inputValues);            
         } else if (isSparseMDPNative(iterGraph)) {
             mdpBoundedNative(time.getInt(), asSparseNondet(iterGraph), min, inputValues);                        
@@ -280,6 +289,15 @@ public final class BoundedReachabilityNative implements GraphSolverExplicit {
         assert code == IterationNative.EPMC_ERROR_SUCCESS;
     }
 
+    private static void boundedParallel(int bound, GraphExplicit graph,
+            boolean min, Value values, int numThreads) {
+        IterationJavaDoubleParallel iteration = new IterationJavaDoubleParallel(graph, numThreads);
+        iteration.setMin(min);
+        startWithInfoBoundedVoid(bound, info -> {
+            iteration.bounded(bound, values, info);
+        });
+    }
+
     private static void dtmcBoundedNative(int bound,
             GraphExplicitSparse graph, Value values) {
         int numStates = graph.computeNumStates();
@@ -114,6 +114,10 @@ final class IterationNative {
     private final static boolean loaded =
             JNATools.registerLibrary(IterationNative.class, "valueiteration");
 
+    static boolean isLoaded() {
+        return loaded;
+    }
+
     final static int EPMC_ERROR_SUCCESS = 0;
     final static int EPMC_ERROR_OUT_OF_MEMORY = 1;
 }
@@ -39,10 +39,14 @@ import epmc.graph.explicit.GraphExplicitSparse;
 import epmc.graph.explicit.GraphExplicitSparseAlternate;
 import epmc.graph.explicit.NodeProperty;
 import epmc.graphsolver.GraphSolverExplicit;
+import epmc.graphsolver.iterative.IterationGraphCache;
 import epmc.graphsolver.iterative.IterationMethod;
 import epmc.graphsolver.iterative.IterationStopCriterion;
 import epmc.graphsolver.iterative.MessagesGraphSolverIterative;
 import epmc.graphsolver.iterative.OptionsGraphSolverIterative;
+import epmc.graphsolver.iterative.UtilGraphSolverIterative;
+import epmc.graphsolver.iterative.java.IterationJavaDoubleInterval;
+import epmc.graphsolver.iterative.java.IterationJavaDoubleParallel;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicit;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicitUnboundedCumulative;
 import epmc.messages.OptionsMessages;
@@ -69,6 +73,7 @@ import epmc.value.ValueContentDoubleArray;
 import epmc.value.ValueObject;
 
 import static epmc.graphsolver.iterative.UtilGraphSolverIterative.startWithInfoUnbounded;
+import static epmc.graphsolver.iterative.UtilGraphSolverIterative.startWithInfoUnboundedVoid;
 
 // TODO reward-based stuff should be moved to rewards plugin
 
@@ -104,6 +109,9 @@ public final class UnboundedCumulativeNative implements GraphSolverExplicit {
     @Override
     public boolean canHandle() {
         assert origGraph != null;
+        if (!IterationNative.isLoaded()) {
+            return false;
+        }
         Semantics semantics = ValueObject.as(origGraph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
         if (!SemanticsCTMC.isCTMC(semantics)
                 && !SemanticsDTMC.isDTMC(semantics)
@@ -134,23 +142,19 @@ public final class UnboundedCumulativeNative implements GraphSolverExplicit {
         assert origGraph != null;
         Semantics semanticsType = ValueObject.as(origGraph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
         boolean embed = SemanticsContinuousTime.isContinuousTime(semanticsType) && (objective instanceof GraphSolverObjectiveExplicitUnboundedCumulative);
-        this.builder = new GraphBuilderExplicit();
-        builder.setInputGraph(origGraph);
-        builder.addDerivedGraphProperties(origGraph.getGraphProperties());
-        builder.addDerivedNodeProperties(origGraph.getNodeProperties());
-        builder.addDerivedEdgeProperties(origGraph.getEdgeProperties());
         List<BitSet> sinks = null;
         if (objective instanceof GraphSolverObjectiveExplicitUnboundedCumulative) {
             GraphSolverObjectiveExplicitUnboundedCumulative objectiveUnboundedCumulative = (GraphSolverObjectiveExplicitUnboundedCumulative) objective;
             sinks = objectiveUnboundedCumulative.getSinks();
         }
-
-        if (sinks != null) {
-            builder.addSinks(sinks);
+        /* rewards are fixed using the graph before embedding, so the
+         * embedded graph is constructed here rather than taken from the
+         * cache */
+        if (embed) {
+            this.builder = IterationGraphCache.build(origGraph, sinks, false, false);
+        } else {
+            this.builder = UtilGraphSolverIterative.buildIterationGraph(origGraph, sinks, false, false);
         }
-        builder.setUniformise(false);
-        builder.setReorder();
-        builder.build();
         this.iterGraph = builder.getOutputGraph();
         assert iterGraph != null;
 
@@ -236,7 +240,7 @@ public final class UnboundedCumulativeNative implements GraphSolverExplicit {
 
     private void unboundedCumulative() {
         Options options = Options.get();
-        IterationMethod iterMethod = options.getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD);
+        IterationMethod iterMethod = UtilGraphSolverIterative.getStationaryIterationMethod();
         IterationStopCriterion stopCriterion = options.getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_STOP_CRITERION);
         Log log = options.get(OptionsMessages.LOG);
         StopWatch timer = new StopWatch(true);
@@ -246,7 +250,21 @@ public final class UnboundedCumulativeNative implements GraphSolverExplicit {
         inputValues = UtilValue.newArray(TypeWeight.get().getTypeArray(), iterGraph.computeNumStates());
         boolean min = graphSolverObjectiveUnbounded.isMin();
         double precision = options.getDouble(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_TOLERANCE);
-        if (isSparseMarkovNative(iterGraph) && iterMethod == IterationMethod.JACOBI) {
+        int numThreads = UtilGraphSolverIterative.getNumThreads();
+        if (stopCriterion == IterationStopCriterion.INTERVAL) {
+            log.send(MessagesGraphSolverIterative.STOP_CRITERION_UNSUPPORTED,
+                    IDENTIFIER, stopCriterion, IterationStopCriterion.OPTIMISTIC);
+        }
+        if (stopCriterion != IterationStopCriterion.INTERVAL
+                && stopCriterion != IterationStopCriterion.OPTIMISTIC) {
+            UtilGraphSolverIterative.applyInitialValues(objective, builder, inputValues, graphSolverObjectiveUnbounded.getSinks());
+        }
+        if (stopCriterion == IterationStopCriterion.INTERVAL
+                || stopCriterion == IterationStopCriterion.OPTIMISTIC) {
+            unboundedCumulativeOptimistic(iterGraph, min, inputValues, precision, cumulativeStateRewards, numIterations);
+        } else if (numThreads > 1 && iterMethod == IterationMethod.JACOBI) {
+            unboundedCumulativeJacobiParallel(iterGraph, min, inputValues, stopCriterion, precision, cumulativeStateRewards, numIterations, numThreads);
+        } else if (isSparseMarkovNative(iterGraph) && iterMethod == IterationMethod.JACOBI) {
             dtmcUnboundedCumulativeJacobiNative(asSparseMarkov(iterGraph), inputValues, stopCriterion, precision, cumulativeStateRewards, numIterations);
         } else if (isSparseMarkovNative(iterGraph) && iterMethod == IterationMethod.GAUSS_SEIDEL) {
             dtmcUnboundedCumulativeGaussseidelNative(asSparseMarkov(iterGraph), inputValues, stopCriterion, precision, cumulativeStateRewards, numIterations);
@@ -300,6 +318,33 @@ public final class UnboundedCumulativeNative implements GraphSolverExplicit {
 
     /* implementation/native call of/to iteration algorithms */    
 
+    private static void unboundedCumulativeJacobiParallel(GraphExplicit graph,
+            boolean min, Value values, IterationStopCriterion stopCriterion,
+            double tolerance, Value cumul, int[] numIterations, int numThreads) {
+        IterationJavaDoubleParallel iteration = new IterationJavaDoubleParallel(graph, numThreads);
+        iteration.setMin(min);
+        iteration.setCumulative(cumul);
+        startWithInfoUnboundedVoid(info -> {
+            iteration.unbounded(stopCriterion, tolerance, values, numIterations, info);
+        });
+    }
+
+    /**
+     * Compute cumulative rewards using optimistic value iteration.
+     * Interval iteration would require a priori upper bounds on the
+     * rewards, so that it is replaced by optimistic value iteration.
+     */
+    private static void unboundedCumulativeOptimistic(GraphExplicit graph,
+            boolean min, Value values, double tolerance, Value cumul,
+            int[] numIterations) {
+        IterationJavaDoubleInterval iteration = new IterationJavaDoubleInterval(graph);
+        iteration.setMin(min);
+        iteration.setCumulative(cumul);
+        startWithInfoUnboundedVoid(info -> {
+            iteration.optimistic(tolerance, values, numIterations, info);
+        });
+    }
+
     private static void dtmcUnboundedCumulativeJacobiNative(GraphExplicitSparse graph,
             Value values,
             IterationStopCriterion stopCriterion, double tolerance, Value cumul, int[] numIterations)
@@ -34,9 +34,11 @@ import epmc.graph.explicit.GraphExplicitModifier;
 import epmc.graph.explicit.GraphExplicitSparse;
 import epmc.graph.explicit.GraphExplicitSparseAlternate;
 import epmc.graphsolver.GraphSolverExplicit;
+import epmc.graphsolver.iterative.IterationMethod;
 import epmc.graphsolver.iterative.IterationStopCriterion;
 import epmc.graphsolver.iterative.MessagesGraphSolverIterative;
 import epmc.graphsolver.iterative.OptionsGraphSolverIterative;
+import epmc.graphsolver.iterative.UtilGraphSolverIterative;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicit;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicitSteadyState;
 import epmc.messages.OptionsMessages;
@@ -94,6 +96,9 @@ public final class UnboundedLRANative implements GraphSolverExplicit {
     @Override
     public boolean canHandle() {
         assert origGraph != null;
+        if (!IterationNative.isLoaded()) {
+            return false;
+        }
         Semantics semantics = ValueObject.as(origGraph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
         if (!SemanticsCTMC.isCTMC(semantics)
                 && !SemanticsDTMC.isDTMC(semantics)) {
@@ -103,6 +108,10 @@ public final class UnboundedLRANative implements GraphSolverExplicit {
         if (!(objective instanceof GraphSolverObjectiveExplicitSteadyState)) {
             return false;
         }
+        IterationMethod iterMethod = Options.get().getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD);
+        if (iterMethod.isKrylov()) {
+            return false;
+        }
         if (!TypeDouble.is(TypeWeightTransition.get())) {
             return false;
         }
@@ -204,7 +213,7 @@ public final class UnboundedLRANative implements GraphSolverExplicit {
     private void unboundedCumulative() {
         Options options = Options.get();
 //        IterationMethod iterMethod = options.getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD);
-        IterationStopCriterion stopCriterion = options.getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_STOP_CRITERION);
+        IterationStopCriterion stopCriterion = UtilGraphSolverIterative.getDifferenceStopCriterion(IDENTIFIER);
         Log log = options.get(OptionsMessages.LOG);
         StopWatch timer = new StopWatch(true);
         log.send(MessagesGraphSolverIterative.ITERATING);
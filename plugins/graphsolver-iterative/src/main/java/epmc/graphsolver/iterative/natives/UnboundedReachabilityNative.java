@@ -32,7 +32,6 @@ import epmc.graph.SemanticsContinuousTime;
 import epmc.graph.SemanticsDTMC;
 import epmc.graph.SemanticsMDP;
 import epmc.graph.explicit.GraphExplicit;
-import epmc.graph.explicit.GraphExplicitModifier;
 import epmc.graph.explicit.GraphExplicitSparse;
 import epmc.graph.explicit.GraphExplicitSparseAlternate;
 import epmc.graphsolver.GraphSolverExplicit;
@@ -40,6 +39,8 @@ import epmc.graphsolver.iterative.IterationMethod;
 import epmc.graphsolver.iterative.IterationStopCriterion;
 import epmc.graphsolver.iterative.MessagesGraphSolverIterative;
 import epmc.graphsolver.iterative.OptionsGraphSolverIterative;
+import epmc.graphsolver.iterative.UtilGraphSolverIterative;
+import epmc.graphsolver.iterative.java.IterationJavaDoubleParallel;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicit;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicitUnboundedReachability;
 import epmc.messages.OptionsMessages;
@@ -59,6 +60,7 @@ import epmc.value.ValueContentDoubleArray;
 import epmc.value.ValueObject;
 
 import static epmc.graphsolver.iterative.UtilGraphSolverIterative.startWithInfoUnbounded;
+import static epmc.graphsolver.iterative.UtilGraphSolverIterative.startWithInfoUnboundedVoid;
 
 // TODO reward-based stuff should be moved to rewards plugin
 
@@ -93,6 +95,9 @@ public final class UnboundedReachabilityNative implements GraphSolverExplicit {
     @Override
     public boolean canHandle() {
         assert origGraph != null;
+        if (!IterationNative.isLoaded()) {
+            return false;
+        }
         Semantics semantics = ValueObject.as(origGraph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
         if (!SemanticsCTMC.isCTMC(semantics)
                 && !SemanticsDTMC.isDTMC(semantics)
@@ -102,6 +107,22 @@ public final class UnboundedReachabilityNative implements GraphSolverExplicit {
         if (!(objective instanceof GraphSolverObjectiveExplicitUnboundedReachability)) {
             return false;
         }
+        if (SemanticsMDP.isMDP(semantics)
+                && ((GraphSolverObjectiveExplicitUnboundedReachability) objective).isComputeScheduler()) {
+            return false;
+        }
+        if (Options.get().getBoolean(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_TOPOLOGICAL)) {
+            return false;
+        }
+        IterationMethod iterMethod = Options.get().getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD);
+        if (!SemanticsMDP.isMDP(semantics) && iterMethod.isKrylov()) {
+            return false;
+        }
+        IterationStopCriterion stopCriterion = Options.get().getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_STOP_CRITERION);
+        if (stopCriterion == IterationStopCriterion.INTERVAL
+                || stopCriterion == IterationStopCriterion.OPTIMISTIC) {
+            return false;
+        }
         if (!TypeDouble.is(TypeWeight.get())) {
             return false;
         }
@@ -119,30 +140,15 @@ public final class UnboundedReachabilityNative implements GraphSolverExplicit {
         assert origGraph != null;
         Semantics semanticsType = ValueObject.as(origGraph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
         boolean embed = SemanticsContinuousTime.isContinuousTime(semanticsType) && (objective instanceof GraphSolverObjectiveExplicitUnboundedReachability);
-        this.builder = new GraphBuilderExplicit();
-        builder.setInputGraph(origGraph);
-        builder.addDerivedGraphProperties(origGraph.getGraphProperties());
-        builder.addDerivedNodeProperties(origGraph.getNodeProperties());
-        builder.addDerivedEdgeProperties(origGraph.getEdgeProperties());
-        List<BitSet> sinks = null;
-        sinks = new ArrayList<>();
+        List<BitSet> sinks = new ArrayList<>();
         GraphSolverObjectiveExplicitUnboundedReachability unbounded = (GraphSolverObjectiveExplicitUnboundedReachability) objective;
         if (unbounded.getZeroSet() != null) {
             sinks.add(unbounded.getZeroSet());
         }
         sinks.add(unbounded.getTarget());
-
-        if (sinks != null) {
-            builder.addSinks(sinks);
-        }
-        builder.setUniformise(false);
-        builder.setReorder();
-        builder.build();
+        this.builder = UtilGraphSolverIterative.buildIterationGraph(origGraph, sinks, false, embed);
         this.iterGraph = builder.getOutputGraph();
         assert iterGraph != null;
-        if (embed) {
-            GraphExplicitModifier.embed(iterGraph);
-        }
         BitSet targets = null;
         if (objective instanceof GraphSolverObjectiveExplicitUnboundedReachability) {
             GraphSolverObjectiveExplicitUnboundedReachability objectiveUnboundedReachability = (GraphSolverObjectiveExplicitUnboundedReachability) objective;
@@ -160,6 +166,7 @@ public final class UnboundedReachabilityNative implements GraphSolverExplicit {
                 }
                 this.inputValues.set(targets.get(origNode) ? 1 : 0, iterNode);
             }
+            UtilGraphSolverIterative.applyInitialValues(objective, builder, inputValues, sinks);
         }
     }
 
@@ -186,13 +193,16 @@ public final class UnboundedReachabilityNative implements GraphSolverExplicit {
         Log log = options.get(OptionsMessages.LOG);
         StopWatch timer = new StopWatch(true);
         log.send(MessagesGraphSolverIterative.ITERATING);
-        IterationMethod iterMethod = options.getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD);
+        IterationMethod iterMethod = UtilGraphSolverIterative.getStationaryIterationMethod();
         IterationStopCriterion stopCriterion = options.getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_STOP_CRITERION);
         int[] numIterations = new int[1];
         GraphSolverObjectiveExplicitUnboundedReachability graphSolverObjectiveUnbounded = (GraphSolverObjectiveExplicitUnboundedReachability) objective;
         boolean min = graphSolverObjectiveUnbounded.isMin();
         double precision = options.getDouble(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_TOLERANCE);
-        if (isSparseMarkovNative(iterGraph) && iterMethod == IterationMethod.JACOBI) {
+        int numThreads = UtilGraphSolverIterative.getNumThreads();
+        if (numThreads > 1 && iterMethod == IterationMethod.JACOBI) {
+            unboundedJacobiParallel(iterGraph, min, inputValues, stopCriterion, precision, numIterations, numThreads);
+        } else if (isSparseMarkovNative(iterGraph) && iterMethod == IterationMethod.JACOBI) {
             dtmcUnboundedJacobiNative(asSparseMarkov(iterGraph), inputValues, stopCriterion, precision, numIterations);
         } else if (isSparseMarkovNative(iterGraph) && iterMethod == IterationMethod.GAUSS_SEIDEL) {
             dtmcUnboundedGaussseidelNative(asSparseMarkov(iterGraph), inputValues, stopCriterion, precision, numIterations);
@@ -245,6 +255,16 @@ public final class UnboundedReachabilityNative implements GraphSolverExplicit {
 
     /* implementation/native call of/to iteration algorithms */    
 
+    private static void unboundedJacobiParallel(GraphExplicit graph,
+            boolean min, Value values, IterationStopCriterion stopCriterion,
+            double tolerance, int[] numIterations, int numThreads) {
+        IterationJavaDoubleParallel iteration = new IterationJavaDoubleParallel(graph, numThreads);
+        iteration.setMin(min);
+        startWithInfoUnboundedVoid(info -> {
+            iteration.unbounded(stopCriterion, tolerance, values, numIterations, info);
+        });
+    }
+
     private static void dtmcUnboundedJacobiNative(GraphExplicitSparse graph,
             Value values,
             IterationStopCriterion stopCriterion, double tolerance, int[] numIterations) {
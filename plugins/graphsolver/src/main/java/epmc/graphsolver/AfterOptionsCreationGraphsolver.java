@@ -99,6 +99,13 @@ public final class AfterOptionsCreationGraphsolver implements AfterOptionsCreati
         .setCommandLine().setGui().setWeb()
         .setCategory(category)
         .build();
+
+        options.addOption().setBundleName(OptionsGraphsolver.OPTIONS_GRAPHSOLVER)
+        .setIdentifier(OptionsGraphsolver.GRAPHSOLVER_WARM_START)
+        .setType(typeBoolean).setDefault(true)
+        .setCommandLine().setGui().setWeb()
+        .setCategory(category).build();
+        options.set(OptionsGraphsolver.GRAPHSOLVER_SOLUTION_CACHE, new SolutionCacheExplicit());
     }
 
 }
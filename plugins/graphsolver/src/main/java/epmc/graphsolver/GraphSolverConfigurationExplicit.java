@@ -55,6 +55,10 @@ public final class GraphSolverConfigurationExplicit {
 
     public void solve() {
         preprocess();
+        SolutionCacheExplicit cache = getSolutionCache();
+        if (cache != null) {
+            cache.prepare(this.objective);
+        }
         LumperExplicit lumper = getLumperExplicit();
         GraphSolverObjectiveExplicit objective;
         if (lumper != null) {
@@ -67,6 +71,16 @@ public final class GraphSolverConfigurationExplicit {
         if (lumper != null) {
             lumper.quotientToOriginal();
         }
+        if (cache != null) {
+            cache.store(this.objective);
+        }
+    }
+
+    private SolutionCacheExplicit getSolutionCache() {
+        if (!Options.get().getBoolean(OptionsGraphsolver.GRAPHSOLVER_WARM_START)) {
+            return null;
+        }
+        return Options.get().get(OptionsGraphsolver.GRAPHSOLVER_SOLUTION_CACHE);
     }
 
     private LumperExplicit getLumperExplicit() {
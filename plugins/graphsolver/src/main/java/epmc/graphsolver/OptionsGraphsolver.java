@@ -43,4 +43,9 @@ public enum OptionsGraphsolver {
     GRAPHSOLVER_DD_LUMPER_CLASS,
     
     GRAPHSOLVER_UPDATE_DELAY,
+
+    /** whether to start graph solvers from solutions of previous objectives */
+    GRAPHSOLVER_WARM_START,
+    /** {@link SolutionCacheExplicit} storing solutions for warm starts */
+    GRAPHSOLVER_SOLUTION_CACHE,
 }
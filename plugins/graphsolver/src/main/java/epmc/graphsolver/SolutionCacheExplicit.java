@@ -0,0 +1,238 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graphsolver;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import epmc.graph.explicit.GraphExplicit;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicit;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicitUnboundedCumulative;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicitUnboundedReachability;
+import epmc.operator.OperatorEq;
+import epmc.util.BitSet;
+import epmc.value.ContextValue;
+import epmc.value.OperatorEvaluator;
+import epmc.value.TypeBoolean;
+import epmc.value.UtilValue;
+import epmc.value.Value;
+import epmc.value.ValueArray;
+import epmc.value.ValueBoolean;
+
+/**
+ * Cache of solutions of previously solved graph solver objectives.
+ * Solutions are stored per graph and objective class, so that later
+ * objectives on the same graph can start from the previous solution rather
+ * than from scratch. Graphs are referenced weakly, such that cached
+ * solutions are freed together with the graph they belong to. For each
+ * graph and objective class, only the most recent solution is kept.
+ * A solution is only used as initial values if it is a lower bound of the
+ * solution of the new objective, as value iteration might otherwise
+ * converge to a wrong fixed point. This is the case if sinks, targets,
+ * and rewards are the same, and if the previous objective was a minimising
+ * one or the new objective is a maximising one. The cache is stored in the
+ * options, but its content is not serialised with them.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class SolutionCacheExplicit implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final static class Entry {
+        private boolean min;
+        private BitSet target;
+        private BitSet zeroSet;
+        private List<BitSet> sinks;
+        private ValueArray stateRewards;
+        private ValueArray solution;
+    }
+
+    private transient Map<GraphExplicit,Map<Class<?>,Entry>> entries;
+
+    /**
+     * Set initial values of objective from a previous solution.
+     * Nothing is done if the objective already has initial values, if it
+     * is of a class not supported by the cache, or if there is no suitable
+     * previous solution.
+     * 
+     * @param objective objective to set initial values of
+     */
+    public void prepare(GraphSolverObjectiveExplicit objective) {
+        assert objective != null;
+        if (objective.getInitialValues() != null) {
+            return;
+        }
+        Entry entry = getEntry(objective);
+        if (entry == null) {
+            return;
+        }
+        if (objective instanceof GraphSolverObjectiveExplicitUnboundedReachability) {
+            GraphSolverObjectiveExplicitUnboundedReachability reachability = (GraphSolverObjectiveExplicitUnboundedReachability) objective;
+            if ((entry.min || !reachability.isMin())
+                    && equals(entry.target, reachability.getTarget())
+                    && equals(entry.zeroSet, reachability.getZeroSet())) {
+                reachability.setInitialValues(entry.solution);
+            }
+        } else if (objective instanceof GraphSolverObjectiveExplicitUnboundedCumulative) {
+            GraphSolverObjectiveExplicitUnboundedCumulative cumulative = (GraphSolverObjectiveExplicitUnboundedCumulative) objective;
+            if ((entry.min || !cumulative.isMin())
+                    && equals(entry.sinks, cumulative.getSinks())
+                    && equals(entry.stateRewards, cumulative.getStateRewards())) {
+                cumulative.setInitialValues(entry.solution);
+            }
+        }
+    }
+
+    /**
+     * Store the solution of a solved objective.
+     * Solutions of objectives of classes not supported by the cache are
+     * ignored. The solution is copied, such that later changes of the
+     * result of the objective do not affect the cache.
+     * 
+     * @param objective solved objective
+     */
+    public void store(GraphSolverObjectiveExplicit objective) {
+        assert objective != null;
+        if (objective.getResult() == null || objective.getGraph() == null) {
+            return;
+        }
+        Entry entry = new Entry();
+        if (objective instanceof GraphSolverObjectiveExplicitUnboundedReachability) {
+            GraphSolverObjectiveExplicitUnboundedReachability reachability = (GraphSolverObjectiveExplicitUnboundedReachability) objective;
+            entry.min = reachability.isMin();
+            entry.target = copy(reachability.getTarget());
+            entry.zeroSet = copy(reachability.getZeroSet());
+        } else if (objective instanceof GraphSolverObjectiveExplicitUnboundedCumulative) {
+            GraphSolverObjectiveExplicitUnboundedCumulative cumulative = (GraphSolverObjectiveExplicitUnboundedCumulative) objective;
+            entry.min = cumulative.isMin();
+            entry.sinks = copy(cumulative.getSinks());
+            entry.stateRewards = copy(cumulative.getStateRewards());
+        } else {
+            return;
+        }
+        entry.solution = copy(objective.getResult());
+        getEntries().computeIfAbsent(objective.getGraph(), g -> new HashMap<>())
+        .put(objective.getClass(), entry);
+    }
+
+    /**
+     * Remove all cached solutions.
+     */
+    public void clear() {
+        getEntries().clear();
+    }
+
+    private Map<GraphExplicit,Map<Class<?>,Entry>> getEntries() {
+        if (entries == null) {
+            entries = new WeakHashMap<>();
+        }
+        return entries;
+    }
+
+    private Entry getEntry(GraphSolverObjectiveExplicit objective) {
+        Map<Class<?>,Entry> graphEntries = getEntries().get(objective.getGraph());
+        if (graphEntries == null) {
+            return null;
+        }
+        return graphEntries.get(objective.getClass());
+    }
+
+    private static BitSet copy(BitSet bitSet) {
+        return bitSet == null ? null : bitSet.clone();
+    }
+
+    private static List<BitSet> copy(List<BitSet> bitSets) {
+        if (bitSets == null) {
+            return null;
+        }
+        List<BitSet> result = new ArrayList<>();
+        for (BitSet bitSet : bitSets) {
+            result.add(copy(bitSet));
+        }
+        return result;
+    }
+
+    private static ValueArray copy(ValueArray array) {
+        if (array == null) {
+            return null;
+        }
+        ValueArray result = UtilValue.newArray(array.getType(), array.size());
+        Value entry = array.getType().getEntryType().newValue();
+        for (int index = 0; index < array.size(); index++) {
+            array.get(entry, index);
+            result.set(entry, index);
+        }
+        return result;
+    }
+
+    private static boolean equals(BitSet bitSet1, BitSet bitSet2) {
+        if (bitSet1 == null || bitSet2 == null) {
+            return bitSet1 == bitSet2;
+        }
+        return bitSet1.equals(bitSet2);
+    }
+
+    private static boolean equals(List<BitSet> bitSets1, List<BitSet> bitSets2) {
+        if (bitSets1 == null || bitSets2 == null) {
+            return bitSets1 == bitSets2;
+        }
+        if (bitSets1.size() != bitSets2.size()) {
+            return false;
+        }
+        for (int index = 0; index < bitSets1.size(); index++) {
+            if (!equals(bitSets1.get(index), bitSets2.get(index))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equals(ValueArray array1, ValueArray array2) {
+        if (array1 == null || array2 == null) {
+            return array1 == array2;
+        }
+        if (array1.size() != array2.size()
+                || !array1.getType().getEntryType().equals(array2.getType().getEntryType())) {
+            return false;
+        }
+        OperatorEvaluator eq = ContextValue.get().getEvaluatorOrNull(OperatorEq.EQ,
+                array1.getType().getEntryType(), array2.getType().getEntryType());
+        if (eq == null) {
+            return false;
+        }
+        Value entry1 = array1.getType().getEntryType().newValue();
+        Value entry2 = array2.getType().getEntryType().newValue();
+        ValueBoolean cmp = TypeBoolean.get().newValue();
+        for (int index = 0; index < array1.size(); index++) {
+            array1.get(entry1, index);
+            array2.get(entry2, index);
+            eq.apply(cmp, entry1, entry2);
+            if (!cmp.getBoolean()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -36,4 +36,8 @@ public interface GraphSolverObjectiveExplicit {
     default BitSet getComputeFor() {
         return null;
     }
+
+    default ValueArray getInitialValues() {
+        return null;
+    }
 }
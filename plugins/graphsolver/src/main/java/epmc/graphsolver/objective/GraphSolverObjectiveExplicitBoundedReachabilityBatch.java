@@ -0,0 +1,128 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graphsolver.objective;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import epmc.graph.explicit.GraphExplicit;
+import epmc.util.BitSet;
+import epmc.value.Value;
+import epmc.value.ValueArray;
+import epmc.value.ValueArrayAlgebra;
+
+/**
+ * Bounded reachability for a list of time or step bounds.
+ * Compared to solving one {@link GraphSolverObjectiveExplicitBoundedReachability}
+ * per bound, this objective allows graph solvers to compute the results for
+ * all bounds at once, using a single iteration up to the largest bound. The
+ * bounds can be given in any order. There is one result per bound, in the
+ * order of the bounds. The result provided by {@link #getResult()} is the
+ * one for the last bound of the list, while {@link #setResult(ValueArray)}
+ * may only be used if there is a single bound.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class GraphSolverObjectiveExplicitBoundedReachabilityBatch implements GraphSolverObjectiveExplicit {
+    private GraphExplicit graph;
+    private boolean min;
+    private BitSet targets;
+    private List<Value> times;
+    private List<ValueArrayAlgebra> results;
+    private BitSet zeroSet;
+
+    @Override
+    public void setGraph(GraphExplicit graph) {
+        this.graph = graph;
+    }
+
+    @Override
+    public GraphExplicit getGraph() {
+        return graph;
+    }
+
+    public void setMin(boolean min) {
+        this.min = min;
+    }
+
+    public boolean isMin() {
+        return min;
+    }
+
+    public void setTargets(BitSet targets) {
+        this.targets = targets;
+    }
+
+    public BitSet getTarget() {
+        return targets;
+    }
+
+    public void setTimes(List<Value> times) {
+        this.times = times;
+    }
+
+    public List<Value> getTimes() {
+        return times;
+    }
+
+    public void setResults(List<? extends ValueArray> results) {
+        this.results = new ArrayList<>();
+        for (ValueArray result : results) {
+            this.results.add(ValueArrayAlgebra.as(result));
+        }
+    }
+
+    public List<ValueArrayAlgebra> getResults() {
+        return results;
+    }
+
+    /**
+     * Set the result of an objective with a single bound.
+     * As there is one result per bound, the results of objectives with
+     * several bounds must be set using {@link #setResults(List)} instead.
+     * 
+     * @param result result for the only bound
+     */
+    @Override
+    public void setResult(ValueArray result) {
+        assert times != null;
+        assert times.size() == 1 : times.size();
+        assert result != null;
+        results = new ArrayList<>();
+        results.add(ValueArrayAlgebra.as(result));
+    }
+
+    @Override
+    public ValueArrayAlgebra getResult() {
+        if (results == null || results.isEmpty()) {
+            return null;
+        }
+        return results.get(results.size() - 1);
+    }
+
+    public void setZeroSink(BitSet zeroSet) {
+        this.zeroSet = zeroSet;
+    }
+
+    public BitSet getZeroSet() {
+        return zeroSet;
+    }
+}
@@ -22,6 +22,7 @@ package epmc.graphsolver.objective;
 
 import java.util.List;
 
+import epmc.graph.Scheduler;
 import epmc.graph.explicit.GraphExplicit;
 import epmc.util.BitSet;
 import epmc.value.Value;
@@ -37,6 +38,8 @@ public final class GraphSolverObjectiveExplicitUnboundedCumulative implements Gr
     private ValueArrayAlgebra stateRewards;
     private ValueArrayAlgebra result;
     private BitSet computeFor;
+    private Scheduler scheduler;
+    private ValueArray initialValues;
 
     @Override
     public void setGraph(GraphExplicit graph) {
@@ -98,6 +101,14 @@ public final class GraphSolverObjectiveExplicitUnboundedCumulative implements Gr
         return result;
     }
 
+    public void setScheduler(Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public Scheduler getScheduler() {
+        return scheduler;
+    }
+
     public void setComputeFor(BitSet computeFor) {
         this.computeFor = computeFor;
     }
@@ -106,4 +117,13 @@ public final class GraphSolverObjectiveExplicitUnboundedCumulative implements Gr
     public BitSet getComputeFor() {
         return computeFor;
     }
+
+    public void setInitialValues(ValueArray initialValues) {
+        this.initialValues = initialValues;
+    }
+
+    @Override
+    public ValueArray getInitialValues() {
+        return initialValues;
+    }
 }
@@ -34,6 +34,8 @@ public final class GraphSolverObjectiveExplicitUnboundedReachability implements
     private ValueArrayAlgebra result;
     private BitSet zeroSet;
     private BitSet computeFor;
+    private Scheduler scheduler;
+    private ValueArray initialValues;
 
     @Override
     public void setGraph(GraphExplicit graph) {
@@ -79,9 +81,12 @@ public final class GraphSolverObjectiveExplicitUnboundedReachability implements
         return result;
     }
 
-    public void setScheduler(Scheduler computeScheduler2) {
-        // TODO Auto-generated method stub
+    public void setScheduler(Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
 
+    public Scheduler getScheduler() {
+        return scheduler;
     }
 
     public void setZeroSink(BitSet zeroSet) {
@@ -99,4 +104,13 @@ public final class GraphSolverObjectiveExplicitUnboundedReachability implements
     public BitSet getComputeFor() {
         return computeFor;
     }
+
+    public void setInitialValues(ValueArray initialValues) {
+        this.initialValues = initialValues;
+    }
+
+    @Override
+    public ValueArray getInitialValues() {
+        return initialValues;
+    }
 }
@@ -11,6 +11,7 @@ import epmc.graph.explicit.GraphExplicitSparseAlternate.EdgePropertySparseNondet
 import epmc.graphsolver.GraphSolverExplicit;
 import epmc.graphsolver.iterative.IterationMethod;
 import epmc.graphsolver.iterative.OptionsGraphSolverIterative;
+import epmc.graphsolver.iterative.UtilGraphSolverIterative;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicit;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicitBoundedReachability;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicitUnboundedReachability;
@@ -155,7 +156,7 @@ public final class GraphSolverExplicitIMDPReachabilityJavaDouble implements Grap
     }
 
     private ValueArrayAlgebra unbounded(IterateProblem problem) {
-        IterationMethod iterMethod = Options.get().get(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD);
+        IterationMethod iterMethod = UtilGraphSolverIterative.getStationaryIterationMethod();
         switch (iterMethod) {
         case JACOBI:
             return unboundedJacobi(problem);
@@ -171,7 +172,7 @@ public final class GraphSolverExplicitIMDPReachabilityJavaDouble implements Grap
         StopWatch time = new StopWatch(true);
         getLog().send(MessagesIMDPGraphsolver.IMDP_GRAPHSOLVER_ITER_START,
                 getIterationMethod());
-        Diff diffOp = UtilIMDPGraphSolver.getDiff();
+        Diff diffOp = UtilIMDPGraphSolver.getDiff(UtilGraphSolverIterative.getDifferenceStopCriterion(IDENTIFIER));
         double precision = getTolerance();
         long numIterations = 0;
         double diff = Double.POSITIVE_INFINITY;
@@ -217,7 +218,7 @@ public final class GraphSolverExplicitIMDPReachabilityJavaDouble implements Grap
         getLog().send(MessagesIMDPGraphsolver.IMDP_GRAPHSOLVER_ITER_START,
                 getIterationMethod());
         StopWatch time = new StopWatch(true);
-        Diff diffOp = UtilIMDPGraphSolver.getDiff();
+        Diff diffOp = UtilIMDPGraphSolver.getDiff(UtilGraphSolverIterative.getDifferenceStopCriterion(IDENTIFIER));
         double precision = getTolerance();
         long numIterations = 0;
         double diff = Double.POSITIVE_INFINITY;
@@ -329,7 +330,7 @@ public final class GraphSolverExplicitIMDPReachabilityJavaDouble implements Grap
     }
 
     private IterationMethod getIterationMethod() {
-        return Options.get().get(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD);
+        return UtilGraphSolverIterative.getStationaryIterationMethod();
     }
 
     private double getTolerance() {
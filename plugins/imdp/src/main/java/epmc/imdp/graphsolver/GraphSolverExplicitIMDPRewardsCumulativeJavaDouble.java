@@ -12,6 +12,7 @@ import epmc.graphsolver.GraphSolverExplicit;
 import epmc.graphsolver.OptionsGraphsolver;
 import epmc.graphsolver.iterative.IterationMethod;
 import epmc.graphsolver.iterative.OptionsGraphSolverIterative;
+import epmc.graphsolver.iterative.UtilGraphSolverIterative;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicit;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicitBoundedCumulative;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicitBoundedReachability;
@@ -123,7 +124,7 @@ public final class GraphSolverExplicitIMDPRewardsCumulativeJavaDouble implements
     }
 
     private ValueArrayAlgebra unbounded(IterateProblem problem) {
-        IterationMethod iterMethod = Options.get().get(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD);
+        IterationMethod iterMethod = UtilGraphSolverIterative.getStationaryIterationMethod();
         switch (iterMethod) {
         case JACOBI:
             return startWithInfo(info -> unboundedJacobi(info, problem));
@@ -139,7 +140,7 @@ public final class GraphSolverExplicitIMDPRewardsCumulativeJavaDouble implements
         StopWatch time = new StopWatch(true);
         getLog().send(MessagesIMDPGraphsolver.IMDP_GRAPHSOLVER_ITER_START,
                 getIterationMethod());
-        Diff diffOp = UtilIMDPGraphSolver.getDiff();
+        Diff diffOp = UtilIMDPGraphSolver.getDiff(UtilGraphSolverIterative.getDifferenceStopCriterion(IDENTIFIER));
         InfoSender info = new InfoSender();
         info.setLog(getLog());
         runningInfo.setInformationSender(info);
@@ -197,7 +198,7 @@ public final class GraphSolverExplicitIMDPRewardsCumulativeJavaDouble implements
         getLog().send(MessagesIMDPGraphsolver.IMDP_GRAPHSOLVER_ITER_START,
                 getIterationMethod());
         StopWatch time = new StopWatch(true);
-        Diff diffOp = UtilIMDPGraphSolver.getDiff();
+        Diff diffOp = UtilIMDPGraphSolver.getDiff(UtilGraphSolverIterative.getDifferenceStopCriterion(IDENTIFIER));
         InfoSender info = new InfoSender();
         info.setLog(getLog());
         runningInfo.setInformationSender(info);
@@ -307,7 +308,7 @@ public final class GraphSolverExplicitIMDPRewardsCumulativeJavaDouble implements
     }
 
     private IterationMethod getIterationMethod() {
-        return Options.get().get(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD);
+        return UtilGraphSolverIterative.getStationaryIterationMethod();
     }
 
     private double getTolerance() {
@@ -13,6 +13,7 @@ import epmc.graphsolver.GraphSolverExplicit;
 import epmc.graphsolver.iterative.IterationMethod;
 import epmc.graphsolver.iterative.IterationStopCriterion;
 import epmc.graphsolver.iterative.OptionsGraphSolverIterative;
+import epmc.graphsolver.iterative.UtilGraphSolverIterative;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicit;
 import epmc.multiobjective.graphsolver.GraphSolverObjectiveExplicitMultiObjectiveScheduled;
 import epmc.multiobjective.graphsolver.SchedulerSimpleMultiobjectiveJava;
@@ -95,8 +96,8 @@ public final class GraphSolverIterativeIMDPMultiObjectiveScheduledJavaDouble imp
 
     private void multiobjectiveScheduled() {
         Options options = Options.get();
-        IterationMethod iterMethod = options.getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD);
-        IterationStopCriterion stopCriterion = options.getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_STOP_CRITERION);
+        IterationMethod iterMethod = UtilGraphSolverIterative.getStationaryIterationMethod();
+        IterationStopCriterion stopCriterion = UtilGraphSolverIterative.getDifferenceStopCriterion(IDENTIFIER);
         double tolerance = options.getDouble(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_TOLERANCE);
         GraphSolverObjectiveExplicitMultiObjectiveScheduled objectiveMultiObjectiveScheduled = (GraphSolverObjectiveExplicitMultiObjectiveScheduled) objective;
         scheduler = (SchedulerSimpleMultiobjectiveJava) objectiveMultiObjectiveScheduled.getScheduler();
@@ -126,7 +127,7 @@ public final class GraphSolverIterativeIMDPMultiObjectiveScheduledJavaDouble imp
             Value transRewardsV,
             IterationStopCriterion stopCriterion, double tolerance,
             Value valuesV, SchedulerSimpleMultiobjectiveJava scheduler) {
-        Diff diffOp = UtilIMDPGraphSolver.getDiff();
+        Diff diffOp = UtilIMDPGraphSolver.getDiff(stopCriterion);
         double[] values = ValueContentDoubleArray.getContent(valuesV);
         Arrays.fill(values, 0.0);
         double[] stopRewards = ValueContentDoubleArray.getContent(stopRewardsV);
@@ -168,7 +169,7 @@ public final class GraphSolverIterativeIMDPMultiObjectiveScheduledJavaDouble imp
             Value transRewardsV,
             IterationStopCriterion stopCriterion, double tolerance,
             Value valuesV, SchedulerSimpleMultiobjectiveJava scheduler) {
-        Diff diffOp = UtilIMDPGraphSolver.getDiff();
+        Diff diffOp = UtilIMDPGraphSolver.getDiff(stopCriterion);
         int numStates = graph.computeNumStates();
         int[] schedulerJava = scheduler.getDecisions();
         double[] stopRewards = ValueContentDoubleArray.getContent(stopRewardsV);
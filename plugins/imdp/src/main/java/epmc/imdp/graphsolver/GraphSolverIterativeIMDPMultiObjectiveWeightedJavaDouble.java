@@ -13,6 +13,7 @@ import epmc.graphsolver.GraphSolverExplicit;
 import epmc.graphsolver.iterative.IterationMethod;
 import epmc.graphsolver.iterative.IterationStopCriterion;
 import epmc.graphsolver.iterative.OptionsGraphSolverIterative;
+import epmc.graphsolver.iterative.UtilGraphSolverIterative;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicit;
 import epmc.multiobjective.graphsolver.GraphSolverObjectiveExplicitMultiObjectiveWeighted;
 import epmc.multiobjective.graphsolver.SchedulerSimpleMultiobjectiveJava;
@@ -93,8 +94,8 @@ public final class GraphSolverIterativeIMDPMultiObjectiveWeightedJavaDouble impl
 
     private void multiobjectiveWeighted() {
         Options options = Options.get();
-        IterationMethod iterMethod = options.getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD);
-        IterationStopCriterion stopCriterion = options.getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_STOP_CRITERION);
+        IterationMethod iterMethod = UtilGraphSolverIterative.getStationaryIterationMethod();
+        IterationStopCriterion stopCriterion = UtilGraphSolverIterative.getDifferenceStopCriterion(IDENTIFIER);
         double tolerance = options.getDouble(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_TOLERANCE);
         GraphSolverObjectiveExplicitMultiObjectiveWeighted objectiveMultiObjectiveWeighted = (GraphSolverObjectiveExplicitMultiObjectiveWeighted) objective;
         Value cumulativeTransitionRewards = objectiveMultiObjectiveWeighted.getTransitionRewards();
@@ -133,7 +134,7 @@ public final class GraphSolverIterativeIMDPMultiObjectiveWeightedJavaDouble impl
         int[] schedulerJava = scheduler.getDecisions();
         Arrays.fill(schedulerJava, -2);
         fixNegative(graph, transRewards, stopRewards, values, schedulerJava);
-        Diff diffOp = UtilIMDPGraphSolver.getDiff();
+        Diff diffOp = UtilIMDPGraphSolver.getDiff(stopCriterion);
         double[] presValues = values;
         double[] nextValues = new double[numStates];
         IteratorJavaDouble iterator = buildIterator((GraphExplicitSparseAlternate) iterGraph, values);
@@ -190,7 +191,7 @@ public final class GraphSolverIterativeIMDPMultiObjectiveWeightedJavaDouble impl
         double[] values = ValueContentDoubleArray.getContent(valuesV);
         assert values != null;
         Arrays.fill(values, 0.0);
-        Diff diffOp = getDiff();
+        Diff diffOp = getDiff(stopCriterion);
         Arrays.fill(schedulerJava, -2);
         IteratorJavaDouble iterator = buildIterator((GraphExplicitSparseAlternate) iterGraph, values);
         Arrays.fill(values, 0);
@@ -329,19 +330,15 @@ public final class GraphSolverIterativeIMDPMultiObjectiveWeightedJavaDouble impl
         return isNegative;
     }
 
-    private Diff getDiff() {
-        IterationStopCriterion stopCriterion =
-                Options.get().getEnum(OptionsGraphSolverIterative
-                        .GRAPHSOLVER_ITERATIVE_STOP_CRITERION);
+    private Diff getDiff(IterationStopCriterion stopCriterion) {
+        assert stopCriterion != null;
         switch (stopCriterion) {
-        case ABSOLUTE:
-            return (a,b) -> Math.abs(a - b);
         case RELATIVE:
             return (a,b) -> Math.abs(a - b) / a;
+        case ABSOLUTE:
         default:
-            break;
+            return (a,b) -> Math.abs(a - b);
         }
-        return null;
     }
 
     private static IteratorJavaDouble buildIterator(GraphExplicitSparseAlternate graph, double[] values) {
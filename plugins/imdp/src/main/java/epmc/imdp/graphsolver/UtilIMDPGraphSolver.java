@@ -4,25 +4,19 @@ import epmc.graph.CommonProperties;
 import epmc.graph.explicit.GraphExplicitSparseAlternate;
 import epmc.graph.explicit.GraphExplicitSparseAlternate.EdgePropertySparseNondetOnlyNondet;
 import epmc.graphsolver.iterative.IterationStopCriterion;
-import epmc.graphsolver.iterative.OptionsGraphSolverIterative;
-import epmc.options.Options;
 import epmc.value.ValueContentDoubleArray;
 
 final class UtilIMDPGraphSolver {
 
-    static Diff getDiff() {
-        IterationStopCriterion stopCriterion =
-                Options.get().getEnum(OptionsGraphSolverIterative
-                        .GRAPHSOLVER_ITERATIVE_STOP_CRITERION);
+    static Diff getDiff(IterationStopCriterion stopCriterion) {
+        assert stopCriterion != null;
         switch (stopCriterion) {
-        case ABSOLUTE:
-            return (a,b) -> Math.abs(a - b);
         case RELATIVE:
             return (a,b) -> Math.abs(a - b) / a;
+        case ABSOLUTE:
         default:
-            break;
+            return (a,b) -> Math.abs(a - b);
         }
-        return null;
     }
 
     static void normalise(GraphExplicitSparseAlternate graph) {
@@ -159,6 +159,8 @@ public final class EdgeEvaluator {
 
     /** Action of the edge. */
     private final int action;
+    /** Guard expression after constant replacement and simplification. */
+    private final Expression guardExpression;
     /** Guard (reference in {@link #evaluator}). */
     private final EvaluatorExplicitBoolean guardEval;
     /** Array of destination evaluators of destinations of edge. */
@@ -187,6 +189,7 @@ public final class EdgeEvaluator {
         guardExpr = edge.getModel().replaceConstants(guardExpr);
         guardExpr = UtilExpressionStandard.replace(guardExpr, autVarToLocal);
         guardExpr = builder.getSimplifier().simplify(guardExpr);
+        guardExpression = guardExpr;
         guardEval = UtilEvaluatorExplicit.newEvaluatorBoolean(guardExpr, builder.getExpressionToType(), variables, builder.getEvaluatorCache());
         destinationEvaluators = new DestinationEvaluator[destinations.size()];
         Expression rateExpr = edge.getRateExpression();
@@ -226,6 +229,18 @@ public final class EdgeEvaluator {
         return guardEval.evaluateBoolean();
     }
 
+    /**
+     * Obtain the guard expression of the edge.
+     * The expression returned is the one the guard evaluator is built for,
+     * that is, constants are replaced and the variables of the automaton are
+     * renamed to the ones of the automaton instance.
+     * 
+     * @return guard expression of the edge
+     */
+    Expression getGuardExpression() {
+        return guardExpression;
+    }
+
     boolean hasRate() {
         return rateEval != null;
     }
@@ -37,6 +37,8 @@ import epmc.expressionevaluator.ExpressionToType;
 import epmc.graph.CommonProperties;
 import epmc.graph.SemanticsNonDet;
 import epmc.graph.SemanticsStochastic;
+import epmc.graph.explorer.ExplorerMetrics;
+import epmc.graph.explorer.ExplorerMetrics.Timer;
 import epmc.jani.model.Action;
 import epmc.jani.model.Automaton;
 import epmc.jani.model.Edge;
@@ -130,6 +132,8 @@ public final class ExplorerComponentAutomaton implements ExplorerComponent {
      * source location is stored.
      * */
     private EdgeEvaluator[][] edgeEvaluators;
+    /** Guard indices of the edges of the locations of the automaton. */
+    private GuardIndex[] guardIndices;
     private AssignmentsEvaluator[] locationEvaluators;
 
     /** Type for the location set of this automaton. */
@@ -185,6 +189,10 @@ public final class ExplorerComponentAutomaton implements ExplorerComponent {
     private ValueBoolean cmp;
     private OperatorEvaluator add;
     private OperatorEvaluator multiply;
+    /** Timer of guard evaluation, or {@code null} if not measured. */
+    private Timer guardTimer;
+    /** Timer of assignments to successors, or {@code null} if not measured. */
+    private Timer assignmentTimer;
 
     @Override
     public void setExplorer(ExplorerJANI explorer) {
@@ -352,6 +360,10 @@ public final class ExplorerComponentAutomaton implements ExplorerComponent {
             edgeEvaluators[locNr][locationsNumEdges[locNr]] = edgeEvaluator;
             locationsNumEdges[locNr]++;
         }
+        guardIndices = new GuardIndex[locations.size()];
+        for (int locNr = 0; locNr < locations.size(); locNr++) {
+            guardIndices[locNr] = new GuardIndex(edgeEvaluators[locNr], explorer.getStateVariables());
+        }
     }
 
     private void buildTransientValueEvaluators() {
@@ -475,6 +487,7 @@ public final class ExplorerComponentAutomaton implements ExplorerComponent {
 
     @Override
     public void queryNode(NodeJANI node) {
+        probabilitySum.set(0);
         if (nonDet && stochastic) {
             queryNondetStochastic(node);
         } else if (nonDet && !stochastic) {
@@ -498,11 +511,10 @@ public final class ExplorerComponentAutomaton implements ExplorerComponent {
         EdgeEvaluator[] locationEdgeEvaluators = edgeEvaluators[location];
         int lastAction = 0;
         actionFromTo[0] = 0;
-        for (EdgeEvaluator evaluator : locationEdgeEvaluators) {
+        for (int edgeNr : guardIndices[location].getCandidates(nodeValues)) {
+            EdgeEvaluator evaluator = locationEdgeEvaluators[edgeNr];
             evaluator.setVariableValues(nodeValues);
-        }
-        for (EdgeEvaluator evaluator : locationEdgeEvaluators) {
-            if (evaluator.evaluateGuard()) {
+            if (evaluateGuard(evaluator)) {
                 Value rate = evaluator.hasRate() ? evaluator.evaluateRate() : null;
                 int numDestinations = evaluator.getNumDestinations();
                 for (int destNr = 0; destNr < numDestinations; destNr++) {
@@ -524,7 +536,7 @@ public final class ExplorerComponentAutomaton implements ExplorerComponent {
                     add.apply(probabilitySum, probabilitySum, probability);
                     int action = evaluator.getAction();
                     label.set(numSuccessors, action);
-                    destinationEval.assignTo(node, successor);
+                    assign(destinationEval, node, successor);
                     successor.setNotSet(node);
                     if (lastAction != action) {
                         for (int act = lastAction + 1; act <= action; act++) {
@@ -541,6 +553,27 @@ public final class ExplorerComponentAutomaton implements ExplorerComponent {
         }
     }
 
+    private boolean evaluateGuard(EdgeEvaluator evaluator) {
+        if (guardTimer == null) {
+            return evaluator.evaluateGuard();
+        }
+        guardTimer.start();
+        boolean result = evaluator.evaluateGuard();
+        guardTimer.stop();
+        return result;
+    }
+
+    private void assign(DestinationEvaluator destinationEval, NodeJANI node,
+            NodeJANI successor) {
+        if (assignmentTimer == null) {
+            destinationEval.assignTo(node, successor);
+            return;
+        }
+        assignmentTimer.start();
+        destinationEval.assignTo(node, successor);
+        assignmentTimer.stop();
+    }
+
     private void queryNondetStochastic(NodeJANI node) {
         assert node != null;
         numSuccessors = 0;
@@ -556,15 +589,13 @@ public final class ExplorerComponentAutomaton implements ExplorerComponent {
         if (edge == -1) {
             /* the node queries is a state node */
             state.set(true);
-            int edgeNr = 0;
             int lastAction = 0;
             actionFromTo[0] = 0;
             locationEvaluators[location].apply(node, node);
-            for (EdgeEvaluator evaluator : locationEdgeEvaluators) {
+            for (int edgeNr : guardIndices[location].getCandidates(nodeValues)) {
+                EdgeEvaluator evaluator = locationEdgeEvaluators[edgeNr];
                 evaluator.setVariableValues(nodeValues);
-            }
-            for (EdgeEvaluator evaluator : locationEdgeEvaluators) {
-                if (evaluator.evaluateGuard()) {
+                if (evaluateGuard(evaluator)) {
                     NodeJANI successor = successors[numSuccessors];
                     successor.unmark();
                     successor.set(node);
@@ -580,16 +611,15 @@ public final class ExplorerComponentAutomaton implements ExplorerComponent {
                     }
                     numSuccessors++;
                 }
-                edgeNr++;
             }
             for (int act = lastAction + 1; act < actionFromTo.length; act++) {
                 actionFromTo[act] = numSuccessors;
             }
         } else {
             /* the node queried is a distribution node */
-            probabilitySum.set(0);
             state.set(false);
             EdgeEvaluator evaluator = locationEdgeEvaluators[edge];
+            evaluator.setVariableValues(nodeValues);
             Value rate = evaluator.hasRate() ? evaluator.evaluateRate() : null;
             int numDestinations = evaluator.getNumDestinations();
             for (int destNr = 0; destNr < numDestinations; destNr++) {
@@ -611,11 +641,24 @@ public final class ExplorerComponentAutomaton implements ExplorerComponent {
                 }
                 add.apply(probabilitySum, probabilitySum, probability);
                 label.set(numSuccessors, 0);
-                destinationEval.assignTo(node, successor);
+                assign(destinationEval, node, successor);
                 successor.setNotSet(node);
                 numSuccessors++;
             }
         }
+        afterQuery();
+    }
+
+    /**
+     * Inform the explorer extensions that a node has been queried.
+     * This is done after the successors of a node have been computed, and
+     * also by the successor cache after restoring them. Extensions are only
+     * informed for nondeterministic stochastic models.
+     */
+    void afterQuery() {
+        if (!nonDet || !stochastic) {
+            return;
+        }
         for (ExplorerExtension extension : explorer.getExtensions()) {
             extension.afterQueryAutomaton(this);
         }
@@ -629,17 +672,16 @@ public final class ExplorerComponentAutomaton implements ExplorerComponent {
         int lastAction = 0;
         actionFromTo[0] = 0;
         locationEvaluators[location].apply(node, node);
-        for (EdgeEvaluator evaluator : locationEdgeEvaluators) {
+        for (int edgeNr : guardIndices[location].getCandidates(nodeValues)) {
+            EdgeEvaluator evaluator = locationEdgeEvaluators[edgeNr];
             evaluator.setVariableValues(nodeValues);
-        }
-        for (EdgeEvaluator evaluator : locationEdgeEvaluators) {
-            if (evaluator.evaluateGuard()) {
+            if (evaluateGuard(evaluator)) {
                 int action = evaluator.getAction();
                 label.set(numSuccessors, action);
                 DestinationEvaluator destinationEval = evaluator.getDestinationEvaluator(0);
                 NodeJANI successor = successors[numSuccessors];
                 successor.unmark();
-                destinationEval.assignTo(node, successor);
+                assign(destinationEval, node, successor);
                 successor.setNotSet(node);
                 if (lastAction != action) {
                     for (int act = lastAction + 1; act <= action; act++) {
@@ -715,6 +757,17 @@ public final class ExplorerComponentAutomaton implements ExplorerComponent {
         return name;
     }
 
+    @Override
+    public void setMetrics(ExplorerMetrics metrics) {
+        if (metrics == null) {
+            guardTimer = null;
+            assignmentTimer = null;
+        } else {
+            guardTimer = metrics.getTimer(ExplorerJANI.METRICS_GUARD_EVALUATION);
+            assignmentTimer = metrics.getTimer(ExplorerJANI.METRICS_ASSIGNMENTS);
+        }
+    }
+
     public int getNumber() {
         return number;
     }
@@ -727,6 +780,110 @@ public final class ExplorerComponentAutomaton implements ExplorerComponent {
         return actionFromTo[action + 1];
     }
 
+    /**
+     * Obtain the array storing the successors of each action.
+     * For an action number {@code a}, the successors with this action are
+     * stored from {@code a} inclusive to {@code a + 1} exclusive. The array
+     * returned is the one used by this automaton, such that the successor
+     * cache can store and restore it.
+     * 
+     * @return array storing the successors of each action
+     */
+    int[] getActionFromTo() {
+        return actionFromTo;
+    }
+
+    /**
+     * Obtain the automaton explored.
+     * 
+     * @return automaton explored
+     */
+    Automaton getAutomaton() {
+        return automaton;
+    }
+
+    /**
+     * Obtain the number of the location the automaton is in in a node.
+     * 
+     * @param node node to obtain location number of
+     * @return number of the location the automaton is in
+     */
+    int getLocationNumber(NodeJANI node) {
+        assert node != null;
+        if (locationVarNr == -1) {
+            return 0;
+        } else {
+            return ValueLocation.as(node.getValues()[locationVarNr]).getValueNumber();
+        }
+    }
+
+    /**
+     * Obtain the number used to represent a location of the automaton.
+     * 
+     * @param location location to obtain number of
+     * @return number used to represent the location
+     */
+    int getLocationNumber(Location location) {
+        assert location != null;
+        return typeLocation.getNumber(location);
+    }
+
+    /**
+     * Obtain the evaluators of the edges leaving a location.
+     * The location number must be nonnegative and strictly smaller than the
+     * number of locations of the automaton.
+     * 
+     * @param location number of the location
+     * @return evaluators of the edges leaving the location
+     */
+    EdgeEvaluator[] getEdgeEvaluators(int location) {
+        assert location >= 0;
+        assert location < edgeEvaluators.length;
+        return edgeEvaluators[location];
+    }
+
+    /**
+     * Obtain the guard index of the edges leaving a location.
+     * The location number must be nonnegative and strictly smaller than the
+     * number of locations of the automaton.
+     * 
+     * @param location number of the location
+     * @return guard index of the edges leaving the location
+     */
+    GuardIndex getGuardIndex(int location) {
+        assert location >= 0;
+        assert location < guardIndices.length;
+        return guardIndices[location];
+    }
+
+    /**
+     * Obtain the numbers of the state variables owned by this automaton.
+     * These are the location variable, the non-transient local variables of
+     * the automaton and the edge variable, if existent, in this order. The
+     * edge variable is placed last as it is not stored for states.
+     * 
+     * @return numbers of the state variables owned by this automaton
+     */
+    int[] getLocalVariableNumbers() {
+        List<Integer> numbers = new ArrayList<>();
+        if (locationVarNr != -1) {
+            numbers.add(locationVarNr);
+        }
+        for (Variable variable : automaton.getVariablesOrEmpty()) {
+            if (!variable.isTransient()) {
+                numbers.add(variableToNumber.get(variable));
+            }
+        }
+        if (nonDet && stochastic) {
+            numbers.add(edgeVarNr);
+        }
+        int[] result = new int[numbers.size()];
+        for (int index = 0; index < result.length; index++) {
+            result[index] = numbers.get(index);
+        }
+        return result;
+    }
+
     @Override
     public void close() {
     }
@@ -30,12 +30,16 @@ import java.util.Set;
 
 import epmc.graph.CommonProperties;
 import epmc.graph.SemanticsNonDet;
+import epmc.graph.explorer.ExplorerMetrics;
+import epmc.graph.explorer.ExplorerMetrics.Counter;
+import epmc.graph.explorer.ExplorerMetrics.Timer;
 import epmc.jani.model.Action;
 import epmc.jani.model.Actions;
 import epmc.jani.model.ModelJANI;
 import epmc.jani.model.component.Component;
 import epmc.jani.model.component.ComponentParallel;
 import epmc.operator.OperatorMultiply;
+import epmc.options.Options;
 import epmc.value.ContextValue;
 import epmc.value.OperatorEvaluator;
 import epmc.value.TypeBoolean;
@@ -84,6 +88,18 @@ public final class ExplorerComponentParallel implements ExplorerComponent {
     private boolean nonDet;
     private Component component;
     private OperatorEvaluator multiply;
+    /** Timer of synchronisation, or {@code null} if not measured. */
+    private Timer synchronisationTimer;
+    /** Counter of successors of the composition, or {@code null}. */
+    private Counter successorCounter;
+    /** Counter of successors of the left component, or {@code null}. */
+    private Counter leftSuccessorCounter;
+    /** Counter of successors of the right component, or {@code null}. */
+    private Counter rightSuccessorCounter;
+    /** Successor cache of the left component, or {@code null} if not used. */
+    private SuccessorCache leftCache;
+    /** Successor cache of the right component, or {@code null} if not used. */
+    private SuccessorCache rightCache;
 
     // TODO check for LTSs as soon as we have some
 
@@ -153,6 +169,11 @@ public final class ExplorerComponentParallel implements ExplorerComponent {
         successors[0] = newNode();
         left.buildAfterVariables();
         right.buildAfterVariables();
+        int cacheSize = Options.get().getInteger(OptionsJANIExplorer.JANI_EXPLORER_SUCCESSOR_CACHE_SIZE);
+        if (cacheSize > 0) {
+            leftCache = SuccessorCache.build(left, cacheSize);
+            rightCache = SuccessorCache.build(right, cacheSize);
+        }
     }
 
     @Override
@@ -213,12 +234,16 @@ public final class ExplorerComponentParallel implements ExplorerComponent {
         } else {
             queryNoNonDet(node);
         }
+        if (successorCounter != null) {
+            successorCounter.add(numSuccessors);
+        }
     }
 
     private void queryNoNonDet(NodeJANI node) {
         numSuccessors = 0;
-        left.queryNode(node);
-        right.queryNode(node);
+        queryLeft(node);
+        queryRight(node);
+        startSynchronisation();
         int numLeftSuccessors = left.getNumSuccessors();
         int numRightSuccessors = right.getNumSuccessors();
         for (int leftSuccNr = 0; leftSuccNr < numLeftSuccessors; leftSuccNr++) {
@@ -270,6 +295,7 @@ public final class ExplorerComponentParallel implements ExplorerComponent {
             weight.set(numSuccessors, rightWeight.get(rightSuccNr));
             numSuccessors++;
         }
+        stopSynchronisation();
     }
 
     private void queryNonDet(NodeJANI node) {
@@ -277,19 +303,58 @@ public final class ExplorerComponentParallel implements ExplorerComponent {
         boolean isLeftState = left.isState(node);
         boolean isRightState = right.isState(node);
         if (isLeftState && isRightState) {
-            left.queryNode(node);
-            right.queryNode(node);
+            queryLeft(node);
+            queryRight(node);
+            startSynchronisation();
             querySynchroniseActions(node);
         } else if (isLeftState && !isRightState) {
-            right.queryNode(node);
+            queryRight(node);
+            startSynchronisation();
             queryCopy(node, true);
         } else if (!isLeftState && isRightState) {
-            left.queryNode(node);
+            queryLeft(node);
+            startSynchronisation();
             queryCopy(node, false);			
+        } else {
+            queryLeft(node);
+            queryRight(node);
+            startSynchronisation();
+            queryMultiplyProbabilities(node);
+        }
+        stopSynchronisation();
+    }
+
+    private void queryLeft(NodeJANI node) {
+        if (leftCache != null) {
+            leftCache.queryNode(node);
         } else {
             left.queryNode(node);
+        }
+        if (leftSuccessorCounter != null) {
+            leftSuccessorCounter.add(left.getNumSuccessors());
+        }
+    }
+
+    private void queryRight(NodeJANI node) {
+        if (rightCache != null) {
+            rightCache.queryNode(node);
+        } else {
             right.queryNode(node);
-            queryMultiplyProbabilities(node);
+        }
+        if (rightSuccessorCounter != null) {
+            rightSuccessorCounter.add(right.getNumSuccessors());
+        }
+    }
+
+    private void startSynchronisation() {
+        if (synchronisationTimer != null) {
+            synchronisationTimer.start();
+        }
+    }
+
+    private void stopSynchronisation() {
+        if (synchronisationTimer != null) {
+            synchronisationTimer.stop();
         }
     }
 
@@ -492,7 +557,99 @@ public final class ExplorerComponentParallel implements ExplorerComponent {
         return state.getBoolean();
     }
 
+    /**
+     * {@inheritDoc}
+     * The successors of this composition are counted under the name of the
+     * system component.
+     */
+    @Override
+    public void setMetrics(ExplorerMetrics metrics) {
+        setMetrics(metrics, ExplorerJANI.METRICS_SYSTEM);
+    }
+
+    /**
+     * Set metrics to record statistics in, naming this component by a path.
+     * The successors of the left and right components are counted under the
+     * path followed by {@code /left} and {@code /right}, respectively. Nested
+     * parallel compositions are named accordingly.
+     * 
+     * @param metrics metrics to record statistics in, or {@code null}
+     * @param path name of this component in the metrics
+     */
+    private void setMetrics(ExplorerMetrics metrics, String path) {
+        assert path != null;
+        String leftPath = path + "/left";
+        String rightPath = path + "/right";
+        setChildMetrics(left, metrics, leftPath);
+        setChildMetrics(right, metrics, rightPath);
+        if (metrics == null) {
+            synchronisationTimer = null;
+            successorCounter = null;
+            leftSuccessorCounter = null;
+            rightSuccessorCounter = null;
+            return;
+        }
+        synchronisationTimer = metrics.getTimer(ExplorerJANI.METRICS_SYNCHRONISATION);
+        successorCounter = metrics.getCounter(ExplorerJANI.METRICS_SUCCESSORS + path);
+        leftSuccessorCounter = metrics.getCounter(ExplorerJANI.METRICS_SUCCESSORS + leftPath);
+        rightSuccessorCounter = metrics.getCounter(ExplorerJANI.METRICS_SUCCESSORS + rightPath);
+    }
+
+    private static void setChildMetrics(ExplorerComponent child,
+            ExplorerMetrics metrics, String path) {
+        if (child instanceof ExplorerComponentParallel) {
+            ((ExplorerComponentParallel) child).setMetrics(metrics, path);
+        } else {
+            child.setMetrics(metrics);
+        }
+    }
+
     @Override
     public void close() {
     }
+
+    /**
+     * Obtain the parallel composition explored.
+     * 
+     * @return parallel composition explored
+     */
+    ComponentParallel getComponent() {
+        return componentParallel;
+    }
+
+    /**
+     * Obtain the explorer of the left component of the composition.
+     * 
+     * @return explorer of the left component of the composition
+     */
+    ExplorerComponent getLeft() {
+        return left;
+    }
+
+    /**
+     * Obtain the explorer of the right component of the composition.
+     * 
+     * @return explorer of the right component of the composition
+     */
+    ExplorerComponent getRight() {
+        return right;
+    }
+
+    /**
+     * Obtain the successor cache of the left component of the composition.
+     * 
+     * @return successor cache of the left component, or {@code null}
+     */
+    SuccessorCache getLeftCache() {
+        return leftCache;
+    }
+
+    /**
+     * Obtain the successor cache of the right component of the composition.
+     * 
+     * @return successor cache of the right component, or {@code null}
+     */
+    SuccessorCache getRightCache() {
+        return rightCache;
+    }
 }
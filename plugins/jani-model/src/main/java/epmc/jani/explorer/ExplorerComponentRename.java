@@ -26,6 +26,7 @@ import java.util.Map;
 import java.util.Set;
 
 import epmc.graph.CommonProperties;
+import epmc.graph.explorer.ExplorerMetrics;
 import epmc.jani.model.Action;
 import epmc.jani.model.component.Component;
 import epmc.jani.model.component.ComponentRename;
@@ -181,7 +182,21 @@ public final class ExplorerComponentRename implements ExplorerComponent {
         return state.getBoolean();
     }
 
+    @Override
+    public void setMetrics(ExplorerMetrics metrics) {
+        inner.setMetrics(metrics);
+    }
+
     @Override
     public void close() {
     }
+
+    /**
+     * Obtain the explorer of the component the actions of which are renamed.
+     * 
+     * @return explorer of the component the actions of which are renamed
+     */
+    ExplorerComponent getInner() {
+        return inner;
+    }
 }
@@ -28,8 +28,12 @@ import java.util.List;
 import java.util.Map;
 
 import epmc.graph.CommonProperties;
+import epmc.graph.SemanticsMDP;
 import epmc.graph.SemanticsNonDet;
 import epmc.graph.SemanticsStochastic;
+import epmc.graph.explorer.ExplorerMetrics;
+import epmc.graph.explorer.ExplorerMetrics.Counter;
+import epmc.graph.explorer.ExplorerMetrics.Timer;
 import epmc.jani.model.Action;
 import epmc.jani.model.Automaton;
 import epmc.jani.model.Edge;
@@ -39,6 +43,7 @@ import epmc.jani.model.component.ComponentSynchronisationVectors;
 import epmc.jani.model.component.SynchronisationVectorElement;
 import epmc.jani.model.component.SynchronisationVectorSync;
 import epmc.operator.OperatorMultiply;
+import epmc.options.Options;
 import epmc.value.ContextValue;
 import epmc.value.OperatorEvaluator;
 import epmc.value.TypeBoolean;
@@ -77,6 +82,24 @@ public final class ExplorerComponentSynchronisationVectors implements ExplorerCo
     private int[][] vectorActions;
     private int[][] vectorAutomata;
     private int[] vectorResult;
+    /** For each automaton and action, the vectors in which the automaton
+     * takes part with this action. */
+    private int[][][] actionVectors;
+    /** Vectors in which no automaton takes part. */
+    private int[] emptyVectors;
+    /** For each vector, number of its entries enabled in the queried node. */
+    private int[] vectorNumEnabled;
+    /** For each vector, query in which its entry in {@link #vectorNumEnabled}
+     * was last written. */
+    private int[] vectorQuery;
+    /** Number of the current query, to avoid resetting {@link #vectorNumEnabled}. */
+    private int query;
+    /** Vectors enabled in the queried node, in ascending order. */
+    private int[] enabledVectors;
+    /** Number of vectors enabled in the queried node. */
+    private int numEnabledVectors;
+    /** Whether {@link #actionVectors} is used to obtain the enabled vectors. */
+    private boolean useActionIndex = true;
     /** Number of successors of queried node. */
     private int numSuccessors;
     /** Array of successors of queried node. */
@@ -85,6 +108,14 @@ public final class ExplorerComponentSynchronisationVectors implements ExplorerCo
     private ValueAlgebra prodWeight;
     private boolean[] isState;
     private OperatorEvaluator multiply;
+    /** Partial order reduction used, or {@code null} if not used. */
+    private PartialOrderReduction partialOrderReduction;
+    /** Timer of synchronisation, or {@code null} if not measured. */
+    private Timer synchronisationTimer;
+    /** Counter of successors of the composition, or {@code null}. */
+    private Counter successorCounter;
+    /** Counters of successors of the automata, or {@code null}. */
+    private Counter[] automataSuccessorCounters;
 
     @Override
     public void setExplorer(ExplorerJANI model) {
@@ -173,10 +204,119 @@ public final class ExplorerComponentSynchronisationVectors implements ExplorerCo
             vectorResult[vecNr] = resultAction;
             vecNr++;
         }
+        buildActionIndex(actionMap.size());
         prodWeight = TypeWeightTransition.get().newValue();
         weight = new PropertyEdgeGeneral(explorer, TypeWeightTransition.get());
         isState = new boolean[automata.length];
         multiply = ContextValue.get().getEvaluator(OperatorMultiply.MULTIPLY, TypeWeightTransition.get(), TypeWeightTransition.get());
+        if (Options.get().getBoolean(OptionsJANIExplorer.JANI_EXPLORER_PARTIAL_ORDER_REDUCTION)
+                && SemanticsMDP.isMDP(explorer.getModel().getSemantics())) {
+            partialOrderReduction = new PartialOrderReduction(explorer.getModel(),
+                    automata, actionMap, vectorAutomata, vectorActions);
+        }
+    }
+
+    /**
+     * Build index from actions of automata to the vectors using them.
+     * Using this index, the vectors enabled in a node are obtained from the
+     * actions enabled in the automata, without trying to match the actions
+     * of all vectors.
+     * 
+     * @param numActions number of actions of the model
+     */
+    private void buildActionIndex(int numActions) {
+        List<List<List<Integer>>> index = new ArrayList<>();
+        for (int autNr = 0; autNr < automata.length; autNr++) {
+            List<List<Integer>> automatonIndex = new ArrayList<>();
+            for (int action = 0; action < numActions; action++) {
+                automatonIndex.add(new ArrayList<>());
+            }
+            index.add(automatonIndex);
+        }
+        List<Integer> empty = new ArrayList<>();
+        for (int vecNr = 0; vecNr < numVectors; vecNr++) {
+            if (vectorSizes[vecNr] == 0) {
+                empty.add(vecNr);
+            }
+            for (int entryNr = 0; entryNr < vectorSizes[vecNr]; entryNr++) {
+                int autNr = vectorAutomata[vecNr][entryNr];
+                int action = vectorActions[vecNr][entryNr];
+                index.get(autNr).get(action).add(vecNr);
+            }
+        }
+        actionVectors = new int[automata.length][numActions][];
+        for (int autNr = 0; autNr < automata.length; autNr++) {
+            for (int action = 0; action < numActions; action++) {
+                actionVectors[autNr][action] = toArray(index.get(autNr).get(action));
+            }
+        }
+        emptyVectors = toArray(empty);
+        vectorNumEnabled = new int[numVectors];
+        vectorQuery = new int[numVectors];
+        query = 0;
+        enabledVectors = new int[numVectors];
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] result = new int[list.size()];
+        for (int index = 0; index < result.length; index++) {
+            result[index] = list.get(index);
+        }
+        return result;
+    }
+
+    /**
+     * Compute the vectors enabled in the node queried.
+     * A vector is enabled if each automaton taking part in it has at least
+     * one successor with the action of its entry. The successors of the
+     * automata are sorted by actions, so that the actions enabled in an
+     * automaton can be enumerated by skipping from one action to the next.
+     * If the action index is not used, all vectors are returned, such that
+     * each vector is matched against the successors of the automata. The
+     * automata must have been queried before calling this method.
+     */
+    private void computeEnabledVectors() {
+        if (!useActionIndex) {
+            for (int vecNr = 0; vecNr < numVectors; vecNr++) {
+                enabledVectors[vecNr] = vecNr;
+            }
+            numEnabledVectors = numVectors;
+            return;
+        }
+        query++;
+        if (query == 0) {
+            Arrays.fill(vectorQuery, 0);
+            query = 1;
+        }
+        numEnabledVectors = 0;
+        for (int vecNr : emptyVectors) {
+            enabledVectors[numEnabledVectors] = vecNr;
+            numEnabledVectors++;
+        }
+        for (int autNr = 0; autNr < automata.length; autNr++) {
+            ExplorerComponentAutomaton automaton = automata[autNr];
+            PropertyEdgeAction automatonLabel = automataLabels[autNr];
+            int[][] automatonVectors = actionVectors[autNr];
+            int numAutSuccessors = automaton.getNumSuccessors();
+            int succNr = 0;
+            while (succNr < numAutSuccessors) {
+                int action = automatonLabel.getInt(succNr);
+                for (int vecNr : automatonVectors[action]) {
+                    if (vectorQuery[vecNr] != query) {
+                        vectorQuery[vecNr] = query;
+                        vectorNumEnabled[vecNr] = 0;
+                    }
+                    vectorNumEnabled[vecNr]++;
+                    if (vectorNumEnabled[vecNr] == vectorSizes[vecNr]) {
+                        enabledVectors[numEnabledVectors] = vecNr;
+                        numEnabledVectors++;
+                    }
+                }
+                assert automaton.getActionTo(action) > succNr;
+                succNr = automaton.getActionTo(action);
+            }
+        }
+        Arrays.sort(enabledVectors, 0, numEnabledVectors);
     }
 
     private List<SynchronisationVectorSync> computeSilentVectors(Map<Action, Integer> actionMap) {
@@ -231,6 +371,9 @@ public final class ExplorerComponentSynchronisationVectors implements ExplorerCo
         } else {
             queryNodeSingleLayer(node);
         }
+        if (successorCounter != null) {
+            successorCounter.add(numSuccessors);
+        }
     }
 
     private void queryNodeTwoLayer(NodeJANI node) {
@@ -251,9 +394,22 @@ public final class ExplorerComponentSynchronisationVectors implements ExplorerCo
     private void queryNodeTwoLayerState(NodeJANI node) {
         for (int automatonNr = 0; automatonNr < automata.length; automatonNr++) {
             automata[automatonNr].queryNode(node);
+            countAutomatonSuccessors(automatonNr);
         }
+        startSynchronisation();
         numSuccessors = 0;
-        for (int vecNr = 0; vecNr < numVectors; vecNr++) {
+        int ampleVector = -1;
+        if (partialOrderReduction != null) {
+            ampleVector = partialOrderReduction.computeAmpleVector(node);
+        }
+        if (ampleVector != -1) {
+            enabledVectors[0] = ampleVector;
+            numEnabledVectors = 1;
+        } else {
+            computeEnabledVectors();
+        }
+        for (int index = 0; index < numEnabledVectors; index++) {
+            int vecNr = enabledVectors[index];
             int numVecSuccessors = 1;
             int vecSize = vectorSizes[vecNr];
             for (int entryNr = 0; entryNr < vecSize; entryNr++) {
@@ -285,6 +441,7 @@ public final class ExplorerComponentSynchronisationVectors implements ExplorerCo
                 numSuccessors++;
             }
         }
+        stopSynchronisation();
     }
 
     private void queryNodeTwoLayerNonState(NodeJANI node) {
@@ -293,9 +450,11 @@ public final class ExplorerComponentSynchronisationVectors implements ExplorerCo
             ExplorerComponentAutomaton automaton = automata[autNr];
             if (!isState[autNr]) {
                 automaton.queryNode(node);
+                countAutomatonSuccessors(autNr);
                 numSuccessors *= automaton.getNumSuccessors();
             }
         }
+        startSynchronisation();
         this.numSuccessors = 0;
         for (int succNr = 0; succNr < numSuccessors; succNr++) {
             ensureSuccessorsSize();
@@ -319,15 +478,20 @@ public final class ExplorerComponentSynchronisationVectors implements ExplorerCo
             weight.set(this.numSuccessors, prodWeight);
             this.numSuccessors++;
         }
+        stopSynchronisation();
     }
 
     private void queryNodeSingleLayer(NodeJANI node) {
         assert node != null;
         for (int automatonNr = 0; automatonNr < automata.length; automatonNr++) {
             automata[automatonNr].queryNode(node);
+            countAutomatonSuccessors(automatonNr);
         }
+        startSynchronisation();
         numSuccessors = 0;
-        for (int vecNr = 0; vecNr < numVectors; vecNr++) {
+        computeEnabledVectors();
+        for (int index = 0; index < numEnabledVectors; index++) {
+            int vecNr = enabledVectors[index];
             int numVecSuccessors = 1;
             int vecSize = vectorSizes[vecNr];
             for (int entryNr = 0; entryNr < vecSize; entryNr++) {
@@ -362,6 +526,25 @@ public final class ExplorerComponentSynchronisationVectors implements ExplorerCo
                 numSuccessors++;
             }
         }
+        stopSynchronisation();
+    }
+
+    private void countAutomatonSuccessors(int autNr) {
+        if (automataSuccessorCounters != null) {
+            automataSuccessorCounters[autNr].add(automata[autNr].getNumSuccessors());
+        }
+    }
+
+    private void startSynchronisation() {
+        if (synchronisationTimer != null) {
+            synchronisationTimer.start();
+        }
+    }
+
+    private void stopSynchronisation() {
+        if (synchronisationTimer != null) {
+            synchronisationTimer.stop();
+        }
     }
 
     @Override
@@ -463,6 +646,34 @@ public final class ExplorerComponentSynchronisationVectors implements ExplorerCo
         return state.getBoolean();
     }
 
+    /**
+     * {@inheritDoc}
+     * The successors of the composition are counted under the name of the
+     * system component, and the successors of the automata under the name
+     * of the system component followed by the number and name of the
+     * automaton.
+     */
+    @Override
+    public void setMetrics(ExplorerMetrics metrics) {
+        for (ExplorerComponentAutomaton automaton : automata) {
+            automaton.setMetrics(metrics);
+        }
+        if (metrics == null) {
+            synchronisationTimer = null;
+            successorCounter = null;
+            automataSuccessorCounters = null;
+            return;
+        }
+        synchronisationTimer = metrics.getTimer(ExplorerJANI.METRICS_SYNCHRONISATION);
+        String prefix = ExplorerJANI.METRICS_SUCCESSORS + ExplorerJANI.METRICS_SYSTEM;
+        successorCounter = metrics.getCounter(prefix);
+        automataSuccessorCounters = new Counter[automata.length];
+        for (int autNr = 0; autNr < automata.length; autNr++) {
+            automataSuccessorCounters[autNr] = metrics.getCounter(prefix
+                    + "/" + autNr + ":" + automata[autNr].getName());
+        }
+    }
+
     @Override
     public void close() {
         for (ExplorerComponentAutomaton automaton : automata) {
@@ -470,6 +681,48 @@ public final class ExplorerComponentSynchronisationVectors implements ExplorerCo
         }
     }
 
+    /**
+     * Obtain the synchronisation vector component explored.
+     * 
+     * @return synchronisation vector component explored
+     */
+    ComponentSynchronisationVectors getComponent() {
+        return (ComponentSynchronisationVectors) component;
+    }
+
+    /**
+     * Set whether the action index is used to obtain the enabled vectors.
+     * By default, it is used. Otherwise, each vector is matched against the
+     * successors of the automata in each query, which yields the same
+     * successors in the same order, only slower.
+     * 
+     * @param useActionIndex whether to use the action index
+     */
+    void setUseActionIndex(boolean useActionIndex) {
+        this.useActionIndex = useActionIndex;
+    }
+
+    /**
+     * Obtain the number of automata of the synchronisation vectors.
+     * 
+     * @return number of automata of the synchronisation vectors
+     */
+    int getNumAutomata() {
+        return automata.length;
+    }
+
+    /**
+     * Obtain the explorer of the automaton of a given vector element.
+     * 
+     * @param automatonNr number of the vector element
+     * @return explorer of the automaton of the given vector element
+     */
+    ExplorerComponentAutomaton getAutomaton(int automatonNr) {
+        assert automatonNr >= 0;
+        assert automatonNr < automata.length;
+        return automata[automatonNr];
+    }
+
     /**
      * Ensure successors size array sufficiently large to store successors.
      */
@@ -44,6 +44,7 @@ import epmc.graph.Semantics;
 import epmc.graph.SemanticsNonDet;
 import epmc.graph.explorer.Explorer;
 import epmc.graph.explorer.ExplorerEdgeProperty;
+import epmc.graph.explorer.ExplorerMetrics;
 import epmc.graph.explorer.ExplorerNode;
 import epmc.graph.explorer.ExplorerNodeProperty;
 import epmc.jani.model.ModelExtension;
@@ -129,6 +130,16 @@ public final class ExplorerJANI implements Explorer {
     }
     
     public final static String IDENTIFIER = "jani-explorer";
+    /** Name of timer of guard evaluation in exploration metrics. */
+    final static String METRICS_GUARD_EVALUATION = "guard-evaluation";
+    /** Name of timer of assignment execution in exploration metrics. */
+    final static String METRICS_ASSIGNMENTS = "assignments";
+    /** Name of timer of synchronisation of components in exploration metrics. */
+    final static String METRICS_SYNCHRONISATION = "synchronisation";
+    /** Prefix of names of successor counters in exploration metrics. */
+    final static String METRICS_SUCCESSORS = "successors/";
+    /** Name of the system component in successor counters. */
+    final static String METRICS_SYSTEM = "system";
     
     private final static String INITIAL_IDENTIFIER = "\"init\"";
 
@@ -167,6 +178,8 @@ public final class ExplorerJANI implements Explorer {
     private final PropertyNodeDeadlock deadlockNodesProp;
     private final PropertyNodeState stateProp;
     private final EvaluatorCache evaluatorCache = new EvaluatorCache();
+    /** Symmetry reduction used, or {@code null} if not used. */
+    private final SymmetryReduction symmetryReduction;
 
     private boolean state;
 
@@ -206,6 +219,7 @@ public final class ExplorerJANI implements Explorer {
         system = prepareSystem(model);
         extensions = prepareExtensions(model);
         afterSystemCreation();
+        symmetryReduction = prepareSymmetryReduction();
         initialNodes = computeInitialNodes();
         fixDeadlocks = Options.get().getBoolean(OptionsJANIModel.JANI_FIX_DEADLOCKS);
         prepareGraphProperties();
@@ -277,6 +291,16 @@ public final class ExplorerJANI implements Explorer {
         return result;
     }
 
+    private SymmetryReduction prepareSymmetryReduction() {
+        if (!Options.get().getBoolean(OptionsJANIExplorer.JANI_EXPLORER_SYMMETRY_REDUCTION)) {
+            return null;
+        }
+        SymmetryReduction result = SymmetryReduction.build(this, system);
+        getLog().send(MessagesJANIExplorer.SYMMETRY_REDUCTION_GROUPS,
+                result == null ? 0 : result.getNumGroups());
+        return result;
+    }
+
     public StateVariables getStateVariables() {
         return stateVariables;
     }
@@ -385,6 +409,9 @@ public final class ExplorerJANI implements Explorer {
                     int nodeVarNr = stateVariables.getVariableNumber(variable.getIdentifier());
                     nodeWithGlobals.setVariable(nodeVarNr, value);
                 }
+                if (symmetryReduction != null) {
+                    symmetryReduction.canonicalise(nodeWithGlobals);
+                }
                 nodeWithGlobals.unmark();
                 result.add(nodeWithGlobals);
             }
@@ -449,6 +476,12 @@ public final class ExplorerJANI implements Explorer {
             successor.set(nodeJANI);
             successor.unmark();
         }
+        if (symmetryReduction != null) {
+            int numSuccessors = system.getNumSuccessors();
+            for (int succNr = 0; succNr < numSuccessors; succNr++) {
+                symmetryReduction.canonicalise(system.getSuccessorNode(succNr));
+            }
+        }
     }
 
     public boolean isFixDeadlocks() {
@@ -592,6 +625,11 @@ public final class ExplorerJANI implements Explorer {
         return stateVariables.getNumBits();
     }
 
+    @Override
+    public void setMetrics(ExplorerMetrics metrics) {
+        system.setMetrics(metrics);
+    }
+
     public ModelJANI getModel() {
         return model;
     }
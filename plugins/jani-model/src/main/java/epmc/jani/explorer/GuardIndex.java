@@ -0,0 +1,328 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.jani.explorer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import epmc.expression.Expression;
+import epmc.expression.standard.ExpressionLiteral;
+import epmc.expression.standard.ExpressionOperator;
+import epmc.expression.standard.ExpressionType;
+import epmc.expression.standard.ExpressionTypeBoolean;
+import epmc.expression.standard.ExpressionTypeInteger;
+import epmc.operator.OperatorAnd;
+import epmc.operator.OperatorEq;
+import epmc.operator.OperatorNot;
+import epmc.value.Type;
+import epmc.value.TypeBoolean;
+import epmc.value.TypeInteger;
+import epmc.value.Value;
+import epmc.value.ValueBoolean;
+import epmc.value.ValueInteger;
+
+/**
+ * Index of the edges leaving a location of an automaton.
+ * Guards of edges frequently consist of a conjunction containing tests of
+ * discrete variables for equality with a constant. For up to
+ * {@link #MAX_INDEX_VARIABLES} such variables, the index stores a table which
+ * maps each combination of values of these variables to the edges which might
+ * be enabled for it. Thus, only the guards of these candidate edges have to
+ * be evaluated, rather than the guards of all edges of the location. The
+ * edges are returned in their original order, so that the order of
+ * successors obtained is the same as without the index.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+final class GuardIndex {
+    /** Maximal number of variables the table is indexed by. */
+    private final static int MAX_INDEX_VARIABLES = 2;
+    /** Maximal number of entries of the table. */
+    private final static int MAX_TABLE_SIZE = 1 << 12;
+    /** Minimal number of edges a variable must be tested in to be used. */
+    private final static int MIN_CONSTRAINED_EDGES = 2;
+    /** Marks that an edge does not restrict the value of a variable. */
+    private final static int UNCONSTRAINED = Integer.MIN_VALUE;
+
+    /** All edges of the location, used if no index could be built. */
+    private final int[] allEdges;
+    /** Numbers of the state variables the table is indexed by. */
+    private final int[] indexVariables;
+    /** Lower bounds of the variables the table is indexed by. */
+    private final int[] lowerBounds;
+    /** Number of values of the variables the table is indexed by. */
+    private final int[] numValues;
+    /** Candidate edges for each combination of variable values. */
+    private final int[][] table;
+
+    /**
+     * Build a new guard index.
+     * None of the parameters may be {@code null}.
+     * 
+     * @param evaluators evaluators of the edges of the location
+     * @param stateVariables state variables of the explorer
+     */
+    GuardIndex(EdgeEvaluator[] evaluators, StateVariables stateVariables) {
+        assert evaluators != null;
+        assert stateVariables != null;
+        int numEdges = evaluators.length;
+        allEdges = new int[numEdges];
+        for (int edgeNr = 0; edgeNr < numEdges; edgeNr++) {
+            allEdges[edgeNr] = edgeNr;
+        }
+        List<Map<Integer,Integer>> edgeTests = new ArrayList<>();
+        for (EdgeEvaluator evaluator : evaluators) {
+            Map<Integer,Integer> tests = new HashMap<>();
+            collectTests(evaluator.getGuardExpression(), stateVariables, tests);
+            edgeTests.add(tests);
+        }
+        int[] chosen = chooseVariables(edgeTests, stateVariables);
+        if (chosen.length == 0) {
+            indexVariables = null;
+            lowerBounds = null;
+            numValues = null;
+            table = null;
+            return;
+        }
+        indexVariables = chosen;
+        lowerBounds = new int[chosen.length];
+        numValues = new int[chosen.length];
+        int tableSize = 1;
+        for (int i = 0; i < chosen.length; i++) {
+            Type type = stateVariables.get(chosen[i]).getType();
+            lowerBounds[i] = getLowerBound(type);
+            numValues[i] = getNumValues(type);
+            tableSize *= numValues[i];
+        }
+        table = new int[tableSize][];
+        Map<List<Integer>,int[]> unique = new HashMap<>();
+        int[] entryValues = new int[chosen.length];
+        for (int entry = 0; entry < tableSize; entry++) {
+            int remaining = entry;
+            for (int i = chosen.length - 1; i >= 0; i--) {
+                entryValues[i] = lowerBounds[i] + remaining % numValues[i];
+                remaining /= numValues[i];
+            }
+            List<Integer> candidates = new ArrayList<>();
+            for (int edgeNr = 0; edgeNr < numEdges; edgeNr++) {
+                if (isCandidate(edgeTests.get(edgeNr), entryValues)) {
+                    candidates.add(edgeNr);
+                }
+            }
+            int[] candidatesArray = unique.get(candidates);
+            if (candidatesArray == null) {
+                candidatesArray = new int[candidates.size()];
+                for (int i = 0; i < candidatesArray.length; i++) {
+                    candidatesArray[i] = candidates.get(i);
+                }
+                unique.put(candidates, candidatesArray);
+            }
+            table[entry] = candidatesArray;
+        }
+    }
+
+    /**
+     * Obtain the edges which might be enabled in a given node.
+     * The array returned contains the numbers of the candidate edges in
+     * ascending order. It must not be modified.
+     * 
+     * @param values values of the state variables of the node
+     * @return edges which might be enabled
+     */
+    int[] getCandidates(Value[] values) {
+        assert values != null;
+        if (table == null) {
+            return allEdges;
+        }
+        int entry = 0;
+        for (int i = 0; i < indexVariables.length; i++) {
+            Value value = values[indexVariables[i]];
+            int number;
+            if (ValueBoolean.is(value)) {
+                number = ValueBoolean.as(value).getBoolean() ? 1 : 0;
+            } else {
+                number = ValueInteger.as(value).getInt() - lowerBounds[i];
+            }
+            if (number < 0 || number >= numValues[i]) {
+                return allEdges;
+            }
+            entry = entry * numValues[i] + number;
+        }
+        return table[entry];
+    }
+
+    private boolean isCandidate(Map<Integer,Integer> tests, int[] entryValues) {
+        for (int i = 0; i < indexVariables.length; i++) {
+            Integer tested = tests.get(indexVariables[i]);
+            if (tested != null && tested != UNCONSTRAINED
+                    && tested != entryValues[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] chooseVariables(List<Map<Integer,Integer>> edgeTests,
+            StateVariables stateVariables) {
+        Map<Integer,Integer> numConstrained = new HashMap<>();
+        for (Map<Integer,Integer> tests : edgeTests) {
+            for (Map.Entry<Integer,Integer> entry : tests.entrySet()) {
+                if (entry.getValue() != UNCONSTRAINED) {
+                    numConstrained.merge(entry.getKey(), 1, Integer::sum);
+                }
+            }
+        }
+        List<Integer> candidates = new ArrayList<>(numConstrained.keySet());
+        candidates.sort((a, b) -> {
+            int cmp = Integer.compare(numConstrained.get(b), numConstrained.get(a));
+            return cmp != 0 ? cmp : Integer.compare(a, b);
+        });
+        int[] chosen = new int[MAX_INDEX_VARIABLES];
+        int numChosen = 0;
+        long tableSize = 1;
+        for (int variable : candidates) {
+            if (numChosen == MAX_INDEX_VARIABLES) {
+                break;
+            }
+            if (numConstrained.get(variable) < MIN_CONSTRAINED_EDGES) {
+                break;
+            }
+            long size = tableSize * getNumValues(stateVariables.get(variable).getType());
+            if (size > MAX_TABLE_SIZE) {
+                continue;
+            }
+            tableSize = size;
+            chosen[numChosen] = variable;
+            numChosen++;
+        }
+        return Arrays.copyOf(chosen, numChosen);
+    }
+
+    /**
+     * Collect the equality tests of a guard.
+     * For each state variable which the guard requires to have a specific
+     * value, this value is stored in the map given. If a variable is required
+     * to have different values, it is marked {@link #UNCONSTRAINED}, as the
+     * guard evaluator will then reject the edge anyway.
+     * 
+     * @param guard guard to collect tests of
+     * @param stateVariables state variables of the explorer
+     * @param tests map to store tests in
+     */
+    private static void collectTests(Expression guard,
+            StateVariables stateVariables, Map<Integer,Integer> tests) {
+        if (!ExpressionOperator.is(guard)) {
+            addTest(guard, true, stateVariables, tests);
+            return;
+        }
+        ExpressionOperator operator = ExpressionOperator.as(guard);
+        if (operator.getOperator().equals(OperatorAnd.AND)) {
+            for (Expression operand : operator.getOperands()) {
+                collectTests(operand, stateVariables, tests);
+            }
+        } else if (operator.getOperator().equals(OperatorNot.NOT)) {
+            addTest(operator.getOperand1(), false, stateVariables, tests);
+        } else if (operator.getOperator().equals(OperatorEq.EQ)) {
+            Expression left = operator.getOperand1();
+            Expression right = operator.getOperand2();
+            if (ExpressionLiteral.is(left)) {
+                addTest(right, left, stateVariables, tests);
+            } else if (ExpressionLiteral.is(right)) {
+                addTest(left, right, stateVariables, tests);
+            }
+        }
+    }
+
+    private static void addTest(Expression variable, boolean value,
+            StateVariables stateVariables, Map<Integer,Integer> tests) {
+        if (!stateVariables.contains(variable)) {
+            return;
+        }
+        int varNr = stateVariables.getVariableNumber(variable);
+        if (!TypeBoolean.is(stateVariables.get(varNr).getType())) {
+            return;
+        }
+        addTest(varNr, value ? 1 : 0, tests);
+    }
+
+    private static void addTest(Expression variable, Expression literal,
+            StateVariables stateVariables, Map<Integer,Integer> tests) {
+        if (!stateVariables.contains(variable)) {
+            return;
+        }
+        int varNr = stateVariables.getVariableNumber(variable);
+        Type type = stateVariables.get(varNr).getType();
+        ExpressionLiteral expressionLiteral = ExpressionLiteral.as(literal);
+        ExpressionType literalType = expressionLiteral.getType();
+        if (TypeBoolean.is(type)
+                && literalType.equals(ExpressionTypeBoolean.TYPE_BOOLEAN)) {
+            ValueBoolean value = TypeBoolean.get().newValue();
+            value.set(expressionLiteral.getValue());
+            addTest(varNr, value.getBoolean() ? 1 : 0, tests);
+        } else if (getNumValues(type) > 0
+                && literalType.equals(ExpressionTypeInteger.TYPE_INTEGER)) {
+            ValueInteger value = TypeInteger.get().newValue();
+            value.set(expressionLiteral.getValue());
+            addTest(varNr, value.getInt(), tests);
+        }
+    }
+
+    private static void addTest(int varNr, int value, Map<Integer,Integer> tests) {
+        Integer previous = tests.get(varNr);
+        if (previous == null) {
+            tests.put(varNr, value);
+        } else if (previous != value) {
+            tests.put(varNr, UNCONSTRAINED);
+        }
+    }
+
+    private static int getLowerBound(Type type) {
+        if (TypeBoolean.is(type)) {
+            return 0;
+        }
+        return TypeInteger.as(type).getLowerInt();
+    }
+
+    /**
+     * Obtain the number of values of a variable type.
+     * For types not supported by the index, -1 is returned.
+     * 
+     * @param type type to obtain number of values of
+     * @return number of values of the type, or -1
+     */
+    private static int getNumValues(Type type) {
+        if (TypeBoolean.is(type)) {
+            return 2;
+        }
+        if (!TypeInteger.isIntegerBothBounded(type)) {
+            return -1;
+        }
+        TypeInteger typeInteger = TypeInteger.as(type);
+        long numValues = (long) typeInteger.getUpperInt() - typeInteger.getLowerInt() + 1;
+        if (numValues > MAX_TABLE_SIZE) {
+            return -1;
+        }
+        return (int) numValues;
+    }
+}
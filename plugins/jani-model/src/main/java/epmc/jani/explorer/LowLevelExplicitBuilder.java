@@ -1,22 +1,28 @@
 package epmc.jani.explorer;
 
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import epmc.graph.LowLevel;
 import epmc.graph.LowLevel.Builder;
 import epmc.graph.explicit.GraphBuilderExplorer;
 import epmc.graph.explorer.Explorer;
+import epmc.graph.options.OptionsGraph;
 import epmc.jani.model.ModelJANI;
 import epmc.modelchecker.Engine;
 import epmc.modelchecker.EngineExplicit;
 import epmc.modelchecker.EngineExplorer;
 import epmc.modelchecker.Model;
 import epmc.modelchecker.UtilModelChecker;
+import epmc.modelchecker.options.OptionsModelChecker;
+import epmc.options.Options;
 
 public final class LowLevelExplicitBuilder implements LowLevel.Builder {
     public final static String IDENTIFIER = "jani-explicit";
     
+    private final static String NEWLINE = "\n";
     private Model model;
     private Engine engine;
     private Set<Object> graphProperties = new LinkedHashSet<>();
@@ -64,9 +70,16 @@ public final class LowLevelExplicitBuilder implements LowLevel.Builder {
                             graphProperties, nodeProperties, edgeProperties);
             GraphBuilderExplorer builder = new GraphBuilderExplorer();
             builder.setExplorer(explorer);
+            builder.setWorkerExplorerSupplier(() -> (Explorer) UtilModelChecker.buildLowLevel
+                    (model, EngineExplorer.ENGINE_EXPLORER,
+                            graphProperties, nodeProperties, edgeProperties));
             builder.addDerivedGraphProperties(graphProperties);
             builder.addDerivedNodeProperties(nodeProperties);
             builder.addDerivedEdgeProperties(edgeProperties);
+            if (Options.get().getString(OptionsGraph.GRAPH_CACHE_DIRECTORY) != null
+                    || Options.get().getString(OptionsGraph.GRAPH_CHECKPOINT_DIRECTORY) != null) {
+                builder.setCacheKey(computeCacheKey());
+            }
             builder.build();
             return builder.getGraph();
         } else {
@@ -74,4 +87,25 @@ public final class LowLevelExplicitBuilder implements LowLevel.Builder {
         }
     }
 
+    /**
+     * Compute key identifying model and constants for the graph cache and
+     * for checkpoints.
+     * The key consists of the JANI representation of the model and the
+     * constants given in the options.
+     * 
+     * @return key identifying model and constants
+     */
+    private String computeCacheKey() {
+        StringBuilder key = new StringBuilder();
+        key.append(((ModelJANI) model).generate());
+        key.append(NEWLINE);
+        Map<String,Object> constants = Options.get().get(OptionsModelChecker.CONST);
+        if (constants != null) {
+            key.append(new TreeMap<>(constants));
+        }
+        key.append(NEWLINE);
+        key.append(Options.get().getBoolean(OptionsJANIExplorer.JANI_EXPLORER_SYMMETRY_REDUCTION));
+        key.append(Options.get().getBoolean(OptionsJANIExplorer.JANI_EXPLORER_PARTIAL_ORDER_REDUCTION));
+        return key.toString();
+    }
 }
@@ -36,6 +36,7 @@ public final class MessagesJANIExplorer {
     public final static Message DONE_BUILDING_EXPLORER = newMessage().setIdentifier("done-building-explorer").build();
     public final static Message START_BUILDING_INITIAL_STATES_EXPLORER = newMessage().setIdentifier("start-building-initial-states-explorer").build();
     public final static Message DONE_BUILDING_INITIAL_STATES_EXPLORER = newMessage().setIdentifier("done-building-initial-states-explorer").build();
+    public final static Message SYMMETRY_REDUCTION_GROUPS = newMessage().setIdentifier("symmetry-reduction-groups").build();
 
     /**
      * Creates a new message with given identifier with this resource bundle.
@@ -40,6 +40,7 @@ import epmc.value.Value;
 import epmc.value.ValueAlgebra;
 import epmc.value.ValueBitStoreable;
 import epmc.value.ValueBoolean;
+import epmc.value.ValueEnumerable;
 import epmc.value.ValueNumBitsKnown;
 import epmc.value.ValueObject;
 import epmc.value.ValueRange;
@@ -58,6 +59,8 @@ public final class NodeJANI implements ExplorerNode {
     private final StateVariables stateVariables;
     private final Value[] initialValues;
     private final OperatorEvaluator set[];
+    private final StateEncoding encoding;
+    private final ValueEnumerable[] enumerables;
     public NodeJANI(ExplorerJANI explorer, StateVariables stateVariables) {
         this(null, explorer, stateVariables);
     }
@@ -104,6 +107,13 @@ public final class NodeJANI implements ExplorerNode {
             }
         }
         this.numBits = numBits;
+        encoding = stateVariables.getEncoding();
+        enumerables = new ValueEnumerable[variables.size()];
+        for (int varNr = 0; varNr < variables.size(); varNr++) {
+            if (encoding.getFieldBits(varNr) != StateEncoding.UNPACKED) {
+                enumerables[varNr] = ValueEnumerable.as(values[varNr]);
+            }
+        }
         this.variablesSetMarks = new boolean[variables.size()];
         this.variablesSet = new int[variables.size()];
     }
@@ -129,19 +139,44 @@ public final class NodeJANI implements ExplorerNode {
     @Override
     public void read(BitStream reader) {
         assert reader != null;
-        for (int varNr = 0; varNr < values.length; varNr++) {
-            if (storeVariables[varNr]) {
+        for (int group = 0; group < encoding.getNumGroups(); group++) {
+            int from = encoding.getGroupFrom(group);
+            int groupBits = encoding.getGroupBits(group);
+            if (groupBits == StateEncoding.UNPACKED) {
+                int varNr = encoding.getStoredVariable(from);
                 ValueBitStoreable.as(values[varNr]).read(reader);
+                continue;
+            }
+            long word = reader.readBits(groupBits);
+            int to = encoding.getGroupTo(group);
+            for (int index = from; index < to; index++) {
+                int varNr = encoding.getStoredVariable(index);
+                int fieldBits = encoding.getFieldBits(varNr);
+                enumerables[varNr].setValueNumber((int) (word & ~(~0L << fieldBits)));
+                word >>>= fieldBits;
             }
         }
     }
 
     @Override
     public void write(BitStream writer) {
-        for (int varNr = 0; varNr < values.length; varNr++) {
-            if (storeVariables[varNr]) {
+        for (int group = 0; group < encoding.getNumGroups(); group++) {
+            int from = encoding.getGroupFrom(group);
+            int groupBits = encoding.getGroupBits(group);
+            if (groupBits == StateEncoding.UNPACKED) {
+                int varNr = encoding.getStoredVariable(from);
                 ValueBitStoreable.as(values[varNr]).write(writer);
+                continue;
+            }
+            long word = 0L;
+            int shift = 0;
+            int to = encoding.getGroupTo(group);
+            for (int index = from; index < to; index++) {
+                int varNr = encoding.getStoredVariable(index);
+                word |= Integer.toUnsignedLong(enumerables[varNr].getValueNumber()) << shift;
+                shift += encoding.getFieldBits(varNr);
             }
+            writer.writeBits(word, groupBits);
         }
     }
 
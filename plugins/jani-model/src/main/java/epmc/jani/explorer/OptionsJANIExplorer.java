@@ -35,4 +35,11 @@ public enum OptionsJANIExplorer {
     JANI_EXPLORER_ASSIGNMENT_EVALUATOR_CLASS,
     /** Initial states enumeration method. */
     JANI_EXPLORER_INITIAL_ENUMERATOR,
+    /** Whether to reduce state space by symmetries of replicated automata. */
+    JANI_EXPLORER_SYMMETRY_REDUCTION,
+    /** Whether to use partial order reduction for MDPs. */
+    JANI_EXPLORER_PARTIAL_ORDER_REDUCTION,
+    /** Maximal number of local states of each automaton of a parallel
+     * composition to cache successors of (0 to disable caching). */
+    JANI_EXPLORER_SUCCESSOR_CACHE_SIZE,
 }
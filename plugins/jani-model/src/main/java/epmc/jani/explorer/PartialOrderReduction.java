@@ -0,0 +1,282 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+package epmc.jani.explorer;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import epmc.expression.Expression;
+import epmc.expression.standard.UtilExpressionStandard;
+import epmc.jani.model.Action;
+import epmc.jani.model.AssignmentSimple;
+import epmc.jani.model.Automaton;
+import epmc.jani.model.Destination;
+import epmc.jani.model.Edge;
+import epmc.jani.model.Location;
+import epmc.jani.model.ModelJANI;
+import epmc.jani.model.Variable;
+
+/**
+ * Ample set partial order reduction for MDPs composed by synchronisation
+ * vectors.
+ * The reduction is based on a static analysis of the automata of the
+ * composition. An edge of an automaton instance is called local if its
+ * action only occurs in a single synchronisation vector in which no other
+ * automaton participates, if its guard, probabilities and assignments only
+ * refer to non-transient local variables of the automaton, and if neither
+ * its source nor target locations assign transient values. Local edges are
+ * independent of the edges of all other automata and invisible to
+ * properties, as JANI properties cannot refer to local variables. A location
+ * is called reducible if all of its edges are local and none of them lies
+ * on a cycle of the location graph of the automaton.
+ * If in a state some automaton is in a reducible location and has exactly
+ * one enabled edge, this edge forms an ample set consisting of a single
+ * action. Only this action is then explored. Because each reduced step
+ * moves an automaton to a strongly connected component of its location
+ * graph from which it cannot return, each cycle of the reduced state space
+ * contains fully expanded states only. Thus, the conditions for preserving
+ * maximal and minimal probabilities of stutter-insensitive properties are
+ * fulfilled.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+final class PartialOrderReduction {
+    /** Marks that an action does not lead to a unique local vector. */
+    private final static int NO_VECTOR = -1;
+
+    /** Automata of the synchronisation vector composition. */
+    private final ExplorerComponentAutomaton[] automata;
+    /** For each automaton and location, actions of edges if reducible. */
+    private final int[][][] reducibleActions;
+    /** For each automaton and location, the vector for each action. */
+    private final int[][][] reducibleVectors;
+
+    /**
+     * Construct a new partial order reduction.
+     * None of the parameters may be {@code null}.
+     * 
+     * @param model model explored
+     * @param automata automata of the synchronisation vector composition
+     * @param actionMap map from actions to their numbers
+     * @param vectorAutomata automata participating in each vector
+     * @param vectorActions actions of the automata participating in each vector
+     */
+    PartialOrderReduction(ModelJANI model, ExplorerComponentAutomaton[] automata,
+            Map<Action,Integer> actionMap, int[][] vectorAutomata, int[][] vectorActions) {
+        assert model != null;
+        assert automata != null;
+        assert actionMap != null;
+        assert vectorAutomata != null;
+        assert vectorActions != null;
+        this.automata = automata;
+        reducibleActions = new int[automata.length][][];
+        reducibleVectors = new int[automata.length][][];
+        for (int autNr = 0; autNr < automata.length; autNr++) {
+            Map<Integer,Integer> localVectors = computeLocalVectors(autNr, vectorAutomata, vectorActions);
+            prepareAutomaton(model, autNr, actionMap, localVectors);
+        }
+    }
+
+    /**
+     * Compute the ample vector for a state node.
+     * All automata of the composition must have been queried with the node
+     * before calling this method. If the node can be reduced, the number of
+     * the synchronisation vector forming the ample set is returned.
+     * Otherwise, {@code -1} is returned and all vectors must be explored.
+     * 
+     * @param node state node to compute ample vector of
+     * @return number of ample vector, or {@code -1}
+     */
+    int computeAmpleVector(NodeJANI node) {
+        assert node != null;
+        for (int autNr = 0; autNr < automata.length; autNr++) {
+            ExplorerComponentAutomaton automaton = automata[autNr];
+            int location = automaton.getLocationNumber(node);
+            int[] actions = reducibleActions[autNr][location];
+            if (actions == null || automaton.getNumSuccessors() != 1) {
+                continue;
+            }
+            for (int index = 0; index < actions.length; index++) {
+                int action = actions[index];
+                if (automaton.getActionTo(action) - automaton.getActionFrom(action) > 0) {
+                    return reducibleVectors[autNr][location][index];
+                }
+            }
+        }
+        return NO_VECTOR;
+    }
+
+    private void prepareAutomaton(ModelJANI model, int autNr,
+            Map<Action,Integer> actionMap, Map<Integer,Integer> localVectors) {
+        ExplorerComponentAutomaton explorerAutomaton = automata[autNr];
+        Automaton automaton = explorerAutomaton.getAutomaton();
+        int numLocations = automaton.getLocations().size();
+        reducibleActions[autNr] = new int[numLocations][];
+        reducibleVectors[autNr] = new int[numLocations][];
+        if (numLocations == 1) {
+            return;
+        }
+        Set<Expression> locals = new HashSet<>();
+        for (Variable variable : automaton.getVariablesNonTransient()) {
+            locals.add(variable.getIdentifier());
+        }
+        Map<Location,Set<Location>> reachable = computeReachable(automaton);
+        for (Location location : automaton.getLocations()) {
+            boolean reducible = location.getTransientValueAssignmentsOrEmpty().isEmpty();
+            Map<Integer,Integer> actionToVector = new HashMap<>();
+            for (Edge edge : automaton.getEdges()) {
+                if (!reducible) {
+                    break;
+                }
+                if (edge.getLocation() != location) {
+                    continue;
+                }
+                int action = actionMap.get(edge.getActionOrSilent());
+                Integer vector = localVectors.get(action);
+                reducible = vector != null
+                        && isLocalEdge(model, edge, locals)
+                        && !isOnCycle(edge, reachable);
+                if (reducible) {
+                    actionToVector.put(action, vector);
+                }
+            }
+            if (!reducible || actionToVector.isEmpty()) {
+                continue;
+            }
+            int locNr = explorerAutomaton.getLocationNumber(location);
+            int[] actions = new int[actionToVector.size()];
+            int[] vectors = new int[actionToVector.size()];
+            int index = 0;
+            for (Map.Entry<Integer,Integer> entry : actionToVector.entrySet()) {
+                actions[index] = entry.getKey();
+                vectors[index] = entry.getValue();
+                index++;
+            }
+            reducibleActions[autNr][locNr] = actions;
+            reducibleVectors[autNr][locNr] = vectors;
+        }
+    }
+
+    /**
+     * Compute the actions of an automaton which are purely local.
+     * An action is local if it occurs in exactly one synchronisation vector
+     * for the automaton, and no other automaton takes part in this vector.
+     * The result maps each such action to the number of this vector.
+     * 
+     * @param autNr number of automaton
+     * @param vectorAutomata automata participating in each vector
+     * @param vectorActions actions of the automata participating in each vector
+     * @return map from local actions to their vectors
+     */
+    private static Map<Integer,Integer> computeLocalVectors(int autNr,
+            int[][] vectorAutomata, int[][] vectorActions) {
+        Map<Integer,Integer> result = new HashMap<>();
+        Set<Integer> nonLocal = new HashSet<>();
+        for (int vecNr = 0; vecNr < vectorAutomata.length; vecNr++) {
+            for (int entryNr = 0; entryNr < vectorAutomata[vecNr].length; entryNr++) {
+                if (vectorAutomata[vecNr][entryNr] != autNr) {
+                    continue;
+                }
+                int action = vectorActions[vecNr][entryNr];
+                if (vectorAutomata[vecNr].length != 1 || result.containsKey(action)) {
+                    nonLocal.add(action);
+                } else {
+                    result.put(action, vecNr);
+                }
+            }
+        }
+        result.keySet().removeAll(nonLocal);
+        return result;
+    }
+
+    private static boolean isLocalEdge(ModelJANI model, Edge edge, Set<Expression> locals) {
+        if (edge.getRate() != null
+                || !isLocalExpression(model, edge.getGuardExpressionOrTrue(), locals)) {
+            return false;
+        }
+        for (Destination destination : edge.getDestinations()) {
+            if (!destination.getLocation().getTransientValueAssignmentsOrEmpty().isEmpty()
+                    || !isLocalExpression(model, destination.getProbabilityExpressionOrOne(), locals)) {
+                return false;
+            }
+            for (AssignmentSimple assignment : destination.getAssignmentsOrEmpty()) {
+                if (!locals.contains(assignment.getRef().getIdentifier())
+                        || !isLocalExpression(model, assignment.getValue(), locals)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLocalExpression(ModelJANI model, Expression expression,
+            Set<Expression> locals) {
+        expression = model.replaceConstants(expression);
+        return locals.containsAll(UtilExpressionStandard.collectIdentifiers(expression));
+    }
+
+    private static boolean isOnCycle(Edge edge, Map<Location,Set<Location>> reachable) {
+        for (Destination destination : edge.getDestinations()) {
+            if (reachable.get(destination.getLocation()).contains(edge.getLocation())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compute the locations reachable from each location of an automaton.
+     * A location is considered to reach itself.
+     * 
+     * @param automaton automaton to compute reachable locations of
+     * @return map from locations to locations reachable from them
+     */
+    private static Map<Location,Set<Location>> computeReachable(Automaton automaton) {
+        Map<Location,Set<Location>> successors = new HashMap<>();
+        for (Location location : automaton.getLocations()) {
+            successors.put(location, new HashSet<>());
+        }
+        for (Edge edge : automaton.getEdges()) {
+            for (Destination destination : edge.getDestinations()) {
+                successors.get(edge.getLocation()).add(destination.getLocation());
+            }
+        }
+        Map<Location,Set<Location>> result = new HashMap<>();
+        for (Location location : automaton.getLocations()) {
+            Set<Location> reached = new HashSet<>();
+            Deque<Location> todo = new ArrayDeque<>();
+            reached.add(location);
+            todo.push(location);
+            while (!todo.isEmpty()) {
+                for (Location successor : successors.get(todo.pop())) {
+                    if (reached.add(successor)) {
+                        todo.push(successor);
+                    }
+                }
+            }
+            result.put(location, reached);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,135 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.jani.explorer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import epmc.value.Value;
+import epmc.value.ValueEnumerable;
+import epmc.value.ValueNumBitsKnown;
+
+/**
+ * Layout used to write the permanent variables of a state to a bit stream.
+ * Variables with a finite number of values are stored as their value
+ * numbers in fields of a fixed number of bits. Consecutive such fields are
+ * packed into groups of at most 64 bits, each of which is transferred using
+ * a single call of {@link epmc.util.BitStream#writeBits(long, int)} or
+ * {@link epmc.util.BitStream#readBits(int)} rather than bit by bit. Other
+ * variables (e.g. unbounded integers or reals) form a group of their own
+ * and are written using their {@link epmc.value.ValueBitStoreable}
+ * implementation.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+final class StateEncoding {
+    /** Marks a group consisting of a single variable which is not packed. */
+    final static int UNPACKED = -1;
+
+    /** Numbers of the permanent variables, in the order they are stored. */
+    private final int[] storedVariables;
+    /** For each variable, number of bits of its packed field, or {@link #UNPACKED}. */
+    private final int[] fieldBits;
+    /** For each group, index of its first stored variable. */
+    private final int[] groupFrom;
+    /** For each group, total number of bits, or {@link #UNPACKED}. */
+    private final int[] groupBits;
+
+    StateEncoding(StateVariables stateVariables) {
+        assert stateVariables != null;
+        int numVariables = stateVariables.getVariables().size();
+        fieldBits = new int[numVariables];
+        List<Integer> stored = new ArrayList<>();
+        List<Integer> from = new ArrayList<>();
+        List<Integer> bits = new ArrayList<>();
+        int currentBits = UNPACKED;
+        for (int varNr = 0; varNr < numVariables; varNr++) {
+            StateVariable variable = stateVariables.get(varNr);
+            fieldBits[varNr] = UNPACKED;
+            if (!variable.isPermanent()) {
+                continue;
+            }
+            Value value = variable.getType().newValue();
+            int varBits = ValueNumBitsKnown.getNumBits(value);
+            boolean packed = ValueEnumerable.is(value)
+                    && varBits != Integer.MAX_VALUE
+                    && varBits <= Integer.SIZE;
+            if (packed) {
+                fieldBits[varNr] = varBits;
+                if (currentBits == UNPACKED || currentBits + varBits > Long.SIZE) {
+                    if (currentBits != UNPACKED) {
+                        bits.add(currentBits);
+                    }
+                    from.add(stored.size());
+                    currentBits = 0;
+                }
+                currentBits += varBits;
+            } else {
+                if (currentBits != UNPACKED) {
+                    bits.add(currentBits);
+                    currentBits = UNPACKED;
+                }
+                from.add(stored.size());
+                bits.add(UNPACKED);
+            }
+            stored.add(varNr);
+        }
+        if (currentBits != UNPACKED) {
+            bits.add(currentBits);
+        }
+        storedVariables = toArray(stored);
+        groupFrom = toArray(from);
+        groupBits = toArray(bits);
+    }
+
+    int getNumGroups() {
+        return groupBits.length;
+    }
+
+    int getGroupFrom(int group) {
+        return groupFrom[group];
+    }
+
+    int getGroupTo(int group) {
+        return group + 1 < groupFrom.length
+                ? groupFrom[group + 1] : storedVariables.length;
+    }
+
+    int getGroupBits(int group) {
+        return groupBits[group];
+    }
+
+    int getStoredVariable(int index) {
+        return storedVariables[index];
+    }
+
+    int getFieldBits(int varNr) {
+        return fieldBits[varNr];
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] result = new int[list.size()];
+        for (int index = 0; index < result.length; index++) {
+            result[index] = list.get(index);
+        }
+        return result;
+    }
+}
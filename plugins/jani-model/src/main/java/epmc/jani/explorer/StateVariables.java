@@ -34,12 +34,14 @@ public final class StateVariables {
     private final List<StateVariable> variablesExternal = Collections.unmodifiableList(variables);
     private final Map<Expression,Integer> numberMap = new LinkedHashMap<>();
     private int numBits;
+    private StateEncoding encoding;
 
     public int add(StateVariable variable) {
         assert variable != null;
         int number = variables.size();
         variables.add(variable);
         numberMap.put(variable.getIdentifier(), number);
+        encoding = null;
         if (variable.isPermanent()) {
             if (TypeNumBitsKnown.getNumBits(variable.getType()) == TypeNumBitsKnown.UNKNOWN
                     || numBits == Integer.MAX_VALUE) {
@@ -99,4 +101,18 @@ public final class StateVariables {
     public List<StateVariable> getVariables() {
         return variablesExternal;
     }
+
+    /**
+     * Get the layout used to write states to bit streams.
+     * The layout is computed on first use after the last variable was
+     * added and is then shared by all nodes using these state variables.
+     * 
+     * @return layout used to write states to bit streams
+     */
+    synchronized StateEncoding getEncoding() {
+        if (encoding == null) {
+            encoding = new StateEncoding(this);
+        }
+        return encoding;
+    }
 }
@@ -0,0 +1,313 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+package epmc.jani.explorer;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import epmc.expression.Expression;
+import epmc.expression.standard.UtilExpressionStandard;
+import epmc.graph.CommonProperties;
+import epmc.jani.model.AssignmentSimple;
+import epmc.jani.model.Automaton;
+import epmc.jani.model.Destination;
+import epmc.jani.model.Edge;
+import epmc.jani.model.Location;
+import epmc.jani.model.ModelJANI;
+import epmc.jani.model.Variable;
+import epmc.operator.OperatorSet;
+import epmc.value.ContextValue;
+import epmc.value.OperatorEvaluator;
+import epmc.value.TypeWeightTransition;
+import epmc.value.UtilValue;
+import epmc.value.Value;
+
+/**
+ * Bounded cache of the successors of an automaton in a parallel composition.
+ * <p>
+ * The successors an automaton computes for a node only depend on the values
+ * of its location, of its local variables, and of the global variables it
+ * reads. In models with many processes of which only few move at a time,
+ * the same local state is thus queried again and again as part of different
+ * global states. This cache maps the projection of a node to these variables
+ * to everything the automaton provides after a query: the successors,
+ * their weights and actions, the successor range of each action, the
+ * probability sum, and whether the node is a state. Transient values assigned
+ * on edges are part of the successor nodes and are thus restored with them.
+ * On a cache hit, the successor nodes of the automaton are restored from the
+ * cache and the variables not assigned by the automaton are copied from the
+ * queried node, exactly as the automaton itself would do. Afterwards, the
+ * explorer extensions are informed about the query as after an actual one.
+ * </p>
+ * <p>
+ * The cache holds at most a given number of local states and evicts the
+ * least recently used one if this number is exceeded. It can only be used
+ * for automata without transient value assignments in locations, as these
+ * modify the queried node rather than its successors.
+ * </p>
+ * 
+ * @author Ernst Moritz Hahn
+ */
+final class SuccessorCache {
+    /** Projection of a node to the variables read by an automaton. */
+    private final static class Key {
+        private final Value[] values;
+        private int hash;
+
+        Key(int numValues) {
+            values = new Value[numValues];
+        }
+
+        Key(Key other) {
+            values = new Value[other.values.length];
+            for (int index = 0; index < values.length; index++) {
+                values[index] = UtilValue.clone(other.values[index]);
+            }
+            hash = other.hash;
+        }
+
+        void computeHash() {
+            hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash && Arrays.equals(values, other.values);
+        }
+    }
+
+    /** Successors of an automaton for a given local state. */
+    private final static class Successors {
+        private final boolean state;
+        private final NodeJANI[] nodes;
+        private final Value[] weights;
+        private final int[] labels;
+        private final int[] actionFromTo;
+        private final Value probabilitySum;
+
+        Successors(ExplorerComponentAutomaton automaton) {
+            PropertyEdge weight = automaton.getEdgeProperty(CommonProperties.WEIGHT);
+            PropertyEdgeAction label = automaton.getActions();
+            int numSuccessors = automaton.getNumSuccessors();
+            state = automaton.isState();
+            nodes = new NodeJANI[numSuccessors];
+            weights = new Value[numSuccessors];
+            labels = new int[numSuccessors];
+            for (int succNr = 0; succNr < numSuccessors; succNr++) {
+                NodeJANI node = automaton.newNode();
+                node.unmark();
+                node.setSet(automaton.getSuccessorNode(succNr));
+                nodes[succNr] = node;
+                weights[succNr] = UtilValue.clone(weight.get(succNr));
+                labels[succNr] = label.getInt(succNr);
+            }
+            actionFromTo = automaton.getActionFromTo().clone();
+            probabilitySum = UtilValue.clone(automaton.getProbabilitySum());
+        }
+    }
+
+    private final ExplorerComponentAutomaton automaton;
+    /** Numbers of the variables read by the automaton. */
+    private final int[] variables;
+    private final Map<Key,Successors> entries;
+    /** Key used to look up the node queried, referencing its values. */
+    private final Key probe;
+    private final PropertyEdgeGeneral weight;
+    private final PropertyEdgeAction label;
+    private final PropertyNodeGeneral state;
+    private final OperatorEvaluator set;
+    /** Number of queries answered from the cache. */
+    private long numHits;
+
+    /**
+     * Construct a successor cache for a component if possible.
+     * If the component is not an automaton, or its successors cannot be
+     * cached for the reasons described in the class documentation, this
+     * method returns {@code null}.
+     * 
+     * @param component component to construct cache for
+     * @param maxSize maximal number of local states to cache
+     * @return successor cache, or {@code null}
+     */
+    static SuccessorCache build(ExplorerComponent component, int maxSize) {
+        assert component != null;
+        assert maxSize > 0;
+        if (!(component instanceof ExplorerComponentAutomaton)) {
+            return null;
+        }
+        ExplorerComponentAutomaton automaton = (ExplorerComponentAutomaton) component;
+        int[] variables = computeReadVariables(automaton);
+        if (variables == null) {
+            return null;
+        }
+        return new SuccessorCache(automaton, variables, maxSize);
+    }
+
+    private SuccessorCache(ExplorerComponentAutomaton automaton, int[] variables,
+            int maxSize) {
+        this.automaton = automaton;
+        this.variables = variables;
+        this.entries = new LinkedHashMap<Key,Successors>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key,Successors> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.probe = new Key(variables.length);
+        this.weight = (PropertyEdgeGeneral) automaton.getEdgeProperty(CommonProperties.WEIGHT);
+        this.label = automaton.getActions();
+        this.state = (PropertyNodeGeneral) automaton.getNodeProperty(CommonProperties.STATE);
+        this.set = ContextValue.get().getEvaluator(OperatorSet.SET,
+                TypeWeightTransition.get(), TypeWeightTransition.get());
+    }
+
+    /**
+     * Query a node using the cache.
+     * After the call, the automaton provides the successors of the node, as
+     * if {@link ExplorerComponentAutomaton#queryNode(NodeJANI)} had been
+     * called.
+     * 
+     * @param node node to query
+     */
+    void queryNode(NodeJANI node) {
+        assert node != null;
+        Value[] nodeValues = node.getValues();
+        for (int index = 0; index < variables.length; index++) {
+            probe.values[index] = nodeValues[variables[index]];
+        }
+        probe.computeHash();
+        Successors successors = entries.get(probe);
+        if (successors == null) {
+            automaton.queryNode(node);
+            entries.put(new Key(probe), new Successors(automaton));
+            return;
+        }
+        numHits++;
+        int numSuccessors = successors.nodes.length;
+        automaton.setNumSuccessors(numSuccessors);
+        for (int succNr = 0; succNr < numSuccessors; succNr++) {
+            NodeJANI successor = automaton.getSuccessorNode(succNr);
+            successor.unmark();
+            successor.setSet(successors.nodes[succNr]);
+            successor.setNotSet(node);
+            weight.set(succNr, successors.weights[succNr]);
+            label.set(succNr, successors.labels[succNr]);
+        }
+        state.set(successors.state);
+        int[] actionFromTo = automaton.getActionFromTo();
+        System.arraycopy(successors.actionFromTo, 0, actionFromTo, 0, actionFromTo.length);
+        set.apply(automaton.getProbabilitySum(), successors.probabilitySum);
+        automaton.afterQuery();
+    }
+
+    /**
+     * Obtain the number of queries answered from the cache.
+     * 
+     * @return number of queries answered from the cache
+     */
+    long getNumHits() {
+        return numHits;
+    }
+
+    /**
+     * Compute the numbers of the variables the successors of an automaton
+     * depend on.
+     * These are the location and edge variables, the local variables, and
+     * the global variables occurring in the guards, rates, probabilities,
+     * and assignments of its edges, including the transient value
+     * assignments of the edges. If the automaton has transient value
+     * assignments in locations, {@code null} is returned.
+     * 
+     * @param explorerAutomaton automaton to compute variables of
+     * @return numbers of variables read, or {@code null}
+     */
+    private static int[] computeReadVariables(ExplorerComponentAutomaton explorerAutomaton) {
+        Automaton automaton = explorerAutomaton.getAutomaton();
+        ModelJANI model = explorerAutomaton.getExplorer().getModel();
+        StateVariables stateVariables = explorerAutomaton.getExplorer().getStateVariables();
+        for (Location location : automaton.getLocations()) {
+            if (!location.getTransientValueAssignmentsOrEmpty().isEmpty()) {
+                return null;
+            }
+        }
+        Set<Expression> locals = new HashSet<>();
+        for (Variable variable : automaton.getVariablesOrEmpty()) {
+            locals.add(variable.getIdentifier());
+        }
+        Set<Expression> identifiers = new HashSet<>();
+        for (Edge edge : automaton.getEdges()) {
+            collectIdentifiers(model, edge.getGuardExpressionOrTrue(), identifiers);
+            collectIdentifiers(model, edge.getRateExpression(), identifiers);
+            for (Destination destination : edge.getDestinations()) {
+                if (!destination.getLocation().getTransientValueAssignmentsOrEmpty().isEmpty()) {
+                    return null;
+                }
+                collectIdentifiers(model, destination.getProbabilityExpressionOrOne(), identifiers);
+                for (AssignmentSimple assignment : destination.getAssignmentsOrEmpty()) {
+                    collectIdentifiers(model, assignment.getValue(), identifiers);
+                }
+            }
+        }
+        Set<Integer> result = new TreeSet<>();
+        for (int varNr : explorerAutomaton.getLocalVariableNumbers()) {
+            result.add(varNr);
+        }
+        for (Expression identifier : identifiers) {
+            if (locals.contains(identifier)) {
+                continue;
+            }
+            if (!stateVariables.contains(identifier)) {
+                return null;
+            }
+            result.add(stateVariables.getVariableNumber(identifier));
+        }
+        int[] array = new int[result.size()];
+        int index = 0;
+        for (int varNr : result) {
+            array[index] = varNr;
+            index++;
+        }
+        return array;
+    }
+
+    private static void collectIdentifiers(ModelJANI model, Expression expression,
+            Set<Expression> identifiers) {
+        if (expression == null) {
+            return;
+        }
+        expression = model.replaceConstants(expression);
+        identifiers.addAll(UtilExpressionStandard.collectIdentifiers(expression));
+    }
+}
@@ -0,0 +1,329 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.jani.explorer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import epmc.jani.model.Action;
+import epmc.jani.model.component.ComponentSynchronisationVectors;
+import epmc.jani.model.component.SynchronisationVectorElement;
+import epmc.jani.model.component.SynchronisationVectorSync;
+import epmc.operator.OperatorSet;
+import epmc.value.ContextValue;
+import epmc.value.OperatorEvaluator;
+import epmc.value.Type;
+import epmc.value.Value;
+import epmc.value.ValueEnumerable;
+import epmc.value.ValueInteger;
+
+/**
+ * Symmetry reduction for JANI models composed of replicated automata.
+ * Groups of automata instances which can be permuted arbitrarily without
+ * changing the behaviour of the system are detected from the composition of
+ * the model, which may either be a synchronisation vector composition or a
+ * tree of binary parallel compositions. Each element of such a group owns a
+ * block of state variables, consisting of its location, its local variables
+ * and its edge variable, if any. A node is brought into canonical form by
+ * sorting the blocks of each group lexicographically by the values of their
+ * variables. Because JANI properties cannot refer to local variables, the
+ * reduced model yields the same results as the original one for properties
+ * which do not distinguish between the replicated automata.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+final class SymmetryReduction {
+    /** For each group, for each member, the variables of the member. */
+    private final int[][][] groups;
+    /** For each group, for each member, the keys of its variable values. */
+    private final int[][][] keys;
+    /** For each group, the member order after sorting. */
+    private final int[][] orders;
+    /** For each group, for each member, temporary values for permuting. */
+    private final Value[][][] buffers;
+    /** For each group, for each variable of a member, the set operator. */
+    private final OperatorEvaluator[][] setters;
+
+    /**
+     * Build a symmetry reduction for the system of an explorer.
+     * If no fully symmetric group of automata could be found, {@code null}
+     * is returned.
+     * 
+     * @param explorer explorer to build symmetry reduction for
+     * @param system top-level component explorer of the explorer
+     * @return symmetry reduction, or {@code null}
+     */
+    static SymmetryReduction build(ExplorerJANI explorer, ExplorerComponent system) {
+        assert explorer != null;
+        assert system != null;
+        Value[] values = explorer.newNode().getValues();
+        List<ExplorerComponentAutomaton[]> candidates = new ArrayList<>();
+        if (system instanceof ExplorerComponentSynchronisationVectors) {
+            collectVectorGroups((ExplorerComponentSynchronisationVectors) system, candidates);
+        } else if (system instanceof ExplorerComponentParallel) {
+            collectParallelGroups((ExplorerComponentParallel) system, candidates);
+        }
+        List<int[][]> groups = new ArrayList<>();
+        for (ExplorerComponentAutomaton[] candidate : candidates) {
+            int[][] group = new int[candidate.length][];
+            for (int memberNr = 0; memberNr < candidate.length; memberNr++) {
+                group[memberNr] = candidate[memberNr].getLocalVariableNumbers();
+            }
+            if (group[0].length > 0 && isOrderable(values, group[0])) {
+                groups.add(group);
+            }
+        }
+        if (groups.isEmpty()) {
+            return null;
+        }
+        return new SymmetryReduction(groups.toArray(new int[groups.size()][][]), values);
+    }
+
+    /**
+     * Collect symmetric groups of a synchronisation vector composition.
+     * Elements are grouped if they refer to the same automaton with the same
+     * input-enabled actions. A group is only used if swapping any two of its
+     * elements maps the set of synchronisation vectors to itself.
+     * 
+     * @param vectors synchronisation vector composition explorer
+     * @param candidates list to add symmetric groups to
+     */
+    private static void collectVectorGroups(ExplorerComponentSynchronisationVectors vectors,
+            List<ExplorerComponentAutomaton[]> candidates) {
+        ComponentSynchronisationVectors component = vectors.getComponent();
+        List<SynchronisationVectorElement> elements = component.getElements();
+        Set<List<Action>> syncs = new HashSet<>();
+        for (SynchronisationVectorSync sync : component.getSyncs()) {
+            syncs.add(toList(sync.getSynchronise(), sync.getResult()));
+        }
+        boolean[] assigned = new boolean[elements.size()];
+        for (int first = 0; first < elements.size(); first++) {
+            if (assigned[first]) {
+                continue;
+            }
+            SynchronisationVectorElement firstElement = elements.get(first);
+            List<Integer> members = new ArrayList<>();
+            members.add(first);
+            for (int other = first + 1; other < elements.size(); other++) {
+                SynchronisationVectorElement otherElement = elements.get(other);
+                if (!assigned[other]
+                        && otherElement.getAutomaton() == firstElement.getAutomaton()
+                        && otherElement.getInputEnableOrEmpty().equals(firstElement.getInputEnableOrEmpty())) {
+                    members.add(other);
+                    assigned[other] = true;
+                }
+            }
+            if (members.size() < 2 || !isSymmetric(syncs, members)) {
+                continue;
+            }
+            ExplorerComponentAutomaton[] group = new ExplorerComponentAutomaton[members.size()];
+            for (int memberNr = 0; memberNr < members.size(); memberNr++) {
+                group[memberNr] = vectors.getAutomaton(members.get(memberNr));
+            }
+            candidates.add(group);
+        }
+    }
+
+    /**
+     * Collect symmetric groups of a binary parallel composition tree.
+     * A maximal subtree of parallel compositions with the same alphabet
+     * whose leaves all explore the same automaton is fully symmetric, as
+     * parallel composition with a fixed alphabet is commutative and
+     * associative.
+     * 
+     * @param parallel parallel composition explorer
+     * @param candidates list to add symmetric groups to
+     */
+    private static void collectParallelGroups(ExplorerComponentParallel parallel,
+            List<ExplorerComponentAutomaton[]> candidates) {
+        List<ExplorerComponentAutomaton> leaves = new ArrayList<>();
+        if (collectLeaves(parallel, parallel.getComponent().getActions(), leaves)
+                && isSameAutomaton(leaves)) {
+            candidates.add(leaves.toArray(new ExplorerComponentAutomaton[leaves.size()]));
+            return;
+        }
+        for (ExplorerComponent child : new ExplorerComponent[] {parallel.getLeft(), parallel.getRight()}) {
+            if (child instanceof ExplorerComponentParallel) {
+                collectParallelGroups((ExplorerComponentParallel) child, candidates);
+            }
+        }
+    }
+
+    private static boolean collectLeaves(ExplorerComponent component,
+            Set<Action> alphabet, List<ExplorerComponentAutomaton> leaves) {
+        if (component instanceof ExplorerComponentAutomaton) {
+            leaves.add((ExplorerComponentAutomaton) component);
+            return true;
+        } else if (component instanceof ExplorerComponentParallel) {
+            ExplorerComponentParallel parallel = (ExplorerComponentParallel) component;
+            return parallel.getComponent().getActions().equals(alphabet)
+                    && collectLeaves(parallel.getLeft(), alphabet, leaves)
+                    && collectLeaves(parallel.getRight(), alphabet, leaves);
+        } else {
+            return false;
+        }
+    }
+
+    private static boolean isSameAutomaton(List<ExplorerComponentAutomaton> leaves) {
+        for (ExplorerComponentAutomaton leaf : leaves) {
+            if (leaf.getAutomaton() != leaves.get(0).getAutomaton()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private SymmetryReduction(int[][][] groups, Value[] values) {
+        assert groups != null;
+        assert values != null;
+        this.groups = groups;
+        keys = new int[groups.length][][];
+        orders = new int[groups.length][];
+        buffers = new Value[groups.length][][];
+        setters = new OperatorEvaluator[groups.length][];
+        for (int groupNr = 0; groupNr < groups.length; groupNr++) {
+            int[][] group = groups[groupNr];
+            int numMembers = group.length;
+            int numVariables = group[0].length;
+            keys[groupNr] = new int[numMembers][numVariables];
+            orders[groupNr] = new int[numMembers];
+            buffers[groupNr] = new Value[numMembers][numVariables];
+            setters[groupNr] = new OperatorEvaluator[numVariables];
+            for (int varNr = 0; varNr < numVariables; varNr++) {
+                Type type = values[group[0][varNr]].getType();
+                setters[groupNr][varNr] = ContextValue.get().getEvaluator(OperatorSet.SET, type, type);
+                for (int member = 0; member < numMembers; member++) {
+                    buffers[groupNr][member][varNr] = type.newValue();
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtain the number of symmetric groups of automata found.
+     * 
+     * @return number of symmetric groups of automata
+     */
+    int getNumGroups() {
+        return groups.length;
+    }
+
+    /**
+     * Transform a node to the canonical representative of its orbit.
+     * The node is modified in place.
+     * 
+     * @param node node to transform
+     */
+    void canonicalise(NodeJANI node) {
+        assert node != null;
+        Value[] values = node.getValues();
+        for (int groupNr = 0; groupNr < groups.length; groupNr++) {
+            int[][] group = groups[groupNr];
+            int[][] groupKeys = keys[groupNr];
+            int[] order = orders[groupNr];
+            int numVariables = group[0].length;
+            for (int member = 0; member < group.length; member++) {
+                for (int varNr = 0; varNr < numVariables; varNr++) {
+                    groupKeys[member][varNr] = toKey(values[group[member][varNr]]);
+                }
+                order[member] = member;
+            }
+            boolean sorted = true;
+            for (int member = 1; member < group.length; member++) {
+                int current = order[member];
+                int position = member;
+                while (position > 0 && compare(groupKeys[order[position - 1]], groupKeys[current]) > 0) {
+                    order[position] = order[position - 1];
+                    position--;
+                    sorted = false;
+                }
+                order[position] = current;
+            }
+            if (sorted) {
+                continue;
+            }
+            Value[][] buffer = buffers[groupNr];
+            OperatorEvaluator[] set = setters[groupNr];
+            for (int member = 0; member < group.length; member++) {
+                for (int varNr = 0; varNr < numVariables; varNr++) {
+                    set[varNr].apply(buffer[member][varNr], values[group[order[member]][varNr]]);
+                }
+            }
+            for (int member = 0; member < group.length; member++) {
+                for (int varNr = 0; varNr < numVariables; varNr++) {
+                    set[varNr].apply(values[group[member][varNr]], buffer[member][varNr]);
+                }
+            }
+        }
+    }
+
+    private static boolean isSymmetric(Set<List<Action>> syncs, List<Integer> members) {
+        int first = members.get(0);
+        for (int memberNr = 1; memberNr < members.size(); memberNr++) {
+            int other = members.get(memberNr);
+            for (List<Action> sync : syncs) {
+                List<Action> swapped = new ArrayList<>(sync);
+                swapped.set(first, sync.get(other));
+                swapped.set(other, sync.get(first));
+                if (!syncs.contains(swapped)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isOrderable(Value[] values, int[] variables) {
+        for (int variable : variables) {
+            Value value = values[variable];
+            if (!ValueEnumerable.is(value) && !ValueInteger.is(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Action> toList(List<Action> synchronise, Action result) {
+        List<Action> list = new ArrayList<>(synchronise);
+        list.add(result);
+        return list;
+    }
+
+    private static int toKey(Value value) {
+        if (ValueInteger.is(value)) {
+            return ValueInteger.as(value).getInt();
+        } else {
+            return ValueEnumerable.as(value).getValueNumber();
+        }
+    }
+
+    private static int compare(int[] keys1, int[] keys2) {
+        for (int index = 0; index < keys1.length; index++) {
+            int cmp = Integer.compare(keys1[index], keys2[index]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+}
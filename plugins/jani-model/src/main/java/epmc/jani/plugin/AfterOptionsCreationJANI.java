@@ -117,6 +117,21 @@ public final class AfterOptionsCreationJANI implements AfterOptionsCreation {
         .setType(typeExplorer)
         .setCommandLine().setGui().setWeb()
         .setCategory(category).build();
+        options.addOption().setBundleName(OptionsJANIExplorer.OPTIONS_JANI_EXPLORER)
+        .setIdentifier(OptionsJANIExplorer.JANI_EXPLORER_SYMMETRY_REDUCTION)
+        .setType(typeBoolean).setDefault(false)
+        .setCommandLine().setGui().setWeb()
+        .setCategory(category).build();
+        options.addOption().setBundleName(OptionsJANIExplorer.OPTIONS_JANI_EXPLORER)
+        .setIdentifier(OptionsJANIExplorer.JANI_EXPLORER_PARTIAL_ORDER_REDUCTION)
+        .setType(typeBoolean).setDefault(false)
+        .setCommandLine().setGui().setWeb()
+        .setCategory(category).build();
+        options.addOption().setBundleName(OptionsJANIExplorer.OPTIONS_JANI_EXPLORER)
+        .setIdentifier(OptionsJANIExplorer.JANI_EXPLORER_SUCCESSOR_CACHE_SIZE)
+        .setType(typeIntegerNonNegative).setDefault(0)
+        .setCommandLine().setGui().setWeb()
+        .setCategory(category).build();
     }
 
     private void addSemantics(Options options) {
@@ -76,24 +76,13 @@ public final class ValueLocation implements ValueEnumerable, ValueNumBitsKnown,
     @Override
     public void read(BitStream reader) {
         assert reader != null;
-        locationNumber = 0;
-        int marker = 1;
-        for (int bitNr = 0; bitNr < numBits; bitNr++) {
-            if (reader.read()) {
-                locationNumber |= marker;
-            }
-            marker <<= 1;
-        }
+        locationNumber = reader.readInt(numBits);
     }
 
     @Override
     public void write(BitStream writer) {
         assert writer != null;
-        int marker = 1;
-        for (int bitNr = 0; bitNr < numBits; bitNr++) {
-            writer.write((locationNumber & marker) != 0);
-            marker <<= 1;
-        }
+        writer.writeInt(locationNumber, numBits);
     }
 
     @Override
@@ -33,6 +33,7 @@ import epmc.graphsolver.iterative.IterationMethod;
 import epmc.graphsolver.iterative.IterationStopCriterion;
 import epmc.graphsolver.iterative.MessagesGraphSolverIterative;
 import epmc.graphsolver.iterative.OptionsGraphSolverIterative;
+import epmc.graphsolver.iterative.UtilGraphSolverIterative;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicit;
 import epmc.messages.OptionsMessages;
 import epmc.modelchecker.Log;
@@ -61,19 +62,15 @@ public final class GraphSolverIterativeMultiObjectiveScheduledJavaDouble impleme
     private GraphSolverObjectiveExplicit objective;
     private GraphBuilderExplicit builder;
 
-    private Diff getDiff() {
-        IterationStopCriterion stopCriterion =
-                Options.get().getEnum(OptionsGraphSolverIterative
-                        .GRAPHSOLVER_ITERATIVE_STOP_CRITERION);
+    private Diff getDiff(IterationStopCriterion stopCriterion) {
+        assert stopCriterion != null;
         switch (stopCriterion) {
-        case ABSOLUTE:
-            return (a,b) -> Math.abs(a - b);
         case RELATIVE:
             return (a,b) -> Math.abs(a - b) / a;
+        case ABSOLUTE:
         default:
-            break;
+            return (a,b) -> Math.abs(a - b);
         }
-        return null;
     }
 
     @Override
@@ -137,8 +134,8 @@ public final class GraphSolverIterativeMultiObjectiveScheduledJavaDouble impleme
 
     private void multiobjectiveScheduled() {
         Options options = Options.get();
-        IterationMethod iterMethod = options.getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD);
-        IterationStopCriterion stopCriterion = options.getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_STOP_CRITERION);
+        IterationMethod iterMethod = UtilGraphSolverIterative.getStationaryIterationMethod();
+        IterationStopCriterion stopCriterion = UtilGraphSolverIterative.getDifferenceStopCriterion(IDENTIFIER);
         Log log = options.get(OptionsMessages.LOG);
         StopWatch timer = new StopWatch(true);
         log.send(MessagesGraphSolverIterative.ITERATING);
@@ -175,7 +172,7 @@ public final class GraphSolverIterativeMultiObjectiveScheduledJavaDouble impleme
             IterationStopCriterion stopCriterion, double tolerance,
             Value valuesV, SchedulerSimpleMultiobjectiveJava scheduler,
             int[] numIterationsResult) {
-        Diff diffOp = getDiff();
+        Diff diffOp = getDiff(stopCriterion);
         double[] values = ValueContentDoubleArray.getContent(valuesV);
         Arrays.fill(values, 0.0);
         double[] stopRewards = ValueContentDoubleArray.getContent(stopRewardsV);
@@ -231,7 +228,7 @@ public final class GraphSolverIterativeMultiObjectiveScheduledJavaDouble impleme
             IterationStopCriterion stopCriterion, double tolerance,
             Value valuesV, SchedulerSimpleMultiobjectiveJava scheduler,
             int[] numIterationsResult) {
-        Diff diffOp = getDiff();
+        Diff diffOp = getDiff(stopCriterion);
         int numStates = graph.computeNumStates();
         int[] nondetBounds = graph.getNondetBoundsJava();
         int[] targets = graph.getTargetsJava();
@@ -33,6 +33,7 @@ import epmc.graphsolver.iterative.IterationMethod;
 import epmc.graphsolver.iterative.IterationStopCriterion;
 import epmc.graphsolver.iterative.MessagesGraphSolverIterative;
 import epmc.graphsolver.iterative.OptionsGraphSolverIterative;
+import epmc.graphsolver.iterative.UtilGraphSolverIterative;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicit;
 import epmc.messages.OptionsMessages;
 import epmc.modelchecker.Log;
@@ -117,8 +118,8 @@ public final class GraphSolverIterativeMultiObjectiveWeightedJavaDouble implemen
 
     private void multiobjectiveWeighted() {
         Options options = Options.get();
-        IterationMethod iterMethod = options.getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD);
-        IterationStopCriterion stopCriterion = options.getEnum(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_STOP_CRITERION);
+        IterationMethod iterMethod = UtilGraphSolverIterative.getStationaryIterationMethod();
+        IterationStopCriterion stopCriterion = UtilGraphSolverIterative.getDifferenceStopCriterion(IDENTIFIER);
         Log log = options.get(OptionsMessages.LOG);
         StopWatch timer = new StopWatch(true);
         log.send(MessagesGraphSolverIterative.ITERATING);
@@ -165,7 +166,7 @@ public final class GraphSolverIterativeMultiObjectiveWeightedJavaDouble implemen
         int[] targets = graph.getTargetsJava();
         int[] schedulerJava = scheduler.getDecisions();
         Arrays.fill(schedulerJava, -1);
-        Diff diffOp = getDiff();
+        Diff diffOp = getDiff(stopCriterion);
         double[] weights = ValueContentDoubleArray.getContent(graph.getEdgePropertySparseNondet(CommonProperties.WEIGHT)
                 .asSparseNondetOnlyNondet()
                 .getContent());
@@ -237,7 +238,7 @@ public final class GraphSolverIterativeMultiObjectiveWeightedJavaDouble implemen
         double[] transRewards = ValueContentDoubleArray.getContent(transRewardsV);
         double[] values = ValueContentDoubleArray.getContent(valuesV);
         Arrays.fill(values, 0.0);
-        Diff diffOp = getDiff();
+        Diff diffOp = getDiff(stopCriterion);
         Arrays.fill(schedulerJava, -1);
         double[] weights = ValueContentDoubleArray.getContent(graph.getEdgePropertySparseNondet(CommonProperties.WEIGHT)
                 .asSparseNondetOnlyNondet()
@@ -285,18 +286,14 @@ public final class GraphSolverIterativeMultiObjectiveWeightedJavaDouble implemen
         numIterationsResult[0] = iterations;
     }
 
-    private Diff getDiff() {
-        IterationStopCriterion stopCriterion =
-                Options.get().getEnum(OptionsGraphSolverIterative
-                        .GRAPHSOLVER_ITERATIVE_STOP_CRITERION);
+    private Diff getDiff(IterationStopCriterion stopCriterion) {
+        assert stopCriterion != null;
         switch (stopCriterion) {
-        case ABSOLUTE:
-            return (a,b) -> Math.abs(a - b);
         case RELATIVE:
             return (a,b) -> Math.abs(a - b) / a;
+        case ABSOLUTE:
         default:
-            break;
+            return (a,b) -> Math.abs(a - b);
         }
-        return null;
     }
 }
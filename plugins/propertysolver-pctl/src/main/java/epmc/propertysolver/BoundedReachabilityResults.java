@@ -0,0 +1,134 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.propertysolver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import epmc.operator.OperatorEq;
+import epmc.util.BitSet;
+import epmc.value.ContextValue;
+import epmc.value.OperatorEvaluator;
+import epmc.value.TypeBoolean;
+import epmc.value.UtilValue;
+import epmc.value.Value;
+import epmc.value.ValueArrayAlgebra;
+import epmc.value.ValueBoolean;
+
+/**
+ * Bounded reachability results computed in advance for later properties.
+ * If several properties checked on the same graph only differ in their time
+ * bounds, the bounded reachability probabilities for all of these bounds are
+ * computed in a single batch when the first of these properties is checked.
+ * The results for the other bounds are stored in an object of this class,
+ * which is attached to the graph as a graph property, until the according
+ * properties are checked.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+final class BoundedReachabilityResults {
+    /** Graph property under which the results are stored. */
+    final static String GRAPH_PROPERTY = "pctl-bounded-reachability-results";
+
+    private final static class Entry {
+        private boolean min;
+        private BitSet zeroSet;
+        private BitSet targets;
+        private Value time;
+        private ValueArrayAlgebra result;
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Store the result of a bounded reachability computation.
+     * None of the parameters may be {@code null}. The sets are copied, while
+     * the result array is stored directly and must not be modified later.
+     * 
+     * @param min whether probabilities are minimised
+     * @param zeroSet states with probability zero
+     * @param targets target states
+     * @param time time or step bound
+     * @param result bounded reachability probabilities
+     */
+    void put(boolean min, BitSet zeroSet, BitSet targets, Value time,
+            ValueArrayAlgebra result) {
+        assert zeroSet != null;
+        assert targets != null;
+        assert time != null;
+        assert result != null;
+        Entry entry = new Entry();
+        entry.min = min;
+        entry.zeroSet = zeroSet.clone();
+        entry.targets = targets.clone();
+        entry.time = UtilValue.clone(time);
+        entry.result = result;
+        entries.add(entry);
+    }
+
+    /**
+     * Obtain a stored bounded reachability result.
+     * None of the parameters may be {@code null}. The result returned is a
+     * copy of the stored one, so it may be modified by the caller.
+     * 
+     * @param min whether probabilities are minimised
+     * @param zeroSet states with probability zero
+     * @param targets target states
+     * @param time time or step bound
+     * @return bounded reachability probabilities, or {@code null} if not stored
+     */
+    ValueArrayAlgebra get(boolean min, BitSet zeroSet, BitSet targets, Value time) {
+        assert zeroSet != null;
+        assert targets != null;
+        assert time != null;
+        for (Entry entry : entries) {
+            if (entry.min == min
+                    && entry.zeroSet.equals(zeroSet)
+                    && entry.targets.equals(targets)
+                    && equalTimes(entry.time, time)) {
+                return UtilValue.clone(entry.result);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Check whether two time or step bounds are equal.
+     * Bounds of different types, for instance integer and real ones, are
+     * compared by their numeric values.
+     * 
+     * @param time1 first bound
+     * @param time2 second bound
+     * @return whether the bounds are equal
+     */
+    static boolean equalTimes(Value time1, Value time2) {
+        assert time1 != null;
+        assert time2 != null;
+        OperatorEvaluator eq = ContextValue.get().getEvaluatorOrNull(OperatorEq.EQ,
+                time1.getType(), time2.getType());
+        if (eq == null) {
+            return false;
+        }
+        ValueBoolean cmp = TypeBoolean.get().newValue();
+        eq.apply(cmp, time1, time2);
+        return cmp.getBoolean();
+    }
+}
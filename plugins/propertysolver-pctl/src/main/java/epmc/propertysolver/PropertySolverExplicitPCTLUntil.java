@@ -20,9 +20,13 @@
 
 package epmc.propertysolver;
 
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
+import epmc.error.EPMCException;
+
 import epmc.expression.Expression;
 import epmc.expression.standard.DirType;
 import epmc.expression.standard.ExpressionLiteral;
@@ -36,8 +40,11 @@ import epmc.expression.standard.TimeBound;
 import epmc.expression.standard.evaluatorexplicit.UtilEvaluatorExplicit;
 import epmc.graph.CommonProperties;
 import epmc.graph.Semantics;
+import epmc.graph.SemanticsCTMC;
 import epmc.graph.SemanticsContinuousTime;
+import epmc.graph.SemanticsDTMC;
 import epmc.graph.SemanticsDiscreteTime;
+import epmc.graph.SemanticsMDP;
 import epmc.graph.StateMap;
 import epmc.graph.StateSet;
 import epmc.graph.UtilGraph;
@@ -49,6 +56,7 @@ import epmc.graphsolver.GraphSolverConfigurationExplicit;
 import epmc.graphsolver.UtilGraphSolver;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicitBounded;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicitBoundedReachability;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicitBoundedReachabilityBatch;
 import epmc.graphsolver.objective.GraphSolverObjectiveExplicitUnboundedReachability;
 import epmc.modelchecker.EngineExplicit;
 import epmc.modelchecker.ModelChecker;
@@ -66,6 +74,8 @@ import epmc.value.TypeAlgebra;
 import epmc.value.TypeArray;
 import epmc.value.TypeBoolean;
 import epmc.value.TypeInteger;
+import epmc.value.TypeObject;
+import epmc.value.TypeObject.StorageType;
 import epmc.value.TypeWeight;
 import epmc.value.UtilValue;
 import epmc.value.Value;
@@ -78,6 +88,20 @@ import epmc.value.ValueObject;
 
 public final class PropertySolverExplicitPCTLUntil implements PropertySolver {
     public final static String IDENTIFIER = "pctl-explicit";
+
+    /**
+     * Path formula transformed to an until formula.
+     * 
+     * @see PropertySolverExplicitPCTLUntil#toUntil(Expression, boolean)
+     */
+    private final static class UntilFormula {
+        /** Until formula, or {@code null} if transformation failed. */
+        private ExpressionTemporalUntil until;
+        /** Whether the probability of the until formula is minimised. */
+        private boolean min;
+        /** Whether the probabilities of the until formula are negated. */
+        private boolean negate;
+    }
     private ModelChecker modelChecker;
     private GraphExplicit graph;
     private StateSetExplicit computeForStates;
@@ -124,6 +148,33 @@ public final class PropertySolverExplicitPCTLUntil implements PropertySolver {
     }
 
     private StateMap doSolve(Expression property, StateSet states, boolean min) {
+        UntilFormula until = toUntil(property, min);
+        min = until.min;
+        StateSet allStates = UtilGraph.computeAllStatesExplicit(modelChecker.getLowLevel());
+        ExpressionTemporalUntil propertyTemporal = until.until;
+        Expression op1 = propertyTemporal.getOperandLeft();
+        StateMapExplicit innerResult1 = (StateMapExplicit) modelChecker.check(op1, allStates);
+        UtilGraph.registerResult(graph, op1, innerResult1);
+        Expression op2 = propertyTemporal.getOperandRight();
+        StateMapExplicit innerResult2 = (StateMapExplicit) modelChecker.check(op2, allStates);
+        UtilGraph.registerResult(graph, op1, innerResult2);
+        allStates.close();
+        this.computeForStates = (StateSetExplicit) states;
+        return solve(propertyTemporal, min, until.negate, innerResult1, innerResult2);
+    }
+
+    /**
+     * Transform a path formula to an until formula.
+     * Negations, release, finally and globally formulas are transformed to
+     * until formulas, which might require negating the result and swapping
+     * minimisation and maximisation. If the formula cannot be transformed,
+     * the until formula of the result is {@code null}.
+     * 
+     * @param property path formula to transform
+     * @param min whether the probability of the formula is minimised
+     * @return until formula
+     */
+    private UntilFormula toUntil(Expression property, boolean min) {
         boolean negate;
         if (isNot(property)) {
             ExpressionOperator propertyOperator = ExpressionOperator.as(property);
@@ -168,17 +219,11 @@ public final class PropertySolverExplicitPCTLUntil implements PropertySolver {
         } else {
             negate = false;
         }
-        StateSet allStates = UtilGraph.computeAllStatesExplicit(modelChecker.getLowLevel());
-        ExpressionTemporalUntil propertyTemporal = ExpressionTemporalUntil.as(property);
-        Expression op1 = propertyTemporal.getOperandLeft();
-        StateMapExplicit innerResult1 = (StateMapExplicit) modelChecker.check(op1, allStates);
-        UtilGraph.registerResult(graph, op1, innerResult1);
-        Expression op2 = propertyTemporal.getOperandRight();
-        StateMapExplicit innerResult2 = (StateMapExplicit) modelChecker.check(op2, allStates);
-        UtilGraph.registerResult(graph, op1, innerResult2);
-        allStates.close();
-        this.computeForStates = (StateSetExplicit) states;
-        return solve(propertyTemporal, min, negate, innerResult1, innerResult2);
+        UntilFormula result = new UntilFormula();
+        result.until = ExpressionTemporalUntil.as(property);
+        result.min = min;
+        result.negate = negate;
+        return result;
     }
 
     private StateMap solve(ExpressionTemporalUntil pathTemporal, boolean min, boolean negate, StateMapExplicit innerLeft, StateMapExplicit innerRight) {
@@ -224,36 +269,7 @@ public final class PropertySolverExplicitPCTLUntil implements PropertySolver {
         ValueArrayAlgebra values;
         NodeProperty isState = graph.getNodeProperty(CommonProperties.STATE);            
         if (timeBound.isRightBounded()) {
-            if (SemanticsContinuousTime.isContinuousTime(semanticsType)) {
-                GraphSolverObjectiveExplicitBoundedReachability objective = new GraphSolverObjectiveExplicitBoundedReachability();
-                objective.setGraph(graph);
-                objective.setMin(min);
-                objective.setTime(ValueAlgebra.as(UtilEvaluatorExplicit.evaluate(timeBound.getRight())));
-                objective.setZeroSink(zeroSet);
-                objective.setTargets(oneSet);
-                configuration.setObjective(objective);
-                configuration.solve();
-                values = objective.getResult();
-            } else {
-                int leftBound = ValueInteger.as(UtilEvaluatorExplicit.evaluate(timeBound.getLeft())).getInt();
-                int rightBound = ValueInteger.as(UtilEvaluatorExplicit.evaluate(timeBound.getRight())).getInt();
-                if (timeBound.isRightOpen()) {
-                    rightBound--;
-                }
-                if (timeBound.isLeftOpen()) {
-                    leftBound++;
-                }
-                GraphSolverObjectiveExplicitBoundedReachability objective = new GraphSolverObjectiveExplicitBoundedReachability();
-                objective.setZeroSink(zeroSet);
-                objective.setTargets(oneSet);
-                objective.setMin(min);
-                objective.setGraph(graph);
-                Value time = UtilValue.newValue(TypeInteger.get(), rightBound - leftBound);
-                objective.setTime(time);
-                configuration.setObjective(objective);
-                configuration.solve();
-                values = objective.getResult();
-            }
+            values = solveBoundedReachability(pathTemporal, min, zeroSet, oneSet);
         } else {
             GraphSolverObjectiveExplicitUnboundedReachability objective = new GraphSolverObjectiveExplicitUnboundedReachability();
             objective.setTarget(oneSet);
@@ -336,6 +352,140 @@ public final class PropertySolverExplicitPCTLUntil implements PropertySolver {
         return UtilGraph.newStateMap(computeForStates.clone(), resultValues);
     }
 
+    /**
+     * Compute the bounded reachability part of an until formula.
+     * If other properties checked on the same graph only differ from the
+     * given formula in the time bound, the results for all of their bounds
+     * are computed together in a single batch. The results for the other
+     * bounds are stored with the graph, so that checking these properties
+     * later on does not require a further iteration.
+     * 
+     * @param pathTemporal until formula with right-bounded time bound
+     * @param min whether probabilities are minimised
+     * @param zeroSet states with probability zero
+     * @param oneSet target states
+     * @return bounded reachability probabilities
+     */
+    private ValueArrayAlgebra solveBoundedReachability(ExpressionTemporalUntil pathTemporal,
+            boolean min, BitSet zeroSet, BitSet oneSet) {
+        Semantics semantics = ValueObject.as(graph.getGraphProperty(CommonProperties.SEMANTICS)).getObject();
+        Value time = computeReachabilityTime(pathTemporal.getTimeBound(), semantics);
+        BoundedReachabilityResults results = null;
+        if (graph.getGraphProperties().contains(BoundedReachabilityResults.GRAPH_PROPERTY)) {
+            results = graph.getGraphPropertyObject(BoundedReachabilityResults.GRAPH_PROPERTY);
+            ValueArrayAlgebra stored = results.get(min, zeroSet, oneSet, time);
+            if (stored != null) {
+                return stored;
+            }
+        }
+        List<Value> times = new ArrayList<>();
+        times.add(time);
+        if (SemanticsDTMC.isDTMC(semantics) || SemanticsCTMC.isCTMC(semantics)
+                || SemanticsMDP.isMDP(semantics)) {
+            collectSharedTimes(pathTemporal, min, semantics, times);
+        }
+        GraphSolverConfigurationExplicit configuration = UtilGraphSolver.newGraphSolverConfigurationExplicit();
+        if (times.size() == 1) {
+            GraphSolverObjectiveExplicitBoundedReachability objective = new GraphSolverObjectiveExplicitBoundedReachability();
+            objective.setGraph(graph);
+            objective.setMin(min);
+            objective.setTime(time);
+            objective.setZeroSink(zeroSet);
+            objective.setTargets(oneSet);
+            configuration.setObjective(objective);
+            configuration.solve();
+            return objective.getResult();
+        }
+        GraphSolverObjectiveExplicitBoundedReachabilityBatch objective = new GraphSolverObjectiveExplicitBoundedReachabilityBatch();
+        objective.setGraph(graph);
+        objective.setMin(min);
+        objective.setTimes(times);
+        objective.setZeroSink(zeroSet);
+        objective.setTargets(oneSet);
+        configuration.setObjective(objective);
+        configuration.solve();
+        if (results == null) {
+            results = new BoundedReachabilityResults();
+            TypeObject type = new TypeObject.Builder()
+                    .setClazz(BoundedReachabilityResults.class)
+                    .setStorageClass(StorageType.DIRECT)
+                    .build();
+            graph.registerGraphProperty(BoundedReachabilityResults.GRAPH_PROPERTY, type, results);
+        }
+        List<ValueArrayAlgebra> batchResults = objective.getResults();
+        for (int timeNr = 1; timeNr < times.size(); timeNr++) {
+            results.put(min, zeroSet, oneSet, times.get(timeNr), batchResults.get(timeNr));
+        }
+        return batchResults.get(0);
+    }
+
+    /**
+     * Collect the time bounds of other properties sharing the graph.
+     * Only properties whose path formula is transformed to an until formula
+     * with the same operands, the same optimisation direction, and a
+     * right-bounded time bound are considered. Bounds already contained in
+     * the list are not added again.
+     * 
+     * @param pathTemporal until formula currently checked
+     * @param min whether probabilities are minimised
+     * @param semantics semantics of the graph
+     * @param times list to add bounds to
+     */
+    private void collectSharedTimes(ExpressionTemporalUntil pathTemporal,
+            boolean min, Semantics semantics, List<Value> times) {
+        for (Expression shared : modelChecker.getSharedProperties()) {
+            if (!ExpressionQuantifier.is(shared)) {
+                continue;
+            }
+            ExpressionQuantifier quantifier = ExpressionQuantifier.as(shared);
+            boolean sharedMin = ExpressionQuantifier.computeQuantifierDirType(quantifier).isMin();
+            UntilFormula until = toUntil(quantifier.getQuantified(), sharedMin);
+            if (until.until == null || until.min != min
+                    || !until.until.getTimeBound().isRightBounded()
+                    || !until.until.getOperandLeft().equals(pathTemporal.getOperandLeft())
+                    || !until.until.getOperandRight().equals(pathTemporal.getOperandRight())) {
+                continue;
+            }
+            Value time;
+            try {
+                time = computeReachabilityTime(until.until.getTimeBound(), semantics);
+            } catch (EPMCException e) {
+                continue;
+            }
+            boolean contained = false;
+            for (Value other : times) {
+                contained |= BoundedReachabilityResults.equalTimes(other, time);
+            }
+            if (!contained) {
+                times.add(time);
+            }
+        }
+    }
+
+    /**
+     * Compute the bound of the bounded reachability part of a time bound.
+     * For continuous-time models, this is the right bound. For discrete-time
+     * models, it is the number of steps between the left and the right bound.
+     * 
+     * @param timeBound right-bounded time bound
+     * @param semantics semantics of the graph
+     * @return bound of bounded reachability
+     */
+    private static Value computeReachabilityTime(TimeBound timeBound, Semantics semantics) {
+        if (SemanticsContinuousTime.isContinuousTime(semantics)) {
+            return ValueAlgebra.as(UtilEvaluatorExplicit.evaluate(timeBound.getRight()));
+        }
+        int leftBound = ValueInteger.as(UtilEvaluatorExplicit.evaluate(timeBound.getLeft())).getInt();
+        int rightBound = ValueInteger.as(UtilEvaluatorExplicit.evaluate(timeBound.getRight())).getInt();
+        if (timeBound.isRightOpen()) {
+            rightBound--;
+        }
+        if (timeBound.isLeftOpen()) {
+            leftBound++;
+        }
+        return UtilValue.newValue(TypeInteger.get(), rightBound - leftBound);
+    }
+
     @Override
     public boolean canHandle() {
         assert property != null;
@@ -82,7 +82,7 @@ public final class BitSetBoundedLongArray implements BitSet {
         assert obj != null;
         if (obj instanceof BitSetBoundedLongArray) {
             BitSetBoundedLongArray other = (BitSetBoundedLongArray) obj;
-            int min = Math.min(content.length, other.length());
+            int min = Math.min(content.length, other.content.length);
             for (int i = 0; i < min; i++) {
                 if (content[i] != other.content[i]) {
                     return false;
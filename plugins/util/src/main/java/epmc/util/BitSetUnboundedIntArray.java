@@ -95,7 +95,7 @@ public final class BitSetUnboundedIntArray implements BitSet {
         assert obj != null;
         if (obj instanceof BitSetUnboundedIntArray) {
             BitSetUnboundedIntArray other = (BitSetUnboundedIntArray) obj;
-            int min = Math.min(content.length, other.length());
+            int min = Math.min(content.length, other.content.length);
             for (int i = 0; i < min; i++) {
                 if (content[i] != other.content[i]) {
                     return false;
@@ -27,6 +27,42 @@ public interface BitStoreableToNumber {
 
     int size();
 
+    /**
+     * Estimate the number of bytes used by the store.
+     * The estimate covers the stored objects and the index used to look
+     * them up. It is intended for monitoring, and thus may be computed from
+     * the number of objects stored rather than by measuring the data
+     * structures. The default implementation returns {@code -1}, which
+     * indicates that no estimate is available.
+     * 
+     * @return estimated number of bytes used, or {@code -1}
+     */
+    default long getNumBytes() {
+        return -1L;
+    }
+
+    /**
+     * Get the load factor of the index of the store.
+     * The load factor is the ratio of the number of objects stored to the
+     * number of slots of the hash table used to look them up. The default
+     * implementation returns {@link Double#NaN}, which indicates that the
+     * load factor is not known.
+     * 
+     * @return load factor of index, or {@link Double#NaN}
+     */
+    default double getLoadFactor() {
+        return Double.NaN;
+    }
+
+    /**
+     * Release the resources held by the store.
+     * The store must not be used afterwards. The default implementation
+     * does nothing, as stores on the Java heap are released by garbage
+     * collection.
+     */
+    default void close() {
+    }
+
     static BitStoreableToNumber newNodeStoreInt() {
         return new BitStreamToNumberInt();
     }
@@ -39,4 +75,64 @@ public interface BitStoreableToNumber {
         assert numBits >= 0;
         return new BitStreamToNumberLongArray(numBits);
     }
+
+    /**
+     * Create a store keeping the encoded objects and its index in
+     * memory-mapped files rather than on the Java heap.
+     * The files are created in a new subdirectory of the given directory, or
+     * of the system temporary directory if the directory parameter is
+     * {@code null}. They are deleted when the store is closed or on exit.
+     * 
+     * @param numBits maximal number of bits of objects to store
+     * @param directory directory to create store directory in, or {@code null}
+     * @return store keeping objects in memory-mapped files
+     */
+    static BitStoreableToNumber newNodeStoreLongArrayMapped(int numBits, String directory) {
+        assert numBits >= 0;
+        return new BitStreamToNumberMapped(numBits, directory);
+    }
+
+    /**
+     * Create a named store keeping the encoded objects and its index in
+     * memory-mapped files rather than on the Java heap.
+     * The files are kept in a subdirectory of the given directory derived
+     * from the name, and are not deleted when the store is closed. An
+     * existing store of the same name is only reopened if resuming is
+     * requested and it was created for the same number of bits; otherwise
+     * it is truncated. If the store is already open in this process, a
+     * store as by {@link #newNodeStoreLongArrayMapped(int, String)} is
+     * returned instead.
+     * 
+     * @param numBits maximal number of bits of objects to store
+     * @param directory directory to create store directory in, or {@code null}
+     * @param key name of the store
+     * @param resume whether to reopen an existing store of the same name
+     * @return store keeping objects in memory-mapped files
+     */
+    static BitStoreableToNumber newNodeStoreLongArrayMapped(int numBits, String directory,
+            String key, boolean resume) {
+        assert numBits >= 0;
+        assert key != null;
+        return new BitStreamToNumberMapped(numBits, directory, key, resume);
+    }
+
+    /**
+     * Create a store for several threads for objects of at most
+     * {@link Integer#SIZE} bits. Each object is stored in a single
+     * {@code int}.
+     * 
+     * @return concurrent store for objects of at most {@link Integer#SIZE} bits
+     */
+    static BitStoreableToNumberConcurrent newNodeStoreIntConcurrent() {
+        return new BitStreamToNumberConcurrent(Integer.SIZE);
+    }
+
+    static BitStoreableToNumberConcurrent newNodeStoreLongConcurrent() {
+        return new BitStreamToNumberConcurrent(Long.SIZE);
+    }
+
+    static BitStoreableToNumberConcurrent newNodeStoreLongArrayConcurrent(int numBits) {
+        assert numBits >= 0;
+        return new BitStreamToNumberConcurrent(numBits);
+    }
 }
@@ -0,0 +1,70 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.util;
+
+/**
+ * Store assigning numbers to {@link BitStoreable} objects which may be used
+ * by several threads at the same time.
+ * In addition to the methods of {@link BitStoreableToNumber}, which must all
+ * be thread-safe in implementing classes, the store allows to find out
+ * whether an object was newly added. This is needed for instance during
+ * parallel state space exploration, where exactly one thread shall continue
+ * exploring a newly found state.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public interface BitStoreableToNumberConcurrent extends BitStoreableToNumber {
+    /**
+     * Add object to the store if not already contained.
+     * If the object was already contained, its number is returned. Otherwise,
+     * a new number is assigned to it and {@code -number - 1} is returned.
+     * Thus, the result is negative if and only if the object was newly added.
+     * The storeable parameter must not be {@code null}.
+     * 
+     * @param storeable object to add to the store
+     * @return number of object, or {@code -number - 1} if newly added
+     */
+    int insert(BitStoreable storeable);
+
+    @Override
+    default int toNumber(BitStoreable storeable) {
+        int number = insert(storeable);
+        return number >= 0 ? number : -number - 1;
+    }
+
+    /**
+     * Obtain a thread-safe view of the given store.
+     * If the store is already concurrent, it is returned unchanged. Otherwise,
+     * all accesses to the store are synchronised. The store must not be used
+     * directly afterwards.
+     * The store parameter must not be {@code null}.
+     * 
+     * @param store store to obtain thread-safe view of
+     * @return thread-safe view of the store
+     */
+    static BitStoreableToNumberConcurrent asConcurrent(BitStoreableToNumber store) {
+        assert store != null;
+        if (store instanceof BitStoreableToNumberConcurrent) {
+            return (BitStoreableToNumberConcurrent) store;
+        }
+        return new BitStreamToNumberSynchronized(store);
+    }
+}
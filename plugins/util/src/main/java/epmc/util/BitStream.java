@@ -40,58 +40,77 @@ public interface BitStream {
      */
     void write(boolean value);
 
-    default int readInt() {
-        int result = 0;
-        int mark = 1;
-        for (int bitNr = 0; bitNr < Integer.SIZE; bitNr++) {
-            result |= read() ? mark : 0;
-            mark <<= 1;
+    /**
+     * Read a group of bits from the bit stream.
+     * The first bit read is stored in the least significant bit of the
+     * result, the next one in the next more significant bit, and so on.
+     * Bits of the result above the given number of bits are zero.
+     * The read cursor is increased by the number of bits read.
+     * The default implementation reads the bits one by one; bit streams
+     * backed by machine words should override this method to transfer the
+     * bits using a few shift and mask operations instead.
+     * 
+     * @param numBits number of bits to read, between 0 and 64
+     * @return bits read
+     */
+    default long readBits(int numBits) {
+        assert numBits >= 0 : numBits;
+        assert numBits <= Long.SIZE : numBits;
+        long result = 0L;
+        long mark = 1L;
+        for (int bitNr = 0; bitNr < numBits; bitNr++) {
+            result |= read() ? mark : 0L;
+            mark <<= 1L;
         }
         return result;
     }
+
+    /**
+     * Write a group of bits to the bit stream.
+     * The least significant bit of the value is written first, bits above
+     * the given number of bits are ignored. The write cursor is increased
+     * by the number of bits written. As for {@link #readBits(int)}, the
+     * default implementation writes the bits one by one.
+     * 
+     * @param value bits to write
+     * @param numBits number of bits to write, between 0 and 64
+     */
+    default void writeBits(long value, int numBits) {
+        assert numBits >= 0 : numBits;
+        assert numBits <= Long.SIZE : numBits;
+        long mark = 1L;
+        for (int bitNr = 0; bitNr < numBits; bitNr++) {
+            write((value & mark) != 0L);
+            mark <<= 1L;
+        }
+    }
+
+    default int readInt() {
+        return (int) readBits(Integer.SIZE);
+    }
     
     default void writeInt(int value) {
-        int mark = 1;
-        for (int bitNr = 0; bitNr < Integer.SIZE; bitNr++) {
-            write((value & mark) != 0);
-            mark <<= 1;
-        }
+        writeBits(value, Integer.SIZE);
     }
 
     default int readInt(int numBits) {
-        int result = 0;
-        int mark = 1;
-        for (int bitNr = 0; bitNr < numBits; bitNr++) {
-            result |= read() ? mark : 0;
-            mark <<= 1;
-        }
-        return result;
+        assert numBits >= 0 : numBits;
+        assert numBits <= Integer.SIZE : numBits;
+        return (int) readBits(numBits);
     }
 
     default void writeInt(int value, int numBits) {
-        int mark = 1;
-        for (int bitNr = 0; bitNr < numBits; bitNr++) {
-            write((value & mark) != 0L);
-            mark <<= 1;
-        }
+        assert numBits >= 0 : numBits;
+        assert numBits <= Integer.SIZE : numBits;
+        writeBits(value, numBits);
     }
     
     default long readLong() {
-        long result = 0L;
-        long mark = 1L;
-        for (int bitNr = 0; bitNr < Long.SIZE; bitNr++) {
-            result |= read() ? mark : 0L;
-            mark <<= 1L;
-        }
-        return result;
+        return readBits(Long.SIZE);
     }
     
     default void writeLong(long value) {
-        long mark = 1L;
-        for (int bitNr = 0; bitNr < Long.SIZE; bitNr++) {
-            write((value & mark) != 0L);
-            mark <<= 1L;
-        }
+        writeBits(value, Long.SIZE);
     }
     
     default double readDouble() {
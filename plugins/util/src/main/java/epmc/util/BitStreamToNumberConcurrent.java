@@ -0,0 +1,355 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Lock-free store of bit-encoded objects for use by several threads.
+ * <p>
+ * Objects are encoded into a fixed number of {@code long} words. The words
+ * of all objects are stored consecutively in large {@code long[]} chunks,
+ * indexed by the number of the object, so that no per-object Java objects
+ * are needed. Objects of at most {@link Integer#SIZE} bits are stored in
+ * {@code int[]} chunks instead, using half of the memory. The index mapping objects to their numbers is a hash table
+ * using open addressing, split into segments selected by the upper bits of
+ * the hash value. Each table entry is a single {@code long} containing the
+ * hash value of the object in its upper and the object number in its lower
+ * half. New entries are added using compare-and-swap operations. A thread
+ * adding an entry first claims the table position, then obtains a new number
+ * and stores the object, and afterwards publishes the number in the entry.
+ * Other threads looking for an object with the same hash value wait until
+ * the number has been published.
+ * </p>
+ * <p>
+ * Segments grow when their load factor exceeds a fixed bound. Insertions
+ * into a segment hold a shared stamp of the segment lock, which only
+ * becomes exclusive while this segment is being resized.
+ * </p>
+ * 
+ * @author Ernst Moritz Hahn
+ */
+final class BitStreamToNumberConcurrent implements BitStoreableToNumberConcurrent {
+    private final class ReadWriteHelper implements BitStream {
+        private final long[] buffer = new long[numWords];
+        private long[] words;
+        private int offset;
+        private int index;
+
+        private void set(long[] words, int offset) {
+            this.words = words;
+            this.offset = offset;
+            this.index = 0;
+        }
+
+        @Override
+        public boolean read() {
+            int word = offset + (index >>> LOG2LONGSIZE);
+            boolean value = (words[word] & (1L << index)) != 0;
+            index++;
+            return value;
+        }
+
+        @Override
+        public void write(boolean value) {
+            int word = offset + (index >>> LOG2LONGSIZE);
+            if (value) {
+                words[word] |= 1L << index;
+            } else {
+                words[word] &= ~(1L << index);
+            }
+            index++;
+        }
+
+        @Override
+        public long readBits(int numBits) {
+            long result = BitStreamWords.readBits(words, offset, index, numBits);
+            index += numBits;
+            return result;
+        }
+
+        @Override
+        public void writeBits(long value, int numBits) {
+            BitStreamWords.writeBits(words, offset, index, value, numBits);
+            index += numBits;
+        }
+    }
+
+    private final static class Segment {
+        private final StampedLock lock = new StampedLock();
+        private final AtomicInteger size = new AtomicInteger();
+        private AtomicLongArray table = new AtomicLongArray(INITIAL_SEGMENT_CAPACITY);
+    }
+
+    private final static int LOG2LONGSIZE = 6;
+    /** Logarithm of number of objects stored in a single chunk. */
+    private final static int LOG2_CHUNK_SIZE = 16;
+    private final static int CHUNK_SIZE = 1 << LOG2_CHUNK_SIZE;
+    private final static int NUM_CHUNKS = 1 << (Integer.SIZE - 1 - LOG2_CHUNK_SIZE);
+    /** Logarithm of number of hash table segments. */
+    private final static int LOG2_NUM_SEGMENTS = 8;
+    private final static int NUM_SEGMENTS = 1 << LOG2_NUM_SEGMENTS;
+    private final static int INITIAL_SEGMENT_CAPACITY = 64;
+    /** Table entry denoting an empty position. */
+    private final static long EMPTY = 0L;
+    /** Lower half of entry of position claimed but not yet published. */
+    private final static int BUSY = 1;
+    /** Offset added to object numbers stored in lower half of entries. */
+    private final static int NUMBER_OFFSET = 2;
+    /** Result of insertion attempt into segment which has to grow first. */
+    private final static int GROW = Integer.MIN_VALUE;
+    private final static long LOWER_HALF = 0xFFFFFFFFL;
+
+    private final int numWords;
+    /** Whether objects are stored in {@code int[]} rather than {@code long[]} chunks. */
+    private final boolean packInt;
+    private final ThreadLocal<ReadWriteHelper> helpers = ThreadLocal.withInitial(ReadWriteHelper::new);
+    private final AtomicReferenceArray<long[]> chunks;
+    private final AtomicReferenceArray<int[]> intChunks;
+    private final Segment[] segments = new Segment[NUM_SEGMENTS];
+    private final AtomicInteger numObjects = new AtomicInteger();
+
+    BitStreamToNumberConcurrent(int numBits) {
+        assert numBits >= 0;
+        int numWords = numBits / Long.SIZE + (numBits % Long.SIZE > 0 ? 1 : 0);
+        this.numWords = Math.max(numWords, 1);
+        assert (long) this.numWords * CHUNK_SIZE <= Integer.MAX_VALUE;
+        this.packInt = numBits <= Integer.SIZE;
+        if (packInt) {
+            chunks = null;
+            intChunks = new AtomicReferenceArray<>(NUM_CHUNKS);
+        } else {
+            chunks = new AtomicReferenceArray<>(NUM_CHUNKS);
+            intChunks = null;
+        }
+        for (int segmentNr = 0; segmentNr < NUM_SEGMENTS; segmentNr++) {
+            segments[segmentNr] = new Segment();
+        }
+    }
+
+    @Override
+    public int insert(BitStoreable storeable) {
+        assert storeable != null;
+        ReadWriteHelper helper = helpers.get();
+        long[] key = helper.buffer;
+        Arrays.fill(key, 0L);
+        helper.set(key, 0);
+        storeable.write(helper);
+        int hash = hash(key);
+        Segment segment = segments[hash >>> (Integer.SIZE - LOG2_NUM_SEGMENTS)];
+        while (true) {
+            long stamp = segment.lock.readLock();
+            AtomicLongArray table = segment.table;
+            int result;
+            try {
+                result = insert(segment, table, key, hash);
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+            if (result == GROW) {
+                grow(segment, table);
+            } else {
+                return result;
+            }
+        }
+    }
+
+    private int insert(Segment segment, AtomicLongArray table, long[] key, int hash) {
+        int mask = table.length() - 1;
+        int position = hash & mask;
+        long claim = ((long) hash << Integer.SIZE) | BUSY;
+        while (true) {
+            long entry = table.get(position);
+            if (entry == EMPTY) {
+                if (segment.size.incrementAndGet() > maxSize(table)) {
+                    segment.size.decrementAndGet();
+                    return GROW;
+                }
+                if (table.compareAndSet(position, EMPTY, claim)) {
+                    int number = numObjects.getAndIncrement();
+                    assert number < Integer.MAX_VALUE - NUMBER_OFFSET;
+                    store(number, key);
+                    table.set(position, ((long) hash << Integer.SIZE)
+                            | ((number + NUMBER_OFFSET) & LOWER_HALF));
+                    return -number - 1;
+                }
+                segment.size.decrementAndGet();
+                continue;
+            }
+            if ((int) (entry >>> Integer.SIZE) == hash) {
+                while ((int) entry == BUSY) {
+                    Thread.yield();
+                    entry = table.get(position);
+                }
+                int number = (int) entry - NUMBER_OFFSET;
+                if (equals(number, key)) {
+                    return number;
+                }
+            }
+            position = (position + 1) & mask;
+        }
+    }
+
+    private void grow(Segment segment, AtomicLongArray table) {
+        long stamp = segment.lock.writeLock();
+        try {
+            if (segment.table != table || segment.size.get() < maxSize(table)) {
+                return;
+            }
+            AtomicLongArray newTable = new AtomicLongArray(table.length() * 2);
+            int mask = newTable.length() - 1;
+            for (int oldPosition = 0; oldPosition < table.length(); oldPosition++) {
+                long entry = table.get(oldPosition);
+                if (entry == EMPTY) {
+                    continue;
+                }
+                int position = ((int) (entry >>> Integer.SIZE)) & mask;
+                while (newTable.get(position) != EMPTY) {
+                    position = (position + 1) & mask;
+                }
+                newTable.set(position, entry);
+            }
+            segment.table = newTable;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    private static int maxSize(AtomicLongArray table) {
+        return table.length() - (table.length() >>> 2);
+    }
+
+    @Override
+    public void fromNumber(BitStoreable storeable, int number) {
+        assert storeable != null;
+        assert number >= 0;
+        assert number < numObjects.get();
+        ReadWriteHelper helper = helpers.get();
+        if (packInt) {
+            int[] chunk = intChunks.get(number >>> LOG2_CHUNK_SIZE);
+            helper.buffer[0] = chunk[number & (CHUNK_SIZE - 1)] & LOWER_HALF;
+            helper.set(helper.buffer, 0);
+        } else {
+            helper.set(chunks.get(number >>> LOG2_CHUNK_SIZE),
+                    (number & (CHUNK_SIZE - 1)) * numWords);
+        }
+        storeable.read(helper);
+    }
+
+    @Override
+    public int size() {
+        return numObjects.get();
+    }
+
+    @Override
+    public long getNumBytes() {
+        long bytes = 0L;
+        for (int chunkNr = 0; chunkNr < NUM_CHUNKS; chunkNr++) {
+            if (packInt) {
+                int[] chunk = intChunks.get(chunkNr);
+                if (chunk == null) {
+                    break;
+                }
+                bytes += ((long) chunk.length) * Integer.BYTES;
+            } else {
+                long[] chunk = chunks.get(chunkNr);
+                if (chunk == null) {
+                    break;
+                }
+                bytes += ((long) chunk.length) * Long.BYTES;
+            }
+        }
+        return bytes + getIndexCapacity() * Long.BYTES;
+    }
+
+    @Override
+    public double getLoadFactor() {
+        return size() / (double) getIndexCapacity();
+    }
+
+    private long getIndexCapacity() {
+        long capacity = 0L;
+        for (Segment segment : segments) {
+            capacity += segment.table.length();
+        }
+        return capacity;
+    }
+
+    private void store(int number, long[] key) {
+        int chunkNr = number >>> LOG2_CHUNK_SIZE;
+        if (packInt) {
+            int[] chunk = intChunks.get(chunkNr);
+            if (chunk == null) {
+                int[] newChunk = new int[CHUNK_SIZE];
+                if (intChunks.compareAndSet(chunkNr, null, newChunk)) {
+                    chunk = newChunk;
+                } else {
+                    chunk = intChunks.get(chunkNr);
+                }
+            }
+            chunk[number & (CHUNK_SIZE - 1)] = (int) key[0];
+            return;
+        }
+        long[] chunk = chunks.get(chunkNr);
+        if (chunk == null) {
+            long[] newChunk = new long[CHUNK_SIZE * numWords];
+            if (chunks.compareAndSet(chunkNr, null, newChunk)) {
+                chunk = newChunk;
+            } else {
+                chunk = chunks.get(chunkNr);
+            }
+        }
+        System.arraycopy(key, 0, chunk, (number & (CHUNK_SIZE - 1)) * numWords, numWords);
+    }
+
+    private boolean equals(int number, long[] key) {
+        if (packInt) {
+            int[] chunk = intChunks.get(number >>> LOG2_CHUNK_SIZE);
+            return chunk[number & (CHUNK_SIZE - 1)] == (int) key[0];
+        }
+        long[] chunk = chunks.get(number >>> LOG2_CHUNK_SIZE);
+        int offset = (number & (CHUNK_SIZE - 1)) * numWords;
+        for (int wordNr = 0; wordNr < numWords; wordNr++) {
+            if (chunk[offset + wordNr] != key[wordNr]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(long[] key) {
+        long hash = 0L;
+        for (long word : key) {
+            hash = (hash ^ word) * 0x9E3779B97F4A7C15L;
+            hash ^= hash >>> 29;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return (int) hash;
+    }
+}
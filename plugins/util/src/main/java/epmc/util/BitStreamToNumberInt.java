@@ -20,6 +20,8 @@
 
 package epmc.util;
 
+import it.unimi.dsi.fastutil.Hash;
+import it.unimi.dsi.fastutil.HashCommon;
 import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 
@@ -34,14 +36,15 @@ final class BitStreamToNumberInt implements BitStoreableToNumber {
         }
 
         @Override
-        public int readInt(int numBits) {
-            int result = bitSet;
-            result >>>= index;
-            int mask = ~0;
-            mask >>>= Integer.SIZE - numBits;
-            result &= mask;
+        public long readBits(int numBits) {
+            assert numBits >= 0 : numBits;
+            assert index + numBits <= Integer.SIZE : index + " " + numBits;
+            if (numBits == 0) {
+                return 0L;
+            }
+            int result = (bitSet >>> index) & (~0 >>> (Integer.SIZE - numBits));
             index += numBits;
-            return result;
+            return Integer.toUnsignedLong(result);
         }
 
         @Override
@@ -56,9 +59,14 @@ final class BitStreamToNumberInt implements BitStoreableToNumber {
         }
 
         @Override
-        public void writeInt(int value, int numBits) {
-            value <<= index;
-            bitSet |= value;
+        public void writeBits(long value, int numBits) {
+            assert numBits >= 0 : numBits;
+            assert index + numBits <= Integer.SIZE : index + " " + numBits;
+            if (numBits == 0) {
+                return;
+            }
+            int mask = (~0 >>> (Integer.SIZE - numBits)) << index;
+            bitSet = (bitSet & ~mask) | (((int) value << index) & mask);
             index += numBits;
         }
     }
@@ -121,4 +129,16 @@ final class BitStreamToNumberInt implements BitStoreableToNumber {
     public int size() {
         return numberToNode.size();
     }
+
+    @Override
+    public long getNumBytes() {
+        long size = size();
+        long capacity = HashCommon.arraySize(size(), Hash.DEFAULT_LOAD_FACTOR);
+        return (capacity + 1) * (Integer.BYTES + Integer.BYTES) + size * Integer.BYTES;
+    }
+
+    @Override
+    public double getLoadFactor() {
+        return size() / (double) HashCommon.arraySize(size(), Hash.DEFAULT_LOAD_FACTOR);
+    }
 }
@@ -20,6 +20,8 @@
 
 package epmc.util;
 
+import it.unimi.dsi.fastutil.Hash;
+import it.unimi.dsi.fastutil.HashCommon;
 import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 
@@ -34,14 +36,15 @@ final class BitStreamToNumberLong implements BitStoreableToNumber {
         }
 
         @Override
-        public int readInt(int numBits) {
-            long result = bitSet;
-            result >>>= index;
-            long mask = ~0L;
-            mask >>>= Long.SIZE - numBits;
-            result &= mask;
+        public long readBits(int numBits) {
+            assert numBits >= 0 : numBits;
+            assert index + numBits <= Long.SIZE : index + " " + numBits;
+            if (numBits == 0) {
+                return 0L;
+            }
+            long result = (bitSet >>> index) & (~0L >>> (Long.SIZE - numBits));
             index += numBits;
-            return (int) result;
+            return result;
         }
 
         @Override
@@ -56,10 +59,14 @@ final class BitStreamToNumberLong implements BitStoreableToNumber {
         }
 
         @Override
-        public void writeInt(int value, int numBits) {
-            long valueLong = value;
-            valueLong <<= index;
-            bitSet |= valueLong;
+        public void writeBits(long value, int numBits) {
+            assert numBits >= 0 : numBits;
+            assert index + numBits <= Long.SIZE : index + " " + numBits;
+            if (numBits == 0) {
+                return;
+            }
+            long mask = (~0L >>> (Long.SIZE - numBits)) << index;
+            bitSet = (bitSet & ~mask) | ((value << index) & mask);
             index += numBits;
         }
     }
@@ -123,4 +130,16 @@ final class BitStreamToNumberLong implements BitStoreableToNumber {
         return numberToNode.size();
     }
 
+    @Override
+    public long getNumBytes() {
+        long size = size();
+        long capacity = HashCommon.arraySize(size(), Hash.DEFAULT_LOAD_FACTOR);
+        return (capacity + 1) * (Long.BYTES + Integer.BYTES) + size * Long.BYTES;
+    }
+
+    @Override
+    public double getLoadFactor() {
+        return size() / (double) HashCommon.arraySize(size(), Hash.DEFAULT_LOAD_FACTOR);
+    }
+
 }
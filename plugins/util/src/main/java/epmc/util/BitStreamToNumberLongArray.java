@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 
 import it.unimi.dsi.fastutil.Hash;
+import it.unimi.dsi.fastutil.HashCommon;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenCustomHashMap;
 
 final class BitStreamToNumberLongArray implements BitStoreableToNumber {
@@ -47,7 +48,20 @@ final class BitStreamToNumberLongArray implements BitStoreableToNumber {
                 bitSet[offset] &= ~(1L << index);
             }
             index++;
-        }        
+        }
+
+        @Override
+        public long readBits(int numBits) {
+            long result = BitStreamWords.readBits(bitSet, 0, index, numBits);
+            index += numBits;
+            return result;
+        }
+
+        @Override
+        public void writeBits(long value, int numBits) {
+            BitStreamWords.writeBits(bitSet, 0, index, value, numBits);
+            index += numBits;
+        }
     }
 
     private final ReadWriteHelper helper = new ReadWriteHelper();
@@ -123,4 +137,22 @@ final class BitStreamToNumberLongArray implements BitStoreableToNumber {
     public int size() {
         return numberToNode.size();
     }
+
+    /**
+     * {@inheritDoc}
+     * The estimate assumes 16 bytes of header per array and 8 bytes per
+     * object reference.
+     */
+    @Override
+    public long getNumBytes() {
+        long numObjects = size();
+        long capacity = HashCommon.arraySize(size(), Hash.DEFAULT_LOAD_FACTOR);
+        long arrayBytes = 16L + ((long) size) * Long.BYTES;
+        return (capacity + 1) * (8L + Integer.BYTES) + numObjects * (arrayBytes + 8L);
+    }
+
+    @Override
+    public double getLoadFactor() {
+        return size() / (double) HashCommon.arraySize(size(), Hash.DEFAULT_LOAD_FACTOR);
+    }
 }
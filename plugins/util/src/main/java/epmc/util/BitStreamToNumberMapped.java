@@ -0,0 +1,486 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.util;
+
+import static epmc.error.UtilError.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Store of bit-encoded objects residing in memory-mapped files.
+ * <p>
+ * Objects are encoded into a fixed number of {@code long} words. The words
+ * of all objects are stored consecutively in one file, indexed by the
+ * number of the object. The index mapping objects to their numbers is a
+ * hash table using open addressing stored in a second file. Each table entry
+ * is a single {@code long} containing the hash value of the object in its
+ * upper and the object number plus one in its lower half, so that objects
+ * only have to be compared if their hash values agree. Both files are
+ * accessed using {@link MappedLongArray}, so that neither the objects nor
+ * the index occupy space on the Java heap.
+ * </p>
+ * <p>
+ * The first word of the index file contains the number of its table
+ * entries. When the index grows, a new index file is written completely
+ * and then moved over the old one, after which the number of entries is
+ * also recorded in the header of the states file. If the store is
+ * interrupted in between, the two numbers differ when it is reopened, and
+ * the index is then rebuilt from the objects stored.
+ * </p>
+ * <p>
+ * A store is either private or named. A private store is created in a new
+ * subdirectory of the given directory (or of the system temporary directory)
+ * of its own, so that several stores never share files. Its files are
+ * removed when the store is closed, or on exit at the latest. A named store
+ * is kept in a subdirectory derived from its name. It is reopened, keeping
+ * the numbers of the objects stored before, only if resuming is requested
+ * and the header of the existing store matches both the number of bits of
+ * the objects and the name. Otherwise, the existing files are truncated.
+ * A named store may only be open once per process at a time; further
+ * requests to open it obtain a private store instead.
+ * </p>
+ * 
+ * @author Ernst Moritz Hahn
+ */
+final class BitStreamToNumberMapped implements BitStoreableToNumber {
+    private final class ReadWriteHelper implements BitStream {
+        private int index;
+
+        @Override
+        public boolean read() {
+            int word = index >>> LOG2LONGSIZE;
+            boolean value = (buffer[word] & (1L << index)) != 0;
+            index++;
+            return value;
+        }
+
+        @Override
+        public void write(boolean value) {
+            int word = index >>> LOG2LONGSIZE;
+            if (value) {
+                buffer[word] |= 1L << index;
+            } else {
+                buffer[word] &= ~(1L << index);
+            }
+            index++;
+        }
+
+        @Override
+        public long readBits(int numBits) {
+            long result = BitStreamWords.readBits(buffer, 0, index, numBits);
+            index += numBits;
+            return result;
+        }
+
+        @Override
+        public void writeBits(long value, int numBits) {
+            BitStreamWords.writeBits(buffer, 0, index, value, numBits);
+            index += numBits;
+        }
+    }
+
+    private final static String STATES_FILE = "states.bin";
+    private final static String INDEX_FILE = "index.bin";
+    private final static String INDEX_FILE_NEW = "index.bin.new";
+    private final static String TEMP_DIRECTORY_PREFIX = "epmc-states";
+    private final static String NAMED_DIRECTORY_PREFIX = "states-";
+    private final static int LOG2LONGSIZE = 6;
+    /** Marker identifying the states file of a store. */
+    private final static long MAGIC = 0x45504D4353544F52L;
+    /** Position of the marker in the header of the states file. */
+    private final static int HEADER_MAGIC = 0;
+    /** Position of the number of bits per object in the header. */
+    private final static int HEADER_NUM_BITS = 1;
+    /** Position of the number of objects stored in the header. */
+    private final static int HEADER_SIZE = 2;
+    /** Position of the number of index table entries in the header. */
+    private final static int HEADER_INDEX_CAPACITY = 3;
+    /** Position of the hash of the name of the store in the header. */
+    private final static int HEADER_KEY = 4;
+    /** Number of words of the header of the states file. */
+    private final static int HEADER_LENGTH = 5;
+    /** Position of the number of table entries in the index file. */
+    private final static int INDEX_HEADER_CAPACITY = 0;
+    /** Number of words of the header of the index file. */
+    private final static int INDEX_HEADER_LENGTH = 1;
+    private final static long INITIAL_INDEX_CAPACITY = 1L << 16;
+    private final static long EMPTY = 0L;
+    private final static long LOWER_HALF = 0xFFFFFFFFL;
+    private final static long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+    private final static long FNV_PRIME = 0x100000001B3L;
+    /** Directories of named stores currently open in this process. */
+    private final static Set<Path> OPEN_DIRECTORIES = ConcurrentHashMap.newKeySet();
+
+    private final Path directory;
+    /** Whether the store is named rather than private. */
+    private final boolean named;
+    private final int numBits;
+    private final int numWords;
+    private final long[] buffer;
+    private final ReadWriteHelper helper = new ReadWriteHelper();
+    private final MappedLongArray states;
+    private MappedLongArray index;
+    private long indexCapacity;
+    private int size;
+    private boolean closed;
+
+    /**
+     * Create a private store.
+     * 
+     * @param numBits maximal number of bits of objects to store
+     * @param directory directory to create store directory in, or {@code null}
+     */
+    BitStreamToNumberMapped(int numBits, String directory) {
+        this(numBits, directory, null, false);
+    }
+
+    /**
+     * Create a named or private store.
+     * If the name is {@code null} or a store of the same name is already
+     * open in this process, a private store is created.
+     * 
+     * @param numBits maximal number of bits of objects to store
+     * @param directory directory to create store directory in, or {@code null}
+     * @param key name of the store, or {@code null}
+     * @param resume whether to reopen an existing store of the same name
+     */
+    BitStreamToNumberMapped(int numBits, String directory, String key, boolean resume) {
+        assert numBits >= 0;
+        this.numBits = numBits;
+        this.numWords = Math.max(1, numBits / Long.SIZE + (numBits % Long.SIZE > 0 ? 1 : 0));
+        this.buffer = new long[numWords];
+        Path namedDirectory = key == null ? null : openNamedDirectory(directory, key);
+        this.named = namedDirectory != null;
+        this.directory = named ? namedDirectory : createPrivateDirectory(directory);
+        Path statesPath = this.directory.resolve(STATES_FILE);
+        Path indexPath = this.directory.resolve(INDEX_FILE);
+        if (!named) {
+            statesPath.toFile().deleteOnExit();
+            indexPath.toFile().deleteOnExit();
+        }
+        long keyHash = key == null ? 0L : hashKey(key);
+        if (!named || !resume) {
+            deleteFile(statesPath);
+        }
+        states = new MappedLongArray(statesPath);
+        states.ensureSize(HEADER_LENGTH);
+        if (named && resume && states.get(HEADER_MAGIC) == MAGIC
+                && states.get(HEADER_NUM_BITS) == numBits
+                && states.get(HEADER_KEY) == keyHash) {
+            size = (int) states.get(HEADER_SIZE);
+            indexCapacity = states.get(HEADER_INDEX_CAPACITY);
+            index = new MappedLongArray(indexPath);
+            if (index.size() < INDEX_HEADER_LENGTH + indexCapacity
+                    || index.get(INDEX_HEADER_CAPACITY) != indexCapacity) {
+                rebuildIndex();
+            }
+        } else {
+            deleteFile(indexPath);
+            for (long word = 0; word < HEADER_LENGTH; word++) {
+                states.set(word, 0L);
+            }
+            indexCapacity = INITIAL_INDEX_CAPACITY;
+            index = newIndex(indexPath, indexCapacity);
+            states.set(HEADER_NUM_BITS, numBits);
+            states.set(HEADER_KEY, keyHash);
+            states.set(HEADER_SIZE, 0);
+            states.set(HEADER_INDEX_CAPACITY, indexCapacity);
+            states.set(HEADER_MAGIC, MAGIC);
+        }
+    }
+
+    @Override
+    public int toNumber(BitStoreable storeable) {
+        assert storeable != null;
+        Arrays.fill(buffer, 0L);
+        helper.index = 0;
+        storeable.write(helper);
+        int hash = hash(buffer);
+        long mask = indexCapacity - 1;
+        long position = hash & mask;
+        while (true) {
+            long entry = index.get(INDEX_HEADER_LENGTH + position);
+            if (entry == EMPTY) {
+                return insert(position, hash);
+            }
+            if ((int) (entry >>> Integer.SIZE) == hash) {
+                int number = (int) ((entry & LOWER_HALF) - 1);
+                /* entries of objects beyond the size stem from interrupted
+                 * insertions and are overwritten by later objects */
+                if (number < size && equalsBuffer(number)) {
+                    return number;
+                }
+            }
+            position = (position + 1) & mask;
+        }
+    }
+
+    @Override
+    public void fromNumber(BitStoreable storeable, int number) {
+        assert storeable != null;
+        assert number >= 0 : number;
+        assert number < size : number + " " + size;
+        long from = HEADER_LENGTH + ((long) number) * numWords;
+        for (int word = 0; word < numWords; word++) {
+            buffer[word] = states.get(from + word);
+        }
+        helper.index = 0;
+        storeable.read(helper);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long getNumBytes() {
+        return (HEADER_LENGTH + ((long) size) * numWords
+                + INDEX_HEADER_LENGTH + indexCapacity) * Long.BYTES;
+    }
+
+    @Override
+    public double getLoadFactor() {
+        return size / (double) indexCapacity;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The files are unmapped. Those of a private store are deleted, while
+     * those of a named store are kept, so that it can be resumed.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        states.close();
+        index.close();
+        if (named) {
+            OPEN_DIRECTORIES.remove(directory);
+        } else {
+            deleteFile(directory.resolve(STATES_FILE));
+            deleteFile(directory.resolve(INDEX_FILE));
+            deleteFile(directory);
+        }
+    }
+
+    /**
+     * Get the directory the files of the store are kept in.
+     * 
+     * @return directory the files of the store are kept in
+     */
+    Path getDirectory() {
+        return directory;
+    }
+
+    private int insert(long position, int hash) {
+        int number = size;
+        long from = HEADER_LENGTH + ((long) number) * numWords;
+        states.ensureSize(from + numWords);
+        for (int word = 0; word < numWords; word++) {
+            states.set(from + word, buffer[word]);
+        }
+        index.set(INDEX_HEADER_LENGTH + position, toEntry(hash, number));
+        size++;
+        states.set(HEADER_SIZE, size);
+        if (((long) size) * 2 > indexCapacity) {
+            growIndex();
+        }
+        return number;
+    }
+
+    private void growIndex() {
+        long newCapacity = indexCapacity * 2;
+        long mask = newCapacity - 1;
+        Path newPath = directory.resolve(INDEX_FILE_NEW);
+        deleteFile(newPath);
+        MappedLongArray newIndex = newIndex(newPath, newCapacity);
+        for (long oldPosition = 0; oldPosition < indexCapacity; oldPosition++) {
+            long entry = index.get(INDEX_HEADER_LENGTH + oldPosition);
+            if (entry == EMPTY) {
+                continue;
+            }
+            long position = ((int) (entry >>> Integer.SIZE)) & mask;
+            while (newIndex.get(INDEX_HEADER_LENGTH + position) != EMPTY) {
+                position = (position + 1) & mask;
+            }
+            newIndex.set(INDEX_HEADER_LENGTH + position, entry);
+        }
+        index.close();
+        moveIndex(newPath);
+        index = newIndex;
+        indexCapacity = newCapacity;
+        states.set(HEADER_INDEX_CAPACITY, indexCapacity);
+    }
+
+    /**
+     * Rebuild the index from the objects stored.
+     * This is used if the index file of a reopened store does not match
+     * the header of the states file, because the store was interrupted
+     * while the index was growing.
+     */
+    private void rebuildIndex() {
+        long newCapacity = INITIAL_INDEX_CAPACITY;
+        while (((long) size) * 2 > newCapacity) {
+            newCapacity *= 2;
+        }
+        long mask = newCapacity - 1;
+        Path newPath = directory.resolve(INDEX_FILE_NEW);
+        deleteFile(newPath);
+        MappedLongArray newIndex = newIndex(newPath, newCapacity);
+        for (int number = 0; number < size; number++) {
+            long from = HEADER_LENGTH + ((long) number) * numWords;
+            for (int word = 0; word < numWords; word++) {
+                buffer[word] = states.get(from + word);
+            }
+            int hash = hash(buffer);
+            long position = hash & mask;
+            while (newIndex.get(INDEX_HEADER_LENGTH + position) != EMPTY) {
+                position = (position + 1) & mask;
+            }
+            newIndex.set(INDEX_HEADER_LENGTH + position, toEntry(hash, number));
+        }
+        index.close();
+        moveIndex(newPath);
+        index = newIndex;
+        indexCapacity = newCapacity;
+        states.set(HEADER_INDEX_CAPACITY, indexCapacity);
+    }
+
+    private void moveIndex(Path newPath) {
+        try {
+            Files.move(newPath, directory.resolve(INDEX_FILE),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            fail(ProblemsUtil.MAPPED_STORE_IO_ERROR, e, newPath, e.getMessage());
+        }
+    }
+
+    private static MappedLongArray newIndex(Path path, long capacity) {
+        MappedLongArray result = new MappedLongArray(path);
+        result.ensureSize(INDEX_HEADER_LENGTH + capacity);
+        result.set(INDEX_HEADER_CAPACITY, capacity);
+        return result;
+    }
+
+    private boolean equalsBuffer(int number) {
+        long from = HEADER_LENGTH + ((long) number) * numWords;
+        for (int word = 0; word < numWords; word++) {
+            if (states.get(from + word) != buffer[word]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long toEntry(int hash, int number) {
+        return (((long) hash) << Integer.SIZE) | ((number + 1L) & LOWER_HALF);
+    }
+
+    private static Path createPrivateDirectory(String directory) {
+        Path result = null;
+        try {
+            if (directory == null) {
+                result = Files.createTempDirectory(TEMP_DIRECTORY_PREFIX);
+            } else {
+                Path parent = Paths.get(directory);
+                Files.createDirectories(parent);
+                result = Files.createTempDirectory(parent, TEMP_DIRECTORY_PREFIX);
+            }
+            result.toFile().deleteOnExit();
+        } catch (IOException e) {
+            fail(ProblemsUtil.MAPPED_STORE_IO_ERROR, e, directory, e.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * Reserve the directory of the named store for this store.
+     * If the store is already open in this process, {@code null} is returned.
+     * 
+     * @param directory directory to create store directory in, or {@code null}
+     * @param key name of the store
+     * @return directory of the named store, or {@code null}
+     */
+    private static Path openNamedDirectory(String directory, String key) {
+        Path parent = directory == null
+                ? Paths.get(System.getProperty("java.io.tmpdir"))
+                : Paths.get(directory);
+        Path result = parent.resolve(NAMED_DIRECTORY_PREFIX
+                + Long.toHexString(hashKey(key))).toAbsolutePath().normalize();
+        if (!OPEN_DIRECTORIES.add(result)) {
+            return null;
+        }
+        try {
+            Files.createDirectories(result);
+        } catch (IOException e) {
+            OPEN_DIRECTORIES.remove(result);
+            fail(ProblemsUtil.MAPPED_STORE_IO_ERROR, e, result, e.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * Compute the 64-bit FNV-1a hash of the name of a store.
+     * 
+     * @param key name of the store
+     * @return hash of the name
+     */
+    private static long hashKey(String key) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int charNr = 0; charNr < key.length(); charNr++) {
+            hash ^= key.charAt(charNr);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static void deleteFile(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            fail(ProblemsUtil.MAPPED_STORE_IO_ERROR, e, path, e.getMessage());
+        }
+    }
+
+    private static int hash(long[] key) {
+        long hash = 0L;
+        for (long word : key) {
+            hash = (hash ^ word) * 0x9E3779B97F4A7C15L;
+            hash ^= hash >>> 29;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return (int) hash;
+    }
+}
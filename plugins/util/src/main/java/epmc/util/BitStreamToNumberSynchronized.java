@@ -0,0 +1,70 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.util;
+
+/**
+ * Concurrent store obtained by synchronising all accesses to a
+ * non-concurrent store.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+final class BitStreamToNumberSynchronized implements BitStoreableToNumberConcurrent {
+    private final BitStoreableToNumber store;
+
+    BitStreamToNumberSynchronized(BitStoreableToNumber store) {
+        assert store != null;
+        this.store = store;
+    }
+
+    @Override
+    public synchronized int insert(BitStoreable storeable) {
+        assert storeable != null;
+        int oldSize = store.size();
+        int number = store.toNumber(storeable);
+        return number < oldSize ? number : -number - 1;
+    }
+
+    @Override
+    public synchronized void fromNumber(BitStoreable storeable, int number) {
+        assert storeable != null;
+        store.fromNumber(storeable, number);
+    }
+
+    @Override
+    public synchronized int size() {
+        return store.size();
+    }
+
+    @Override
+    public synchronized long getNumBytes() {
+        return store.getNumBytes();
+    }
+
+    @Override
+    public synchronized void close() {
+        store.close();
+    }
+
+    @Override
+    public synchronized double getLoadFactor() {
+        return store.getLoadFactor();
+    }
+}
@@ -0,0 +1,93 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.util;
+
+/**
+ * Word-level bit group transfer for bit streams backed by long arrays.
+ * The bits are stored in little-endian order, that is, bit number
+ * {@code i} is stored in bit {@code i % 64} of word {@code i / 64}.
+ * A group of up to 64 bits thus spans at most two words, so that it can be
+ * read or written using a few shift and mask operations rather than one
+ * operation per bit.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+final class BitStreamWords {
+    private final static int LOG2LONGSIZE = 6;
+    private final static int LONG_SIZE_MASK = Long.SIZE - 1;
+
+    /**
+     * Read a group of bits.
+     * 
+     * @param words words to read from
+     * @param offset index of word at which the bit stream starts
+     * @param index index of first bit to read, relative to the offset
+     * @param numBits number of bits to read, between 0 and 64
+     * @return bits read, with bits above the number of bits set to zero
+     */
+    static long readBits(long[] words, int offset, int index, int numBits) {
+        assert words != null;
+        assert numBits >= 0 : numBits;
+        assert numBits <= Long.SIZE : numBits;
+        if (numBits == 0) {
+            return 0L;
+        }
+        int word = offset + (index >>> LOG2LONGSIZE);
+        int shift = index & LONG_SIZE_MASK;
+        long result = words[word] >>> shift;
+        if (shift + numBits > Long.SIZE) {
+            result |= words[word + 1] << (Long.SIZE - shift);
+        }
+        return result & (~0L >>> (Long.SIZE - numBits));
+    }
+
+    /**
+     * Write a group of bits.
+     * Bits of the words outside the group are left unchanged.
+     * 
+     * @param words words to write to
+     * @param offset index of word at which the bit stream starts
+     * @param index index of first bit to write, relative to the offset
+     * @param value bits to write, bits above the number of bits are ignored
+     * @param numBits number of bits to write, between 0 and 64
+     */
+    static void writeBits(long[] words, int offset, int index, long value, int numBits) {
+        assert words != null;
+        assert numBits >= 0 : numBits;
+        assert numBits <= Long.SIZE : numBits;
+        if (numBits == 0) {
+            return;
+        }
+        long mask = ~0L >>> (Long.SIZE - numBits);
+        value &= mask;
+        int word = offset + (index >>> LOG2LONGSIZE);
+        int shift = index & LONG_SIZE_MASK;
+        words[word] = (words[word] & ~(mask << shift)) | (value << shift);
+        if (shift + numBits > Long.SIZE) {
+            int written = Long.SIZE - shift;
+            words[word + 1] = (words[word + 1] & ~(mask >>> written))
+                    | (value >>> written);
+        }
+    }
+
+    private BitStreamWords() {
+    }
+}
@@ -57,6 +57,21 @@ public final class FixedSizeBitSequenceIntHashMap<K extends BitStoreable> {
             prepareIndex++;
         }
 
+        @Override
+        public long readBits(int numBits) {
+            assert prepareIndex + numBits <= bitsPerEntry;
+            long result = BitStreamWords.readBits(prepareEntry, 0, prepareIndex, numBits);
+            prepareIndex += numBits;
+            return result;
+        }
+
+        @Override
+        public void writeBits(long value, int numBits) {
+            assert prepareIndex + numBits <= bitsPerEntry;
+            BitStreamWords.writeBits(prepareEntry, 0, prepareIndex, value, numBits);
+            prepareIndex += numBits;
+        }
+
         private void read(K key) {
             assert assertKey(key);
             prepareIndex = 0;
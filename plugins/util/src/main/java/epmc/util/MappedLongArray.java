@@ -0,0 +1,167 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.util;
+
+import static epmc.error.UtilError.fail;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Array of {@code long} values backed by a memory-mapped file.
+ * The file is mapped in chunks of fixed size, which are added on demand.
+ * The contents of the array thus reside outside of the Java heap and are
+ * paged in and out by the operating system. Newly mapped parts of the
+ * array are zero, unless the file already contained data there.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+final class MappedLongArray {
+    /** Logarithm of the number of {@code long} values of a mapped chunk. */
+    private final static int LOG2_CHUNK_SIZE = 20;
+    private final static int CHUNK_SIZE = 1 << LOG2_CHUNK_SIZE;
+    private final static int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final List<LongBuffer> chunks = new ArrayList<>();
+    private final List<MappedByteBuffer> mappings = new ArrayList<>();
+
+    /**
+     * Map the given file, creating it if it does not exist.
+     * Existing contents of the file are kept.
+     * 
+     * @param path file to map
+     */
+    MappedLongArray(Path path) {
+        assert path != null;
+        this.path = path;
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            fail(ProblemsUtil.MAPPED_STORE_IO_ERROR, e, path, e.getMessage());
+        }
+        this.channel = channel;
+        try {
+            ensureSize(channel.size() / Long.BYTES);
+        } catch (IOException e) {
+            fail(ProblemsUtil.MAPPED_STORE_IO_ERROR, e, path, e.getMessage());
+        }
+    }
+
+    /**
+     * Make sure that the array has at least the given length.
+     * 
+     * @param size minimal length of the array
+     */
+    void ensureSize(long size) {
+        assert size >= 0;
+        while (size() < size) {
+            long position = size() * Long.BYTES;
+            try {
+                MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_WRITE,
+                        position, ((long) CHUNK_SIZE) * Long.BYTES);
+                mappings.add(mapping);
+                chunks.add(mapping.duplicate().order(ByteOrder.nativeOrder()).asLongBuffer());
+            } catch (IOException e) {
+                fail(ProblemsUtil.MAPPED_STORE_IO_ERROR, e, path, e.getMessage());
+            }
+        }
+    }
+
+    long size() {
+        return ((long) chunks.size()) << LOG2_CHUNK_SIZE;
+    }
+
+    long get(long index) {
+        assert index >= 0 : index;
+        assert index < size() : index + " " + size();
+        return chunks.get((int) (index >>> LOG2_CHUNK_SIZE)).get((int) index & CHUNK_MASK);
+    }
+
+    void set(long index, long value) {
+        assert index >= 0 : index;
+        assert index < size() : index + " " + size();
+        chunks.get((int) (index >>> LOG2_CHUNK_SIZE)).put((int) index & CHUNK_MASK, value);
+    }
+
+    /**
+     * Close the file backing the array and unmap it.
+     * The array must not be used afterwards. If the mapping cannot be
+     * released explicitly on the running Java version, it is released once
+     * the mapped buffers are garbage collected.
+     */
+    void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            fail(ProblemsUtil.MAPPED_STORE_IO_ERROR, e, path, e.getMessage());
+        }
+        chunks.clear();
+        for (MappedByteBuffer mapping : mappings) {
+            unmap(mapping);
+        }
+        mappings.clear();
+    }
+
+    /**
+     * Release a mapped buffer without waiting for garbage collection.
+     * This uses {@code sun.misc.Unsafe.invokeCleaner} on Java 9 and later and
+     * the cleaner of the buffer on Java 8. If neither is accessible, nothing
+     * is done.
+     * 
+     * @param mapping mapped buffer to release
+     */
+    private static void unmap(MappedByteBuffer mapping) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), mapping);
+            return;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            /* not Java 9 or later, try Java 8 cleaner below */
+        }
+        try {
+            Method cleanerMethod = mapping.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(mapping);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            /* leave release to garbage collection */
+        }
+    }
+}
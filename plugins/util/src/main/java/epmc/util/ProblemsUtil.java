@@ -29,6 +29,8 @@ public final class ProblemsUtil {
     /** Native memory allocation shall be performed but not enough memory is available. */
     public final static Problem INSUFFICIENT_NATIVE_MEMORY = newProblem("insufficient-native-memory");
     public final static Problem CANNOT_UNESCAPE = newProblem("cannot-unescape");
+    /** Files of memory-mapped state store could not be accessed. */
+    public final static Problem MAPPED_STORE_IO_ERROR = newProblem("mapped-store-io-error");
 
     /**
      * Generate new problem reading descriptions from plugin property bundle.
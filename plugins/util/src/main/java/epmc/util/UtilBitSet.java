@@ -48,7 +48,7 @@ public final class UtilBitSet {
             return false;
         }
         for (int i = 0; i < thisLength; i++) {
-            if (thisObj.get(i) == other.get(i)) {
+            if (thisObj.get(i) != other.get(i)) {
                 return false;
             }
         }
@@ -57,25 +57,26 @@ public final class UtilBitSet {
 
     /**
      * Auxiliary method to implement {@link BitSet#hashCode()}.
+     * The hash code is computed from the 64-bit words of the bit set in the
+     * same way as by {@link BitSetUnboundedLongArray#hashCode()}, so that
+     * equal bit sets of different classes have the same hash code.
      * 
      * @param bitSet {@code this} object of bitset
      * @return hash code of bitset
      */
     public static int hashCode(BitSet bitSet) {
         assert bitSet != null;
-        int length = bitSet.length();
+        int numWords = (bitSet.length() + Long.SIZE - 1) / Long.SIZE;
         int hash = 0;
-        int help = 0;
-        for (int i = 0; i < length; i++) {
-            int mod = i % Integer.SIZE;
-            help |= bitSet.get(i) ? (1 << mod) : 0;
-            if (mod == (Integer.SIZE - 1)) {
-                hash = help + (hash << 6) + (hash << 16) - hash;
-                help = 0;
+        for (int word = 0; word < numWords; word++) {
+            int wordStart = word * Long.SIZE;
+            long help = 0L;
+            for (int i = bitSet.nextSetBit(wordStart);
+                    i >= 0 && i < wordStart + Long.SIZE;
+                    i = bitSet.nextSetBit(i + 1)) {
+                help |= 1L << (i - wordStart);
             }
-        }
-        if (length % Integer.SIZE != 0) {
-            hash = help + (hash << 6) + (hash << 16) - hash;
+            hash = Long.hashCode(help) + (hash << 6) + (hash << 16) - hash;
         }
         return hash;
     }
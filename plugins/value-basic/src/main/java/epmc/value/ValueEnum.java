@@ -102,26 +102,14 @@ public final class ValueEnum implements ValueEnumerable, ValueNumBitsKnown, Valu
     @Override
     public void write(BitStream writer) {
         assert writer != null;
-        int value = this.value.ordinal();
-        int marker = 1;
-        for (int bitNr = 0; bitNr < getNumBits(); bitNr++) {
-            writer.write((value & marker) != 0);
-            marker <<= 1;
-        }
+        writer.writeInt(this.value.ordinal(), getNumBits());
     }
 
     @Override
     public void read(BitStream reader) {
         assert !isImmutable();
         assert reader != null;
-        int value = 0;
-        int marker = 1;
-        for (int bitNr = 0; bitNr < getNumBits(); bitNr++) {
-            if (reader.read()) {
-                value |= marker;
-            }
-            marker <<= 1;
-        }
+        int value = reader.readInt(getNumBits());
         assert value >= 0;
         assert value < getType().getEnumClass().getEnumConstants().length;
         this.value = getType().getEnumClass().getEnumConstants()[value];
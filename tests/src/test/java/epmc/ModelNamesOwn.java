@@ -54,6 +54,26 @@ public final class ModelNamesOwn {
     public final static String PAUL_GAINER_MEDIUM = PREFIX + "model-mirollo-strogatz-7-10-0.1-1-0-False.prism";
     /** Model testing correct recognition of PCTL properties. */
     public final static String PCTL_RECOGNITION_TEST = PREFIX + "pctl-recognition-test.prism";
+    /** MDP with an end component not containing the target states. */
+    public final static String END_COMPONENTS = PREFIX + "end-components.prism";
+    /** Small CTMC to test unbounded reachability on the embedded DTMC. */
+    public final static String EMBEDDED_CTMC = PREFIX + "embedded-ctmc.prism";
+    /** DTMC random walk on a grid with constant N, with reward structures. */
+    public final static String GRID_WALK_DTMC = PREFIX + "grid-walk-dtmc.prism";
+    /** MDP random walk on a grid with constant N, with reward structures. */
+    public final static String GRID_WALK_MDP = PREFIX + "grid-walk-mdp.prism";
+    /** CTMC with rates of very different magnitude and absorbing states. */
+    public final static String STIFF_CTMC = PREFIX + "stiff-ctmc.prism";
+    /** CTMC with a single transition and a reward structure. */
+    public final static String DECAY_CTMC = PREFIX + "decay-ctmc.prism";
+    /** CTMC with a single bottom SCC and constant S0 for the initial state. */
+    public final static String STIFF_CYCLE_CTMC = PREFIX + "stiff-cycle-ctmc.prism";
+    /** MDP of two modules with overlapping guards testing for equality. */
+    public final static String GUARD_INDEX_OVERLAPPING = PREFIX + "guard-index-overlapping.prism";
+    /** MDP of two modules with guards mostly not suitable for indexing. */
+    public final static String GUARD_INDEX_NONINDEXABLE = PREFIX + "guard-index-nonindexable.prism";
+    /** MDP of three processes with a lock and transition rewards. */
+    public final static String SUCCESSOR_CACHE = PREFIX + "successor-cache.prism";
     
     /**
      * Private constructor to prevent instantiation of this class.
@@ -23,21 +23,57 @@ package epmc;
 import static epmc.ModelNamesOwn.*;
 import static epmc.modelchecker.TestHelper.*;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.stream.Stream;
 
+import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import epmc.graph.MessagesGraph;
+import epmc.graph.TestHelperGraph;
+import epmc.graph.explicit.GraphExplicit;
+import epmc.graph.explicit.SchedulerSimple;
+import epmc.graph.options.OptionsGraph;
+import epmc.graphsolver.OptionsGraphsolver;
+import epmc.graphsolver.TestHelperGraphSolver;
+import epmc.graphsolver.iterative.IterationMethod;
+import epmc.graphsolver.iterative.IterationPreconditioner;
+import epmc.graphsolver.iterative.IterationStopCriterion;
+import epmc.graphsolver.iterative.MessagesGraphSolverIterative;
+import epmc.graphsolver.iterative.OptionsGraphSolverIterative;
+import epmc.graphsolver.iterative.java.BoundedCumulativeJava;
+import epmc.graphsolver.iterative.java.BoundedCumulativeJavaDouble;
+import epmc.graphsolver.iterative.java.BoundedReachabilityBatchJava;
+import epmc.graphsolver.iterative.java.BoundedReachabilityJava;
+import epmc.graphsolver.iterative.java.BoundedReachabilityJavaDouble;
+import epmc.graphsolver.iterative.java.PolicyIterationJavaDouble;
+import epmc.graphsolver.iterative.java.SteadyStateJavaDouble;
+import epmc.graphsolver.iterative.java.UnboundedCumulativeJava;
+import epmc.graphsolver.iterative.java.UnboundedCumulativeJavaDouble;
+import epmc.graphsolver.iterative.java.UnboundedReachabilityJavaDouble;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicitSteadyState;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicitUnboundedReachability;
+import epmc.messages.OptionsMessages;
 import epmc.modelchecker.EngineExplicit;
+import epmc.modelchecker.LogTest;
 import epmc.modelchecker.Model;
 import epmc.modelchecker.TestHelper;
 import epmc.modelchecker.options.OptionsModelChecker;
 import epmc.options.Options;
 import epmc.value.TypeInterval;
+import epmc.value.TypeWeight;
+import epmc.value.UtilValue;
 import epmc.value.Value;
+import epmc.value.ValueArrayAlgebra;
 import epmc.value.ValueInterval;
+import epmc.value.ValueNumber;
 import static org.junit.Assert.assertTrue;
 
 public final class PCTLSolverExplicitTest {
@@ -129,6 +165,188 @@ public final class PCTLSolverExplicitTest {
         close(options);
     }
 
+    @Test
+    public void sharedLowLevelTest() {
+        Options options = prepareOptions();
+        double tolerance = 1E-10;
+        options.set(TestHelper.ITERATION_TOLERANCE, Double.toString(tolerance));
+        options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+        options.set(TestHelper.PRISM_FLATTEN, false);
+        String[] properties = {
+                "Pmin=? [ F s1=7 & s2=7 & d1+d2=4 ]",
+                "Pmax=? [ F s1=7 & s2=7 & d1+d2=7 ]",
+                "Pmax=? [ F<=6 s1=7 & s2=7 ]",
+                "Pmin=? [ X s1=1 ]",
+        };
+        options.set(OptionsModelChecker.SHARE_LOW_LEVEL, false);
+        Model model = loadModel(options, ModelNamesPRISM.TWO_DICE_MODEL);
+        for (String property : properties) {
+            addProperty(model, property);
+        }
+        Map<String,Value> separate = computeResultsMapDefinition(model);
+        options.set(OptionsModelChecker.SHARE_LOW_LEVEL, true);
+        model = loadModel(options, ModelNamesPRISM.TWO_DICE_MODEL);
+        for (String property : properties) {
+            addProperty(model, property);
+        }
+        Map<String,Value> shared = computeResultsMapDefinition(model);
+        assertTrue(separate.keySet().equals(shared.keySet()));
+        assertTrue(separate.size() == properties.length);
+        for (String property : separate.keySet()) {
+            assertEquals(separate.get(property), shared.get(property), tolerance);
+        }
+        String[] expected = {"3/36", "1/6", "9/16", "0"};
+        for (int propNr = 0; propNr < properties.length; propNr++) {
+            Value value = shared.get(properties[propNr]);
+            Assert.assertNotNull(properties[propNr], value);
+            assertEquals(expected[propNr], value, tolerance);
+        }
+        close(options);
+    }
+
+    /**
+     * Test that properties only differing in their time bounds are computed
+     * in a single batch when sharing the low-level model.
+     * In the shared run, the batch solver is the only graph solver
+     * available, so that each property either is part of a batch or reuses
+     * a result stored by a previous batch. The results must be the same as
+     * when solving each property separately.
+     */
+    @Test
+    public void boundedReachabilityBatchTest() {
+        double tolerance = 1E-10;
+        assertBatchSameAsSeparate(ModelNamesPRISM.DICE_MODEL, tolerance,
+                "P=? [ F<=3 s=7 ]",
+                "P=? [ F<=10 s=7 ]",
+                "P=? [ F<5 s=7 ]",
+                "P=? [ G<=4 s<4 ]",
+                "P=? [ G<=8 s<4 ]");
+        assertBatchSameAsSeparate(ModelNamesPRISM.TWO_DICE_MODEL, tolerance,
+                "Pmax=? [ F<=6 s1=7 & s2=7 ]",
+                "Pmax=? [ F<=12 s1=7 & s2=7 ]",
+                "Pmin=? [ F<=6 s1=7 & s2=7 ]",
+                "Pmin=? [ F<=9 s1=7 & s2=7 ]");
+        assertBatchSameAsSeparate(STIFF_CTMC, tolerance,
+                "P=? [ F<=0.5 s=2 ]",
+                "P=? [ F<=2 s=2 ]",
+                "P=? [ F<=5 s=2 ]");
+    }
+
+    private static void assertBatchSameAsSeparate(String modelFile,
+            double tolerance, String... properties) {
+        Map<String,Value> separate = computeBatchResults(modelFile, tolerance, false, properties);
+        Map<String,Value> batch = computeBatchResults(modelFile, tolerance, true, properties);
+        assertTrue(separate.keySet().equals(batch.keySet()));
+        assertTrue(separate.size() == properties.length);
+        for (String property : properties) {
+            assertEquals(property, separate.get(property), batch.get(property), tolerance);
+        }
+    }
+
+    private static Map<String,Value> computeBatchResults(String modelFile,
+            double tolerance, boolean batch, String[] properties) {
+        Options options = prepareOptions();
+        options.set(TestHelper.ITERATION_TOLERANCE, Double.toString(tolerance));
+        options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+        options.set(TestHelper.PRISM_FLATTEN, false);
+        options.set(OptionsModelChecker.SHARE_LOW_LEVEL, batch);
+        if (batch) {
+            options.set(OptionsGraphsolver.GRAPHSOLVER_SOLVER, BoundedReachabilityBatchJava.IDENTIFIER);
+        }
+        Model model = loadModel(options, modelFile);
+        for (String property : properties) {
+            addProperty(model, property);
+        }
+        Map<String,Value> result = computeResultsMapDefinition(model);
+        close(options);
+        return result;
+    }
+
+    @Test
+    public void compressedGraphTest() {
+        Options options = prepareOptions();
+        double tolerance = 1E-10;
+        options.set(TestHelper.ITERATION_TOLERANCE, Double.toString(tolerance));
+        options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+        options.set(OptionsGraph.GRAPH_COMPRESSION, true);
+        options.set(TestHelper.PRISM_FLATTEN, false);
+        Value result;
+        result = computeResult(options, ModelNamesPRISM.DICE_MODEL, "P=?[(F((s=7)&(d=3)))]");
+        assertEquals("1/6", result, tolerance);
+        result = computeResult(options, ModelNamesPRISM.TWO_DICE_MODEL, "Pmin=? [ F s1=7 & s2=7 & d1+d2=4 ]");
+        assertEquals("3/36", result, tolerance);
+        result = computeResult(options, ModelNamesPRISM.TWO_DICE_MODEL, "Pmax=? [ F s1=7 & s2=7 & d1+d2=7 ]");
+        assertEquals("1/6", result, tolerance);
+        close(options);
+    }
+
+    @Test
+    public void graphCacheTest() throws IOException {
+        Options options = prepareOptions();
+        double tolerance = 1E-10;
+        options.set(TestHelper.ITERATION_TOLERANCE, Double.toString(tolerance));
+        options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+        options.set(TestHelper.PRISM_FLATTEN, false);
+        String cellProperty = "P=? [ F<=1 n=N ]";
+        Map<String,Object> constants = new HashMap<>();
+        constants.put("N", "5");
+        options.set(OptionsModelChecker.CONST, constants);
+        Value cellFive = computeResult(options, ModelNamesPRISM.CELL_MODEL, cellProperty);
+        constants.put("N", "6");
+        options.set(OptionsModelChecker.CONST, constants);
+        Value cellSix = computeResult(options, ModelNamesPRISM.CELL_MODEL, cellProperty);
+        options.set(OptionsModelChecker.CONST, new HashMap<String,Object>());
+
+        Path cacheDirectory = Files.createTempDirectory("epmc-graph-cache");
+        try {
+            options.set(OptionsGraph.GRAPH_CACHE_DIRECTORY, cacheDirectory.toString());
+            LogTest log = options.get(OptionsMessages.LOG);
+            Value result;
+            result = computeResult(options, ModelNamesPRISM.DICE_MODEL, "P=?[(F((s=7)&(d=3)))]");
+            assertEquals("1/6", result, tolerance);
+            result = computeResult(options, ModelNamesPRISM.TWO_DICE_MODEL, "Pmin=? [ F s1=7 & s2=7 & d1+d2=4 ]");
+            assertEquals("3/36", result, tolerance);
+            int numStored = log.getNumMessages(MessagesGraph.BUILD_MODEL_CACHE_STORED);
+            assertTrue(numStored >= 2);
+            Assert.assertEquals(0, log.getNumMessages(MessagesGraph.BUILD_MODEL_CACHE_LOADED));
+            try (Stream<Path> files = Files.list(cacheDirectory)) {
+                assertTrue(files.count() >= 2);
+            }
+
+            /* same models again, all graphs are loaded from the cache */
+            result = computeResult(options, ModelNamesPRISM.DICE_MODEL, "P=?[(F((s=7)&(d=3)))]");
+            assertEquals("1/6", result, tolerance);
+            result = computeResult(options, ModelNamesPRISM.TWO_DICE_MODEL, "Pmin=? [ F s1=7 & s2=7 & d1+d2=4 ]");
+            assertEquals("3/36", result, tolerance);
+            Assert.assertEquals(numStored, log.getNumMessages(MessagesGraph.BUILD_MODEL_CACHE_STORED));
+            Assert.assertEquals(numStored, log.getNumMessages(MessagesGraph.BUILD_MODEL_CACHE_LOADED));
+
+            /* changing a constant must not reuse the cached graph */
+            constants.put("N", "5");
+            options.set(OptionsModelChecker.CONST, constants);
+            result = computeResult(options, ModelNamesPRISM.CELL_MODEL, cellProperty);
+            assertEquals(cellFive, result, tolerance);
+            int numLoaded = log.getNumMessages(MessagesGraph.BUILD_MODEL_CACHE_LOADED);
+            Assert.assertEquals(numStored, numLoaded);
+            result = computeResult(options, ModelNamesPRISM.CELL_MODEL, cellProperty);
+            assertEquals(cellFive, result, tolerance);
+            assertTrue(log.getNumMessages(MessagesGraph.BUILD_MODEL_CACHE_LOADED) > numLoaded);
+            numLoaded = log.getNumMessages(MessagesGraph.BUILD_MODEL_CACHE_LOADED);
+            numStored = log.getNumMessages(MessagesGraph.BUILD_MODEL_CACHE_STORED);
+            constants.put("N", "6");
+            options.set(OptionsModelChecker.CONST, constants);
+            result = computeResult(options, ModelNamesPRISM.CELL_MODEL, cellProperty);
+            assertEquals(cellSix, result, tolerance);
+            Assert.assertEquals(numLoaded, log.getNumMessages(MessagesGraph.BUILD_MODEL_CACHE_LOADED));
+            assertTrue(log.getNumMessages(MessagesGraph.BUILD_MODEL_CACHE_STORED) > numStored);
+        } finally {
+            try (Stream<Path> files = Files.walk(cacheDirectory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+            close(options);
+        }
+    }
+
     @Test
     public void cellTest() {
         Options options = prepareOptions();
@@ -747,4 +965,480 @@ public final class PCTLSolverExplicitTest {
 
         close(options);
     }
+
+    /**
+     * Test unbounded reachability with the graph solver fixed to the solver
+     * iterating on primitive double arrays, for all combinations of
+     * iteration methods and stop criteria it supports.
+     */
+    @Test
+    public void unboundedReachabilityJavaDoubleTest() {
+        for (IterationMethod method : new IterationMethod[]{IterationMethod.JACOBI, IterationMethod.GAUSS_SEIDEL}) {
+            for (IterationStopCriterion criterion : new IterationStopCriterion[]{IterationStopCriterion.ABSOLUTE, IterationStopCriterion.RELATIVE}) {
+                Options options = prepareOptions();
+                double tolerance = 1E-10;
+                options.set(TestHelper.ITERATION_TOLERANCE, Double.toString(tolerance));
+                options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+                options.set(TestHelper.PRISM_FLATTEN, false);
+                options.set(OptionsGraphsolver.GRAPHSOLVER_SOLVER, UnboundedReachabilityJavaDouble.IDENTIFIER);
+                options.set(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD, method);
+                options.set(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_STOP_CRITERION, criterion);
+                Value result;
+                result = computeResult(options, ModelNamesPRISM.DICE_MODEL, "P=?[(F((s=7)&(d=1)))]");
+                assertEquals("1/6", result, tolerance * 10);
+                result = computeResult(options, ModelNamesOwn.EMBEDDED_CTMC, "P=? [ F s=3 ]");
+                assertEquals("1/7", result, tolerance * 10);
+                result = computeResult(options, ModelNamesPRISM.TWO_DICE_MODEL, "Pmin=? [ F s1=7 & s2=7 & d1+d2=7 ]");
+                assertEquals("1/6", result, tolerance * 10);
+                result = computeResult(options, ModelNamesOwn.END_COMPONENTS, "Pmax=? [ F s=3 ]");
+                assertEquals("7/10", result, tolerance * 10);
+                result = computeResult(options, ModelNamesOwn.END_COMPONENTS, "Pmin=? [ F s=3 ]");
+                assertEquals("0", result, tolerance * 10);
+                close(options);
+            }
+        }
+    }
+
+    /**
+     * Test that interval and optimistic value iteration obtain results
+     * within the requested precision. The maximal reachability probability
+     * of the model with an end component can only be bounded from above
+     * after the end component has been deflated.
+     */
+    @Test
+    public void soundStopCriterionTest() {
+        for (IterationStopCriterion criterion : new IterationStopCriterion[]{IterationStopCriterion.INTERVAL, IterationStopCriterion.OPTIMISTIC}) {
+            Options options = prepareOptions();
+            double tolerance = 1E-6;
+            options.set(TestHelper.ITERATION_TOLERANCE, Double.toString(tolerance));
+            options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+            options.set(TestHelper.PRISM_FLATTEN, false);
+            options.set(OptionsGraphsolver.GRAPHSOLVER_SOLVER, UnboundedReachabilityJavaDouble.IDENTIFIER);
+            options.set(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_STOP_CRITERION, criterion);
+            LogTest log = options.get(OptionsMessages.LOG);
+            Value result;
+            result = computeResult(options, ModelNamesOwn.END_COMPONENTS, "Pmax=? [ F s=3 ]");
+            assertEquals("7/10", result, tolerance);
+            result = computeResult(options, ModelNamesOwn.END_COMPONENTS, "Pmin=? [ F s=3 ]");
+            assertEquals("0", result, tolerance);
+            result = computeResult(options, ModelNamesOwn.EMBEDDED_CTMC, "P=? [ F s=3 ]");
+            assertEquals("1/7", result, tolerance);
+            Assert.assertEquals(0, log.getNumMessages(MessagesGraphSolverIterative.STOP_CRITERION_UNSUPPORTED));
+            close(options);
+        }
+    }
+
+    /**
+     * Test that solvers which only compare successive iterations warn that
+     * they do not support the interval and optimistic stop criteria.
+     */
+    @Test
+    public void unsupportedStopCriterionTest() {
+        for (IterationStopCriterion criterion : new IterationStopCriterion[]{IterationStopCriterion.INTERVAL, IterationStopCriterion.OPTIMISTIC}) {
+            Options options = prepareOptions();
+            double tolerance = 1E-10;
+            options.set(TestHelper.ITERATION_TOLERANCE, Double.toString(tolerance));
+            options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+            options.set(TestHelper.PRISM_FLATTEN, false);
+            options.set(OptionsGraphsolver.GRAPHSOLVER_SOLVER, UnboundedCumulativeJava.IDENTIFIER);
+            options.set(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_STOP_CRITERION, criterion);
+            LogTest log = options.get(OptionsMessages.LOG);
+            Value result = computeResult(options, ModelNamesOwn.END_COMPONENTS, "R{\"cost\"}min=? [ F s>=3 ]");
+            assertEquals("2", result, tolerance * 10);
+            Assert.assertEquals(1, log.getNumMessages(MessagesGraphSolverIterative.STOP_CRITERION_UNSUPPORTED));
+            close(options);
+        }
+    }
+
+    /**
+     * Test that the schedulers computed by the solver iterating on primitive
+     * double arrays achieve the probabilities computed. The model contains
+     * an end component, in which maximising schedulers must not remain.
+     */
+    @Test
+    public void unboundedReachabilityJavaDoubleSchedulerTest() {
+        for (IterationMethod method : new IterationMethod[]{IterationMethod.JACOBI, IterationMethod.GAUSS_SEIDEL}) {
+            for (boolean min : new boolean[]{false, true}) {
+                Options options = prepareOptions();
+                double tolerance = 1E-10;
+                options.set(TestHelper.ITERATION_TOLERANCE, Double.toString(tolerance));
+                options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+                options.set(TestHelper.PRISM_FLATTEN, false);
+                options.set(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD, method);
+                GraphSolverObjectiveExplicitUnboundedReachability objective =
+                        TestHelperGraphSolver.prepareUnboundedReachability(options,
+                                ModelNamesOwn.END_COMPONENTS, "s", 3, min);
+                objective.setComputeScheduler(true);
+                UnboundedReachabilityJavaDouble solver = new UnboundedReachabilityJavaDouble();
+                solver.setGraphSolverObjective(objective);
+                Assert.assertTrue(solver.canHandle());
+                solver.solve();
+                double[] values = TestHelperGraphSolver.toDoubles(objective.getResult());
+                Assert.assertEquals(min ? 0.0 : 0.7, values[0], tolerance * 10);
+                Assert.assertTrue(objective.getScheduler() instanceof SchedulerSimple);
+                double[] achieved = TestHelperGraphSolver.evaluateScheduler(objective.getGraph(),
+                        objective.getTarget(), (SchedulerSimple) objective.getScheduler());
+                Assert.assertArrayEquals(values, achieved, tolerance * 10);
+                close(options);
+            }
+        }
+    }
+
+    /**
+     * Test policy iteration on the model with an end component. The initial
+     * policy, which takes the first choice of each state, remains in the end
+     * component forever. For maximal probabilities, its evaluation must thus
+     * converge to zero rather than to an arbitrary fixed point. For minimal
+     * rewards, it would collect infinite reward, so that a policy reaching
+     * the target states must be used instead. Maximal rewards are infinite
+     * in states which can remain in the end component.
+     */
+    @Test
+    public void policyIterationTest() {
+        Options options = prepareOptions();
+        double tolerance = 1E-10;
+        options.set(TestHelper.ITERATION_TOLERANCE, Double.toString(tolerance));
+        options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+        options.set(TestHelper.PRISM_FLATTEN, false);
+        options.set(OptionsGraphsolver.GRAPHSOLVER_SOLVER, PolicyIterationJavaDouble.IDENTIFIER);
+        Value result;
+        result = computeResult(options, ModelNamesOwn.END_COMPONENTS, "Pmax=? [ F s=3 ]");
+        assertEquals("7/10", result, tolerance * 10);
+        result = computeResult(options, ModelNamesOwn.END_COMPONENTS, "Pmin=? [ F s=3 ]");
+        assertEquals("0", result, tolerance * 10);
+        result = computeResult(options, ModelNamesOwn.END_COMPONENTS, "R{\"cost\"}min=? [ F s>=3 ]");
+        assertEquals("2", result, tolerance * 10);
+        result = computeResult(options, ModelNamesOwn.END_COMPONENTS, "R{\"cost\"}max=? [ F s>=3 ]");
+        Assert.assertEquals(Double.POSITIVE_INFINITY, ValueNumber.as(result).getDouble(), 0.0);
+        close(options);
+    }
+
+    /**
+     * Test that policy iteration obtains the same values as value iteration
+     * on a model in which the first choice of each state is not always the
+     * optimal one.
+     */
+    @Test
+    public void policyIterationSameAsValueIterationTest() {
+        String[] properties = {
+                "Pmax=? [ F x=20 ]",
+                "Pmin=? [ F x=20 ]",
+                "R{\"steps\"}max=? [ F x=20 | y=20 ]",
+                "R{\"steps\"}min=? [ F x=20 | y=20 ]"
+        };
+        double tolerance = 1E-10;
+        Map<String, Object> constants = new HashMap<>();
+        constants.put("N", "20");
+        Value[] valueIteration = new Value[properties.length];
+        Value[] policyIteration = new Value[properties.length];
+        for (String solver : new String[]{UnboundedReachabilityJavaDouble.IDENTIFIER + "," + UnboundedCumulativeJava.IDENTIFIER, PolicyIterationJavaDouble.IDENTIFIER}) {
+            Options options = prepareOptions();
+            options.set(TestHelper.ITERATION_TOLERANCE, Double.toString(tolerance));
+            options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+            options.set(TestHelper.PRISM_FLATTEN, false);
+            options.set(OptionsModelChecker.CONST, constants);
+            options.set(OptionsGraphsolver.GRAPHSOLVER_SOLVER, solver);
+            Value[] results = solver.equals(PolicyIterationJavaDouble.IDENTIFIER)
+                    ? policyIteration : valueIteration;
+            for (int propNr = 0; propNr < properties.length; propNr++) {
+                results[propNr] = computeResult(options, ModelNamesOwn.GRID_WALK_MDP, properties[propNr]);
+            }
+            close(options);
+        }
+        for (int propNr = 0; propNr < properties.length; propNr++) {
+            assertEquals(properties[propNr], valueIteration[propNr], policyIteration[propNr], 1E-6);
+        }
+    }
+
+    /**
+     * Test that the schedulers computed by policy iteration achieve the
+     * probabilities computed. The maximising scheduler must leave the end
+     * component the initial policy remains in.
+     */
+    @Test
+    public void policyIterationSchedulerTest() {
+        for (boolean min : new boolean[]{false, true}) {
+            Options options = prepareOptions();
+            double tolerance = 1E-10;
+            options.set(TestHelper.ITERATION_TOLERANCE, Double.toString(tolerance));
+            options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+            options.set(TestHelper.PRISM_FLATTEN, false);
+            GraphSolverObjectiveExplicitUnboundedReachability objective =
+                    TestHelperGraphSolver.prepareUnboundedReachability(options,
+                            ModelNamesOwn.END_COMPONENTS, "s", 3, min);
+            objective.setComputeScheduler(true);
+            PolicyIterationJavaDouble solver = new PolicyIterationJavaDouble();
+            solver.setGraphSolverObjective(objective);
+            Assert.assertTrue(solver.canHandle());
+            solver.solve();
+            double[] values = TestHelperGraphSolver.toDoubles(objective.getResult());
+            Assert.assertEquals(min ? 0.0 : 0.7, values[0], tolerance * 10);
+            Assert.assertTrue(objective.getScheduler() instanceof SchedulerSimple);
+            double[] achieved = TestHelperGraphSolver.evaluateScheduler(objective.getGraph(),
+                    objective.getTarget(), (SchedulerSimple) objective.getScheduler());
+            Assert.assertArrayEquals(values, achieved, tolerance * 10);
+            close(options);
+        }
+    }
+
+    /**
+     * Test the Krylov subspace methods with each preconditioner on CTMCs
+     * with rates of very different magnitude, both for unbounded
+     * reachability and for the steady-state distribution.
+     */
+    @Test
+    public void krylovStiffTest() {
+        Map<String, Object> constants = new HashMap<>();
+        constants.put("S0", "0");
+        for (IterationMethod method : new IterationMethod[]{IterationMethod.BICGSTAB, IterationMethod.GMRES}) {
+            for (IterationPreconditioner preconditioner : IterationPreconditioner.values()) {
+                Options options = prepareOptions();
+                double tolerance = 1E-12;
+                options.set(TestHelper.ITERATION_TOLERANCE, Double.toString(tolerance));
+                options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+                options.set(TestHelper.PRISM_FLATTEN, false);
+                options.set(OptionsModelChecker.CONST, constants);
+                options.set(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD, method);
+                options.set(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_PRECONDITIONER, preconditioner);
+                Value result;
+                options.set(OptionsGraphsolver.GRAPHSOLVER_SOLVER, UnboundedReachabilityJavaDouble.IDENTIFIER);
+                result = computeResult(options, ModelNamesOwn.STIFF_CTMC, "P=? [ F s=2 ]");
+                assertEquals(method + " " + preconditioner, "1000000/1001001", result, 1E-8);
+                options.set(OptionsGraphsolver.GRAPHSOLVER_SOLVER, SteadyStateJavaDouble.IDENTIFIER);
+                result = computeResult(options, ModelNamesOwn.STIFF_CYCLE_CTMC, "S=? [ s=2 ]");
+                assertEquals(method + " " + preconditioner, "1000/20001001", result, 1E-10);
+                close(options);
+            }
+        }
+    }
+
+    /**
+     * Test that the steady-state solver using Krylov subspace methods only
+     * accepts graphs consisting of a single bottom strongly connected
+     * component, but not graphs with several of them or with transient
+     * states.
+     */
+    @Test
+    public void steadyStateSingleComponentTest() {
+        Options options = prepareOptions();
+        options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+        options.set(TestHelper.PRISM_FLATTEN, false);
+        options.set(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD, IterationMethod.BICGSTAB);
+        Map<String, Object> constants = new HashMap<>();
+        constants.put("S0", "0");
+        options.set(OptionsModelChecker.CONST, constants);
+        Assert.assertTrue(canHandleSteadyState(options, ModelNamesOwn.STIFF_CYCLE_CTMC));
+        constants.put("S0", "3");
+        options.set(OptionsModelChecker.CONST, constants);
+        Assert.assertFalse(canHandleSteadyState(options, ModelNamesOwn.STIFF_CYCLE_CTMC));
+        Assert.assertFalse(canHandleSteadyState(options, ModelNamesOwn.STIFF_CTMC));
+        Assert.assertFalse(canHandleSteadyState(options, ModelNamesOwn.EMBEDDED_CTMC));
+        options.set(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD, IterationMethod.JACOBI);
+        constants.put("S0", "0");
+        options.set(OptionsModelChecker.CONST, constants);
+        Assert.assertFalse(canHandleSteadyState(options, ModelNamesOwn.STIFF_CYCLE_CTMC));
+        close(options);
+    }
+
+    private static boolean canHandleSteadyState(Options options, String modelFile) {
+        GraphExplicit graph = TestHelperGraph.exploreModelGraph(options, modelFile);
+        ValueArrayAlgebra rewards = UtilValue.newArray(TypeWeight.get().getTypeArray(), graph.computeNumStates());
+        GraphSolverObjectiveExplicitSteadyState objective = new GraphSolverObjectiveExplicitSteadyState();
+        objective.setGraph(graph);
+        objective.setStateRewards(rewards);
+        SteadyStateJavaDouble solver = new SteadyStateJavaDouble();
+        solver.setGraphSolverObjective(objective);
+        return solver.canHandle();
+    }
+
+    /**
+     * Test that value iteration using several threads yields the same
+     * results as single-threaded value iteration, for unbounded and bounded
+     * reachability as well as for cumulative rewards. The models have more
+     * states than processed by a single task, so that the states are
+     * actually partitioned among the threads.
+     */
+    @Test
+    public void parallelIterationTest() {
+        String[] dtmcProperties = {
+                "P=? [ F x=60 ]",
+                "P=? [ F<=100 x=60 ]",
+                "R{\"distance\"}=? [ C<=50 ]",
+                "R{\"steps\"}=? [ F x=60 | y=60 ]"
+        };
+        String[] mdpProperties = {
+                "Pmax=? [ F x=60 ]",
+                "Pmin=? [ F x=60 ]",
+                "Pmax=? [ F<=100 x=60 ]",
+                "Pmin=? [ F<=100 x=60 ]",
+                "R{\"distance\"}max=? [ C<=50 ]",
+                "R{\"distance\"}min=? [ C<=50 ]",
+                "R{\"steps\"}max=? [ F x=60 | y=60 ]",
+                "R{\"steps\"}min=? [ F x=60 | y=60 ]"
+        };
+        assertParallelSameAsSequential(ModelNamesOwn.GRID_WALK_DTMC, dtmcProperties);
+        assertParallelSameAsSequential(ModelNamesOwn.GRID_WALK_MDP, mdpProperties);
+    }
+
+    private static void assertParallelSameAsSequential(String modelFile, String[] properties) {
+        double tolerance = 1E-10;
+        Map<String, Object> constants = new HashMap<>();
+        constants.put("N", "60");
+        Value[] sequential = new Value[properties.length];
+        Value[] parallel = new Value[properties.length];
+        for (int numThreads : new int[]{1, 4}) {
+            Options options = prepareOptions();
+            options.set(TestHelper.ITERATION_TOLERANCE, Double.toString(tolerance));
+            options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+            options.set(TestHelper.PRISM_FLATTEN, false);
+            options.set(OptionsModelChecker.CONST, constants);
+            options.set(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD, IterationMethod.JACOBI);
+            options.set(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_THREADS, numThreads);
+            Value[] results = numThreads == 1 ? sequential : parallel;
+            for (int propNr = 0; propNr < properties.length; propNr++) {
+                results[propNr] = computeResult(options, modelFile, properties[propNr]);
+            }
+            close(options);
+        }
+        for (int propNr = 0; propNr < properties.length; propNr++) {
+            assertEquals(sequential[propNr], parallel[propNr], tolerance * 1000);
+        }
+    }
+
+    /**
+     * Test that solving the strongly connected components one by one in
+     * topological order, using one or several threads, yields the same
+     * results as solving the whole model at once.
+     */
+    @Test
+    public void topologicalIterationTest() {
+        String[] dtmcProperties = {
+                "P=? [ F x=60 ]",
+                "P=? [ F y=60 ]"
+        };
+        String[] mdpProperties = {
+                "Pmax=? [ F x=60 ]",
+                "Pmin=? [ F x=60 ]"
+        };
+        String[] endComponentsProperties = {
+                "Pmax=? [ F s=3 ]",
+                "Pmin=? [ F s=3 ]"
+        };
+        for (IterationMethod method : new IterationMethod[]{IterationMethod.JACOBI, IterationMethod.GAUSS_SEIDEL}) {
+            assertTopologicalSameAsPlain(ModelNamesOwn.GRID_WALK_DTMC, dtmcProperties, method);
+            assertTopologicalSameAsPlain(ModelNamesOwn.GRID_WALK_MDP, mdpProperties, method);
+            assertTopologicalSameAsPlain(ModelNamesOwn.END_COMPONENTS, endComponentsProperties, method);
+        }
+    }
+
+    private static void assertTopologicalSameAsPlain(String modelFile, String[] properties,
+            IterationMethod method) {
+        double tolerance = 1E-10;
+        Map<String, Object> constants = new HashMap<>();
+        constants.put("N", "60");
+        boolean[] topological = {false, true, true};
+        int[] numThreads = {1, 1, 4};
+        Value[] plain = null;
+        for (int config = 0; config < topological.length; config++) {
+            Options options = prepareOptions();
+            options.set(TestHelper.ITERATION_TOLERANCE, Double.toString(tolerance));
+            options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+            options.set(TestHelper.PRISM_FLATTEN, false);
+            if (!modelFile.equals(ModelNamesOwn.END_COMPONENTS)) {
+                options.set(OptionsModelChecker.CONST, constants);
+            }
+            options.set(OptionsGraphsolver.GRAPHSOLVER_SOLVER, UnboundedReachabilityJavaDouble.IDENTIFIER);
+            options.set(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD, method);
+            options.set(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_TOPOLOGICAL, topological[config]);
+            options.set(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_THREADS, numThreads[config]);
+            Value[] results = new Value[properties.length];
+            for (int propNr = 0; propNr < properties.length; propNr++) {
+                results[propNr] = computeResult(options, modelFile, properties[propNr]);
+            }
+            close(options);
+            if (plain == null) {
+                plain = results;
+            } else {
+                for (int propNr = 0; propNr < properties.length; propNr++) {
+                    assertEquals(plain[propNr], results[propNr], tolerance * 1000);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test that the solvers for bounded reachability and cumulative rewards
+     * iterating on primitive double arrays obtain the same values as the
+     * generic solvers, and that they obtain the known values on a small
+     * continuous-time Markov chain, which the generic solver for bounded
+     * cumulative rewards does not support.
+     */
+    @Test
+    public void boundedAndCumulativeJavaDoubleTest() {
+        String[] dtmcProperties = {
+                "P=? [ F<=100 x=20 ]",
+                "R{\"distance\"}=? [ C<=50 ]",
+                "R{\"steps\"}=? [ F x=20 | y=20 ]"
+        };
+        String[] mdpProperties = {
+                "Pmax=? [ F<=100 x=20 ]",
+                "Pmin=? [ F<=100 x=20 ]",
+                "R{\"distance\"}max=? [ C<=50 ]",
+                "R{\"distance\"}min=? [ C<=50 ]",
+                "R{\"steps\"}max=? [ F x=20 | y=20 ]",
+                "R{\"steps\"}min=? [ F x=20 | y=20 ]"
+        };
+        String generic = UnboundedReachabilityJavaDouble.IDENTIFIER + ","
+                + BoundedReachabilityJava.IDENTIFIER + ","
+                + BoundedCumulativeJava.IDENTIFIER + ","
+                + UnboundedCumulativeJava.IDENTIFIER;
+        String javaDouble = UnboundedReachabilityJavaDouble.IDENTIFIER + ","
+                + BoundedReachabilityJavaDouble.IDENTIFIER + ","
+                + BoundedCumulativeJavaDouble.IDENTIFIER + ","
+                + UnboundedCumulativeJavaDouble.IDENTIFIER;
+        for (IterationMethod method : new IterationMethod[]{IterationMethod.JACOBI, IterationMethod.GAUSS_SEIDEL}) {
+            assertSameSolverResults(ModelNamesOwn.GRID_WALK_DTMC, dtmcProperties, method, generic, javaDouble);
+            assertSameSolverResults(ModelNamesOwn.GRID_WALK_MDP, mdpProperties, method, generic, javaDouble);
+        }
+
+        Options options = prepareOptions();
+        double tolerance = 1E-10;
+        options.set(TestHelper.ITERATION_TOLERANCE, Double.toString(tolerance));
+        options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+        options.set(TestHelper.PRISM_FLATTEN, false);
+        options.set(OptionsGraphsolver.GRAPHSOLVER_SOLVER, javaDouble);
+        Value result;
+        result = computeResult(options, ModelNamesOwn.DECAY_CTMC, "P=? [ F<=1.5 s=1 ]");
+        Assert.assertEquals(1 - Math.exp(-3), ValueNumber.as(result).getDouble(), tolerance * 10);
+        result = computeResult(options, ModelNamesOwn.DECAY_CTMC, "R{\"time\"}=? [ C<=1.5 ]");
+        Assert.assertEquals((1 - Math.exp(-3)) / 2, ValueNumber.as(result).getDouble(), tolerance * 10);
+        result = computeResult(options, ModelNamesOwn.DECAY_CTMC, "R{\"time\"}=? [ F s=1 ]");
+        assertEquals("1/2", result, tolerance * 10);
+        close(options);
+    }
+
+    private static void assertSameSolverResults(String modelFile, String[] properties,
+            IterationMethod method, String expectedSolvers, String actualSolvers) {
+        double tolerance = 1E-10;
+        Map<String, Object> constants = new HashMap<>();
+        constants.put("N", "20");
+        Value[][] results = new Value[2][properties.length];
+        String[] solvers = {expectedSolvers, actualSolvers};
+        for (int solverNr = 0; solverNr < solvers.length; solverNr++) {
+            Options options = prepareOptions();
+            options.set(TestHelper.ITERATION_TOLERANCE, Double.toString(tolerance));
+            options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+            options.set(TestHelper.PRISM_FLATTEN, false);
+            options.set(OptionsModelChecker.CONST, constants);
+            options.set(OptionsGraphsolver.GRAPHSOLVER_SOLVER, solvers[solverNr]);
+            options.set(OptionsGraphSolverIterative.GRAPHSOLVER_ITERATIVE_METHOD, method);
+            for (int propNr = 0; propNr < properties.length; propNr++) {
+                results[solverNr][propNr] = computeResult(options, modelFile, properties[propNr]);
+            }
+            close(options);
+        }
+        for (int propNr = 0; propNr < properties.length; propNr++) {
+            assertEquals(properties[propNr], results[0][propNr], results[1][propNr], tolerance * 1000);
+        }
+    }
 }
@@ -0,0 +1,189 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.algorithms.explicit;
+
+import static epmc.modelchecker.TestHelper.close;
+import static epmc.modelchecker.TestHelper.prepare;
+import static epmc.modelchecker.TestHelper.prepareOptions;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import epmc.graph.explicit.GraphExplicitSparse;
+import epmc.options.Options;
+
+/**
+ * Tests for the iterative computation of strongly connected components in
+ * reverse topological order by
+ * {@link ComponentsExplicit#stronglyConnectedComponents(epmc.graph.explicit.GraphExplicit, int[], int[])}.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class ComponentsExplicitTest {
+    @BeforeClass
+    public static void initialise() {
+        prepare();
+    }
+
+    @Test
+    public void smallTest() {
+        Options options = prepareOptions();
+        int[][] successors = {
+                {1},
+                {2, 3},
+                {0},
+                {4},
+                {5},
+                {3, 6},
+                {}
+        };
+        int[] componentOf = assertComponents(successors);
+        assertEquals(componentOf[0], componentOf[1]);
+        assertEquals(componentOf[0], componentOf[2]);
+        assertEquals(componentOf[3], componentOf[4]);
+        assertEquals(componentOf[3], componentOf[5]);
+        assertEquals(0, componentOf[6]);
+        assertTrue(componentOf[3] < componentOf[0]);
+        close(options);
+    }
+
+    /**
+     * Test a long chain of nodes, on which a recursive implementation would
+     * overflow the call stack.
+     */
+    @Test
+    public void longChainTest() {
+        Options options = prepareOptions();
+        int numNodes = 200000;
+        int[][] successors = new int[numNodes][];
+        for (int node = 0; node < numNodes - 1; node++) {
+            successors[node] = new int[]{node + 1};
+        }
+        successors[numNodes - 1] = new int[]{0};
+        int[] componentOf = assertComponents(successors);
+        for (int node = 0; node < numNodes; node++) {
+            assertEquals(0, componentOf[node]);
+        }
+        successors[numNodes - 1] = new int[0];
+        componentOf = assertComponents(successors);
+        for (int node = 0; node < numNodes; node++) {
+            assertEquals(numNodes - 1 - node, componentOf[node]);
+        }
+        close(options);
+    }
+
+    @Test
+    public void randomTest() {
+        Options options = prepareOptions();
+        Random random = new Random(42);
+        for (int graphNr = 0; graphNr < 200; graphNr++) {
+            int numNodes = 1 + random.nextInt(60);
+            int maxSuccessors = 1 + random.nextInt(3);
+            int[][] successors = new int[numNodes][];
+            for (int node = 0; node < numNodes; node++) {
+                successors[node] = new int[random.nextInt(maxSuccessors + 1)];
+                for (int succNr = 0; succNr < successors[node].length; succNr++) {
+                    successors[node][succNr] = random.nextInt(numNodes);
+                }
+            }
+            assertComponents(successors);
+        }
+        close(options);
+    }
+
+    /**
+     * Compute the components of the graph with the given successors and
+     * check the result.
+     * Each node must be contained in exactly one component, two nodes must
+     * be in the same component if and only if they can reach each other, and
+     * edges must only lead to the same or to an earlier component. The
+     * latter two properties are only checked for graphs small enough to
+     * compute their transitive closure.
+     * 
+     * @param successors successors of each node
+     * @return index of component of each node
+     */
+    private static int[] assertComponents(int[][] successors) {
+        int numNodes = successors.length;
+        GraphExplicitSparse graph = new GraphExplicitSparse();
+        for (int node = 0; node < numNodes; node++) {
+            graph.prepareNode(node, successors[node].length);
+            for (int succNr = 0; succNr < successors[node].length; succNr++) {
+                graph.setSuccessorNode(node, succNr, successors[node][succNr]);
+            }
+        }
+        int[] nodes = new int[numNodes];
+        int[] bounds = new int[numNodes + 1];
+        int numComponents = new ComponentsExplicit().stronglyConnectedComponents(graph, nodes, bounds);
+        assertEquals(0, bounds[0]);
+        assertEquals(numNodes, bounds[numComponents]);
+        int[] componentOf = new int[numNodes];
+        boolean[] seen = new boolean[numNodes];
+        for (int component = 0; component < numComponents; component++) {
+            assertTrue(bounds[component] < bounds[component + 1]);
+            for (int index = bounds[component]; index < bounds[component + 1]; index++) {
+                assertTrue(!seen[nodes[index]]);
+                seen[nodes[index]] = true;
+                componentOf[nodes[index]] = component;
+            }
+        }
+        for (int node = 0; node < numNodes; node++) {
+            for (int successor : successors[node]) {
+                assertTrue(componentOf[successor] <= componentOf[node]);
+            }
+        }
+        if (numNodes <= 100) {
+            boolean[][] reach = transitiveClosure(successors);
+            for (int from = 0; from < numNodes; from++) {
+                for (int to = 0; to < numNodes; to++) {
+                    boolean mutual = from == to || (reach[from][to] && reach[to][from]);
+                    assertEquals(mutual, componentOf[from] == componentOf[to]);
+                }
+            }
+        }
+        return componentOf;
+    }
+
+    private static boolean[][] transitiveClosure(int[][] successors) {
+        int numNodes = successors.length;
+        boolean[][] reach = new boolean[numNodes][numNodes];
+        for (int node = 0; node < numNodes; node++) {
+            for (int successor : successors[node]) {
+                reach[node][successor] = true;
+            }
+        }
+        for (int via = 0; via < numNodes; via++) {
+            for (int from = 0; from < numNodes; from++) {
+                if (!reach[from][via]) {
+                    continue;
+                }
+                for (int to = 0; to < numNodes; to++) {
+                    reach[from][to] |= reach[via][to];
+                }
+            }
+        }
+        return reach;
+    }
+}
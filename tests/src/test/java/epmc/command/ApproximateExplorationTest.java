@@ -0,0 +1,180 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.command;
+
+import static epmc.graph.TestHelperGraph.exploreModel;
+import static epmc.modelchecker.TestHelper.close;
+import static epmc.modelchecker.TestHelper.prepare;
+import static epmc.modelchecker.TestHelper.prepareOptions;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import epmc.ModelNamesPRISM;
+import epmc.graph.CommonProperties;
+import epmc.graph.explorer.Explorer;
+import epmc.messages.OptionsMessages;
+import epmc.modelchecker.EngineExplicit;
+import epmc.modelchecker.EngineExplorer;
+import epmc.modelchecker.ExploreStatistics;
+import epmc.modelchecker.LogTest;
+import epmc.modelchecker.Model;
+import epmc.modelchecker.ModelChecker;
+import epmc.modelchecker.TestHelper;
+import epmc.modelchecker.UtilModelChecker;
+import epmc.modelchecker.options.OptionsModelChecker;
+import epmc.options.Options;
+
+/**
+ * Tests for approximate exploration of the explore command.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class ApproximateExplorationTest {
+    /** Binary logarithm of table bits large enough for the models used. */
+    private final static int LARGE_TABLE_BITS = 20;
+    /** Binary logarithm of table bits too small for the models used. */
+    private final static int SMALL_TABLE_BITS = 8;
+
+    /**
+     * Set up the tests.
+     */
+    @BeforeClass
+    public static void initialise() {
+        prepare();
+    }
+
+    /**
+     * Test that the explore command with hash compaction finds the same
+     * numbers of nodes, states and transitions as exact exploration and
+     * reports the frontier size.
+     * 
+     */
+    @Test
+    public void commandHashCompactionTest() {
+        assertCommandSameAsExact(ModelNamesPRISM.DICE_MODEL,
+                OptionsTypesCommandExplore.Approximation.HASH_COMPACTION);
+        assertCommandSameAsExact(ModelNamesPRISM.TWO_DICE_MODEL,
+                OptionsTypesCommandExplore.Approximation.HASH_COMPACTION);
+    }
+
+    /**
+     * Test that the explore command with bitstate hashing and a table much
+     * larger than the model finds the same numbers as exact exploration.
+     * 
+     */
+    @Test
+    public void commandBitstateTest() {
+        assertCommandSameAsExact(ModelNamesPRISM.DICE_MODEL,
+                OptionsTypesCommandExplore.Approximation.BITSTATE);
+        assertCommandSameAsExact(ModelNamesPRISM.TWO_DICE_MODEL,
+                OptionsTypesCommandExplore.Approximation.BITSTATE);
+    }
+
+    /**
+     * Test that the frontier size is recorded and bounded by the number of
+     * nodes explored.
+     * 
+     */
+    @Test
+    public void frontierTest() {
+        Options options = prepareOptions();
+        Model model = TestHelper.loadModel(options, ModelNamesPRISM.TWO_DICE_MODEL);
+        ModelChecker checker = new ModelChecker(model);
+        ApproximateExploration exploration = new ApproximateExploration(newExplorer(model),
+                OptionsTypesCommandExplore.Approximation.HASH_COMPACTION, LARGE_TABLE_BITS);
+        exploration.explore();
+        Assert.assertFalse(exploration.isTableFull());
+        Assert.assertTrue(exploration.getMaxFrontierSize() >= 1);
+        Assert.assertTrue(exploration.getMaxFrontierSize() <= exploration.getNumNodes());
+        Assert.assertTrue(exploration.getMaxFrontierBytes() >= exploration.getMaxFrontierSize());
+        checker.close();
+        close(options);
+    }
+
+    /**
+     * Test that exploration stops early and reports a full table if the
+     * hash compaction table is too small for the model.
+     * 
+     */
+    @Test
+    public void tableFullTest() {
+        Options options = prepareOptions();
+        options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+        Model model = TestHelper.loadModel(options, ModelNamesPRISM.TWO_DICE_MODEL);
+        ExploreStatistics exact = exploreModel(model);
+        ModelChecker checker = new ModelChecker(model);
+        ApproximateExploration exploration = new ApproximateExploration(newExplorer(model),
+                OptionsTypesCommandExplore.Approximation.HASH_COMPACTION, SMALL_TABLE_BITS);
+        exploration.explore();
+        Assert.assertTrue(exploration.isTableFull());
+        Assert.assertTrue(exploration.getNumNodes() < exact.getNumNodes().longValue());
+        checker.close();
+        close(options);
+    }
+
+    /**
+     * Run the explore command with the given approximation and compare the
+     * statistics it reports with the ones of exact exploration.
+     * 
+     * @param modelFile model to explore
+     * @param approximation approximation method to use
+     */
+    private static void assertCommandSameAsExact(String modelFile,
+            OptionsTypesCommandExplore.Approximation approximation) {
+        Options options = prepareOptions();
+        options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+        Model model = TestHelper.loadModel(options, modelFile);
+        ExploreStatistics exact = exploreModel(model);
+
+        options.set(OptionsCommandExplore.EXPLORE_APPROXIMATION, approximation);
+        options.set(OptionsCommandExplore.EXPLORE_APPROXIMATION_TABLE_BITS, LARGE_TABLE_BITS);
+        LogTest log = options.get(OptionsMessages.LOG);
+        log.getResults().clear();
+        ModelChecker checker = new ModelChecker(model);
+        CommandTaskExplore command = new CommandTaskExplore();
+        command.setModelChecker(checker);
+        command.explore();
+        checker.close();
+        ExploreStatistics approximate = (ExploreStatistics) log.getResults().getCommonResult();
+
+        Assert.assertEquals(exact.getNumNodes(), approximate.getNumNodes());
+        Assert.assertEquals(exact.getNumStates(), approximate.getNumStates());
+        Assert.assertEquals(exact.getNumTransitions(), approximate.getNumTransitions());
+        Assert.assertEquals(0, log.getNumMessages(MessagesCommandExplore.EXPLORING_APPROXIMATE_TABLE_FULL));
+        Assert.assertEquals(1, log.getNumMessages(MessagesCommandExplore.EXPLORING_APPROXIMATE_FRONTIER));
+        close(options);
+    }
+
+    private static Explorer newExplorer(Model model) {
+        Set<Object> nodeProperties = new LinkedHashSet<>();
+        nodeProperties.add(CommonProperties.STATE);
+        Set<Object> edgeProperties = new LinkedHashSet<>();
+        edgeProperties.add(CommonProperties.WEIGHT);
+        return (Explorer) UtilModelChecker.buildLowLevel(model, EngineExplorer.ENGINE_EXPLORER,
+                Collections.singleton(CommonProperties.SEMANTICS), nodeProperties, edgeProperties);
+    }
+}
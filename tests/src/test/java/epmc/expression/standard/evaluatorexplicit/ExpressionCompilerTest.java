@@ -0,0 +1,190 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.expression.standard.evaluatorexplicit;
+
+import static epmc.modelchecker.TestHelper.close;
+import static epmc.modelchecker.TestHelper.prepare;
+import static epmc.modelchecker.TestHelper.prepareOptions;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import epmc.expression.Expression;
+import epmc.expression.evaluatorexplicit.EvaluatorExplicit;
+import epmc.expression.standard.OptionsExpressionBasic;
+import epmc.expressionevaluator.ExpressionToType;
+import epmc.modelchecker.UtilModelChecker;
+import epmc.options.Options;
+import epmc.value.Type;
+import epmc.value.TypeInteger;
+import epmc.value.TypeReal;
+import epmc.value.Value;
+import epmc.value.ValueBoolean;
+import epmc.value.ValueDouble;
+import epmc.value.ValueInteger;
+import epmc.value.ValueNumber;
+
+/**
+ * Tests checking that expressions compiled by {@link ExpressionCompiler}
+ * evaluate to the same values as the interpreting evaluators.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class ExpressionCompilerTest {
+    private final static double TOLERANCE = 1E-12;
+    private final static int[] INTEGER_VALUES = {-4, -3, -1, 0, 1, 2, 3, 7};
+    private final static double[] REAL_VALUES = {-1.5, 0.0, 0.5, 2.0};
+    private final static String[] EXPRESSIONS = {
+            /* modulus with negative and zero operands */
+            "mod(x, y)",
+            "mod(-x, y) + mod(x + 3, y)",
+            "mod(x, y) = mod(x - 2 * y, y)",
+            /* integer and mixed arithmetic */
+            "x + y * 2 - -x",
+            "x * r - y",
+            "min(x, y) + max(x, r)",
+            "-(x + r)",
+            /* division, including by zero */
+            "x / y",
+            "r / y",
+            "x / r",
+            "(x + r) / (y - x)",
+            /* comparisons between integers and reals */
+            "x < r",
+            "x <= y",
+            "r > y",
+            "x >= r",
+            "r = x",
+            "x != y",
+            /* boolean connectives */
+            "(x < y) => (r > 0)",
+            "(x = y) <=> (r < 0)",
+            "!(x > y) & (y > 0) | x = 0",
+            /* if-then-else with integer and real branches */
+            "x > 0 ? x : y",
+            "x > 0 ? x : r",
+            "r > 0 ? mod(x, y) : r / x",
+            "(x > y ? x < 0 : r < 0) ? 1 : 2"
+    };
+
+    @BeforeClass
+    public static void initialise() {
+        prepare();
+    }
+
+    @Test
+    public void compiledSameAsInterpretedTest() {
+        Options options = prepareOptions();
+        Expression x = UtilModelChecker.parseExpression("x");
+        Expression y = UtilModelChecker.parseExpression("y");
+        Expression r = UtilModelChecker.parseExpression("r");
+        Expression[] variables = {x, y, r};
+        ExpressionToType expressionToType = expression -> {
+            if (expression.equals(x) || expression.equals(y)) {
+                return TypeInteger.get();
+            } else if (expression.equals(r)) {
+                return TypeReal.get();
+            } else {
+                return null;
+            }
+        };
+        Value[] values = {TypeInteger.get().newValue(), TypeInteger.get().newValue(),
+                TypeReal.get().newValue()};
+        for (String string : EXPRESSIONS) {
+            Expression expression = UtilModelChecker.parseExpression(string);
+            options.set(OptionsExpressionBasic.EXPRESSION_COMPILE_EXPLICIT, false);
+            EvaluatorExplicit interpreted = UtilEvaluatorExplicit.newEvaluator(expression,
+                    expressionToType, variables);
+            options.set(OptionsExpressionBasic.EXPRESSION_COMPILE_EXPLICIT, true);
+            EvaluatorExplicit compiled = UtilEvaluatorExplicit.newEvaluator(expression,
+                    expressionToType, variables);
+            assertTrue(string, compiled instanceof EvaluatorExplicitCompiled);
+            interpreted.setValues(values);
+            compiled.setValues(values);
+            for (int xValue : INTEGER_VALUES) {
+                for (int yValue : INTEGER_VALUES) {
+                    for (double rValue : REAL_VALUES) {
+                        ValueInteger.as(values[0]).set(xValue);
+                        ValueInteger.as(values[1]).set(yValue);
+                        ValueDouble.as(values[2]).set(rValue);
+                        String message = string + " for x=" + xValue
+                                + ", y=" + yValue + ", r=" + rValue;
+                        assertSameResult(message, interpreted, compiled);
+                    }
+                }
+            }
+        }
+        close(options);
+    }
+
+    @Test
+    public void modTest() {
+        assertEquals(2, CompiledExpression.mod(-1, 3));
+        assertEquals(0, CompiledExpression.mod(-3, 3));
+        assertEquals(1, CompiledExpression.mod(7, 3));
+        assertEquals(-2, CompiledExpression.mod(1, -3));
+        assertEquals(-1, CompiledExpression.mod(-1, -3));
+    }
+
+    /**
+     * Evaluate both evaluators and check that they agree.
+     * If one of the evaluators fails with an arithmetic exception, e.g.
+     * because of a modulus by zero, the other one must fail as well.
+     * 
+     * @param message message to use if results differ
+     * @param interpreted interpreting evaluator
+     * @param compiled compiled evaluator
+     */
+    private static void assertSameResult(String message,
+            EvaluatorExplicit interpreted, EvaluatorExplicit compiled) {
+        Class<?> interpretedFailure = null;
+        try {
+            interpreted.evaluate();
+        } catch (ArithmeticException e) {
+            interpretedFailure = e.getClass();
+        }
+        Class<?> compiledFailure = null;
+        try {
+            compiled.evaluate();
+        } catch (ArithmeticException e) {
+            compiledFailure = e.getClass();
+        }
+        assertEquals(message, interpretedFailure, compiledFailure);
+        if (interpretedFailure != null) {
+            return;
+        }
+        Value expected = interpreted.getResultValue();
+        Value actual = compiled.getResultValue();
+        if (ValueBoolean.is(expected)) {
+            assertEquals(message, ValueBoolean.as(expected).getBoolean(),
+                    ValueBoolean.as(actual).getBoolean());
+        } else if (ValueInteger.is(expected)) {
+            assertTrue(message, ValueInteger.is(actual));
+            assertEquals(message, ValueInteger.as(expected).getInt(),
+                    ValueInteger.as(actual).getInt());
+        } else {
+            assertEquals(message, ValueNumber.as(expected).getDouble(),
+                    ValueNumber.as(actual).getDouble(), TOLERANCE);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graph;
+
+import static epmc.graph.TestHelperGraph.exploreModelGraph;
+import static epmc.modelchecker.TestHelper.close;
+import static epmc.modelchecker.TestHelper.prepare;
+import static epmc.modelchecker.TestHelper.prepareOptions;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import epmc.ModelNamesPRISM;
+import epmc.graph.explicit.GraphExplicit;
+import epmc.graph.options.OptionsGraph;
+import epmc.modelchecker.EngineExplicit;
+import epmc.modelchecker.Model;
+import epmc.modelchecker.TestHelper;
+import epmc.modelchecker.options.OptionsModelChecker;
+import epmc.options.Options;
+
+/**
+ * Tests for the exploration metrics written while building explicit-state
+ * graphs.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class ExplorerMetricsTest {
+    /** Timer of node encoding and lookup, as used by the graph builder. */
+    private final static String ENCODING = "encoding";
+
+    /**
+     * Set up the tests.
+     */
+    @BeforeClass
+    public static void initialise() {
+        prepare();
+    }
+
+    /**
+     * Test the metrics of a sequential build of a DTMC.
+     * 
+     * @throws IOException if the metrics file cannot be accessed
+     */
+    @Test
+    public void sparseTest() throws IOException {
+        assertMetricsMatchGraph(ModelNamesPRISM.DICE_MODEL, 1);
+    }
+
+    /**
+     * Test the metrics of a sequential build of an MDP.
+     * 
+     * @throws IOException if the metrics file cannot be accessed
+     */
+    @Test
+    public void alternateTest() throws IOException {
+        assertMetricsMatchGraph(ModelNamesPRISM.TWO_DICE_MODEL, 1);
+    }
+
+    /**
+     * Test the metrics of builds using several exploration threads.
+     * 
+     * @throws IOException if the metrics file cannot be accessed
+     */
+    @Test
+    public void parallelTest() throws IOException {
+        assertMetricsMatchGraph(ModelNamesPRISM.DICE_MODEL, 2);
+        assertMetricsMatchGraph(ModelNamesPRISM.TWO_DICE_MODEL, 2);
+    }
+
+    /**
+     * Build a model writing exploration metrics and compare the numbers of
+     * states and transitions of the last sample in the JSON file written
+     * with the ones of the graph built.
+     * 
+     * @param modelFile model to build
+     * @param numThreads number of exploration threads to use
+     * @throws IOException if the metrics file cannot be accessed
+     */
+    private static void assertMetricsMatchGraph(String modelFile, int numThreads)
+            throws IOException {
+        Path file = Files.createTempFile("epmc-metrics-test", ".json");
+        try {
+            Options options = prepareOptions();
+            options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+            options.set(OptionsGraph.EXPLORATION_THREADS, numThreads);
+            options.set(OptionsGraph.GRAPH_EXPLORATION_METRICS, file.toString());
+            Model model = TestHelper.loadModel(options, modelFile);
+            GraphExplicit graph = exploreModelGraph(model);
+            long numTransitions = 0;
+            for (int node = 0; node < graph.getNumNodes(); node++) {
+                numTransitions += graph.getNumSuccessors(node);
+            }
+
+            JsonObject metrics;
+            try (Reader reader = Files.newBufferedReader(file);
+                    JsonReader jsonReader = Json.createReader(reader)) {
+                metrics = jsonReader.readObject();
+            }
+            JsonArray samples = metrics.getJsonArray("samples");
+            Assert.assertFalse(samples.isEmpty());
+            JsonObject last = samples.getJsonObject(samples.size() - 1);
+            Assert.assertEquals(graph.computeNumStates(), last.getJsonNumber("states").longValue());
+            Assert.assertEquals(numTransitions, last.getJsonNumber("transitions").longValue());
+            long previousStates = 0;
+            for (int sampleNr = 0; sampleNr < samples.size(); sampleNr++) {
+                long states = samples.getJsonObject(sampleNr).getJsonNumber("states").longValue();
+                Assert.assertTrue(states >= previousStates);
+                previousStates = states;
+            }
+            Assert.assertTrue(metrics.getJsonNumber("peak-heap-bytes").longValue() > 0);
+            if (numThreads == 1) {
+                JsonObject encoding = metrics.getJsonObject("timers").getJsonObject(ENCODING);
+                Assert.assertNotNull(encoding);
+                Assert.assertTrue(encoding.getJsonNumber("count").longValue() >= graph.computeNumStates());
+            }
+            close(options);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,305 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graph;
+
+import static epmc.modelchecker.TestHelper.close;
+import static epmc.modelchecker.TestHelper.prepare;
+import static epmc.modelchecker.TestHelper.prepareOptions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import epmc.ModelNamesPRISM;
+import epmc.graph.explicit.EdgeProperty;
+import epmc.graph.explicit.GraphBuilderExplorer;
+import epmc.graph.explicit.GraphExplicit;
+import epmc.graph.explicit.GraphExplicitSparse;
+import epmc.graph.explicit.GraphExplicitSparseAlternate;
+import epmc.graph.explicit.NodeProperty;
+import epmc.graph.explorer.Explorer;
+import epmc.graph.explorer.ExplorerEdgeProperty;
+import epmc.graph.explorer.ExplorerNode;
+import epmc.graph.explorer.ExplorerNodeProperty;
+import epmc.graph.options.OptionsGraph;
+import epmc.modelchecker.EngineExplicit;
+import epmc.modelchecker.EngineExplorer;
+import epmc.modelchecker.Model;
+import epmc.modelchecker.ModelChecker;
+import epmc.modelchecker.TestHelper;
+import epmc.modelchecker.UtilModelChecker;
+import epmc.modelchecker.options.OptionsModelChecker;
+import epmc.options.Options;
+import epmc.value.Type;
+import epmc.value.Value;
+
+/**
+ * Tests for resuming explicit-state graph construction from checkpoints.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class GraphCheckpointTest {
+    /** Key identifying the model explored, as used for the checkpoint files. */
+    private final static String CACHE_KEY = "checkpoint-test";
+    /** Suffix of the checkpoint state file. */
+    private final static String STATE_SUFFIX = ".checkpoint";
+
+    /** Exception thrown to interrupt exploration. */
+    private final static class Interrupted extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Explorer counting the nodes queried and interrupting exploration once
+     * a given number of nodes has been queried.
+     */
+    private final static class InterruptingExplorer implements Explorer {
+        private final Explorer explorer;
+        private final int limit;
+        private int numQueried;
+
+        InterruptingExplorer(Explorer explorer, int limit) {
+            this.explorer = explorer;
+            this.limit = limit;
+        }
+
+        @Override
+        public Collection<? extends ExplorerNode> getInitialNodes() {
+            return explorer.getInitialNodes();
+        }
+
+        @Override
+        public void queryNode(ExplorerNode node) {
+            if (numQueried == limit) {
+                throw new Interrupted();
+            }
+            numQueried++;
+            explorer.queryNode(node);
+        }
+
+        @Override
+        public int getNumSuccessors() {
+            return explorer.getNumSuccessors();
+        }
+
+        @Override
+        public ExplorerNode getSuccessorNode(int number) {
+            return explorer.getSuccessorNode(number);
+        }
+
+        @Override
+        public Value getGraphProperty(Object property) {
+            return explorer.getGraphProperty(property);
+        }
+
+        @Override
+        public ExplorerNodeProperty getNodeProperty(Object property) {
+            return explorer.getNodeProperty(property);
+        }
+
+        @Override
+        public ExplorerEdgeProperty getEdgeProperty(Object property) {
+            return explorer.getEdgeProperty(property);
+        }
+
+        @Override
+        public Type getGraphPropertyType(Object property) {
+            return explorer.getGraphPropertyType(property);
+        }
+
+        @Override
+        public Type getNodePropertyType(Object property) {
+            return explorer.getNodePropertyType(property);
+        }
+
+        @Override
+        public Type getEdgePropertyType(Object property) {
+            return explorer.getEdgePropertyType(property);
+        }
+
+        @Override
+        public ExplorerNode newNode() {
+            return explorer.newNode();
+        }
+
+        @Override
+        public int getNumNodeBits() {
+            return explorer.getNumNodeBits();
+        }
+
+        @Override
+        public void close() {
+            explorer.close();
+        }
+
+        int getNumQueried() {
+            return numQueried;
+        }
+    }
+
+    @BeforeClass
+    public static void initialise() {
+        prepare();
+    }
+
+    @Test
+    public void resumeSparseTest() throws IOException {
+        Options options = prepareOptions();
+        options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+        assertResumedSameAsUninterrupted(options, ModelNamesPRISM.DICE_MODEL,
+                GraphExplicitSparse.class);
+        close(options);
+    }
+
+    @Test
+    public void resumeAlternateTest() throws IOException {
+        Options options = prepareOptions();
+        options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+        assertResumedSameAsUninterrupted(options, ModelNamesPRISM.TWO_DICE_MODEL,
+                GraphExplicitSparseAlternate.class);
+        close(options);
+    }
+
+    /**
+     * Check that a build interrupted after a checkpoint and then resumed
+     * yields the same graph as an uninterrupted build.
+     * A checkpoint is written after each explored state, and the first build
+     * is interrupted once half of the states have been explored. The second
+     * build must resume from the checkpoint, thus query fewer states than
+     * the model has, and remove the checkpoint once finished.
+     * 
+     * @param options options to use
+     * @param modelFile model to explore
+     * @param graphClass class of graph expected to be built
+     * @throws IOException if the checkpoint directory cannot be accessed
+     */
+    private static void assertResumedSameAsUninterrupted(Options options,
+            String modelFile, Class<?> graphClass) throws IOException {
+        options.set(OptionsGraph.EXPLORATION_THREADS, 1);
+        Model model = TestHelper.loadModel(options, modelFile);
+        ModelChecker checker = new ModelChecker(model);
+        GraphExplicit uninterrupted = build(model, Integer.MAX_VALUE).getGraph();
+        Assert.assertTrue(graphClass.isInstance(uninterrupted));
+        int numStates = uninterrupted.computeNumStates();
+
+        Path directory = Files.createTempDirectory("epmc-checkpoint-test");
+        try {
+            options.set(OptionsGraph.GRAPH_CHECKPOINT_DIRECTORY, directory.toString());
+            options.set(OptionsGraph.GRAPH_CHECKPOINT_INTERVAL, 0);
+            options.set(OptionsGraph.GRAPH_CHECKPOINT_RESUME, true);
+            try {
+                build(model, numStates / 2);
+                Assert.fail("exploration not interrupted");
+            } catch (RuntimeException e) {
+                Assert.assertTrue(e.getCause() instanceof Interrupted);
+            }
+            Assert.assertTrue(containsCheckpoint(directory));
+
+            InterruptingExplorer explorer = newExplorer(model, Integer.MAX_VALUE);
+            GraphExplicit resumed = build(explorer).getGraph();
+            Assert.assertTrue(explorer.getNumQueried() < numStates);
+            Assert.assertFalse(containsCheckpoint(directory));
+            assertSameGraph(uninterrupted, resumed);
+        } finally {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+            checker.close();
+        }
+    }
+
+    private static GraphBuilderExplorer build(Model model, int limit) {
+        return build(newExplorer(model, limit));
+    }
+
+    private static GraphBuilderExplorer build(Explorer explorer) {
+        GraphBuilderExplorer builder = new GraphBuilderExplorer();
+        builder.setExplorer(explorer);
+        builder.addDerivedGraphProperties(newGraphProperties());
+        builder.addDerivedNodeProperties(newNodeProperties());
+        builder.addDerivedEdgeProperties(newEdgeProperties());
+        builder.setCacheKey(CACHE_KEY);
+        builder.build();
+        return builder;
+    }
+
+    private static InterruptingExplorer newExplorer(Model model, int limit) {
+        Explorer explorer = (Explorer) UtilModelChecker.buildLowLevel(model,
+                EngineExplorer.ENGINE_EXPLORER, newGraphProperties(),
+                newNodeProperties(), newEdgeProperties());
+        return new InterruptingExplorer(explorer, limit);
+    }
+
+    private static boolean containsCheckpoint(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.anyMatch(path -> path.getFileName().toString().endsWith(STATE_SUFFIX));
+        }
+    }
+
+    private static void assertSameGraph(GraphExplicit expected, GraphExplicit actual) {
+        Assert.assertEquals(expected.getClass(), actual.getClass());
+        Assert.assertEquals(expected.getNumNodes(), actual.getNumNodes());
+        Assert.assertEquals(expected.computeNumStates(), actual.computeNumStates());
+        Assert.assertEquals(expected.getInitialNodes(), actual.getInitialNodes());
+        NodeProperty expectedState = expected.getNodeProperty(CommonProperties.STATE);
+        NodeProperty actualState = actual.getNodeProperty(CommonProperties.STATE);
+        EdgeProperty expectedWeight = expected.getEdgeProperty(CommonProperties.WEIGHT);
+        EdgeProperty actualWeight = actual.getEdgeProperty(CommonProperties.WEIGHT);
+        for (int node = 0; node < expected.getNumNodes(); node++) {
+            Assert.assertEquals(expectedState.getBoolean(node), actualState.getBoolean(node));
+            int numSuccessors = expected.getNumSuccessors(node);
+            Assert.assertEquals(numSuccessors, actual.getNumSuccessors(node));
+            for (int succNr = 0; succNr < numSuccessors; succNr++) {
+                Assert.assertEquals(expected.getSuccessorNode(node, succNr),
+                        actual.getSuccessorNode(node, succNr));
+                Assert.assertEquals(expectedWeight.get(node, succNr),
+                        actualWeight.get(node, succNr));
+            }
+        }
+    }
+
+    private static Set<Object> newGraphProperties() {
+        Set<Object> graphProperties = new LinkedHashSet<>();
+        graphProperties.add(CommonProperties.SEMANTICS);
+        return graphProperties;
+    }
+
+    private static Set<Object> newNodeProperties() {
+        Set<Object> nodeProperties = new LinkedHashSet<>();
+        nodeProperties.add(CommonProperties.STATE);
+        return nodeProperties;
+    }
+
+    private static Set<Object> newEdgeProperties() {
+        Set<Object> edgeProperties = new LinkedHashSet<>();
+        edgeProperties.add(CommonProperties.WEIGHT);
+        return edgeProperties;
+    }
+}
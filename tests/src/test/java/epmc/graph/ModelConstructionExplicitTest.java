@@ -30,10 +30,12 @@ import static epmc.modelchecker.TestHelper.prepareOptions;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import epmc.ModelNamesPRISM;
+import epmc.graph.options.OptionsGraph;
 import epmc.modelchecker.EngineExplicit;
 import epmc.modelchecker.ExploreStatistics;
 import epmc.modelchecker.TestHelper;
@@ -58,6 +60,40 @@ public class ModelConstructionExplicitTest {
         close(options);
     }
 
+    @Test
+    public void parallelExplorationTest() {
+        Options options = prepareOptions();
+        options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+        options.set(OptionsGraph.EXPLORATION_THREADS, 4);
+        options.set(TestHelper.PRISM_FLATTEN, false);
+        ExploreStatistics result;
+        result = exploreModel(options, String.format(ModelNamesPRISM.HERMAN_MODEL, 9));
+        assertEquals("512", result.getNumStates());
+        assertEquals("512", result.getNumNodes());
+        assertEquals("19684", result.getNumTransitions());
+        result = exploreModel(options, ER12_1);
+        assertEquals("6747", result.getNumStates());
+        assertEquals("6747", result.getNumNodes());
+        assertEquals("165206", result.getNumTransitions());
+        assertParallelSameAsSequential(options, String.format(ModelNamesPRISM.HERMAN_MODEL, 9));
+        assertParallelSameAsSequential(options, ModelNamesPRISM.TWO_DICE_MODEL);
+        assertParallelSameAsSequential(options, ER12_1);
+        close(options);
+    }
+
+    /**
+     * Check that parallel exploration builds exactly the sequential graph.
+     * 
+     * @param options options to use
+     * @param modelFile model to explore
+     */
+    private static void assertParallelSameAsSequential(Options options, String modelFile) {
+        int threads = options.getInteger(OptionsGraph.EXPLORATION_THREADS);
+        TestHelperGraph.assertSameGraph(options, modelFile,
+                o -> o.set(OptionsGraph.EXPLORATION_THREADS, 1),
+                o -> o.set(OptionsGraph.EXPLORATION_THREADS, threads));
+    }
+
     @Test
     public void er12_1Test() {
         Options options = prepareOptions();
@@ -25,9 +25,13 @@ import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.Assert;
 
 import epmc.dd.DD;
 import epmc.graph.dd.GraphDD;
+import epmc.graph.explicit.EdgeProperty;
 import epmc.graph.explicit.GraphExplicit;
 import epmc.graph.explicit.NodeProperty;
 import epmc.messages.OptionsMessages;
@@ -220,6 +224,75 @@ public final class TestHelperGraph {
         return result;
     }
 
+    /**
+     * Assert that two ways of exploring a model build exactly the same graph.
+     * The model is loaded and explored once after applying each of the two
+     * settings to the options. Both graphs are built with the explorer node
+     * property, and the number of nodes, initial nodes, successors, edge
+     * weights, state flags, and explorer nodes are compared node by node, so
+     * that also the order of the successors of each node must agree.
+     * 
+     * @param options options to use
+     * @param modelFile model to explore
+     * @param expectedSetting setting to obtain the expected graph
+     * @param actualSetting setting to obtain the graph to compare with it
+     */
+    public static void assertSameGraph(Options options, String modelFile,
+            Consumer<Options> expectedSetting, Consumer<Options> actualSetting) {
+        assert options != null;
+        assert modelFile != null;
+        assert expectedSetting != null;
+        assert actualSetting != null;
+        expectedSetting.accept(options);
+        Model expectedModel = TestHelper.loadModel(options, modelFile);
+        ModelChecker expectedChecker = new ModelChecker(expectedModel);
+        GraphExplicit expected = exploreToGraphWithNodes(expectedModel);
+        actualSetting.accept(options);
+        Model actualModel = TestHelper.loadModel(options, modelFile);
+        ModelChecker actualChecker = new ModelChecker(actualModel);
+        GraphExplicit actual = exploreToGraphWithNodes(actualModel);
+
+        Assert.assertEquals(expected.getNumNodes(), actual.getNumNodes());
+        Assert.assertEquals(expected.computeNumStates(), actual.computeNumStates());
+        Assert.assertEquals(expected.getInitialNodes(), actual.getInitialNodes());
+        NodeProperty expectedState = expected.getNodeProperty(CommonProperties.STATE);
+        NodeProperty actualState = actual.getNodeProperty(CommonProperties.STATE);
+        NodeProperty expectedExplorer = expected.getNodeProperty(CommonProperties.NODE_EXPLORER);
+        NodeProperty actualExplorer = actual.getNodeProperty(CommonProperties.NODE_EXPLORER);
+        EdgeProperty expectedWeight = expected.getEdgeProperty(CommonProperties.WEIGHT);
+        EdgeProperty actualWeight = actual.getEdgeProperty(CommonProperties.WEIGHT);
+        int numStates = expected.computeNumStates();
+        for (int node = 0; node < expected.getNumNodes(); node++) {
+            Assert.assertEquals(expectedState.getBoolean(node), actualState.getBoolean(node));
+            if (node < numStates) {
+                Object expectedNode = expectedExplorer.getObject(node);
+                Object actualNode = actualExplorer.getObject(node);
+                Assert.assertEquals("explorer node " + node, expectedNode, actualNode);
+            }
+            int numSuccessors = expected.getNumSuccessors(node);
+            Assert.assertEquals(numSuccessors, actual.getNumSuccessors(node));
+            for (int succNr = 0; succNr < numSuccessors; succNr++) {
+                Assert.assertEquals(expected.getSuccessorNode(node, succNr),
+                        actual.getSuccessorNode(node, succNr));
+                Assert.assertEquals(expectedWeight.get(node, succNr),
+                        actualWeight.get(node, succNr));
+            }
+        }
+        expectedChecker.close();
+        actualChecker.close();
+    }
+
+    private static GraphExplicit exploreToGraphWithNodes(Model model) {
+        Set<Object> graphProperties = new LinkedHashSet<>();
+        graphProperties.add(CommonProperties.SEMANTICS);
+        Set<Object> nodeProperties = new LinkedHashSet<>();
+        nodeProperties.add(CommonProperties.STATE);
+        nodeProperties.add(CommonProperties.NODE_EXPLORER);
+        Set<Object> edgeProperties = new LinkedHashSet<>();
+        edgeProperties.add(CommonProperties.WEIGHT);
+        return exploreToGraph(model, graphProperties, nodeProperties, edgeProperties);
+    }
+
     private TestHelperGraph() {
     }
 }
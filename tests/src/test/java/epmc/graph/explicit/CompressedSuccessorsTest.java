@@ -0,0 +1,140 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graph.explicit;
+
+import static epmc.modelchecker.TestHelper.close;
+import static epmc.modelchecker.TestHelper.prepare;
+import static epmc.modelchecker.TestHelper.prepareOptions;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import epmc.options.Options;
+import epmc.value.TypeInteger;
+import epmc.value.UtilValue;
+import epmc.value.ValueArrayInteger;
+
+/**
+ * Round-trip tests of the variable-length successor encoding of
+ * {@link CompressedSuccessors}.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class CompressedSuccessorsTest {
+    @BeforeClass
+    public static void initialise() {
+        prepare();
+    }
+
+    @Test
+    public void negativeDeltasTest() {
+        Options options = prepareOptions();
+        int[][] rows = {
+                {0},
+                {0, 1, 0},
+                {5, 4, 3, 2, 1, 0},
+                {1000, 3, 200000, 0},
+                {Integer.MAX_VALUE, 0, Integer.MAX_VALUE},
+                {4}
+        };
+        assertRoundTrip(rows);
+        close(options);
+    }
+
+    @Test
+    public void emptyRowsTest() {
+        Options options = prepareOptions();
+        assertRoundTrip(new int[0][]);
+        assertRoundTrip(new int[][] {{}, {}, {}});
+        assertRoundTrip(new int[][] {{}, {2, 0}, {}, {}, {1}, {}});
+        close(options);
+    }
+
+    @Test
+    public void randomTest() {
+        Options options = prepareOptions();
+        Random random = new Random(42);
+        int numRows = 2000;
+        int[][] rows = new int[numRows][];
+        for (int row = 0; row < numRows; row++) {
+            rows[row] = new int[random.nextInt(6)];
+            for (int succNr = 0; succNr < rows[row].length; succNr++) {
+                /* mostly local transitions, some far away ones */
+                if (random.nextInt(10) == 0) {
+                    rows[row][succNr] = random.nextInt(Integer.MAX_VALUE);
+                } else {
+                    rows[row][succNr] = Math.max(0, row + random.nextInt(129) - 64);
+                }
+            }
+        }
+        assertRoundTrip(rows);
+        close(options);
+    }
+
+    /**
+     * Compress the given rows and check that both random access and
+     * decompression return the original successors.
+     * Successors are accessed in order, in reverse order and repeatedly, so
+     * that all cases of the decoding cursor are exercised.
+     * 
+     * @param rows successors of each row
+     */
+    private static void assertRoundTrip(int[][] rows) {
+        int numRows = rows.length;
+        ValueArrayInteger bounds = UtilValue.newArray(TypeInteger.get().getTypeArray(), numRows + 1);
+        int numEntries = 0;
+        for (int row = 0; row < numRows; row++) {
+            bounds.set(numEntries, row);
+            numEntries += rows[row].length;
+        }
+        bounds.set(numEntries, numRows);
+        ValueArrayInteger successors = UtilValue.newArray(TypeInteger.get().getTypeArray(),
+                Math.max(numEntries, 1));
+        int entry = 0;
+        for (int[] row : rows) {
+            for (int successor : row) {
+                successors.set(successor, entry);
+                entry++;
+            }
+        }
+        CompressedSuccessors compressed = CompressedSuccessors.compress(bounds, successors, numRows);
+        assertNotNull(compressed);
+        for (int row = 0; row < numRows; row++) {
+            for (int succNr = 0; succNr < rows[row].length; succNr++) {
+                assertEquals(rows[row][succNr], compressed.get(row, succNr));
+                assertEquals(rows[row][succNr], compressed.get(row, succNr));
+            }
+        }
+        for (int row = numRows - 1; row >= 0; row--) {
+            for (int succNr = rows[row].length - 1; succNr >= 0; succNr--) {
+                assertEquals(rows[row][succNr], compressed.get(row, succNr));
+            }
+        }
+        ValueArrayInteger decompressed = compressed.decompress(bounds);
+        for (entry = 0; entry < numEntries; entry++) {
+            assertEquals(successors.getInt(entry), decompressed.getInt(entry));
+        }
+    }
+}
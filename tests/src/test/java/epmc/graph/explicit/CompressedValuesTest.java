@@ -0,0 +1,132 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graph.explicit;
+
+import static epmc.modelchecker.TestHelper.close;
+import static epmc.modelchecker.TestHelper.prepare;
+import static epmc.modelchecker.TestHelper.prepareOptions;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import epmc.options.Options;
+import epmc.value.TypeInteger;
+import epmc.value.UtilValue;
+import epmc.value.ValueArrayInteger;
+import epmc.value.ValueInteger;
+
+/**
+ * Round-trip tests of the dictionary encoding of {@link CompressedValues}.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class CompressedValuesTest {
+    /** Largest number of distinct values for which bytes are used as indices. */
+    private final static int MAX_BYTE_TABLE_SIZE = 256;
+    /** Largest number of distinct values which can be compressed. */
+    private final static int MAX_SHORT_TABLE_SIZE = 65536;
+
+    @BeforeClass
+    public static void initialise() {
+        prepare();
+    }
+
+    @Test
+    public void emptyTest() {
+        Options options = prepareOptions();
+        assertRoundTrip(newArray(new int[0]), 0);
+        close(options);
+    }
+
+    @Test
+    public void byteIndicesTest() {
+        Options options = prepareOptions();
+        int[] values = new int[3 * MAX_BYTE_TABLE_SIZE];
+        for (int entry = 0; entry < values.length; entry++) {
+            values[entry] = -(entry % MAX_BYTE_TABLE_SIZE) * 7;
+        }
+        assertRoundTrip(newArray(values), values.length);
+        close(options);
+    }
+
+    @Test
+    public void shortIndicesTest() {
+        Options options = prepareOptions();
+        int[] values = new int[2 * (MAX_BYTE_TABLE_SIZE + 1)];
+        for (int entry = 0; entry < values.length; entry++) {
+            values[entry] = entry % (MAX_BYTE_TABLE_SIZE + 1);
+        }
+        assertRoundTrip(newArray(values), values.length);
+        values = new int[MAX_SHORT_TABLE_SIZE + 10];
+        for (int entry = 0; entry < values.length; entry++) {
+            values[entry] = entry % MAX_SHORT_TABLE_SIZE;
+        }
+        assertRoundTrip(newArray(values), values.length);
+        close(options);
+    }
+
+    @Test
+    public void overflowTest() {
+        Options options = prepareOptions();
+        int[] values = new int[MAX_SHORT_TABLE_SIZE + 1];
+        for (int entry = 0; entry < values.length; entry++) {
+            values[entry] = entry;
+        }
+        ValueArrayInteger array = newArray(values);
+        assertNull(CompressedValues.compress(array, values.length));
+        assertRoundTrip(array, values.length - 1);
+        close(options);
+    }
+
+    private static ValueArrayInteger newArray(int[] values) {
+        ValueArrayInteger array = UtilValue.newArray(TypeInteger.get().getTypeArray(),
+                Math.max(values.length, 1));
+        for (int entry = 0; entry < values.length; entry++) {
+            array.set(values[entry], entry);
+        }
+        return array;
+    }
+
+    /**
+     * Compress the given prefix of an array and check that both single
+     * entries and the decompressed array agree with the original.
+     * 
+     * @param array array to compress
+     * @param size number of entries to compress
+     */
+    private static void assertRoundTrip(ValueArrayInteger array, int size) {
+        CompressedValues compressed = CompressedValues.compress(array, size);
+        assertNotNull(compressed);
+        assertEquals(size, compressed.size());
+        ValueInteger entry = TypeInteger.get().newValue();
+        for (int entryNr = 0; entryNr < size; entryNr++) {
+            compressed.get(entry, entryNr);
+            assertEquals(array.getInt(entryNr), entry.getInt());
+        }
+        ValueArrayInteger decompressed = (ValueArrayInteger) compressed.decompress();
+        for (int entryNr = 0; entryNr < size; entryNr++) {
+            assertEquals(array.getInt(entryNr), decompressed.getInt(entryNr));
+        }
+    }
+}
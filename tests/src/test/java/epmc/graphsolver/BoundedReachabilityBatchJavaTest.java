@@ -0,0 +1,165 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graphsolver;
+
+import static epmc.modelchecker.TestHelper.close;
+import static epmc.modelchecker.TestHelper.prepare;
+import static epmc.modelchecker.TestHelper.prepareOptions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import epmc.ModelNamesOwn;
+import epmc.graphsolver.iterative.java.BoundedReachabilityBatchJava;
+import epmc.graphsolver.iterative.java.BoundedReachabilityJava;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicitBoundedReachability;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicitBoundedReachabilityBatch;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicitUnboundedReachability;
+import epmc.modelchecker.EngineExplicit;
+import epmc.modelchecker.TestHelper;
+import epmc.modelchecker.options.OptionsModelChecker;
+import epmc.options.Options;
+import epmc.value.TypeInteger;
+import epmc.value.TypeReal;
+import epmc.value.UtilValue;
+import epmc.value.Value;
+import epmc.value.ValueArrayAlgebra;
+
+/**
+ * Tests for bounded reachability for several bounds at once.
+ * The result for each bound is compared with the result of solving bounded
+ * reachability for this bound separately.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class BoundedReachabilityBatchJavaTest {
+    /** Tolerance used for the Fox-Glynn algorithm. */
+    private final static double TOLERANCE = 1E-10;
+    /** Step bounds used for discrete-time models, unsorted and with duplicates. */
+    private final static int[] STEP_BOUNDS = {7, 0, 3, 12, 3, 1};
+    /** Time bounds used for continuous-time models, unsorted and with duplicates. */
+    private final static String[] TIME_BOUNDS = {"1.5", "0", "0.25", "4", "0.25", "1"};
+
+    @BeforeClass
+    public static void initialise() {
+        prepare();
+    }
+
+    /**
+     * Test step-bounded reachability in a DTMC.
+     */
+    @Test
+    public void dtmcTest() {
+        Map<String, Object> constants = new HashMap<>();
+        constants.put("N", "5");
+        assertBatchSameAsSingle(ModelNamesOwn.GRID_WALK_DTMC, constants, "x", 5,
+                false, stepBounds());
+    }
+
+    /**
+     * Test minimal and maximal step-bounded reachability in MDPs.
+     */
+    @Test
+    public void mdpTest() {
+        Map<String, Object> constants = new HashMap<>();
+        constants.put("N", "5");
+        for (boolean min : new boolean[]{false, true}) {
+            assertBatchSameAsSingle(ModelNamesOwn.END_COMPONENTS, constants, "s", 3,
+                    min, stepBounds());
+            assertBatchSameAsSingle(ModelNamesOwn.GRID_WALK_MDP, constants, "x", 5,
+                    min, stepBounds());
+        }
+    }
+
+    /**
+     * Test time-bounded reachability in a CTMC.
+     */
+    @Test
+    public void ctmcTest() {
+        Map<String, Object> constants = new HashMap<>();
+        assertBatchSameAsSingle(ModelNamesOwn.EMBEDDED_CTMC, constants, "s", 3,
+                false, timeBounds());
+    }
+
+    private static void assertBatchSameAsSingle(String modelFile,
+            Map<String, Object> constants, String variable, int value,
+            boolean min, List<Value> bounds) {
+        Options options = prepareOptions();
+        options.set(TestHelper.ITERATION_TOLERANCE, Double.toString(TOLERANCE));
+        options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+        options.set(TestHelper.PRISM_FLATTEN, false);
+        options.set(OptionsModelChecker.CONST, constants);
+        GraphSolverObjectiveExplicitUnboundedReachability unbounded =
+                TestHelperGraphSolver.prepareUnboundedReachability(options,
+                        modelFile, variable, value, min);
+
+        GraphSolverObjectiveExplicitBoundedReachabilityBatch batch = new GraphSolverObjectiveExplicitBoundedReachabilityBatch();
+        batch.setGraph(unbounded.getGraph());
+        batch.setMin(min);
+        batch.setTargets(unbounded.getTarget());
+        batch.setTimes(bounds);
+        BoundedReachabilityBatchJava batchSolver = new BoundedReachabilityBatchJava();
+        batchSolver.setGraphSolverObjective(batch);
+        Assert.assertTrue(batchSolver.canHandle());
+        batchSolver.solve();
+        List<ValueArrayAlgebra> results = batch.getResults();
+        Assert.assertEquals(bounds.size(), results.size());
+
+        for (int index = 0; index < bounds.size(); index++) {
+            GraphSolverObjectiveExplicitBoundedReachability single = new GraphSolverObjectiveExplicitBoundedReachability();
+            single.setGraph(unbounded.getGraph());
+            single.setMin(min);
+            single.setTargets(unbounded.getTarget());
+            single.setTime(bounds.get(index));
+            BoundedReachabilityJava singleSolver = new BoundedReachabilityJava();
+            singleSolver.setGraphSolverObjective(single);
+            Assert.assertTrue(singleSolver.canHandle());
+            singleSolver.solve();
+            Assert.assertArrayEquals(modelFile + " " + min + " " + bounds.get(index),
+                    TestHelperGraphSolver.toDoubles(single.getResult()),
+                    TestHelperGraphSolver.toDoubles(results.get(index)),
+                    TOLERANCE * 10);
+        }
+        close(options);
+    }
+
+    private static List<Value> stepBounds() {
+        List<Value> result = new ArrayList<>();
+        for (int bound : STEP_BOUNDS) {
+            result.add(UtilValue.newValue(TypeInteger.get(), bound));
+        }
+        return result;
+    }
+
+    private static List<Value> timeBounds() {
+        List<Value> result = new ArrayList<>();
+        for (String bound : TIME_BOUNDS) {
+            result.add(UtilValue.newValue(TypeReal.get(), bound));
+        }
+        return result;
+    }
+}
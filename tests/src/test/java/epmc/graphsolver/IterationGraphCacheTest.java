@@ -0,0 +1,155 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graphsolver;
+
+import static epmc.modelchecker.TestHelper.close;
+import static epmc.modelchecker.TestHelper.prepare;
+import static epmc.modelchecker.TestHelper.prepareOptions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import epmc.ModelNamesOwn;
+import epmc.graph.GraphBuilderExplicit;
+import epmc.graph.explicit.GraphExplicit;
+import epmc.graphsolver.iterative.IterationGraphCache;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicitUnboundedReachability;
+import epmc.modelchecker.EngineExplicit;
+import epmc.modelchecker.TestHelper;
+import epmc.modelchecker.options.OptionsModelChecker;
+import epmc.options.Options;
+import epmc.util.BitSet;
+
+/**
+ * Tests for the cache of iteration graphs of unbounded graph solvers.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class IterationGraphCacheTest {
+    /** Size of the grid of the model used. */
+    private final static int N = 10;
+
+    @BeforeClass
+    public static void initialise() {
+        prepare();
+    }
+
+    /**
+     * Test that iteration graphs are reused for the same graph and equal
+     * sinks, but not for different sinks, and that cached builders do not
+     * keep the original graph.
+     */
+    @Test
+    public void hitTest() {
+        Options options = prepareGridWalkOptions();
+        GraphSolverObjectiveExplicitUnboundedReachability objective = prepareObjective(options, N);
+        GraphExplicit graph = objective.getGraph();
+        List<BitSet> sinks = Collections.singletonList(objective.getTarget());
+        List<BitSet> sinksCopy = Collections.singletonList(objective.getTarget().clone());
+        List<BitSet> otherSinks = Collections.singletonList(prepareObjective(options, N / 2).getTarget());
+        IterationGraphCache cache = new IterationGraphCache();
+
+        GraphBuilderExplicit first = cache.get(graph, sinks, false, false, Long.MAX_VALUE);
+        Assert.assertNull(first.getInputGraph());
+        Assert.assertSame(first, cache.get(graph, sinks, false, false, Long.MAX_VALUE));
+        Assert.assertSame(first, cache.get(graph, sinksCopy, false, false, Long.MAX_VALUE));
+        Assert.assertNotSame(first, cache.get(graph, otherSinks, false, false, Long.MAX_VALUE));
+        Assert.assertNotSame(first, cache.get(graph, sinks, false, true, Long.MAX_VALUE));
+        Assert.assertNotSame(cache.get(graph, sinks, false, false, 0),
+                cache.get(graph, sinks, false, false, 0));
+        close(options);
+    }
+
+    /**
+     * Test that least recently used iteration graphs are removed if the
+     * size of the cache would otherwise exceed the maximal size.
+     */
+    @Test
+    public void evictionTest() {
+        Options options = prepareGridWalkOptions();
+        GraphSolverObjectiveExplicitUnboundedReachability objective = prepareObjective(options, N);
+        GraphExplicit graph = objective.getGraph();
+        BitSet targetA = objective.getTarget();
+        BitSet targetB = prepareObjective(options, N / 2).getTarget();
+        List<BitSet> sinksA = Collections.singletonList(targetA);
+        List<BitSet> sinksB = Collections.singletonList(targetB);
+        List<BitSet> sinksC = new ArrayList<>();
+        sinksC.add(targetA);
+        sinksC.add(targetB);
+        long sizeA = computeSize(graph, sinksA);
+        long sizeB = computeSize(graph, sinksB);
+        long sizeC = computeSize(graph, sinksC);
+        Assert.assertTrue(sizeA > 0);
+        Assert.assertTrue(sizeB > 0);
+        Assert.assertTrue(sizeC > 0);
+
+        IterationGraphCache cache = new IterationGraphCache();
+        long maxSize = sizeA + sizeB - 1;
+        GraphBuilderExplicit builderA = cache.get(graph, sinksA, false, false, maxSize);
+        GraphBuilderExplicit builderB = cache.get(graph, sinksB, false, false, maxSize);
+        Assert.assertEquals(sizeB, cache.getSize());
+        Assert.assertSame(builderB, cache.get(graph, sinksB, false, false, maxSize));
+        Assert.assertNotSame(builderA, cache.get(graph, sinksA, false, false, maxSize));
+        Assert.assertEquals(sizeA, cache.getSize());
+
+        cache.clear();
+        Assert.assertEquals(0, cache.getSize());
+        maxSize = sizeA + sizeB + sizeC - 1;
+        builderA = cache.get(graph, sinksA, false, false, maxSize);
+        builderB = cache.get(graph, sinksB, false, false, maxSize);
+        Assert.assertSame(builderA, cache.get(graph, sinksA, false, false, maxSize));
+        GraphBuilderExplicit builderC = cache.get(graph, sinksC, false, false, maxSize);
+        Assert.assertEquals(sizeA + sizeC, cache.getSize());
+        Assert.assertSame(builderA, cache.get(graph, sinksA, false, false, maxSize));
+        Assert.assertSame(builderC, cache.get(graph, sinksC, false, false, maxSize));
+        Assert.assertNotSame(builderB, cache.get(graph, sinksB, false, false, maxSize));
+        close(options);
+    }
+
+    private static Options prepareGridWalkOptions() {
+        Options options = prepareOptions();
+        options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+        options.set(TestHelper.PRISM_FLATTEN, false);
+        Map<String, Object> constants = new HashMap<>();
+        constants.put("N", Integer.toString(N));
+        options.set(OptionsModelChecker.CONST, constants);
+        return options;
+    }
+
+    private static GraphSolverObjectiveExplicitUnboundedReachability prepareObjective(
+            Options options, int value) {
+        return TestHelperGraphSolver.prepareUnboundedReachability(options,
+                ModelNamesOwn.GRID_WALK_DTMC, "x", value, false);
+    }
+
+    private static long computeSize(GraphExplicit graph, List<BitSet> sinks) {
+        IterationGraphCache cache = new IterationGraphCache();
+        cache.get(graph, sinks, false, false, Long.MAX_VALUE);
+        return cache.getSize();
+    }
+}
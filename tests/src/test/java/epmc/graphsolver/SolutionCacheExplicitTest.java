@@ -0,0 +1,114 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graphsolver;
+
+import static epmc.modelchecker.TestHelper.close;
+import static epmc.modelchecker.TestHelper.prepare;
+import static epmc.modelchecker.TestHelper.prepareOptions;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import epmc.ModelNamesOwn;
+import epmc.graphsolver.iterative.java.UnboundedReachabilityJavaDouble;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicitUnboundedReachability;
+import epmc.modelchecker.EngineExplicit;
+import epmc.modelchecker.TestHelper;
+import epmc.modelchecker.options.OptionsModelChecker;
+import epmc.options.Options;
+
+/**
+ * Tests for warm starts of graph solvers from previously cached solutions.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class SolutionCacheExplicitTest {
+    /** Tolerance used for value iteration. */
+    private final static double TOLERANCE = 1E-10;
+
+    @BeforeClass
+    public static void initialise() {
+        prepare();
+    }
+
+    /**
+     * Test that maximal reachability probabilities computed starting from
+     * the minimal ones are the same as when starting from scratch, and that
+     * minimal probabilities are not started from maximal ones.
+     */
+    @Test
+    public void minThenMaxTest() {
+        Map<String, Object> constants = new HashMap<>();
+        constants.put("N", "20");
+        assertWarmSameAsCold(ModelNamesOwn.END_COMPONENTS, constants, "s", 3);
+        assertWarmSameAsCold(ModelNamesOwn.GRID_WALK_MDP, constants, "x", 20);
+    }
+
+    private static void assertWarmSameAsCold(String modelFile,
+            Map<String, Object> constants, String variable, int value) {
+        Options options = prepareOptions();
+        options.set(TestHelper.ITERATION_TOLERANCE, Double.toString(TOLERANCE));
+        options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+        options.set(TestHelper.PRISM_FLATTEN, false);
+        options.set(OptionsModelChecker.CONST, constants);
+        GraphSolverObjectiveExplicitUnboundedReachability min =
+                TestHelperGraphSolver.prepareUnboundedReachability(options,
+                        modelFile, variable, value, true);
+        solve(min);
+        SolutionCacheExplicit cache = new SolutionCacheExplicit();
+        cache.store(min);
+
+        GraphSolverObjectiveExplicitUnboundedReachability warm = newObjective(min, false);
+        cache.prepare(warm);
+        Assert.assertNotNull(warm.getInitialValues());
+        solve(warm);
+        GraphSolverObjectiveExplicitUnboundedReachability cold = newObjective(min, false);
+        solve(cold);
+        Assert.assertArrayEquals(TestHelperGraphSolver.toDoubles(cold.getResult()),
+                TestHelperGraphSolver.toDoubles(warm.getResult()), TOLERANCE * 10);
+
+        cache.store(warm);
+        GraphSolverObjectiveExplicitUnboundedReachability minAgain = newObjective(min, true);
+        cache.prepare(minAgain);
+        Assert.assertNull(minAgain.getInitialValues());
+        close(options);
+    }
+
+    private static GraphSolverObjectiveExplicitUnboundedReachability newObjective(
+            GraphSolverObjectiveExplicitUnboundedReachability original, boolean min) {
+        GraphSolverObjectiveExplicitUnboundedReachability result = new GraphSolverObjectiveExplicitUnboundedReachability();
+        result.setGraph(original.getGraph());
+        result.setMin(min);
+        result.setTarget(original.getTarget());
+        return result;
+    }
+
+    private static void solve(GraphSolverObjectiveExplicitUnboundedReachability objective) {
+        UnboundedReachabilityJavaDouble solver = new UnboundedReachabilityJavaDouble();
+        solver.setGraphSolverObjective(objective);
+        Assert.assertTrue(solver.canHandle());
+        solver.solve();
+    }
+}
@@ -0,0 +1,174 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graphsolver;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import epmc.expression.Expression;
+import epmc.expression.standard.ExpressionIdentifierStandard;
+import epmc.expression.standard.UtilExpressionStandard;
+import epmc.graph.CommonProperties;
+import epmc.graph.Scheduler;
+import epmc.graph.explicit.EdgeProperty;
+import epmc.graph.explicit.GraphExplicit;
+import epmc.graph.explicit.NodeProperty;
+import epmc.graph.explicit.SchedulerSimple;
+import epmc.graphsolver.objective.GraphSolverObjectiveExplicitUnboundedReachability;
+import epmc.modelchecker.Model;
+import epmc.modelchecker.RawProperty;
+import epmc.modelchecker.TestHelper;
+import epmc.options.Options;
+import epmc.util.BitSet;
+import epmc.util.UtilBitSet;
+import epmc.value.Value;
+import epmc.value.ValueArray;
+import epmc.value.ValueInteger;
+import epmc.value.ValueNumber;
+
+import static epmc.graph.TestHelperGraph.exploreToGraph;
+
+/**
+ * Helper functions to test graph solvers directly on explicit-state graphs
+ * rather than by model checking properties.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class TestHelperGraphSolver {
+    /** Maximal difference of values for scheduler evaluation to stop. */
+    private final static double EVALUATION_PRECISION = 1E-14;
+    /** Maximal number of iterations used to evaluate a scheduler. */
+    private final static int EVALUATION_MAX_ITERATIONS = 1000000;
+
+    /**
+     * Prepare an unbounded reachability objective for a model.
+     * The graph of the model is built and the states in which the given
+     * integer variable has the given value are used as target states.
+     * 
+     * @param options options to use
+     * @param modelFile model to build graph of
+     * @param variable name of integer variable defining target states
+     * @param value value of variable in target states
+     * @param min whether to minimise rather than maximise probabilities
+     * @return objective for the model
+     */
+    public static GraphSolverObjectiveExplicitUnboundedReachability prepareUnboundedReachability(
+            Options options, String modelFile, String variable, int value, boolean min) {
+        assert options != null;
+        assert modelFile != null;
+        assert variable != null;
+        Model model = TestHelper.loadModel(options, modelFile);
+        TestHelper.addProperty(model, variable + "=" + value);
+        RawProperty raw = model.getPropertyList().getRawProperties().iterator().next();
+        Expression property = model.getPropertyList().getParsedProperty(raw);
+        Expression identifier = null;
+        for (Expression candidate : UtilExpressionStandard.collectIdentifiers(property)) {
+            if (ExpressionIdentifierStandard.as(candidate).getName().equals(variable)) {
+                identifier = candidate;
+            }
+        }
+        assert identifier != null : variable;
+        Set<Object> nodeProperties = new LinkedHashSet<>();
+        nodeProperties.add(CommonProperties.STATE);
+        nodeProperties.add(identifier);
+        GraphExplicit graph = exploreToGraph(model, nodeProperties);
+        NodeProperty variableValues = graph.getNodeProperty(identifier);
+        int numStates = graph.computeNumStates();
+        BitSet target = UtilBitSet.newBitSetUnbounded(numStates);
+        for (int state = 0; state < numStates; state++) {
+            target.set(state, ValueInteger.as(variableValues.get(state)).getInt() == value);
+        }
+        GraphSolverObjectiveExplicitUnboundedReachability objective = new GraphSolverObjectiveExplicitUnboundedReachability();
+        objective.setGraph(graph);
+        objective.setMin(min);
+        objective.setTarget(target);
+        return objective;
+    }
+
+    /**
+     * Compute the probabilities to reach the target states under a scheduler.
+     * The probabilities are computed by Gauss-Seidel iteration on the Markov
+     * chain induced by the scheduler. States for which the scheduler does
+     * not take a decision are treated as non-target sinks.
+     * 
+     * @param graph graph of a model with nondeterminism
+     * @param target target states
+     * @param scheduler scheduler to evaluate
+     * @return reachability probabilities of the states
+     */
+    public static double[] evaluateScheduler(GraphExplicit graph, BitSet target,
+            SchedulerSimple scheduler) {
+        assert graph != null;
+        assert target != null;
+        assert scheduler != null;
+        int numStates = graph.computeNumStates();
+        EdgeProperty weights = graph.getEdgeProperty(CommonProperties.WEIGHT);
+        double[] values = new double[numStates];
+        double diff;
+        int iteration = 0;
+        do {
+            diff = 0.0;
+            for (int state = 0; state < numStates; state++) {
+                if (target.get(state)) {
+                    values[state] = 1.0;
+                    continue;
+                }
+                int decision = scheduler.getDecision(state);
+                if (decision == Scheduler.UNSET) {
+                    continue;
+                }
+                int nondet = graph.getSuccessorNode(state, decision);
+                double value = 0.0;
+                for (int succNr = 0; succNr < graph.getNumSuccessors(nondet); succNr++) {
+                    value += ValueNumber.as(weights.get(nondet, succNr)).getDouble()
+                            * values[graph.getSuccessorNode(nondet, succNr)];
+                }
+                diff = Math.max(diff, Math.abs(value - values[state]));
+                values[state] = value;
+            }
+            iteration++;
+        } while (diff > EVALUATION_PRECISION && iteration < EVALUATION_MAX_ITERATIONS);
+        return values;
+    }
+
+    /**
+     * Transform an array of values to an array of doubles.
+     * 
+     * @param values values to transform
+     * @return doubles of the values
+     */
+    public static double[] toDoubles(ValueArray values) {
+        assert values != null;
+        double[] result = new double[values.size()];
+        Value entry = values.getType().getEntryType().newValue();
+        for (int index = 0; index < result.length; index++) {
+            values.get(entry, index);
+            result[index] = ValueNumber.as(entry).getDouble();
+        }
+        return result;
+    }
+
+    /**
+     * Private constructor to prevent instantiation of this class.
+     */
+    private TestHelperGraphSolver() {
+    }
+}
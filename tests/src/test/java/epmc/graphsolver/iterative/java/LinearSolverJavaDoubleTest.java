@@ -0,0 +1,148 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.graphsolver.iterative.java;
+
+import static epmc.modelchecker.TestHelper.close;
+import static epmc.modelchecker.TestHelper.prepare;
+import static epmc.modelchecker.TestHelper.prepareOptions;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import epmc.graphsolver.iterative.Info;
+import epmc.graphsolver.iterative.IterationMethod;
+import epmc.options.Options;
+
+/**
+ * Tests for the Krylov subspace solvers of linear equation systems.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class LinearSolverJavaDoubleTest {
+    /** Tolerance for the norm of the residual used in the tests. */
+    private final static double TOLERANCE = 1E-10;
+
+    @BeforeClass
+    public static void initialise() {
+        prepare();
+    }
+
+    /**
+     * Test a system for which BiCGSTAB breaks down in its first iteration.
+     * The right-hand side is orthogonal to its product with the matrix, so
+     * that the denominator of the first step length is zero. Before the
+     * breakdown check, this led to a result consisting of NaN values.
+     */
+    @Test
+    public void bicgstabBreakdownTest() {
+        Options options = prepareOptions();
+        LinearSolverJavaDouble solver = newBreakdownSolver();
+        double[] rhs = {1.0, -1.0};
+        double[] x = new double[2];
+        int[] numIterations = new int[1];
+        solver.solve(IterationMethod.BICGSTAB, TOLERANCE, rhs, x, numIterations, new Info());
+        Assert.assertTrue(solver.isFallback());
+        Assert.assertEquals(10.0, x[0], 1E-8);
+        Assert.assertEquals(-6.0, x[1], 1E-8);
+        close(options);
+    }
+
+    /**
+     * Test that GMRES solves the system of {@link #bicgstabBreakdownTest()}
+     * without falling back to Gauss-Seidel iteration.
+     */
+    @Test
+    public void gmresTest() {
+        Options options = prepareOptions();
+        LinearSolverJavaDouble solver = newBreakdownSolver();
+        double[] rhs = {1.0, -1.0};
+        double[] x = new double[2];
+        int[] numIterations = new int[1];
+        solver.solve(IterationMethod.GMRES, TOLERANCE, rhs, x, numIterations, new Info());
+        Assert.assertFalse(solver.isFallback());
+        Assert.assertEquals(10.0, x[0], 1E-8);
+        Assert.assertEquals(-6.0, x[1], 1E-8);
+        close(options);
+    }
+
+    /**
+     * Test that the solvers fall back to Gauss-Seidel iteration if the
+     * tolerance is not reached within the maximal number of iterations.
+     * The system is the one of the probabilities to reach the right end of
+     * a random walk on a line.
+     */
+    @Test
+    public void iterationLimitTest() {
+        Options options = prepareOptions();
+        int size = 50;
+        int[] rowBounds = new int[size + 1];
+        int[] columns = new int[3 * size];
+        double[] entries = new double[3 * size];
+        double[] rhs = new double[size];
+        int numEntries = 0;
+        for (int row = 0; row < size; row++) {
+            columns[numEntries] = row;
+            entries[numEntries] = 1.0;
+            numEntries++;
+            if (row > 0) {
+                columns[numEntries] = row - 1;
+                entries[numEntries] = -0.5;
+                numEntries++;
+            }
+            if (row < size - 1) {
+                columns[numEntries] = row + 1;
+                entries[numEntries] = -0.5;
+                numEntries++;
+            } else {
+                rhs[row] = 0.5;
+            }
+            rowBounds[row + 1] = numEntries;
+        }
+        for (IterationMethod method : new IterationMethod[] {IterationMethod.BICGSTAB, IterationMethod.GMRES}) {
+            LinearSolverJavaDouble solver = new LinearSolverJavaDouble(size, rowBounds, columns, entries);
+            solver.setRestart(1);
+            solver.setMaxIterations(1);
+            double[] x = new double[size];
+            int[] numIterations = new int[1];
+            solver.solve(method, TOLERANCE, rhs, x, numIterations, new Info());
+            Assert.assertTrue(solver.isFallback());
+            Assert.assertTrue(numIterations[0] > 1);
+            for (int row = 0; row < size; row++) {
+                Assert.assertEquals((row + 1.0) / (size + 1.0), x[row], 1E-6);
+            }
+        }
+        close(options);
+    }
+
+    /**
+     * Construct a solver for the matrix ((1, 1.5), (0.5, 1)).
+     * For the right-hand side (1, -1), the solution is (10, -6).
+     * 
+     * @return solver for the matrix
+     */
+    private static LinearSolverJavaDouble newBreakdownSolver() {
+        int[] rowBounds = {0, 2, 4};
+        int[] columns = {0, 1, 0, 1};
+        double[] entries = {1.0, 1.5, 0.5, 1.0};
+        return new LinearSolverJavaDouble(2, rowBounds, columns, entries);
+    }
+}
@@ -25,20 +25,24 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import epmc.error.EPMCException;
+import epmc.jani.explorer.OptionsJANIExplorer;
 import epmc.jani.explorer.ProblemsJANIExplorer;
 import epmc.jani.model.ModelJANI;
 import epmc.jani.model.OptionsJANIModel;
 import epmc.main.options.UtilOptionsEPMC;
+import epmc.modelchecker.EngineExplicit;
 import epmc.modelchecker.ExploreStatistics;
 import epmc.modelchecker.Model;
 import epmc.modelchecker.options.OptionsModelChecker;
 import epmc.options.Options;
+import epmc.value.Value;
 
 import static epmc.graph.TestHelperGraph.*;
 import static epmc.jani.ModelNames.*;
 import static epmc.modelchecker.TestHelper.*;
 
 import java.math.BigInteger;
+import java.util.Map;
 
 /**
  * Tests for explicit-state exploration of JANI models.
@@ -268,6 +272,71 @@ public final class ExploreExplicitTest {
         Assert.assertEquals(new BigInteger("4"), statistics.getNumTransitions());
     }
 
+    /**
+     * Test symmetry reduction on model with three identical processes.
+     * 
+     */
+    @Test
+    public void symmetricMDPTest() {
+        Options options = prepareJANIOptions();
+        options.set(OptionsModelChecker.MODEL_INPUT_TYPE, ModelJANI.IDENTIFIER);
+        Model model = null;
+        model = loadModel(options, SYMMETRIC_MDP);
+        ExploreStatistics statistics = exploreModel(model);
+        Assert.assertEquals(new BigInteger("8"), statistics.getNumStates());
+        options.set(OptionsJANIExplorer.JANI_EXPLORER_SYMMETRY_REDUCTION, true);
+        model = loadModel(options, SYMMETRIC_MDP);
+        statistics = exploreModel(model);
+        Assert.assertEquals(new BigInteger("4"), statistics.getNumStates());
+    }
+
+    /**
+     * Test partial order reduction on model with two independent processes.
+     * 
+     */
+    @Test
+    public void partialOrderMDPTest() {
+        Options options = prepareJANIOptions();
+        options.set(OptionsModelChecker.MODEL_INPUT_TYPE, ModelJANI.IDENTIFIER);
+        Model model = null;
+        model = loadModel(options, CHAIN_MDP);
+        ExploreStatistics statistics = exploreModel(model);
+        Assert.assertEquals(new BigInteger("9"), statistics.getNumStates());
+        options.set(OptionsJANIExplorer.JANI_EXPLORER_PARTIAL_ORDER_REDUCTION, true);
+        model = loadModel(options, CHAIN_MDP);
+        statistics = exploreModel(model);
+        Assert.assertEquals(new BigInteger("5"), statistics.getNumStates());
+    }
+
+    /**
+     * Test that partial order reduction preserves maximal and minimal
+     * reachability probabilities while reducing the number of states.
+     * 
+     */
+    @Test
+    public void partialOrderMDPPropertiesTest() {
+        Options options = prepareJANIOptions();
+        options.set(OptionsModelChecker.MODEL_INPUT_TYPE, ModelJANI.IDENTIFIER);
+        options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+        Model model = null;
+        model = loadModel(options, POR_MDP);
+        ExploreStatistics statistics = exploreModel(model);
+        Map<String, Value> plain = computeResultsMapName(model);
+        options.set(OptionsJANIExplorer.JANI_EXPLORER_PARTIAL_ORDER_REDUCTION, true);
+        model = loadModel(options, POR_MDP);
+        ExploreStatistics statisticsReduced = exploreModel(model);
+        Map<String, Value> reduced = computeResultsMapName(model);
+        Assert.assertTrue(statisticsReduced.getNumStates().compareTo(statistics.getNumStates()) < 0);
+        assertEquals("1", plain.get("PmaxBoth"), 1E-8);
+        assertEquals("0", plain.get("PminBoth"), 1E-8);
+        assertEquals("1", plain.get("PmaxOne"), 1E-8);
+        assertEquals("1/4", plain.get("PminOne"), 1E-8);
+        Assert.assertEquals(plain.keySet(), reduced.keySet());
+        for (String name : plain.keySet()) {
+            assertEquals(plain.get(name), reduced.get(name), 1E-8);
+        }
+    }
+
     /**
      * DTMC test whether simple synchronisation works.
      * 
@@ -89,6 +89,23 @@ public final class ModelNames {
     /** Model containing a conflict writing a global variable. */
     public final static String SYNC_CONFLICT = PREFIX + "sync-conflict.jani";
 
+    /** MDP model of three identical non-synchronised processes, for symmetry reduction. */
+    public final static String SYMMETRIC_MDP = PREFIX + "symmetric-mdp.jani";
+
+    /** MDP model of two independent processes running through a chain of locations. */
+    public final static String CHAIN_MDP = PREFIX + "chain-mdp.jani";
+
+    /** MDP model of two processes with a local first step, for partial order reduction. */
+    public final static String POR_MDP = PREFIX + "por-mdp.jani";
+
+    /** MDP model of three automata with overlapping synchronisation vectors,
+     * for the action index of synchronisation vectors. */
+    public final static String SYNC_INDEX_MDP = PREFIX + "sync-index-mdp.jani";
+
+    /** DTMC model of three automata with overlapping synchronisation vectors,
+     * for the action index of synchronisation vectors. */
+    public final static String SYNC_INDEX_DTMC = PREFIX + "sync-index-dtmc.jani";
+
     /** Test for rewards. */
     public final static String REWARDS = PREFIX + "rewards.jani";
 
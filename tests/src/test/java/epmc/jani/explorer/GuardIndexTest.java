@@ -0,0 +1,172 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.jani.explorer;
+
+import static epmc.ModelNamesOwn.*;
+import static epmc.modelchecker.TestHelper.close;
+import static epmc.modelchecker.TestHelper.prepare;
+import static epmc.modelchecker.TestHelper.prepareOptions;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import epmc.modelchecker.EngineExplorer;
+import epmc.modelchecker.Model;
+import epmc.modelchecker.ModelChecker;
+import epmc.modelchecker.TestHelper;
+import epmc.modelchecker.UtilModelChecker;
+import epmc.options.Options;
+import epmc.value.Value;
+
+/**
+ * Tests for the guard index of the edges of automata.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class GuardIndexTest {
+    /**
+     * Set up the tests.
+     */
+    @BeforeClass
+    public static void initialise() {
+        prepare();
+    }
+
+    /**
+     * Test the index on guards testing the same variables for equality with
+     * constants, such that several edges are candidates for the same values.
+     */
+    @Test
+    public void overlappingTest() {
+        Options options = prepareOptions();
+        options.set(TestHelper.PRISM_FLATTEN, false);
+        int numRestricted = checkCandidates(options, GUARD_INDEX_OVERLAPPING);
+        Assert.assertTrue(numRestricted > 0);
+        options.set(TestHelper.PRISM_FLATTEN, true);
+        numRestricted = checkCandidates(options, GUARD_INDEX_OVERLAPPING);
+        Assert.assertTrue(numRestricted > 0);
+        close(options);
+    }
+
+    /**
+     * Test the index on guards which mostly cannot be indexed.
+     */
+    @Test
+    public void nonIndexableTest() {
+        Options options = prepareOptions();
+        options.set(TestHelper.PRISM_FLATTEN, false);
+        checkCandidates(options, GUARD_INDEX_NONINDEXABLE);
+        options.set(TestHelper.PRISM_FLATTEN, true);
+        checkCandidates(options, GUARD_INDEX_NONINDEXABLE);
+        close(options);
+    }
+
+    /**
+     * Compare the candidate edges of the guard index with full guard
+     * evaluation in all reachable nodes of a model.
+     * For each node and automaton, each edge the guard of which holds must
+     * be a candidate, and the candidates must be in ascending order, as the
+     * successors of an automaton are grouped by action in edge order.
+     * 
+     * @param options options to use
+     * @param modelFile model to check the guard index of
+     * @return number of times fewer candidates than edges were obtained
+     */
+    private static int checkCandidates(Options options, String modelFile) {
+        Model model = TestHelper.loadModel(options, modelFile);
+        ModelChecker checker = new ModelChecker(model);
+        ExplorerJANI explorer = (ExplorerJANI) UtilModelChecker.buildLowLevel(model,
+                EngineExplorer.ENGINE_EXPLORER, new LinkedHashSet<>(),
+                new LinkedHashSet<>(), new LinkedHashSet<>());
+        List<ExplorerComponentAutomaton> automata = new ArrayList<>();
+        collectAutomata(explorer.getExplorerSystem(), automata);
+        Assert.assertFalse(automata.isEmpty());
+        Set<NodeJANI> seen = new HashSet<>();
+        Deque<NodeJANI> todo = new ArrayDeque<>();
+        for (NodeJANI initial : explorer.getInitialNodes()) {
+            if (seen.add(initial.clone())) {
+                todo.add(initial.clone());
+            }
+        }
+        int numRestricted = 0;
+        while (!todo.isEmpty()) {
+            NodeJANI node = todo.poll();
+            Value[] values = node.getValues();
+            for (ExplorerComponentAutomaton automaton : automata) {
+                int location = automaton.getLocationNumber(node);
+                EdgeEvaluator[] evaluators = automaton.getEdgeEvaluators(location);
+                int[] candidates = automaton.getGuardIndex(location).getCandidates(values);
+                for (int index = 1; index < candidates.length; index++) {
+                    Assert.assertTrue(candidates[index - 1] < candidates[index]);
+                }
+                for (int edgeNr = 0; edgeNr < evaluators.length; edgeNr++) {
+                    evaluators[edgeNr].setVariableValues(values);
+                    if (evaluators[edgeNr].evaluateGuard()) {
+                        Assert.assertTrue(node + " edge " + edgeNr,
+                                Arrays.binarySearch(candidates, edgeNr) >= 0);
+                    }
+                }
+                if (candidates.length < evaluators.length) {
+                    numRestricted++;
+                }
+            }
+            explorer.queryNode(node);
+            for (int succNr = 0; succNr < explorer.getNumSuccessors(); succNr++) {
+                NodeJANI successor = explorer.getSuccessorNode(succNr).clone();
+                if (seen.add(successor)) {
+                    todo.add(successor);
+                }
+            }
+        }
+        checker.close();
+        return numRestricted;
+    }
+
+    private static void collectAutomata(ExplorerComponent component,
+            List<ExplorerComponentAutomaton> automata) {
+        if (component instanceof ExplorerComponentAutomaton) {
+            automata.add((ExplorerComponentAutomaton) component);
+        } else if (component instanceof ExplorerComponentParallel) {
+            ExplorerComponentParallel parallel = (ExplorerComponentParallel) component;
+            collectAutomata(parallel.getLeft(), automata);
+            collectAutomata(parallel.getRight(), automata);
+        } else if (component instanceof ExplorerComponentRename) {
+            collectAutomata(((ExplorerComponentRename) component).getInner(), automata);
+        } else if (component instanceof ExplorerComponentSynchronisationVectors) {
+            ExplorerComponentSynchronisationVectors vectors = (ExplorerComponentSynchronisationVectors) component;
+            for (int autNr = 0; autNr < vectors.getNumAutomata(); autNr++) {
+                collectAutomata(vectors.getAutomaton(autNr), automata);
+            }
+        } else {
+            Assert.fail("unknown component " + component);
+        }
+    }
+}
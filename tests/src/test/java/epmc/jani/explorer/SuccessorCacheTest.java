@@ -0,0 +1,183 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.jani.explorer;
+
+import static epmc.ModelNamesOwn.*;
+import static epmc.graph.TestHelperGraph.exploreModel;
+import static epmc.modelchecker.TestHelper.close;
+import static epmc.modelchecker.TestHelper.computeResult;
+import static epmc.modelchecker.TestHelper.prepare;
+import static epmc.modelchecker.TestHelper.prepareOptions;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import epmc.graph.TestHelperGraph;
+import epmc.modelchecker.EngineExplicit;
+import epmc.modelchecker.EngineExplorer;
+import epmc.modelchecker.ExploreStatistics;
+import epmc.modelchecker.Model;
+import epmc.modelchecker.ModelChecker;
+import epmc.modelchecker.TestHelper;
+import epmc.modelchecker.UtilModelChecker;
+import epmc.modelchecker.options.OptionsModelChecker;
+import epmc.options.Options;
+import epmc.prism.model.convert.OptionsPRISMConverter;
+import epmc.prism.model.convert.SystemType;
+import epmc.value.Value;
+
+/**
+ * Tests for the successor cache of automata in parallel compositions.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class SuccessorCacheTest {
+    /** Properties to compare results of with and without cache. */
+    private final static String[] PROPERTIES = {
+            "Pmax=? [ F<=6 s1=2 ]",
+            "Pmin=? [ F<=6 (s1=2 | s2=2) ]",
+            "Pmax=? [ F (s1=2 & s2=0 & s3=0) ]",
+            "R{\"entries\"}max=? [ C<=6 ]",
+            "R{\"entries\"}min=? [ C<=6 ]"
+    };
+    /** Cache size used, small enough for entries to be evicted. */
+    private final static int CACHE_SIZE = 8;
+
+    /**
+     * Set up the tests.
+     */
+    @BeforeClass
+    public static void initialise() {
+        prepare();
+    }
+
+    /**
+     * Test that exploring a parallel composition with the successor cache
+     * leads to the same graph and results as without it.
+     */
+    @Test
+    public void parallelTest() {
+        Options options = prepareOptions();
+        options.set(OptionsModelChecker.ENGINE, EngineExplicit.class);
+        options.set(TestHelper.PRISM_FLATTEN, false);
+        options.set(OptionsPRISMConverter.PRISM_CONVERTER_SYSTEM_METHOD, SystemType.RECURSIVE);
+
+        options.set(OptionsJANIExplorer.JANI_EXPLORER_SUCCESSOR_CACHE_SIZE, 0);
+        ExploreStatistics uncached = exploreModel(options, SUCCESSOR_CACHE);
+        Value[] uncachedResults = computeResults(options);
+        Assert.assertEquals(0, countCacheHits(options));
+
+        options.set(OptionsJANIExplorer.JANI_EXPLORER_SUCCESSOR_CACHE_SIZE, CACHE_SIZE);
+        ExploreStatistics cached = exploreModel(options, SUCCESSOR_CACHE);
+        Value[] cachedResults = computeResults(options);
+        Assert.assertTrue(countCacheHits(options) > 0);
+
+        Assert.assertEquals(uncached.getNumNodes(), cached.getNumNodes());
+        Assert.assertEquals(uncached.getNumStates(), cached.getNumStates());
+        Assert.assertEquals(uncached.getNumTransitions(), cached.getNumTransitions());
+        for (int propNr = 0; propNr < PROPERTIES.length; propNr++) {
+            Assert.assertEquals(PROPERTIES[propNr],
+                    uncachedResults[propNr], cachedResults[propNr]);
+        }
+        TestHelperGraph.assertSameGraph(options, SUCCESSOR_CACHE,
+                o -> o.set(OptionsJANIExplorer.JANI_EXPLORER_SUCCESSOR_CACHE_SIZE, 0),
+                o -> o.set(OptionsJANIExplorer.JANI_EXPLORER_SUCCESSOR_CACHE_SIZE, CACHE_SIZE));
+        close(options);
+    }
+
+    private static Value[] computeResults(Options options) {
+        Value[] results = new Value[PROPERTIES.length];
+        for (int propNr = 0; propNr < PROPERTIES.length; propNr++) {
+            results[propNr] = computeResult(options, SUCCESSOR_CACHE, PROPERTIES[propNr]);
+        }
+        return results;
+    }
+
+    /**
+     * Explore the successor cache model and count the cache hits.
+     * If no successor cache is built for the model, the test fails, unless
+     * the cache size is zero, in which case zero is returned.
+     * 
+     * @param options options to use
+     * @return number of queries answered from successor caches
+     */
+    private static long countCacheHits(Options options) {
+        Model model = TestHelper.loadModel(options, SUCCESSOR_CACHE);
+        ModelChecker checker = new ModelChecker(model);
+        ExplorerJANI explorer = (ExplorerJANI) UtilModelChecker.buildLowLevel(model,
+                EngineExplorer.ENGINE_EXPLORER, new LinkedHashSet<>(),
+                new LinkedHashSet<>(), new LinkedHashSet<>());
+        Set<SuccessorCache> caches = new HashSet<>();
+        collectCaches(explorer.getExplorerSystem(), caches);
+        if (options.getInteger(OptionsJANIExplorer.JANI_EXPLORER_SUCCESSOR_CACHE_SIZE) == 0) {
+            Assert.assertTrue(caches.isEmpty());
+        } else {
+            Assert.assertFalse(caches.isEmpty());
+        }
+        Set<NodeJANI> seen = new HashSet<>();
+        Deque<NodeJANI> todo = new ArrayDeque<>();
+        for (NodeJANI initial : explorer.getInitialNodes()) {
+            if (seen.add(initial.clone())) {
+                todo.add(initial.clone());
+            }
+        }
+        while (!todo.isEmpty()) {
+            NodeJANI node = todo.poll();
+            explorer.queryNode(node);
+            for (int succNr = 0; succNr < explorer.getNumSuccessors(); succNr++) {
+                NodeJANI successor = explorer.getSuccessorNode(succNr).clone();
+                if (seen.add(successor)) {
+                    todo.add(successor);
+                }
+            }
+        }
+        long numHits = 0;
+        for (SuccessorCache cache : caches) {
+            numHits += cache.getNumHits();
+        }
+        checker.close();
+        return numHits;
+    }
+
+    private static void collectCaches(ExplorerComponent component,
+            Set<SuccessorCache> caches) {
+        if (component instanceof ExplorerComponentParallel) {
+            ExplorerComponentParallel parallel = (ExplorerComponentParallel) component;
+            if (parallel.getLeftCache() != null) {
+                caches.add(parallel.getLeftCache());
+            }
+            if (parallel.getRightCache() != null) {
+                caches.add(parallel.getRightCache());
+            }
+            collectCaches(parallel.getLeft(), caches);
+            collectCaches(parallel.getRight(), caches);
+        } else if (component instanceof ExplorerComponentRename) {
+            collectCaches(((ExplorerComponentRename) component).getInner(), caches);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.jani.explorer;
+
+import static epmc.ModelNamesOwn.GUARD_INDEX_OVERLAPPING;
+import static epmc.ModelNamesOwn.SUCCESSOR_CACHE;
+import static epmc.jani.ModelNames.*;
+import static epmc.modelchecker.TestHelper.close;
+import static epmc.modelchecker.TestHelper.loadModel;
+import static epmc.modelchecker.TestHelper.prepare;
+import static epmc.modelchecker.TestHelper.prepareOptions;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import epmc.graph.CommonProperties;
+import epmc.graph.SemanticsNonDet;
+import epmc.graph.explorer.ExplorerEdgeProperty;
+import epmc.jani.model.ModelJANI;
+import epmc.main.options.UtilOptionsEPMC;
+import epmc.modelchecker.EngineExplorer;
+import epmc.modelchecker.Model;
+import epmc.modelchecker.ModelChecker;
+import epmc.modelchecker.TestHelper;
+import epmc.modelchecker.TestHelper.LogType;
+import epmc.modelchecker.UtilModelChecker;
+import epmc.modelchecker.options.OptionsModelChecker;
+import epmc.options.Options;
+
+/**
+ * Tests for the action index of synchronisation vector compositions.
+ * Each model is explored with the index and with matching all vectors in
+ * each node, as done before the index was introduced. Both must lead to the
+ * same nodes, with the same successors in the same order.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class SynchronisationVectorsIndexTest {
+    /**
+     * Set up the tests.
+     */
+    @BeforeClass
+    public static void initialise() {
+        prepare();
+    }
+
+    /**
+     * Prepare options including loading JANI plugin.
+     * 
+     * @return options usable for JANI model analysis
+     */
+    private final static Options prepareJANIOptions() {
+        Options options = UtilOptionsEPMC.newOptions();
+        prepareOptions(options, LogType.TRANSLATE, ModelJANI.IDENTIFIER);
+        options.set(OptionsModelChecker.MODEL_INPUT_TYPE, ModelJANI.IDENTIFIER);
+        return options;
+    }
+
+    /**
+     * Test an MDP with vectors with empty entries, actions occurring in
+     * several vectors, and actions and silent edges occurring in no vector.
+     */
+    @Test
+    public void mdpTest() {
+        Options options = prepareJANIOptions();
+        assertSameAsMatching(options, SYNC_INDEX_MDP);
+        close(options);
+    }
+
+    /**
+     * Test a DTMC with the same structure as in {@link #mdpTest()}.
+     */
+    @Test
+    public void dtmcTest() {
+        Options options = prepareJANIOptions();
+        assertSameAsMatching(options, SYNC_INDEX_DTMC);
+        close(options);
+    }
+
+    /**
+     * Test PRISM models converted to synchronisation vectors.
+     * For each module, the conversion adds a vector for its unsynchronised
+     * edges in which all other modules have empty entries.
+     */
+    @Test
+    public void prismTest() {
+        Options options = prepareOptions();
+        options.set(TestHelper.PRISM_FLATTEN, false);
+        assertSameAsMatching(options, GUARD_INDEX_OVERLAPPING);
+        assertSameAsMatching(options, SUCCESSOR_CACHE);
+        close(options);
+    }
+
+    /**
+     * Test that partial order reduction, which selects a single ample vector
+     * rather than using the index, leads to the same successors as matching.
+     */
+    @Test
+    public void partialOrderTest() {
+        Options options = prepareJANIOptions();
+        int numNodes = assertSameAsMatching(options, POR_MDP);
+        options.set(OptionsJANIExplorer.JANI_EXPLORER_PARTIAL_ORDER_REDUCTION, true);
+        int numNodesReduced = assertSameAsMatching(options, POR_MDP);
+        Assert.assertTrue(numNodesReduced < numNodes);
+        assertSameAsMatching(options, CHAIN_MDP);
+        assertSameAsMatching(options, SYNC_INDEX_MDP);
+        close(options);
+    }
+
+    /**
+     * Explore a model with the action index and compare with matching.
+     * Both explorers query each node reachable, and the state flags, the
+     * successors and their order, and, where they are computed, the weights
+     * and labels of the successors are compared.
+     * 
+     * @param options options to use
+     * @param modelFile model to explore
+     * @return number of nodes explored
+     */
+    private static int assertSameAsMatching(Options options, String modelFile) {
+        Model model = loadModel(options, modelFile);
+        ModelChecker checker = new ModelChecker(model);
+        boolean nonDet = SemanticsNonDet.isNonDet(model.getSemantics());
+        ExplorerJANI indexed = buildExplorer(model);
+        ExplorerJANI matching = buildExplorer(model);
+        Assert.assertTrue(matching.getExplorerSystem() instanceof ExplorerComponentSynchronisationVectors);
+        ((ExplorerComponentSynchronisationVectors) matching.getExplorerSystem()).setUseActionIndex(false);
+        ExplorerEdgeProperty indexedWeight = indexed.getEdgeProperty(CommonProperties.WEIGHT);
+        ExplorerEdgeProperty matchingWeight = matching.getEdgeProperty(CommonProperties.WEIGHT);
+        ExplorerEdgeProperty indexedLabel = indexed.getEdgeProperty(CommonProperties.TRANSITION_LABEL);
+        ExplorerEdgeProperty matchingLabel = matching.getEdgeProperty(CommonProperties.TRANSITION_LABEL);
+        Set<NodeJANI> seen = new HashSet<>();
+        Deque<NodeJANI> todo = new ArrayDeque<>();
+        for (NodeJANI initial : indexed.getInitialNodes()) {
+            if (seen.add(initial.clone())) {
+                todo.add(initial.clone());
+            }
+        }
+        Assert.assertEquals(seen, new HashSet<>(matching.getInitialNodes()));
+        while (!todo.isEmpty()) {
+            NodeJANI node = todo.poll();
+            NodeJANI matchingNode = matching.newNode();
+            matchingNode.set(node);
+            indexed.queryNode(node);
+            matching.queryNode(matchingNode);
+            Assert.assertEquals(indexed.isState(), matching.isState());
+            int numSuccessors = indexed.getNumSuccessors();
+            Assert.assertEquals(node.toString(), numSuccessors, matching.getNumSuccessors());
+            for (int succNr = 0; succNr < numSuccessors; succNr++) {
+                NodeJANI successor = indexed.getSuccessorNode(succNr);
+                Assert.assertEquals(node + " successor " + succNr,
+                        successor, matching.getSuccessorNode(succNr));
+                if (nonDet && indexed.isState()) {
+                    Assert.assertEquals(indexedLabel.get(succNr), matchingLabel.get(succNr));
+                } else {
+                    Assert.assertEquals(indexedWeight.get(succNr), matchingWeight.get(succNr));
+                }
+                successor = successor.clone();
+                if (seen.add(successor)) {
+                    todo.add(successor);
+                }
+            }
+        }
+        checker.close();
+        return seen.size();
+    }
+
+    private static ExplorerJANI buildExplorer(Model model) {
+        Set<Object> edgeProperties = new LinkedHashSet<>();
+        edgeProperties.add(CommonProperties.WEIGHT);
+        edgeProperties.add(CommonProperties.TRANSITION_LABEL);
+        return (ExplorerJANI) UtilModelChecker.buildLowLevel(model,
+                EngineExplorer.ENGINE_EXPLORER, new LinkedHashSet<>(),
+                new LinkedHashSet<>(), edgeProperties);
+    }
+}
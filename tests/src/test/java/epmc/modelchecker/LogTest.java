@@ -21,7 +21,9 @@
 package epmc.modelchecker;
 
 import java.text.MessageFormat;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 
 import epmc.error.EPMCException;
 import epmc.messages.Message;
@@ -52,6 +54,8 @@ public final class LogTest implements Log {
      */
     private final long timeStarted;
     private final boolean translate;
+    /** Number of times each message was sent, including silent ones. */
+    private final Map<Message,Integer> numMessages = new HashMap<>();
 
     public LogTest(Options options, LogType logType) {
         assert options != null;
@@ -63,6 +67,7 @@ public final class LogTest implements Log {
 
     @Override
     public void send(Message message, Object... parameters) {
+        numMessages.merge(message, 1, Integer::sum);
         if (silent) {
             return;
         }
@@ -118,4 +123,15 @@ public final class LogTest implements Log {
     public ModelCheckerResults getResults() {
         return results;
     }
+
+    /**
+     * Get the number of times a message was sent to this log.
+     * 
+     * @param message message to count
+     * @return number of times the message was sent
+     */
+    public int getNumMessages(Message message) {
+        assert message != null;
+        return numMessages.getOrDefault(message, 0);
+    }
 }
@@ -0,0 +1,137 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+import org.junit.Test;
+
+/**
+ * Tests comparing bit sets of the different implementations.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class BitSetTest {
+    /** Seed for the random bit sets, fixed to make the test reproducible. */
+    private final static long SEED = 4711;
+    /** Number of random bit patterns to compare. */
+    private final static int NUM_RANDOM = 200;
+    /** Maximal number of bits of the random bit patterns. */
+    private final static int MAX_SIZE = 300;
+
+    /**
+     * Constructors of the bit set implementations. The parameter is the
+     * number of bits the bit set is constructed for.
+     */
+    private final static List<IntFunction<BitSet>> IMPLEMENTATIONS = new ArrayList<>();
+    static {
+        IMPLEMENTATIONS.add(BitSetBoundedLongArray::new);
+        IMPLEMENTATIONS.add(BitSetUnboundedIntArray::new);
+        IMPLEMENTATIONS.add(BitSetUnboundedLongArray::new);
+    }
+
+    @Test
+    public void emptyTest() {
+        for (IntFunction<BitSet> impl1 : IMPLEMENTATIONS) {
+            for (IntFunction<BitSet> impl2 : IMPLEMENTATIONS) {
+                assertEqual(impl1.apply(0), impl2.apply(0));
+                assertEqual(impl1.apply(10), impl2.apply(200));
+            }
+        }
+    }
+
+    /**
+     * Compare bit sets whose highest bits lie in later words than the
+     * capacity of the other bit set, for bit sets of the same and of
+     * different classes.
+     */
+    @Test
+    public void differentCapacityTest() {
+        for (IntFunction<BitSet> impl1 : IMPLEMENTATIONS) {
+            for (IntFunction<BitSet> impl2 : IMPLEMENTATIONS) {
+                BitSet small = impl1.apply(10);
+                BitSet large = impl2.apply(250);
+                small.set(3);
+                large.set(3);
+                assertEqual(small, large);
+                large.set(200);
+                assertDifferent(small, large);
+                large.clear(200);
+                assertEqual(small, large);
+                large.set(40);
+                assertDifferent(small, large);
+            }
+        }
+    }
+
+    @Test
+    public void randomTest() {
+        Random random = new Random(SEED);
+        for (int patternNr = 0; patternNr < NUM_RANDOM; patternNr++) {
+            int size = random.nextInt(MAX_SIZE) + 1;
+            boolean[] pattern = new boolean[size];
+            for (int index = 0; index < size; index++) {
+                pattern[index] = random.nextInt(4) == 0;
+            }
+            int flip = random.nextInt(size);
+            for (IntFunction<BitSet> impl1 : IMPLEMENTATIONS) {
+                for (IntFunction<BitSet> impl2 : IMPLEMENTATIONS) {
+                    BitSet bitSet1 = newBitSet(impl1, size, pattern);
+                    BitSet bitSet2 = newBitSet(impl2, size + random.nextInt(MAX_SIZE), pattern);
+                    assertEqual(bitSet1, bitSet2);
+                    bitSet2.flip(flip);
+                    assertDifferent(bitSet1, bitSet2);
+                }
+            }
+        }
+    }
+
+    private static BitSet newBitSet(IntFunction<BitSet> implementation,
+            int size, boolean[] pattern) {
+        BitSet result = implementation.apply(size);
+        for (int index = 0; index < pattern.length; index++) {
+            result.set(index, pattern[index]);
+        }
+        return result;
+    }
+
+    private static void assertEqual(BitSet bitSet1, BitSet bitSet2) {
+        String message = bitSet1.getClass().getSimpleName() + " "
+                + bitSet2.getClass().getSimpleName() + " " + bitSet1;
+        assertTrue(message, bitSet1.equals(bitSet2));
+        assertTrue(message, bitSet2.equals(bitSet1));
+        assertEquals(message, bitSet1.hashCode(), bitSet2.hashCode());
+    }
+
+    private static void assertDifferent(BitSet bitSet1, BitSet bitSet2) {
+        String message = bitSet1.getClass().getSimpleName() + " "
+                + bitSet2.getClass().getSimpleName() + " " + bitSet1 + " " + bitSet2;
+        assertFalse(message, bitSet1.equals(bitSet2));
+        assertFalse(message, bitSet2.equals(bitSet1));
+    }
+}
@@ -0,0 +1,191 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public final class BitStreamToNumberConcurrentTest {
+    /** Number of threads inserting objects concurrently. */
+    private final static int NUM_THREADS = 8;
+    /** Number of different objects, more than fit into a single chunk. */
+    private final static int NUM_OBJECTS = 150000;
+
+    /** Object consisting of a fixed number of bits. */
+    private final static class Words implements BitStoreable {
+        private final int numBits;
+        private final long[] words;
+
+        Words(int numBits) {
+            this.numBits = numBits;
+            this.words = new long[(numBits + Long.SIZE - 1) / Long.SIZE];
+        }
+
+        @Override
+        public void read(BitStream reader) {
+            int remaining = numBits;
+            for (int wordNr = 0; wordNr < words.length; wordNr++) {
+                int bits = Math.min(remaining, Long.SIZE);
+                words[wordNr] = reader.readBits(bits);
+                remaining -= bits;
+            }
+        }
+
+        @Override
+        public void write(BitStream writer) {
+            int remaining = numBits;
+            for (int wordNr = 0; wordNr < words.length; wordNr++) {
+                int bits = Math.min(remaining, Long.SIZE);
+                writer.writeBits(words[wordNr], bits);
+                remaining -= bits;
+            }
+        }
+
+        /**
+         * Set the words to a value uniquely derived from the given number.
+         * The highest bit of the first word and the upper bits of further
+         * words are used as well, so that they are stored and read back.
+         *
+         * @param number number to derive words from
+         */
+        void setFrom(int number) {
+            int remaining = numBits;
+            for (int wordNr = 0; wordNr < words.length; wordNr++) {
+                int bits = Math.min(remaining, Long.SIZE);
+                long value = number ^ ((long) (number & 1) << (bits - 1))
+                        ^ ((wordNr * 0x9E3779B97F4A7C15L) << 20);
+                if (bits < Long.SIZE) {
+                    value &= (1L << bits) - 1;
+                }
+                words[wordNr] = value;
+                remaining -= bits;
+            }
+        }
+    }
+
+    @Test
+    public void intConcurrentTest() throws InterruptedException {
+        checkConcurrent(BitStoreableToNumber.newNodeStoreIntConcurrent(), Integer.SIZE);
+    }
+
+    @Test
+    public void longConcurrentTest() throws InterruptedException {
+        checkConcurrent(BitStoreableToNumber.newNodeStoreLongConcurrent(), Long.SIZE);
+    }
+
+    @Test
+    public void longArrayConcurrentTest() throws InterruptedException {
+        checkConcurrent(BitStoreableToNumber.newNodeStoreLongArrayConcurrent(150), 150);
+        checkConcurrent(BitStoreableToNumber.newNodeStoreLongArrayConcurrent(20), 20);
+    }
+
+    @Test
+    public void intPackedTest() {
+        BitStoreableToNumberConcurrent intStore = BitStoreableToNumber.newNodeStoreIntConcurrent();
+        BitStoreableToNumberConcurrent longStore = BitStoreableToNumber.newNodeStoreLongConcurrent();
+        Words intWords = new Words(Integer.SIZE);
+        Words longWords = new Words(Long.SIZE);
+        for (int number = 0; number < NUM_OBJECTS; number++) {
+            intWords.setFrom(number);
+            intStore.insert(intWords);
+            longWords.setFrom(number);
+            longStore.insert(longWords);
+        }
+        assertTrue(intStore.getNumBytes() < longStore.getNumBytes());
+    }
+
+    /**
+     * Insert the same objects from several threads in different orders.
+     * Each object must be reported as new by exactly one thread, all threads
+     * must obtain the same number for the same object, and the objects must
+     * be read back correctly.
+     *
+     * @param store store to check
+     * @param numBits number of bits of objects to store
+     * @throws InterruptedException if interrupted while waiting for threads
+     */
+    private static void checkConcurrent(BitStoreableToNumberConcurrent store, int numBits)
+            throws InterruptedException {
+        AtomicIntegerArray numbers = new AtomicIntegerArray(NUM_OBJECTS);
+        for (int object = 0; object < NUM_OBJECTS; object++) {
+            numbers.set(object, -1);
+        }
+        AtomicInteger numNew = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int threadNr = 0; threadNr < NUM_THREADS; threadNr++) {
+            int thread = threadNr;
+            threads.add(new Thread(() -> {
+                try {
+                    Words words = new Words(numBits);
+                    for (int index = 0; index < NUM_OBJECTS; index++) {
+                        int object = (thread % 2 == 0) ? index : NUM_OBJECTS - 1 - index;
+                        words.setFrom(object);
+                        int number = store.insert(words);
+                        if (number < 0) {
+                            number = -number - 1;
+                            numNew.incrementAndGet();
+                        }
+                        if (!numbers.compareAndSet(object, -1, number)) {
+                            assertEquals(numbers.get(object), number);
+                        }
+                        assertEquals(number, store.toNumber(words));
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        assertEquals(NUM_OBJECTS, numNew.get());
+        assertEquals(NUM_OBJECTS, store.size());
+        boolean[] used = new boolean[NUM_OBJECTS];
+        Words expected = new Words(numBits);
+        Words actual = new Words(numBits);
+        for (int object = 0; object < NUM_OBJECTS; object++) {
+            int number = numbers.get(object);
+            assertTrue(number >= 0 && number < NUM_OBJECTS);
+            assertTrue(!used[number]);
+            used[number] = true;
+            expected.setFrom(object);
+            store.fromNumber(actual, number);
+            assertArrayEquals(expected.words, actual.words);
+        }
+        assertTrue(store.getLoadFactor() <= 0.75);
+    }
+}
@@ -0,0 +1,271 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+public final class BitStreamToNumberMappedTest {
+    /** Number of bits of objects stored in most tests. */
+    private final static int NUM_BITS = 100;
+    /** Number of objects for which both files grow beyond a mapped chunk. */
+    private final static int NUM_OBJECTS = 600000;
+    /** Number of objects for which the index grows at least once. */
+    private final static int NUM_OBJECTS_GROWN = 100000;
+    /** Position of the number of index entries in the header of the states file. */
+    private final static int HEADER_INDEX_CAPACITY = 3;
+
+    /** Object of {@link #NUM_BITS} bits derived from a number. */
+    private final static class Words implements BitStoreable {
+        private final int numBits;
+        private long low;
+        private long high;
+
+        Words(int numBits) {
+            this.numBits = numBits;
+        }
+
+        void setFrom(int number) {
+            low = number * 0x9E3779B97F4A7C15L;
+            high = number & ((1L << (numBits - Long.SIZE)) - 1);
+        }
+
+        @Override
+        public void read(BitStream reader) {
+            low = reader.readBits(Long.SIZE);
+            high = reader.readBits(numBits - Long.SIZE);
+        }
+
+        @Override
+        public void write(BitStream writer) {
+            writer.writeBits(low, Long.SIZE);
+            writer.writeBits(high, numBits - Long.SIZE);
+        }
+    }
+
+    @Test
+    public void growthTest() throws IOException {
+        Path parent = Files.createTempDirectory("epmc-mapped-test");
+        try {
+            BitStoreableToNumber store = BitStoreableToNumber
+                    .newNodeStoreLongArrayMapped(NUM_BITS, parent.toString());
+            Words words = new Words(NUM_BITS);
+            for (int number = 0; number < NUM_OBJECTS; number++) {
+                words.setFrom(number);
+                assertEquals(number, store.toNumber(words));
+            }
+            assertEquals(NUM_OBJECTS, store.size());
+            assertTrue(store.getLoadFactor() <= 0.5);
+            Words read = new Words(NUM_BITS);
+            for (int number = 0; number < NUM_OBJECTS; number++) {
+                words.setFrom(number);
+                assertEquals(number, store.toNumber(words));
+                store.fromNumber(read, number);
+                assertEquals(words.low, read.low);
+                assertEquals(words.high, read.high);
+            }
+            store.close();
+        } finally {
+            delete(parent);
+        }
+    }
+
+    @Test
+    public void privateStoresTest() throws IOException {
+        Path parent = Files.createTempDirectory("epmc-mapped-test");
+        try {
+            BitStreamToNumberMapped first = new BitStreamToNumberMapped(NUM_BITS, parent.toString());
+            BitStreamToNumberMapped second = new BitStreamToNumberMapped(NUM_BITS, parent.toString());
+            assertNotEquals(first.getDirectory(), second.getDirectory());
+            Words words = new Words(NUM_BITS);
+            words.setFrom(1);
+            first.toNumber(words);
+            words.setFrom(2);
+            first.toNumber(words);
+            assertEquals(0, second.toNumber(words));
+            assertEquals(2, first.size());
+            assertEquals(1, second.size());
+            first.close();
+            second.close();
+            assertFalse(Files.exists(first.getDirectory()));
+            assertFalse(Files.exists(second.getDirectory()));
+        } finally {
+            delete(parent);
+        }
+    }
+
+    @Test
+    public void reopenTest() throws IOException {
+        Path parent = Files.createTempDirectory("epmc-mapped-test");
+        try {
+            String directory = parent.toString();
+            BitStoreableToNumber store = BitStoreableToNumber
+                    .newNodeStoreLongArrayMapped(NUM_BITS, directory, "model", false);
+            fill(store, 1000);
+            store.close();
+
+            store = BitStoreableToNumber.newNodeStoreLongArrayMapped(NUM_BITS, directory, "model", true);
+            assertEquals(1000, store.size());
+            Words words = new Words(NUM_BITS);
+            for (int number = 999; number >= 0; number--) {
+                words.setFrom(number);
+                assertEquals(number, store.toNumber(words));
+            }
+            words.setFrom(1000);
+            assertEquals(1000, store.toNumber(words));
+            store.close();
+
+            store = BitStoreableToNumber.newNodeStoreLongArrayMapped(NUM_BITS, directory, "model", false);
+            assertEquals(0, store.size());
+            store.close();
+        } finally {
+            delete(parent);
+        }
+    }
+
+    @Test
+    public void mismatchTest() throws IOException {
+        Path parent = Files.createTempDirectory("epmc-mapped-test");
+        try {
+            String directory = parent.toString();
+            BitStoreableToNumber store = BitStoreableToNumber
+                    .newNodeStoreLongArrayMapped(NUM_BITS, directory, "model", false);
+            fill(store, 1000);
+            store.close();
+
+            store = BitStoreableToNumber.newNodeStoreLongArrayMapped(NUM_BITS + 1, directory, "model", true);
+            assertEquals(0, store.size());
+            fill(store, 10);
+            store.close();
+
+            store = BitStoreableToNumber.newNodeStoreLongArrayMapped(NUM_BITS, directory, "model", true);
+            assertEquals(0, store.size());
+            store.close();
+
+            store = BitStoreableToNumber.newNodeStoreLongArrayMapped(NUM_BITS, directory, "other", true);
+            assertEquals(0, store.size());
+            store.close();
+        } finally {
+            delete(parent);
+        }
+    }
+
+    /**
+     * Test that a store interrupted while its index was growing can be
+     * resumed. This is simulated by resetting the number of index entries
+     * in the header of the states file to the one before growing, and by
+     * removing the index file, respectively.
+     * 
+     * @throws IOException if the test files cannot be accessed
+     */
+    @Test
+    public void interruptedGrowthTest() throws IOException {
+        Path parent = Files.createTempDirectory("epmc-mapped-test");
+        try {
+            String directory = parent.toString();
+            BitStreamToNumberMapped store = new BitStreamToNumberMapped(NUM_BITS, directory, "model", false);
+            fill(store, NUM_OBJECTS_GROWN);
+            Path statesPath = store.getDirectory().resolve("states.bin");
+            Path indexPath = store.getDirectory().resolve("index.bin");
+            store.close();
+
+            MappedLongArray states = new MappedLongArray(statesPath);
+            states.set(HEADER_INDEX_CAPACITY, states.get(HEADER_INDEX_CAPACITY) / 2);
+            states.close();
+            checkResumed(directory, NUM_OBJECTS_GROWN);
+
+            Files.delete(indexPath);
+            checkResumed(directory, NUM_OBJECTS_GROWN + 1);
+        } finally {
+            delete(parent);
+        }
+    }
+
+    @Test
+    public void openTwiceTest() throws IOException {
+        Path parent = Files.createTempDirectory("epmc-mapped-test");
+        try {
+            String directory = parent.toString();
+            BitStreamToNumberMapped first = new BitStreamToNumberMapped(NUM_BITS, directory, "model", false);
+            fill(first, 100);
+            BitStreamToNumberMapped second = new BitStreamToNumberMapped(NUM_BITS, directory, "model", true);
+            assertNotEquals(first.getDirectory(), second.getDirectory());
+            assertEquals(0, second.size());
+            assertEquals(100, first.size());
+            second.close();
+            assertFalse(Files.exists(second.getDirectory()));
+            first.close();
+            assertTrue(Files.exists(first.getDirectory()));
+        } finally {
+            delete(parent);
+        }
+    }
+
+    /**
+     * Resume a store and check that it keeps the numbers of its objects.
+     * An object not contained in the store is added afterwards.
+     * 
+     * @param directory directory of the store
+     * @param numObjects number of objects expected in the store
+     */
+    private static void checkResumed(String directory, int numObjects) {
+        BitStoreableToNumber store = BitStoreableToNumber
+                .newNodeStoreLongArrayMapped(NUM_BITS, directory, "model", true);
+        assertEquals(numObjects, store.size());
+        Words words = new Words(NUM_BITS);
+        Words read = new Words(NUM_BITS);
+        for (int number = 0; number < numObjects; number++) {
+            words.setFrom(number);
+            assertEquals(number, store.toNumber(words));
+            store.fromNumber(read, number);
+            assertEquals(words.low, read.low);
+            assertEquals(words.high, read.high);
+        }
+        words.setFrom(numObjects);
+        assertEquals(numObjects, store.toNumber(words));
+        assertEquals(numObjects + 1, store.size());
+        store.close();
+    }
+
+    private static void fill(BitStoreableToNumber store, int numObjects) {
+        Words words = new Words(NUM_BITS);
+        for (int number = 0; number < numObjects; number++) {
+            words.setFrom(number);
+            store.toNumber(words);
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
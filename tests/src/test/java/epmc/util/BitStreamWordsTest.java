@@ -0,0 +1,167 @@
+/****************************************************************************
+
+    ePMC - an extensible probabilistic model checker
+    Copyright (C) 2017
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+ *****************************************************************************/
+
+package epmc.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Round-trip tests for transferring groups of bits to and from state
+ * stores. Objects are written and read using
+ * {@link BitStream#writeBits(long, int)} and {@link BitStream#readBits(int)}
+ * and compared with writing and reading them bit by bit.
+ * 
+ * @author Ernst Moritz Hahn
+ */
+public final class BitStreamWordsTest {
+    /** Number of random objects to store per test. */
+    private final static int NUM_OBJECTS = 2000;
+    /** Field widths filling a single int, starting at unaligned positions. */
+    private final static int[] INT_FIELDS = {1, 3, 7, 0, 13, 8};
+    /** Field widths filling a single long, starting at unaligned positions. */
+    private final static int[] LONG_FIELDS = {5, 17, 1, 33, 8};
+    /** Field widths such that several fields span word boundaries. */
+    private final static int[] SPANNING_FIELDS = {3, 62, 64, 1, 63, 7, 31, 29, 5};
+
+    /** Object consisting of fields of fixed numbers of bits. */
+    private final static class Fields implements BitStoreable {
+        private final int[] widths;
+        private final long[] values;
+        private final boolean bitwise;
+
+        Fields(int[] widths, boolean bitwise) {
+            this.widths = widths;
+            this.values = new long[widths.length];
+            this.bitwise = bitwise;
+        }
+
+        @Override
+        public void read(BitStream reader) {
+            for (int field = 0; field < widths.length; field++) {
+                if (bitwise) {
+                    long value = 0L;
+                    for (int bit = 0; bit < widths[field]; bit++) {
+                        value |= reader.read() ? 1L << bit : 0L;
+                    }
+                    values[field] = value;
+                } else {
+                    values[field] = reader.readBits(widths[field]);
+                }
+            }
+        }
+
+        @Override
+        public void write(BitStream writer) {
+            for (int field = 0; field < widths.length; field++) {
+                if (bitwise) {
+                    for (int bit = 0; bit < widths[field]; bit++) {
+                        writer.write((values[field] & (1L << bit)) != 0L);
+                    }
+                } else {
+                    writer.writeBits(values[field], widths[field]);
+                }
+            }
+        }
+
+        /**
+         * Set the fields to random values.
+         * Bits above the width of a field are set as well, as they must be
+         * ignored when writing the field.
+         * 
+         * @param random random number generator to use
+         */
+        void setRandom(Random random) {
+            for (int field = 0; field < widths.length; field++) {
+                values[field] = random.nextLong();
+            }
+        }
+
+        long[] getMaskedValues() {
+            long[] result = new long[values.length];
+            for (int field = 0; field < widths.length; field++) {
+                result[field] = widths[field] == 0 ? 0L
+                        : values[field] & (~0L >>> (Long.SIZE - widths[field]));
+            }
+            return result;
+        }
+    }
+
+    @Test
+    public void intTest() {
+        checkRoundTrip(BitStoreableToNumber.newNodeStoreInt(), INT_FIELDS);
+        checkRoundTrip(BitStoreableToNumber.newNodeStoreIntConcurrent(), INT_FIELDS);
+    }
+
+    @Test
+    public void longTest() {
+        checkRoundTrip(BitStoreableToNumber.newNodeStoreLong(), LONG_FIELDS);
+        checkRoundTrip(BitStoreableToNumber.newNodeStoreLongConcurrent(), LONG_FIELDS);
+    }
+
+    @Test
+    public void spanningTest() {
+        int numBits = sum(SPANNING_FIELDS);
+        checkRoundTrip(BitStoreableToNumber.newNodeStoreLongArray(numBits), SPANNING_FIELDS);
+        checkRoundTrip(BitStoreableToNumber.newNodeStoreLongArrayConcurrent(numBits), SPANNING_FIELDS);
+    }
+
+    /**
+     * Store random objects and read them back.
+     * Objects written word-wise must be read back both word-wise and bit by
+     * bit, and objects written bit by bit must be mapped to the same number
+     * as the ones written word-wise.
+     * 
+     * @param store store to check
+     * @param widths field widths of objects to store
+     */
+    private static void checkRoundTrip(BitStoreableToNumber store, int[] widths) {
+        Random random = new Random(widths.length);
+        Fields fields = new Fields(widths, false);
+        Fields bitwise = new Fields(widths, true);
+        long[][] expected = new long[NUM_OBJECTS][];
+        int[] numbers = new int[NUM_OBJECTS];
+        for (int object = 0; object < NUM_OBJECTS; object++) {
+            fields.setRandom(random);
+            expected[object] = fields.getMaskedValues();
+            numbers[object] = store.toNumber(fields);
+        }
+        Fields readBack = new Fields(widths, false);
+        for (int object = 0; object < NUM_OBJECTS; object++) {
+            store.fromNumber(readBack, numbers[object]);
+            assertArrayEquals(expected[object], readBack.getMaskedValues());
+            store.fromNumber(bitwise, numbers[object]);
+            assertArrayEquals(expected[object], bitwise.getMaskedValues());
+            assertEquals(numbers[object], store.toNumber(bitwise));
+        }
+    }
+
+    private static int sum(int[] values) {
+        int result = 0;
+        for (int value : values) {
+            result += value;
+        }
+        return result;
+    }
+}